@@ -0,0 +1,9 @@
+package com.example.project6.Enum;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    SHARED,
+    UNSHARED
+}
@@ -2,8 +2,16 @@ package com.example.project6.Service;
 
 import com.example.project6.Enum.Role;
 import com.example.project6.dao.AccountRepository;
+import com.example.project6.dao.QueryPage;
 import com.example.project6.entity.Account;
 import com.example.project6.exception.NotFoundException;
+import com.example.project6.security.PrincipalCache;
+import com.example.project6.util.Pagination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -12,12 +20,21 @@ import java.util.UUID;
 
 @Service
 public class AccountService {
+    private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
+
     private final AccountRepository accountRepository;
     private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PrincipalCache principalCache;
+    private final boolean backfillRoleShardsOnStartup;
 
-    public AccountService(AccountRepository accountRepository, BCryptPasswordEncoder bCryptPasswordEncoder) {
+    public AccountService(AccountRepository accountRepository, BCryptPasswordEncoder bCryptPasswordEncoder,
+                          PrincipalCache principalCache,
+                          @Value("${amazon.dynamodb.role-index.backfill-on-startup:false}")
+                          boolean backfillRoleShardsOnStartup) {
         this.accountRepository = accountRepository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.principalCache = principalCache;
+        this.backfillRoleShardsOnStartup = backfillRoleShardsOnStartup;
     }
 
     public Account save(Account account){
@@ -28,8 +45,11 @@ public class AccountService {
         String rawPassword = account.getPassword();
         account.setPassword(bCryptPasswordEncoder.encode(rawPassword));
 
-        // save the password to the database.
+        // save the account to the database (with its role shard, see AccountRepository).
         accountRepository.save(account);
+
+        // authenticated requests of this account should see the saved account.
+        principalCache.invalidate(account.getAccountUuid());
         return account;
     }
 
@@ -59,9 +79,32 @@ public class AccountService {
         return accountRepository.getAllByRole(Role.EMPLOYEE);
     }
 
+    public QueryPage<Account> getAccountsPageByRole(Role role, Integer limit, String nextToken) {
+        // fetches a single page of the accounts of a role, nextToken is the token returned with the previous page.
+        return accountRepository.getPageByRole(
+                role,
+                Pagination.resolvePageSize(limit),
+                Pagination.decodeNextToken(nextToken, "role", role.toString())
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRoleShards() {
+        // accounts saved before the role index was sharded (or before the number of shards changed)
+        // aren't listed until they are backfilled.
+        if (!backfillRoleShardsOnStartup) {
+            return;
+        }
+        int updated = accountRepository.backfillRoleShards();
+        logger.info("backfilled the role shard of {} accounts", updated);
+    }
+
     public void deleteAccountByUuid(UUID accountUuid) {
         Account account = Account.builder().withAccountUuid(accountUuid).build();
         accountRepository.deleteByAccountUuid(account);
+
+        // the deleted account shouldn't be able to authenticate using a cached copy.
+        principalCache.invalidate(accountUuid);
     }
 
     public List<Account> getAllAdmins() {
@@ -0,0 +1,59 @@
+package com.example.project6.Service;
+
+import com.example.project6.Enum.Role;
+import com.example.project6.dao.AccountTaskStatsRepository;
+import com.example.project6.dao.QueryPage;
+import com.example.project6.dto.AccountTaskStatsDto;
+import com.example.project6.entity.Account;
+import com.example.project6.entity.AccountTaskStats;
+import com.example.project6.util.entityAndDtoMappers.AccountTaskStatsMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class AccountTaskStatsService {
+    /*
+     * Task counters of the accounts, for dashboards (see AccountTaskStats).
+     * A page of accounts costs a query of the accounts and a BatchGetItem of their counters,
+     * instead of counting the tasks of every account.
+     * */
+
+    private final AccountTaskStatsRepository accountTaskStatsRepository;
+    private final AccountService accountService;
+
+    public AccountTaskStatsService(AccountTaskStatsRepository accountTaskStatsRepository,
+                                   AccountService accountService) {
+        this.accountTaskStatsRepository = accountTaskStatsRepository;
+        this.accountService = accountService;
+    }
+
+    public QueryPage<AccountTaskStatsDto> getAccountsTaskStatsPage(Role role, Integer limit, String nextToken) {
+        // fetches a single page of the accounts of a role, with their task counters.
+        QueryPage<Account> page = accountService.getAccountsPageByRole(role, limit, nextToken);
+        Map<UUID, AccountTaskStats> accountsTaskStats = accountTaskStatsRepository
+                .loadAll(page.items().stream().map(Account::getAccountUuid).toList())
+                .stream()
+                .collect(Collectors.toMap(AccountTaskStats::getAccountUuid, Function.identity()));
+
+        return new QueryPage<>(
+                page.items()
+                        .stream()
+                        .map(account -> AccountTaskStatsMapper.AccountTaskStatsToAccountTaskStatsDto(
+                                account, accountsTaskStats.get(account.getAccountUuid())))
+                        .toList(),
+                page.lastEvaluatedKey()
+        );
+    }
+
+    public AccountTaskStatsDto recountAccountTaskStats(UUID accountUuid, Role role) {
+        // recounts the tasks of the account (see AccountTaskStatsRepository.recount), e.g. after a failed write.
+        Account account = accountService.getAccountByUuidAndRole(accountUuid, role);
+        return AccountTaskStatsMapper.AccountTaskStatsToAccountTaskStatsDto(
+                account, accountTaskStatsRepository.recount(accountUuid)
+        );
+    }
+}
@@ -1,29 +1,87 @@
 package com.example.project6.Service;
 
+import com.example.project6.Enum.TaskStatus;
 import com.example.project6.dao.AccountTasksRepository;
+import com.example.project6.dao.QueryPage;
 import com.example.project6.entity.Account;
 import com.example.project6.entity.AccountTaskLink;
 import com.example.project6.entity.Task;
+import com.example.project6.exception.BadRequestException;
 import com.example.project6.exception.NotFoundException;
+import com.example.project6.util.Pagination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class AccountTasksService {
+    private static final Logger logger = LoggerFactory.getLogger(AccountTasksService.class);
+
     private final AccountTasksRepository accountTasksRepository;
     private final AuthenticationService authenticationService;
+    private final TaskEventHub taskEventHub;
+    private final boolean backfillTaskStatusOnStartup;
+    private final boolean backfillCreatedSkOnStartup;
     public AccountTasksService(AccountTasksRepository accountTasksRepository,
-                               AuthenticationService authenticationService) {
+                               AuthenticationService authenticationService,
+                               TaskEventHub taskEventHub,
+                               @Value("${task-status-index.backfill-on-startup:false}")
+                               boolean backfillTaskStatusOnStartup,
+                               @Value("${task-created-index.backfill-on-startup:false}")
+                               boolean backfillCreatedSkOnStartup) {
         this.accountTasksRepository = accountTasksRepository;
         this.authenticationService = authenticationService;
+        this.taskEventHub = taskEventHub;
+        this.backfillTaskStatusOnStartup = backfillTaskStatusOnStartup;
+        this.backfillCreatedSkOnStartup = backfillCreatedSkOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillTaskStatus() {
+        // links saved before the task status was denormalized into them aren't listed by status until
+        // they are backfilled.
+        if (!backfillTaskStatusOnStartup) {
+            return;
+        }
+        int updated = accountTasksRepository.backfillTaskStatus();
+        logger.info("backfilled the task status of {} account task links", updated);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCreatedSk() {
+        // links saved before ACCOUNT_CREATED_INDEX aren't listed by "api/account/tasks/recent" until they are
+        // backfilled. It runs while requests are served, the backfill only adds the missing sort keys.
+        if (!backfillCreatedSkOnStartup) {
+            return;
+        }
+        int updated = accountTasksRepository.backfillCreatedSk();
+        logger.info("backfilled the creation sort key of {} account task links", updated);
     }
 
     public List<AccountTaskLink> getAccountTasks(UUID accountUuid) {
         return accountTasksRepository.getAccountTasks(accountUuid);
     }
+    public QueryPage<AccountTaskLink> getAccountTasksPage(UUID accountUuid, Integer limit, String nextToken) {
+        // fetches a single page of the account tasks, nextToken is the token returned with the previous page.
+        String partitionKey = AccountTaskLink.builder().withAccountUuid(accountUuid).build().getPk();
+        return accountTasksRepository.getAccountTasksPage(
+                accountUuid,
+                Pagination.resolvePageSize(limit),
+                Pagination.decodeNextToken(nextToken, partitionKey)
+        );
+    }
     public void save(AccountTaskLink accountTaskLink){
         this.accountTasksRepository.save(accountTaskLink);
     }
@@ -35,6 +93,37 @@ public class AccountTasksService {
                         )
                 );
     }
+    public List<AccountTaskLink> getByAccountUuidsAndTaskUuid(List<UUID> accountUuids, UUID taskUuid){
+        // fetches the account task links of the given accounts to the given task in as few calls as possible.
+        List<AccountTaskLink> accountTaskLinks = accountTasksRepository.loadAll(
+                accountUuids
+                        .stream()
+                        .map(accountUuid -> AccountTaskLink
+                                .builder()
+                                .withAccountUuid(accountUuid)
+                                .withTaskUuid(taskUuid)
+                                .build()
+                        )
+                        .toList()
+        );
+
+        // check that all the links are found.
+        Set<UUID> foundAccountUuids = accountTaskLinks
+                .stream()
+                .map(AccountTaskLink::getAccountUuid)
+                .collect(Collectors.toSet());
+        accountUuids
+                .stream()
+                .filter(accountUuid -> !foundAccountUuids.contains(accountUuid))
+                .findFirst()
+                .ifPresent(accountUuid -> {
+                    throw new NotFoundException(
+                            String.format("couldn't find task with uuid: %s that belongs to account with uuid: %s",
+                                    taskUuid, accountUuid)
+                    );
+                });
+        return accountTaskLinks;
+    }
     public List<AccountTaskLink> getMyTasks(){
         // gets the accountTaskLinks for the currently authenticated account.
         Account currentlyAuthenticatedAccount =  authenticationService.getAuthenticatedAccount();
@@ -43,9 +132,63 @@ public class AccountTasksService {
         return getAccountTasks(currentlyAuthenticatedAccount.getAccountUuid());
     }
 
+    public QueryPage<AccountTaskLink> getMyTasksPage(Integer limit, String nextToken){
+        // gets a single page of the accountTaskLinks for the currently authenticated account.
+        Account currentlyAuthenticatedAccount =  authenticationService.getAuthenticatedAccount();
+        return getAccountTasksPage(currentlyAuthenticatedAccount.getAccountUuid(), limit, nextToken);
+    }
+    public QueryPage<AccountTaskLink> getMyRecentTasksPage(Instant createdSince, Instant createdBefore,
+                                                           Integer limit, String nextToken){
+        // gets a single page of the tasks of the currently authenticated account created in
+        // [createdSince, createdBefore), newest first, both bounds are optional.
+        // bounds before 1970 or after the largest creation time are clamped (see AccountTaskLink.createdSkBound).
+        if (createdSince != null && createdBefore != null && createdSince.isAfter(createdBefore)) {
+            throw new BadRequestException("since should not be after before");
+        }
+
+        Account currentlyAuthenticatedAccount =  authenticationService.getAuthenticatedAccount();
+        UUID accountUuid = currentlyAuthenticatedAccount.getAccountUuid();
+        String partitionKey = AccountTaskLink.builder().withAccountUuid(accountUuid).build().getPk();
+        return accountTasksRepository.getAccountTasksPageNewestFirst(
+                accountUuid,
+                createdSince,
+                createdBefore,
+                Pagination.resolvePageSize(limit),
+                Pagination.decodeNextToken(nextToken, partitionKey)
+        );
+    }
+    public QueryPage<AccountTaskLink> getMyTasksPageByStatus(TaskStatus taskStatus, Integer limit, String nextToken){
+        // gets a single page of the tasks of the currently authenticated account that have the given status,
+        // newest first, nextToken is the token returned with the previous page.
+        Account currentlyAuthenticatedAccount =  authenticationService.getAuthenticatedAccount();
+        UUID accountUuid = currentlyAuthenticatedAccount.getAccountUuid();
+        return accountTasksRepository.getAccountTasksPageByStatus(
+                accountUuid,
+                taskStatus,
+                Pagination.resolvePageSize(limit),
+                Pagination.decodeNextToken(nextToken, "status_pk", AccountTaskLink.statusPkOf(accountUuid, taskStatus))
+        );
+    }
+    public SseEmitter subscribeToMyTaskEvents(){
+        // opens a stream of the changes of the tasks of the currently authenticated account (see TaskEventHub).
+        Account currentlyAuthenticatedAccount =  authenticationService.getAuthenticatedAccount();
+        return taskEventHub.subscribe(currentlyAuthenticatedAccount.getAccountUuid());
+    }
+    public Stream<List<AccountTaskLink>> streamMyTasks(Integer pageSize){
+        // lazily streams the accountTaskLinks of the currently authenticated account page by page.
+        Account currentlyAuthenticatedAccount =  authenticationService.getAuthenticatedAccount();
+        return accountTasksRepository.streamAccountTasks(
+                currentlyAuthenticatedAccount.getAccountUuid(),
+                Pagination.resolvePageSize(pageSize)
+        );
+    }
+
     public TransactWriteItem generatePutTransactWriteItem(AccountTaskLink accountTaskLink){
         return accountTasksRepository.generatePutTransactWriteItem(accountTaskLink);
     }
+    public TransactWriteItem generateVersionedPutTransactWriteItem(AccountTaskLink accountTaskLink){
+        return accountTasksRepository.generateVersionedPutTransactWriteItem(accountTaskLink);
+    }
     public TransactWriteItem generateDeleteTransactWriteItem(AccountTaskLink accountTaskLink){
         return accountTasksRepository.generateDeleteTransactWriteItem(accountTaskLink);
     }
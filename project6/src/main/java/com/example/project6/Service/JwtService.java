@@ -1,19 +1,24 @@
 package com.example.project6.Service;
 
 import com.example.project6.security.CustomUserDetails;
+import com.example.project6.security.VerifiedToken;
+import com.example.project6.util.TtlCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.env.Environment;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
 import java.util.UUID;
@@ -21,11 +26,46 @@ import java.util.function.Function;
 
 @Service
 public class JwtService {
-    @Value("${jwt.secret}")
-    private String secretKey;
+    /*
+     * Issues and verifies jwt tokens.
+     *   - the signing key and the parser are built once, as both are immutable and thread safe.
+     *   - a token is verified (signature, expiration, claims) once into a VerifiedToken.
+     *   - recently verified tokens are cached by their SHA-256 hash, so a client sending the same token
+     *       on every request skips the HMAC and JSON work until the token expires.
+     *       "jwt.verified-cache.ttl" bounds how long a verified token is cached (0 disables the cache),
+     *       "jwt.verified-cache.max-size" bounds the number of cached tokens.
+     * */
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final TtlCache<String, VerifiedToken> verifiedTokens;
+
+    public JwtService(@Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.verified-cache.ttl:5m}") Duration verifiedCacheTtl,
+                      @Value("${jwt.verified-cache.max-size:10000}") int verifiedCacheMaxSize) {
+        this.signingKey = buildSigningKey(secretKey);
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = new TtlCache<>(verifiedCacheTtl, verifiedCacheMaxSize);
+    }
+
+    public VerifiedToken verify(String token) {
+        /*
+         * verifies the token and returns its claims, or throws a JwtException if the token is invalid
+         * (bad signature, malformed, expired).
+         * */
+        String tokenHash = hash(token);
+        VerifiedToken verifiedToken = verifiedTokens.get(tokenHash, hash -> parse(token));
+
+        // a cached token may have expired since it was verified, parsing it again throws ExpiredJwtException.
+        if (verifiedToken.isExpired(Instant.now())) {
+            verifiedTokens.invalidate(tokenHash);
+            return parse(token);
+        }
+        return verifiedToken;
+    }
 
     public UUID extractAccountUuid(String token) {
-        return UUID.fromString(extractClaim(token, Claims::getSubject));
+        return verify(token).accountUuid();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -40,35 +80,47 @@ public class JwtService {
                 .subject(email)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 24))
-                .signWith(getSiginKey())
+                .signWith(signingKey)
                 .compact();
 
     }
-    public boolean isTokenValid(String token, CustomUserDetails userDetails) {
+    public boolean isTokenValid(VerifiedToken token, CustomUserDetails userDetails) {
 
         // checks that the token belongs to the given user && if the token is expired.
-        final UUID accountUuid = extractAccountUuid(token);
-        return (accountUuid.equals(userDetails.getAccountUuid())) && !isTokenExpired(token);
+        return token.accountUuid().equals(userDetails.getAccountUuid()) && !token.isExpired(Instant.now());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(String token, CustomUserDetails userDetails) {
+        return isTokenValid(verify(token), userDetails);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
     public Claims extractAllClaims(String token){
-        SecretKey secretKey = (SecretKey) getSiginKey();
-        return Jwts
-                .parser()
-                .verifyWith(secretKey)
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
-    private Key getSiginKey(){
+    private VerifiedToken parse(String token) {
+        // the parser verifies the signature and rejects expired tokens.
+        Claims claims = extractAllClaims(token);
+        return new VerifiedToken(
+                UUID.fromString(claims.getSubject()),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant()
+        );
+    }
+
+    private static String hash(String token) {
+        // the cache holds token hashes instead of the tokens themselves.
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't available", e);
+        }
+    }
+
+    private static SecretKey buildSigningKey(String secretKey){
         // helper method that gets the secret key from the environment variables
         // returns a signature based on the provided secret.
 
@@ -84,4 +136,3 @@ public class JwtService {
                 );
     }
 }
-
@@ -0,0 +1,149 @@
+package com.example.project6.Service;
+
+import com.example.project6.dao.SnapshotJob;
+import com.example.project6.dao.TableSnapshotRepository;
+import com.example.project6.exception.BadRequestException;
+import com.example.project6.exception.ConflictException;
+import com.example.project6.exception.NotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@Service
+public class SnapshotService {
+    /*
+     * Runs the snapshot exports and imports in the background, one job at a time.
+     *   - snapshots are stored in "snapshot.directory", named after their export time.
+     *   - "snapshot.export.cron": schedule of the automatic exports (e.g. "0 0 2 * * *" for nightly backups),
+     *       disabled by default.
+     * */
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("[A-Za-z0-9._-]+\\.snapshot");
+    private static final DateTimeFormatter SNAPSHOT_TIME = DateTimeFormatter
+            .ofPattern("yyyyMMdd-HHmmss-SSS")
+            .withZone(ZoneOffset.UTC);
+
+    private final TableSnapshotRepository tableSnapshotRepository;
+    private final Path directory;
+    private final ExecutorService jobExecutor;
+    private final AtomicReference<SnapshotJob> lastJob = new AtomicReference<>();
+
+    public SnapshotService(TableSnapshotRepository tableSnapshotRepository,
+                           @Value("${snapshot.directory:snapshots}") Path directory) {
+        this.tableSnapshotRepository = tableSnapshotRepository;
+        this.directory = directory.toAbsolutePath().normalize();
+        this.jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SnapshotJob startExport() {
+        SnapshotJob job = new SnapshotJob(SnapshotJob.Type.EXPORT,
+                "app-" + SNAPSHOT_TIME.format(Instant.now()) + SNAPSHOT_EXTENSION);
+        return start(job, exportJob -> {
+            Files.createDirectories(directory);
+            tableSnapshotRepository.export(directory.resolve(exportJob.getFile()), exportJob);
+        });
+    }
+
+    public SnapshotJob startImport(String file) {
+        Path path = resolveSnapshot(file);
+        if (!Files.isRegularFile(path)) {
+            throw new NotFoundException("couldn't find snapshot: " + file);
+        }
+        return start(new SnapshotJob(SnapshotJob.Type.IMPORT, file),
+                importJob -> tableSnapshotRepository.importSnapshot(path, importJob));
+    }
+
+    public SnapshotJob getLastJob() {
+        SnapshotJob job = lastJob.get();
+        if (job == null) {
+            throw new NotFoundException("no snapshot job was started");
+        }
+        return job;
+    }
+
+    public List<String> getSnapshots() {
+        // the snapshot files, oldest first.
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> SNAPSHOT_NAME.matcher(name).matches())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Scheduled(cron = "${snapshot.export.cron:-}", zone = "UTC")
+    public void scheduledExport() {
+        try {
+            SnapshotJob job = startExport();
+            logger.info("started scheduled snapshot export {} into {}", job.getId(), job.getFile());
+        } catch (ConflictException e) {
+            logger.warn("skipped scheduled snapshot export: {}", e.getMessage());
+        }
+    }
+
+    private Path resolveSnapshot(String file) {
+        // only plain snapshot file names are accepted, so no file outside the snapshots directory can be read.
+        if (file == null || !SNAPSHOT_NAME.matcher(file).matches()) {
+            throw new BadRequestException("invalid snapshot file name: " + file);
+        }
+        return directory.resolve(file);
+    }
+
+    private SnapshotJob start(SnapshotJob job, JobTask task) {
+        SnapshotJob previous = lastJob.get();
+        if ((previous != null && previous.isRunning()) || !lastJob.compareAndSet(previous, job)) {
+            throw new ConflictException("a snapshot job is already running");
+        }
+        jobExecutor.execute(() -> {
+            try {
+                task.run(job);
+                job.succeed();
+                logger.info("snapshot {} {} finished: {} items, {} bytes, {} capacity units", job.getType(),
+                        job.getFile(), job.getItems(), job.getBytes(), job.getConsumedCapacity());
+            } catch (Exception e) {
+                job.fail(e);
+                logger.error("snapshot {} {} failed after {} items", job.getType(), job.getFile(), job.getItems(), e);
+            }
+        });
+        return job;
+    }
+
+    @FunctionalInterface
+    private interface JobTask {
+        void run(SnapshotJob job) throws IOException;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.project6.Service;
+
+import com.example.project6.dao.AccountTasksRepository;
+import com.example.project6.entity.AccountTaskLink;
+import com.example.project6.exception.NotFoundException;
+import com.example.project6.util.TtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class TaskAccessService {
+    /*
+     * Answers "is this task shared with this account ?" from memory.
+     *   - each account has a set of the uuids of the tasks shared with it,
+     *       loaded lazily (a single paginated query of the account partition) on its first check.
+     *   - sharing a task adds it to the set, un-sharing / deleting a task drops the whole set,
+     *       so the next check reloads it (this also covers a load that raced with the un-share).
+     *   - a task that isn't in the set may have been shared through another instance,
+     *       so a miss is confirmed with a GetItem of the account task link before access is denied.
+     *   - "security.task-access.ttl" bounds how long a revocation made through another instance
+     *       can go unnoticed, "security.task-access.max-accounts" bounds the number of cached accounts.
+     *   - a ttl of 0 disables the sets, each check is then a GetItem of the account task link
+     *       (rather than a query of the whole account partition).
+     * */
+
+    private final AccountTasksRepository accountTasksRepository;
+    private final TtlCache<UUID, Set<UUID>> sharedTasks;
+    private final boolean sharedTasksEnabled;
+
+    // metrics.
+    private final Counter hitsCounter;
+    private final Counter missesCounter;
+
+    public TaskAccessService(AccountTasksRepository accountTasksRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${security.task-access.ttl:60s}") Duration ttl,
+                             @Value("${security.task-access.max-accounts:10000}") int maxAccounts) {
+        this.accountTasksRepository = accountTasksRepository;
+        this.sharedTasks = new TtlCache<>(ttl, maxAccounts);
+        this.sharedTasksEnabled = !ttl.isZero() && !ttl.isNegative();
+
+        this.hitsCounter = Counter
+                .builder("security.task.access.hits")
+                .description("share checks answered from memory")
+                .register(meterRegistry);
+        this.missesCounter = Counter
+                .builder("security.task.access.misses")
+                .description("share checks that needed a GetItem of the account task link")
+                .register(meterRegistry);
+        Gauge
+                .builder("security.task.access.accounts", sharedTasks, TtlCache::size)
+                .description("accounts whose shared tasks are held in memory")
+                .register(meterRegistry);
+    }
+
+    public void checkTaskSharedWithAccount(UUID taskUuid, UUID accountUuid) {
+        // throws NotFoundException if the task isn't shared with the account.
+        if (sharedTasksEnabled && sharedTasks.get(accountUuid, this::loadSharedTasks).contains(taskUuid)) {
+            hitsCounter.increment();
+            return;
+        }
+
+        // confirm the miss, the task may have been shared with the account through another instance.
+        missesCounter.increment();
+        loadAccountTaskLink(taskUuid, accountUuid).orElseThrow(() -> new NotFoundException(
+                String.format("couldn't find task with uuid: %s that belongs to account with uuid: %s",
+                        taskUuid, accountUuid)
+        ));
+        taskShared(taskUuid, accountUuid);
+    }
+
+    public boolean isTaskSharedWithAccount(UUID taskUuid, UUID accountUuid) {
+        // answered from memory only, unlike checkTaskSharedWithAccount a miss isn't confirmed with a GetItem.
+        // (unless the sets are disabled, then the link is read).
+        if (!sharedTasksEnabled) {
+            return loadAccountTaskLink(taskUuid, accountUuid).isPresent();
+        }
+        return sharedTasks.get(accountUuid, this::loadSharedTasks).contains(taskUuid);
+    }
+
+    public void taskShared(UUID taskUuid, UUID accountUuid) {
+        // only accounts that are already loaded are updated, the others will load the task with their set.
+        Set<UUID> taskUuids = sharedTasks.getIfPresent(accountUuid);
+        if (taskUuids != null) {
+            taskUuids.add(taskUuid);
+        }
+    }
+
+    public void taskUnShared(UUID accountUuid) {
+        sharedTasks.invalidate(accountUuid);
+    }
+
+    public void taskDeleted(Collection<UUID> accountUuids) {
+        // the accounts the deleted task was shared with.
+        accountUuids.forEach(sharedTasks::invalidate);
+    }
+
+    private Optional<AccountTaskLink> loadAccountTaskLink(UUID taskUuid, UUID accountUuid) {
+        return accountTasksRepository.load(
+                AccountTaskLink.builder().withAccountUuid(accountUuid).withTaskUuid(taskUuid).build()
+        );
+    }
+
+    private Set<UUID> loadSharedTasks(UUID accountUuid) {
+        Set<UUID> taskUuids = ConcurrentHashMap.newKeySet();
+        accountTasksRepository
+                .getAccountTasks(accountUuid)
+                .forEach(accountTaskLink -> taskUuids.add(accountTaskLink.getTaskUuid()));
+        return taskUuids;
+    }
+}
@@ -1,83 +1,231 @@
 package com.example.project6.Service;
 
+import com.example.project6.Enum.TaskEventType;
+import com.example.project6.dao.AccountTaskStatsRepository;
 import com.example.project6.dao.AccountTasksRepository;
+import com.example.project6.dao.AsyncAccountRepository;
+import com.example.project6.dao.AsyncAccountTasksRepository;
+import com.example.project6.dao.AsyncTaskAccountsRepository;
+import com.example.project6.dao.AsyncTaskRepository;
+import com.example.project6.dao.QueryPage;
 import com.example.project6.dao.TaskAccountsRepository;
 import com.example.project6.dao.TaskRepository;
 import com.example.project6.dao.TransactionsRepository;
+import com.example.project6.dao.VersionedWrites;
 import com.example.project6.entity.Account;
 import com.example.project6.entity.AccountTaskLink;
 import com.example.project6.entity.Task;
 import com.example.project6.entity.TaskAccountLink;
+import com.example.project6.exception.ConflictException;
 import com.example.project6.exception.NotFoundException;
+import com.example.project6.util.Futures;
+import com.example.project6.util.Pagination;
+import com.example.project6.util.RetryBackoff;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
 import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 @Service
 public class TaskAccountsService {
     private final TaskAccountsRepository taskAccountsRepository;
-    private final TaskRepository taskRepository;
-    private final AccountService accountService;
     private final AccountTasksRepository accountTasksRepository;
+    private final TaskRepository taskRepository;
     private final TransactionsRepository transactionsRepository;
+    private final TaskAccessService taskAccessService;
+    private final TaskCache taskCache;
+    private final TaskEventHub taskEventHub;
+    private final AccountTaskStatsRepository accountTaskStatsRepository;
+
+    // non-blocking repositories, used to run independent reads concurrently.
+    private final AsyncTaskRepository asyncTaskRepository;
+    private final AsyncAccountRepository asyncAccountRepository;
+    private final AsyncTaskAccountsRepository asyncTaskAccountsRepository;
+    private final AsyncAccountTasksRepository asyncAccountTasksRepository;
+
+    // optimistic concurrency control, the number of times a write that lost a race is attempted.
+    private static final int MAX_WRITE_ATTEMPTS = 4;
+    private final RetryBackoff writeConflictBackoff = new RetryBackoff(20, 250);
+
     public TaskAccountsService(TaskAccountsRepository taskAccountsRepository,
-                               TaskRepository taskRepository,
-                               AccountService accountService, AccountTasksRepository accountTasksRepository, TransactionsRepository transactionsRepository) {
+                               AccountTasksRepository accountTasksRepository, TaskRepository taskRepository,
+                               TransactionsRepository transactionsRepository,
+                               TaskAccessService taskAccessService,
+                               TaskCache taskCache,
+                               TaskEventHub taskEventHub,
+                               AccountTaskStatsRepository accountTaskStatsRepository,
+                               AsyncTaskRepository asyncTaskRepository,
+                               AsyncAccountRepository asyncAccountRepository,
+                               AsyncTaskAccountsRepository asyncTaskAccountsRepository,
+                               AsyncAccountTasksRepository asyncAccountTasksRepository) {
         this.taskAccountsRepository = taskAccountsRepository;
-        this.taskRepository = taskRepository;
-        this.accountService = accountService;
         this.accountTasksRepository = accountTasksRepository;
+        this.taskRepository = taskRepository;
         this.transactionsRepository = transactionsRepository;
+        this.taskAccessService = taskAccessService;
+        this.taskCache = taskCache;
+        this.taskEventHub = taskEventHub;
+        this.accountTaskStatsRepository = accountTaskStatsRepository;
+        this.asyncTaskRepository = asyncTaskRepository;
+        this.asyncAccountRepository = asyncAccountRepository;
+        this.asyncTaskAccountsRepository = asyncTaskAccountsRepository;
+        this.asyncAccountTasksRepository = asyncAccountTasksRepository;
     }
 
     public List<TaskAccountLink> getTaskAccounts(UUID taskUuid) {
         return taskAccountsRepository.getTaskAccounts(taskUuid);
     }
 
+    public QueryPage<TaskAccountLink> getTaskAccountsPage(UUID taskUuid, Integer limit, String nextToken) {
+        // fetches a single page of the task accounts, nextToken is the token returned with the previous page.
+        String partitionKey = TaskAccountLink.builder().withTaskUuid(taskUuid).build().getPk();
+        return taskAccountsRepository.getTaskAccountsPage(
+                taskUuid,
+                Pagination.resolvePageSize(limit),
+                Pagination.decodeNextToken(nextToken, partitionKey)
+        );
+    }
+
+    public Stream<List<TaskAccountLink>> streamTaskAccounts(UUID taskUuid, Integer pageSize) {
+        // lazily streams the task accounts page by page.
+        return taskAccountsRepository.streamTaskAccounts(taskUuid, Pagination.resolvePageSize(pageSize));
+    }
+
     public void save(TaskAccountLink taskAccountLink){
         taskAccountsRepository.save(taskAccountLink);
     }
-    public void shareTaskWithAccount(UUID taskUuid, UUID accountUuid){
-        // fetch the task from the database.
-        Task dbTask = taskRepository.load(Task.builder().withTaskUuid(taskUuid).build()).orElseThrow(
-                ()-> new NotFoundException(String.format("couldn't find task with uuid: %s", taskUuid))
-        );
+    public TaskAccountLink shareTaskWithAccount(UUID taskUuid, UUID accountUuid){
+        /*
+         * shares the task with the account, by writing both sides of the link in a single transaction.
+         * The task counters of the account are incremented in the same transaction, only if the task wasn't
+         * shared with the account yet. Sharing it again only refreshes the links.
+         * The transaction also bumps the version of the task (conditioned on the version that was read),
+         * so it is serialized with the writes of the task (see TaskService.writeTaskWithLinks):
+         *   - a status change committed after the task was read fails the share, which is retried with the new status
+         *       (the link and the counter it increments get the new status).
+         *   - a status change that read the links before the share fails its version check, and is retried
+         *       with the new link (it moves its counter too).
+         *   - after MAX_WRITE_ATTEMPTS lost races, the share fails with ConflictException.
+         * Returns the task account link as committed, instead of reading it back.
+         * */
 
-        // fetch the account from the database.
-        Account dbAccount = accountService.getAccountByUuid(accountUuid);
-
-        // build the task account link.
-        TaskAccountLink taskAccountLink = TaskAccountLink
-                .builder()
-                .withTaskUuid(dbTask.getTaskUuid())
-                .withAccountUuid(dbAccount.getAccountUuid())
-                .withAccountName(dbAccount.getName())
-                .withTaskTitle(dbTask.getTitle())
-                .build();
-
-        // build the account task link (to handle the other side of the relation).
-        AccountTaskLink accountTaskLink = AccountTaskLink
-                .builder()
-                .withTaskUuid(dbTask.getTaskUuid())
-                .withAccountUuid(dbAccount.getAccountUuid())
-                .withAccountName(dbAccount.getName())
-                .withTaskTitle(dbTask.getTitle())
-                .build();
-
-        // get write transaction item for the task account link.
-        List<TransactWriteItem> transactWriteItems = Stream.of(
-                generatePutTransactWriteItem(taskAccountLink),
-                        accountTasksRepository.generatePutTransactWriteItem(accountTaskLink)
-                )
-                .toList();
-        TransactWriteItemsRequest transactWriteItemsRequest = TransactWriteItemsRequest.builder().transactItems(
-                transactWriteItems
-        ).build();
-        transactionsRepository.transactionWrite(transactWriteItemsRequest);
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                writeConflictBackoff.sleep(attempt);
+            }
+
+            // fetch the task (strongly consistent, the task may have been created a moment ago,
+            // and its version conditions the share) and the account from the database, concurrently.
+            CompletableFuture<Optional<Task>> taskFuture = asyncTaskRepository.load(
+                    Task.builder().withTaskUuid(taskUuid).build(), true
+            );
+            CompletableFuture<Optional<Account>> accountFuture = asyncAccountRepository.load(
+                    Account.builder().withAccountUuid(accountUuid).build()
+            );
+            Task dbTask = Futures.join(taskFuture).orElseThrow(
+                    ()-> new NotFoundException(String.format("couldn't find task with uuid: %s", taskUuid))
+            );
+            Account dbAccount = Futures.join(accountFuture).orElseThrow(
+                    ()-> new NotFoundException("Couldn't find account with uuid: "+ accountUuid)
+            );
+
+            // build the task account link.
+            TaskAccountLink taskAccountLink = TaskAccountLink
+                    .builder()
+                    .withTaskUuid(dbTask.getTaskUuid())
+                    .withAccountUuid(dbAccount.getAccountUuid())
+                    .withAccountName(dbAccount.getName())
+                    .withTaskTitle(dbTask.getTitle())
+                    .build();
+
+            // build the account task link (to handle the other side of the relation).
+            AccountTaskLink accountTaskLink = AccountTaskLink
+                    .builder()
+                    .withTaskUuid(dbTask.getTaskUuid())
+                    .withAccountUuid(dbAccount.getAccountUuid())
+                    .withAccountName(dbAccount.getName())
+                    .withTaskTitle(dbTask.getTitle())
+                    .withTaskStatus(dbTask.getStatus())
+                    .build();
+
+            // get write transaction items for the task version (first), the task account link,
+            // and the account task link if it is new, with the task counters of the account.
+            Long readVersion = dbTask.getVersion();
+            List<TransactWriteItem> transactWriteItems = Stream.of(
+                            taskRepository.generateVersionBumpTransactWriteItem(dbTask),
+                            taskAccountsRepository.generateCreateTransactWriteItem(taskAccountLink),
+                            accountTasksRepository.generateCreateTransactWriteItem(accountTaskLink),
+                            accountTaskStatsRepository.generateAddTransactWriteItem(accountUuid, dbTask.getStatus(), 1)
+                    )
+                    .toList();
+            try {
+                transactionsRepository.transactionWrite(
+                        TransactWriteItemsRequest.builder().transactItems(transactWriteItems).build()
+                );
+            } catch (TransactionCanceledException e) {
+                if (!VersionedWrites.isWriteConflict(e)) {
+                    throw e;
+                }
+                // unless only the links failed (already shared), the task was written meanwhile
+                // (or the transaction conflicted with another one).
+                if (VersionedWrites.isConditionalCheckFailure(e, 0)
+                        || !VersionedWrites.isConditionalCheckFailure(e, 2)
+                        || !refreshLinks(dbTask, readVersion, taskAccountLink, accountTaskLink)) {
+                    continue;
+                }
+            } finally {
+                // the version of the task may have changed.
+                taskCache.invalidate(taskUuid);
+            }
+            taskAccessService.taskShared(taskUuid, accountUuid);
+            taskEventHub.publish(TaskEventType.SHARED, dbTask, List.of(accountUuid));
+            return taskAccountLink;
+        }
+        throw new ConflictException(String.format(
+                "couldn't share task with uuid: %s with account with uuid: %s because of concurrent updates, "
+                        + "try again later", taskUuid, accountUuid));
+    }
+    private boolean refreshLinks(Task dbTask, Long readVersion,
+                                 TaskAccountLink taskAccountLink, AccountTaskLink accountTaskLink){
+        /*
+         * Helper method, the task is already shared with the account: the links are overwritten,
+         * and the counters are left as is. Still conditioned on the version of the task that was read,
+         * and on the versions of the stored links, which are bumped like any other write of them.
+         * Returns false if the task or the links were written meanwhile.
+         * */
+        CompletableFuture<Optional<TaskAccountLink>> storedTaskAccountLinkFuture =
+                asyncTaskAccountsRepository.load(taskAccountLink, true);
+        CompletableFuture<Optional<AccountTaskLink>> storedAccountTaskLinkFuture =
+                asyncAccountTasksRepository.load(accountTaskLink, true);
+        Optional<TaskAccountLink> storedTaskAccountLink = Futures.join(storedTaskAccountLinkFuture);
+        Optional<AccountTaskLink> storedAccountTaskLink = Futures.join(storedAccountTaskLinkFuture);
+        if (storedTaskAccountLink.isEmpty() || storedAccountTaskLink.isEmpty()) {
+            // un-shared meanwhile.
+            return false;
+        }
+
+        dbTask.setVersion(readVersion);
+        taskAccountLink.setVersion(storedTaskAccountLink.get().getVersion());
+        accountTaskLink.setVersion(storedAccountTaskLink.get().getVersion());
+        try {
+            transactionsRepository.transactionWrite(TransactWriteItemsRequest.builder().transactItems(
+                    taskRepository.generateVersionBumpTransactWriteItem(dbTask),
+                    taskAccountsRepository.generateVersionedPutTransactWriteItem(taskAccountLink),
+                    accountTasksRepository.generateVersionedPutTransactWriteItem(accountTaskLink)
+            ).build());
+            return true;
+        } catch (TransactionCanceledException e) {
+            if (!VersionedWrites.isWriteConflict(e)) {
+                throw e;
+            }
+            return false;
+        }
     }
     public TaskAccountLink getByTaskUuidAndAccountUuid(UUID taskUuid, UUID accountUuid){
         return taskAccountsRepository.load(
@@ -93,18 +241,34 @@ public class TaskAccountsService {
     }
 
     public void unShareTaskWithAccount(UUID taskUuid, UUID accountUuid){
-       // fetch the task account link from the database.
-        TaskAccountLink taskAccountLink = getByTaskUuidAndAccountUuid(taskUuid, accountUuid);
-        AccountTaskLink accountTaskLink = accountTasksRepository.getByAccountUuidAndTaskUuid(accountUuid, taskUuid)
+        /*
+         * un-shares the task with the account, by deleting both sides of the link in a single transaction,
+         * and decrements the task counters of the account (by the status of the link that was read).
+         * The account task link is only deleted if it wasn't changed meanwhile, so the counters stay exact.
+         * */
+
+       // fetch both sides of the link from the database, concurrently.
+        CompletableFuture<Optional<TaskAccountLink>> taskAccountLinkFuture = asyncTaskAccountsRepository.load(
+                TaskAccountLink.builder().withTaskUuid(taskUuid).withAccountUuid(accountUuid).build()
+        );
+        CompletableFuture<Optional<AccountTaskLink>> accountTaskLinkFuture = asyncAccountTasksRepository.load(
+                AccountTaskLink.builder().withAccountUuid(accountUuid).withTaskUuid(taskUuid).build(), true
+        );
+        TaskAccountLink taskAccountLink = Futures.join(taskAccountLinkFuture).orElseThrow(()-> new NotFoundException(
+                String.format("task with uuid: %s, isn't shared with account with uuid: %s", taskUuid, accountUuid)
+        ));
+        AccountTaskLink accountTaskLink = Futures.join(accountTaskLinkFuture)
                 .orElseThrow(()-> new NotFoundException(
                         String.format("couldn't find account task link for accountUuid: %s, and taskUuid: %s",
                                 accountUuid, taskUuid)
                 ));
 
-        // get write transaction item for the task account link.
+        // get write transaction items for both sides of the link, and the task counters of the account.
         List<TransactWriteItem> transactWriteItems = Stream.of(
                         generateDeleteTransactWriteItem(taskAccountLink),
-                        accountTasksRepository.generateDeleteTransactWriteItem(accountTaskLink)
+                        accountTasksRepository.generateVersionedDeleteTransactWriteItem(accountTaskLink),
+                        accountTaskStatsRepository.generateAddTransactWriteItem(
+                                accountUuid, accountTaskLink.getTaskStatus(), -1)
                 )
                 .toList();
 
@@ -113,7 +277,18 @@ public class TaskAccountsService {
         ).build();
 
         // fire the transaction.
-        transactionsRepository.transactionWrite(transactWriteItemsRequest);
+        try {
+            transactionsRepository.transactionWrite(transactWriteItemsRequest);
+        } catch (TransactionCanceledException e) {
+            if (VersionedWrites.isWriteConflict(e)) {
+                throw new ConflictException(String.format(
+                        "task with uuid: %s, was changed while it was un-shared with account with uuid: %s, try again",
+                        taskUuid, accountUuid));
+            }
+            throw e;
+        }
+        taskAccessService.taskUnShared(accountUuid);
+        taskEventHub.publish(TaskEventType.UNSHARED, Task.builder().withTaskUuid(taskUuid).build(), List.of(accountUuid));
     }
 
 
@@ -122,6 +297,9 @@ public class TaskAccountsService {
         return taskAccountsRepository.generatePutTransactWriteItem(taskAccountLink);
     }
 
+    public TransactWriteItem generateVersionedPutTransactWriteItem(TaskAccountLink taskAccountLink){
+        return taskAccountsRepository.generateVersionedPutTransactWriteItem(taskAccountLink);
+    }
     public TransactWriteItem generateDeleteTransactWriteItem(TaskAccountLink taskAccountLink){
         return taskAccountsRepository.generateDeleteTransactWriteItem(taskAccountLink);
     }
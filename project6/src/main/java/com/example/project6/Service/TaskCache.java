@@ -0,0 +1,78 @@
+package com.example.project6.Service;
+
+import com.example.project6.entity.Task;
+import com.example.project6.util.TtlCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Component
+public class TaskCache {
+    /*
+     * Near-cache of the tasks read by uuid (eventually consistent reads only),
+     * so a popular task read by many accounts at once costs one GetItem per "task-cache.ttl",
+     * instead of one per read on the same hot partition.
+     *   - concurrent misses on the same task share a single GetItem (see TtlCache).
+     *   - entries are invalidated when the task is written or deleted (on this instance),
+     *       "task-cache.ttl" bounds how stale an entry can be after a write made through another instance,
+     *       so it is kept short. A ttl of 0 disables the cache.
+     *   - "task-cache.max-size" bounds the number of cached tasks.
+     *   - every read gets its own copy of the cached task, so callers can't modify the cached one.
+     * */
+
+    private final TtlCache<UUID, Task> cache;
+
+    public TaskCache(@Value("${task-cache.ttl:2s}") Duration ttl,
+                     @Value("${task-cache.max-size:10000}") int maxSize,
+                     MeterRegistry meterRegistry) {
+        this.cache = new TtlCache<>(ttl, maxSize);
+
+        FunctionCounter
+                .builder("task.cache.hits", cache, TtlCache::getHits)
+                .description("task reads answered from the cache")
+                .register(meterRegistry);
+        FunctionCounter
+                .builder("task.cache.misses", cache, TtlCache::getMisses)
+                .description("task reads loaded from the database")
+                .register(meterRegistry);
+        FunctionCounter
+                .builder("task.cache.coalesced", cache, TtlCache::getCoalesced)
+                .description("task reads that waited for the load of a concurrent read, instead of loading the task")
+                .register(meterRegistry);
+        FunctionCounter
+                .builder("task.cache.evictions", cache, TtlCache::getEvictions)
+                .description("tasks evicted from the cache because it was full")
+                .register(meterRegistry);
+        Gauge
+                .builder("task.cache.size", cache, TtlCache::size)
+                .description("number of cached tasks")
+                .register(meterRegistry);
+    }
+
+    public Task getTask(UUID taskUuid, Function<UUID, Task> loader) {
+        // returns a copy of the cached task, or null if the loader didn't find it (missing tasks aren't cached).
+        Task task = cache.get(taskUuid, loader);
+        return task == null ? null : copy(task);
+    }
+
+    public void invalidate(UUID taskUuid) {
+        cache.invalidate(taskUuid);
+    }
+
+    private static Task copy(Task task) {
+        return Task
+                .builder()
+                .withTaskUuid(task.getTaskUuid())
+                .withTitle(task.getTitle())
+                .withDescription(task.getDescription())
+                .withStatus(task.getStatus())
+                .withVersion(task.getVersion())
+                .build();
+    }
+}
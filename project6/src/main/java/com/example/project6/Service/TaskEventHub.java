@@ -0,0 +1,290 @@
+package com.example.project6.Service;
+
+import com.example.project6.Enum.TaskEventType;
+import com.example.project6.dto.TaskEventDto;
+import com.example.project6.entity.Task;
+import com.example.project6.exception.TooManyRequestsException;
+import com.example.project6.util.entityAndDtoMappers.TaskMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class TaskEventHub {
+    /*
+     * Pushes the task changes to the accounts they concern over Server-Sent Events,
+     * so clients don't need to poll /api/account/tasks and /api/task/{uuid} for changes.
+     *   - "task-events.max-subscriptions-per-account" streams per account (e.g. browser tabs),
+     *       "task-events.max-subscriptions" in total, further subscriptions are rejected with 429.
+     *   - the events of a task published within "task-events.coalesce-window" are coalesced,
+     *       the subscriber only gets the latest one (e.g. a burst of title edits is sent once).
+     *       CREATED, UPDATED and SHARED carry the task as it is after the change (an upsert for the client),
+     *       DELETED and UNSHARED only carry its uuid, so the latest event is always enough.
+     *   - each subscriber has a bounded queue of "task-events.max-pending" tasks. A subscriber that can't keep up
+     *       doesn't hold memory or delay the others: its queue is dropped, and it gets a single "resync" event,
+     *       telling it to fetch /api/account/tasks again.
+     *   - events are sent by "task-events.dispatch-threads" threads, never by the request thread that made
+     *       the change, and one batch at a time per subscriber, so its events stay in order.
+     *   - a comment is sent every "task-events.heartbeat", to keep idle connections open through proxies
+     *       and to notice the closed ones.
+     * Only the changes made through this instance are pushed: clients fetch /api/account/tasks when they
+     * (re)connect, then apply the events.
+     * */
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskEventHub.class);
+    private static final String RESYNC_EVENT = "resync";
+
+    private final long timeoutMillis;
+    private final long coalesceWindowNanos;
+    private final int maxPending;
+    private final int maxSubscriptions;
+    private final int maxSubscriptionsPerAccount;
+    private final long reconnectMillis;
+    private final ScheduledExecutorService dispatcher;
+
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+
+    // metrics.
+    private final Counter sentCounter;
+    private final Counter coalescedCounter;
+    private final Counter resyncCounter;
+
+    public TaskEventHub(MeterRegistry meterRegistry,
+                        @Value("${task-events.timeout:30m}") Duration timeout,
+                        @Value("${task-events.coalesce-window:250ms}") Duration coalesceWindow,
+                        @Value("${task-events.max-pending:256}") int maxPending,
+                        @Value("${task-events.max-subscriptions:10000}") int maxSubscriptions,
+                        @Value("${task-events.max-subscriptions-per-account:5}") int maxSubscriptionsPerAccount,
+                        @Value("${task-events.heartbeat:25s}") Duration heartbeat,
+                        @Value("${task-events.reconnect:3s}") Duration reconnect,
+                        @Value("${task-events.dispatch-threads:2}") int dispatchThreads) {
+        this.timeoutMillis = timeout.toMillis();
+        this.coalesceWindowNanos = coalesceWindow.toNanos();
+        this.maxPending = maxPending;
+        this.maxSubscriptions = maxSubscriptions;
+        this.maxSubscriptionsPerAccount = maxSubscriptionsPerAccount;
+        this.reconnectMillis = reconnect.toMillis();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newScheduledThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "task-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher.scheduleAtFixedRate(
+                this::sendHeartbeats, heartbeat.toNanos(), heartbeat.toNanos(), TimeUnit.NANOSECONDS);
+
+        this.sentCounter = Counter
+                .builder("task.events.sent")
+                .description("task events sent to subscribers")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter
+                .builder("task.events.coalesced")
+                .description("task events replaced by a later event of the same task before they were sent")
+                .register(meterRegistry);
+        this.resyncCounter = Counter
+                .builder("task.events.resyncs")
+                .description("subscribers whose pending events were dropped because they couldn't keep up")
+                .register(meterRegistry);
+        meterRegistry.gauge("task.events.subscribers", subscriptions);
+    }
+
+    public SseEmitter subscribe(UUID accountUuid) {
+        // opens a new stream of the task events of the account.
+        if (subscriptions.incrementAndGet() > maxSubscriptions) {
+            subscriptions.decrementAndGet();
+            throw new TooManyRequestsException("too many task event subscriptions, try again later");
+        }
+
+        Subscriber subscriber = new Subscriber(accountUuid, new SseEmitter(timeoutMillis));
+        boolean[] added = new boolean[1];
+        subscribers.compute(accountUuid, (uuid, accountSubscribers) -> {
+            Set<Subscriber> result = accountSubscribers != null ? accountSubscribers : ConcurrentHashMap.newKeySet();
+            if (result.size() < maxSubscriptionsPerAccount) {
+                added[0] = result.add(subscriber);
+            }
+            return result;
+        });
+        if (!added[0]) {
+            subscriptions.decrementAndGet();
+            throw new TooManyRequestsException("too many task event subscriptions for account: " + accountUuid);
+        }
+
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        try {
+            // tells the client how long to wait before reconnecting, once the stream times out.
+            emitter.send(SseEmitter.event().reconnectTime(reconnectMillis).comment("subscribed"));
+        } catch (IOException e) {
+            subscriber.close();
+        }
+        return emitter;
+    }
+
+    public void publish(TaskEventType type, Task task, Collection<UUID> accountUuids) {
+        // publishes a change of the task to the given accounts.
+        TaskEventDto event = toEvent(type, task);
+        List<UUID> recipients = List.copyOf(accountUuids);
+        dispatcher.execute(() -> recipients.forEach(accountUuid -> offer(accountUuid, event)));
+    }
+
+    public int getSubscriptions() {
+        return subscriptions.get();
+    }
+
+    private TaskEventDto toEvent(TaskEventType type, Task task) {
+        boolean removed = type == TaskEventType.DELETED || type == TaskEventType.UNSHARED;
+        return new TaskEventDto(
+                type,
+                task.getTaskUuid(),
+                removed ? null : TaskMapper.TaskEntityToTaskDto(task),
+                removed ? null : task.getVersion()
+        );
+    }
+
+    private void offer(UUID accountUuid, TaskEventDto event) {
+        Set<Subscriber> accountSubscribers = subscribers.get(accountUuid);
+        if (accountSubscribers != null) {
+            accountSubscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    private void sendHeartbeats() {
+        subscribers.values().forEach(accountSubscribers -> accountSubscribers.forEach(Subscriber::sendHeartbeat));
+    }
+
+    private final class Subscriber {
+        /*
+         * A single stream, with its pending events keyed by task uuid (in the order of their latest change).
+         * */
+
+        private final UUID accountUuid;
+        private final SseEmitter emitter;
+
+        // guarded by this.
+        private final LinkedHashMap<UUID, TaskEventDto> pending = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean scheduled;
+        private boolean closed;
+
+        private Subscriber(UUID accountUuid, SseEmitter emitter) {
+            this.accountUuid = accountUuid;
+            this.emitter = emitter;
+        }
+
+        private void offer(TaskEventDto event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (!overflowed) {
+                    // re-inserted, so the task moves to the end of the queue.
+                    if (pending.remove(event.taskUuid()) != null) {
+                        coalescedCounter.increment();
+                    }
+                    if (pending.size() < maxPending) {
+                        pending.put(event.taskUuid(), event);
+                    } else {
+                        pending.clear();
+                        overflowed = true;
+                        resyncCounter.increment();
+                    }
+                }
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            dispatcher.schedule(this::flush, coalesceWindowNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void flush() {
+            // sends the pending events, the events published meanwhile are sent by the next flush.
+            List<TaskEventDto> events;
+            boolean resync;
+            synchronized (this) {
+                events = new ArrayList<>(pending.values());
+                pending.clear();
+                resync = overflowed;
+                overflowed = false;
+            }
+
+            try {
+                if (resync) {
+                    emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(Map.of(), MediaType.APPLICATION_JSON));
+                }
+                for (TaskEventDto event : events) {
+                    emitter.send(SseEmitter.event()
+                            .name(event.type().name().toLowerCase(Locale.ROOT))
+                            .data(event, MediaType.APPLICATION_JSON));
+                    sentCounter.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client is gone.
+                logger.debug("closing task events stream of account {}: {}", accountUuid, e.getMessage());
+                emitter.completeWithError(e);
+                close();
+                return;
+            }
+
+            synchronized (this) {
+                if (closed || (pending.isEmpty() && !overflowed)) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            dispatcher.schedule(this::flush, coalesceWindowNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void sendHeartbeat() {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                close();
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            subscribers.computeIfPresent(accountUuid, (uuid, accountSubscribers) -> {
+                accountSubscribers.remove(this);
+                return accountSubscribers.isEmpty() ? null : accountSubscribers;
+            });
+            subscriptions.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(accountSubscribers -> accountSubscribers.forEach(subscriber -> {
+            subscriber.emitter.complete();
+            subscriber.close();
+        }));
+    }
+}
@@ -2,22 +2,31 @@ package com.example.project6.Service;
 
 
 import com.example.project6.Enum.Role;
+import com.example.project6.Enum.TaskEventType;
 import com.example.project6.Enum.TaskStatus;
+import com.example.project6.dao.AccountTaskStatsRepository;
+import com.example.project6.dao.AsyncTaskAccountsRepository;
+import com.example.project6.dao.AsyncTaskRepository;
 import com.example.project6.dao.TaskRepository;
 import com.example.project6.dao.TransactionsRepository;
+import com.example.project6.dao.VersionedWrites;
 import com.example.project6.entity.Account;
 import com.example.project6.entity.AccountTaskLink;
 import com.example.project6.entity.Task;
 import com.example.project6.entity.TaskAccountLink;
+import com.example.project6.exception.ConflictException;
 import com.example.project6.exception.NotFoundException;
+import com.example.project6.exception.PreconditionFailedException;
 import com.example.project6.security.CustomUserDetails;
-import org.aspectj.weaver.ast.Not;
+import com.example.project6.util.Futures;
+import com.example.project6.util.RetryBackoff;
+import com.example.project6.util.TimeOrderedUuid;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
-
-import java.security.Principal;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -31,12 +40,30 @@ public class TaskService {
     private final AuthenticationService authenticationService;
     private final AccountTasksService accountTasksService;
     private final TransactionsRepository transactionsRepository;
+    private final TaskAccessService taskAccessService;
+    private final TaskCache taskCache;
+    private final TaskEventHub taskEventHub;
+    private final AccountTaskStatsRepository accountTaskStatsRepository;
+
+    // non-blocking repositories, used to run independent reads concurrently.
+    private final AsyncTaskRepository asyncTaskRepository;
+    private final AsyncTaskAccountsRepository asyncTaskAccountsRepository;
+
+    // optimistic concurrency control, the number of times a write that lost a race is attempted.
+    private static final int MAX_WRITE_ATTEMPTS = 4;
+    private final RetryBackoff writeConflictBackoff = new RetryBackoff(20, 250);
 
     public TaskService(TaskRepository taskRepository,
                        AccountService accountService, AuthenticationService authenticationService,
                        TaskAccountsService taskAccountsService,
                        TransactionsRepository transactionsRepository,
-                       AccountTasksService accountTasksService) {
+                       AccountTasksService accountTasksService,
+                       TaskAccessService taskAccessService,
+                       TaskCache taskCache,
+                       TaskEventHub taskEventHub,
+                       AccountTaskStatsRepository accountTaskStatsRepository,
+                       AsyncTaskRepository asyncTaskRepository,
+                       AsyncTaskAccountsRepository asyncTaskAccountsRepository) {
 
         this.taskRepository = taskRepository;
         this.taskAccountsService = taskAccountsService;
@@ -44,12 +71,19 @@ public class TaskService {
         this.authenticationService = authenticationService;
         this.accountTasksService = accountTasksService;
         this.transactionsRepository = transactionsRepository;
+        this.taskAccessService = taskAccessService;
+        this.taskCache = taskCache;
+        this.taskEventHub = taskEventHub;
+        this.accountTaskStatsRepository = accountTaskStatsRepository;
+        this.asyncTaskRepository = asyncTaskRepository;
+        this.asyncTaskAccountsRepository = asyncTaskAccountsRepository;
     }
 
     public Task createNewTask(Task task) {
         /*
          * creates new task, accountTaskLink, and taskAccountLink
-         * All three are saved to the database atomically ( inside transaction).
+         * All three are saved to the database atomically ( inside transaction),
+         * together with the task counters of the account (see AccountTaskStats).
          * */
 
         // get the currently authenticated account.
@@ -69,6 +103,9 @@ public class TaskService {
         List<TransactWriteItem> transactWriteItems = buildPutTransactWriteItemsWith(
                 Stream.of(accountTaskLink), Stream.of(taskAccountLink), task
         );
+        transactWriteItems.add(accountTaskStatsRepository.generateAddTransactWriteItem(
+                currentlyAuthenticatedAccount.getAccountUuid(), task.getStatus(), 1
+        ));
 
         // create write transaction request.
         TransactWriteItemsRequest transactWriteItemsRequest = TransactWriteItemsRequest.builder().transactItems(
@@ -77,24 +114,35 @@ public class TaskService {
 
         // perform the transaction on the database.
         transactionsRepository.transactionWrite(transactWriteItemsRequest);
+        taskAccessService.taskShared(task.getTaskUuid(), currentlyAuthenticatedAccount.getAccountUuid());
+        taskEventHub.publish(TaskEventType.CREATED, task, List.of(currentlyAuthenticatedAccount.getAccountUuid()));
 
-        return taskRepository.load(task).orElseThrow(
-                ()->new NotFoundException("couldn't find task with uuid: " + task.getTaskUuid())
-        );
+        // the transaction either committed the task as built (with its first version), or threw,
+        // so the task is returned as is, instead of reading it back.
+        return task;
     }
 
     public Task getTaskByUuid(UUID taskUuid) {
+        // eventually consistent read, it may miss a write that happened a moment ago.
+        return getTaskByUuid(taskUuid, false);
+    }
+
+    public Task getTaskByUuid(UUID taskUuid, boolean consistentRead) {
         // check if the currently authenticated account has the authority to get the task with the given taskUuid.
 
-        Task task = Task.builder().withTaskUuid(taskUuid).build();
-        return taskRepository
-                .load(task)
-                .orElseThrow( // throws exception in case the task isn't found.
-                        () -> new NotFoundException("There is no task with uuid: " + taskUuid)
-                );
+        // eventually consistent reads are served from the near-cache (see TaskCache),
+        // consistent reads always go to the database, as they must see the latest write.
+        Task task = consistentRead
+                ? taskRepository.load(Task.builder().withTaskUuid(taskUuid).build(), true).orElse(null)
+                : taskCache.getTask(taskUuid, uuid ->
+                        taskRepository.load(Task.builder().withTaskUuid(uuid).build()).orElse(null));
+        if (task == null) { // throws exception in case the task isn't found.
+            throw new NotFoundException("There is no task with uuid: " + taskUuid);
+        }
+        return task;
     }
 
-    public Task updateTaskByTaskUuid(Task task, UUID taskUuid) {
+    public Task updateTaskByTaskUuid(Task task, UUID taskUuid, Long expectedVersion) {
         /*
          * It tries to update all task attributes.
          *   1) Fetches the task to be updated from the database, set its attributes to the updated values.
@@ -104,50 +152,22 @@ public class TaskService {
          *       then update common attributes between task and account task link.
          *   4) Creates a write transaction to save the updates in Task, TaskAccountLinks and AccountTaskLinks
          *       to the database.
-         *
+         * If expectedVersion is provided, the task is only updated if it still has that version.
          * */
 
-        // check if the currently authenticated account has the authority to update the task with the given taskUuid.
-
-
-        // fetch the task from the database.
-        Task dbTask = this.getTaskByUuid(taskUuid);
-
-        // update the dbTask.
-        dbTask.setDescription(task.getDescription());
-        dbTask.setStatus(task.getStatus());
-        dbTask.setTitle(task.getTitle());
-
-        // Fetch and Update (task account link) & (account task link).
-        List<TaskAccountLink> taskAccountLinks = fetchAndUpdateTaskAccountLinks(dbTask);
-        List<AccountTaskLink> accountTaskLinks = fetchAndUpdateAccountTaskLinks(taskAccountLinks, dbTask);
-
-        // create task transact item.
-        TransactWriteItem taskPutTransactWriteItem = generatePutTransactWriteItem(dbTask);
-
-        // create transact write items for account task links and task account links.
-        List<TransactWriteItem> transactWriteItems = Stream
-                .concat(
-                        taskAccountLinks.stream().map(taskAccountsService::generatePutTransactWriteItem),
-                        accountTaskLinks.stream().map(accountTasksService::generatePutTransactWriteItem))
-                .collect(Collectors.toList());
-
-        // add task transact write to transact write items list.
-        transactWriteItems.add(taskPutTransactWriteItem);
-
-        // create the transaction write request.
-        TransactWriteItemsRequest transactWriteItemsRequest = TransactWriteItemsRequest.builder().transactItems(
-                transactWriteItems
-        ).build();
-
-        // fire the transaction to the database
-        transactionsRepository.transactionWrite(transactWriteItemsRequest);
-
-        // fetch the task after update from the database.
-        return getTaskByUuid(taskUuid);
+        try {
+            return writeTaskWithLinks(taskUuid, expectedVersion, dbTask -> {
+                dbTask.setDescription(task.getDescription());
+                dbTask.setStatus(task.getStatus());
+                dbTask.setTitle(task.getTitle());
+            });
+        } finally {
+            // also after a failure, the task may have been written before the fan-out of its links failed.
+            taskCache.invalidate(taskUuid);
+        }
     }
 
-    public Task updateTaskTitleByUuid(String title, UUID taskUuid) {
+    public Task updateTaskTitleByUuid(String title, UUID taskUuid, Long expectedVersion) {
         /*
          * It tries to update task title by uuid.
          *   1) Fetches the task to be updated from the database, set the title to the updated title,
@@ -157,134 +177,181 @@ public class TaskService {
          *       then updates the task title.
          *   4) Creates a write transaction to save the updates in Task, TaskAccountLinks,
          *       and AccountTaskLinks to the database.
+         * If expectedVersion is provided, the task is only updated if it still has that version.
          * */
 
-        // check if the currently authenticated account has the authority to update the task with the given taskUuid.
-
-
-        // fetch the task from the database.
-        Task dbTask = this.getTaskByUuid(taskUuid);
-
-        // update the dbTask.
-        dbTask.setTitle(title);
-
-        // Fetch and Update (task account link) & (account task link).
-        List<TaskAccountLink> taskAccountLinks = fetchAndUpdateTaskAccountLinks(dbTask);
-        List<AccountTaskLink> accountTaskLinks = fetchAndUpdateAccountTaskLinks(taskAccountLinks, dbTask);
-
-        // create task transact item.
-        TransactWriteItem taskPutTransactWriteItem = generatePutTransactWriteItem(dbTask);
-
-        // create transact write items for account task links and task account links.
-        List<TransactWriteItem> transactWriteItems = Stream
-                .concat(
-                        taskAccountLinks.stream().map(taskAccountsService::generatePutTransactWriteItem),
-                        accountTaskLinks.stream().map(accountTasksService::generatePutTransactWriteItem))
-                .collect(Collectors.toList());
-
-        // add task transact write to transact write items list.
-        transactWriteItems.add(taskPutTransactWriteItem);
-
-        // create the transaction write request.
-        TransactWriteItemsRequest transactWriteItemsRequest = TransactWriteItemsRequest.builder().transactItems(
-                transactWriteItems
-        ).build();
-
-        // fire the transaction to the database
-        transactionsRepository.transactionWrite(transactWriteItemsRequest);
-
-        // fetch the task after update from the database.
-        return getTaskByUuid(taskUuid);
+        try {
+            return writeTaskWithLinks(taskUuid, expectedVersion, dbTask -> dbTask.setTitle(title));
+        } finally {
+            taskCache.invalidate(taskUuid);
+        }
     }
 
-    public Task updateTaskDescriptionByUuid(String description, UUID taskUuid) {
+    public Task updateTaskDescriptionByUuid(String description, UUID taskUuid, Long expectedVersion) {
         /*
          * Update the task description using the task uuid.
-         *   1) Fetches the task we want to update.
-         *   2) Sets the tasks description with the new description.
-         *   3) Save the task after performing the update to the database.
+         * Only the description attribute is written, in a single round trip that also returns the updated task.
+         * If expectedVersion is provided, the task is only updated if it still has that version.
+         * The accounts the task is shared with are only read (one extra query of the task partition, concurrent
+         * with the update) when someone is subscribed to the task events, to notify them.
          * */
-        // check if the currently authenticated account has the authority to update the task with the given taskUuid.
-
-
-        // fetch the task from the database.
-        Task dbTask = this.getTaskByUuid(taskUuid);
-
-        // update the db task description.
-        dbTask.setDescription(description);
 
-        // save the task to the database.
-        this.taskRepository.save(dbTask);
-
-        // fetch the task after update from the database.
-        return getTaskByUuid(taskUuid);
+        Task task = Task.builder().withTaskUuid(taskUuid).withDescription(description).build();
+        try {
+            // the accounts the task is shared with (to notify them), read from the task partition during the update.
+            // without subscribers nobody is notified, so they aren't read.
+            CompletableFuture<List<TaskAccountLink>> taskAccountLinksFuture = taskEventHub.getSubscriptions() > 0
+                    ? asyncTaskAccountsRepository.getTaskAccounts(taskUuid)
+                    : null;
+
+            Task dbTask = taskRepository
+                    .updateAttributes(task, List.of("task_description"), expectedVersion)
+                    .orElseThrow( // throws exception in case the task isn't found.
+                            () -> new NotFoundException("There is no task with uuid: " + taskUuid)
+                    );
+            if (taskAccountLinksFuture != null) {
+                List<UUID> accountUuids = Futures
+                        .join(taskAccountLinksFuture)
+                        .stream()
+                        .map(TaskAccountLink::getAccountUuid)
+                        .toList();
+                taskEventHub.publish(TaskEventType.UPDATED, dbTask, accountUuids);
+            }
+            return dbTask;
+        } finally {
+            taskCache.invalidate(taskUuid);
+        }
 
     }
 
-    public Task updateTaskStatusByUuid(TaskStatus status, UUID taskUuid) {
+    public Task updateTaskStatusByUuid(TaskStatus status, UUID taskUuid, Long expectedVersion) {
         /*
          * Updates the task status using task uuid.
-         *   1) Fetches the task we want to update.
-         *   2) Sets the task status with the new status.
-         *   3) Save the task after performing the update to the database.
+         * The status is denormalized into the account task links (they are listed by status through
+         * ACCOUNT_STATUS_INDEX), so like the title, it is written to the task and its links in a single transaction
+         * (see writeTaskWithLinks).
+         * If expectedVersion is provided, the task is only updated if it still has that version.
          * */
 
-        // check if the currently authenticated account has the authority to update the task with the given taskUuid.
-
-
-        // fetch the task from the database.
-        Task dbTask = this.getTaskByUuid(taskUuid);
-
-        // update the dbTask status.
-        dbTask.setStatus(status);
-
-        // save the task to the database.
-        this.taskRepository.save(dbTask);
-
-        // fetch the task after update from the database.
-        return getTaskByUuid(taskUuid);
+        try {
+            return writeTaskWithLinks(taskUuid, expectedVersion, dbTask -> dbTask.setStatus(status));
+        } finally {
+            taskCache.invalidate(taskUuid);
+        }
     }
 
-    public void deleteTaskByUuid(UUID taskUuid) {
-        // task to be deleted.
-        Task task = Task
-                .builder()
-                .withTaskUuid(taskUuid)
-                .build();
-
-        // fetch all task account links from database.
-        List<TaskAccountLink> taskAccountLinks = taskAccountsService.getTaskAccounts(taskUuid);
-
-        // fetch all account task links from the database.
-        List<AccountTaskLink> accountTaskLinks = taskAccountLinks.stream().map(taskAccountLink ->
-                AccountTaskLink.builder()
-                        .withTaskUuid(taskAccountLink.getTaskUuid())
-                        .withAccountUuid(taskAccountLink.getAccountUuid())
-                        .build()
-        ).toList();
-
-        // create transact write items for ( task account links & account task links).
-        List<TransactWriteItem> transactWriteItems = Stream.concat(
-                        taskAccountLinks.stream().map(taskAccountsService::generateDeleteTransactWriteItem),
-                        accountTaskLinks.stream().map(accountTasksService::generateDeleteTransactWriteItem)
-                )
-                .collect(Collectors.toList());
-
-        // create transact write item for (task)
-        transactWriteItems.add(generateDeleteTransactWriteItem(task));
-
-        // create the transaction write request.
-        TransactWriteItemsRequest transactWriteItemsRequest = TransactWriteItemsRequest.builder().transactItems(
-                transactWriteItems
-        ).build();
-
-        // fire the transaction.
-        transactionsRepository.transactionWrite(transactWriteItemsRequest);
+    public void deleteTaskByUuid(UUID taskUuid, Long expectedVersion) {
+        /*
+         * Deletes the task and its links, and decrements the task counters of the accounts it was shared with.
+         * The task is read first (its status is needed by the counters), and the delete is conditioned on the
+         * version that was read, so a concurrent status change can't make the counters drift:
+         *   - if the task was written meanwhile, it is read and deleted again (see writeTaskWithLinks),
+         *       unless the client expects a specific version.
+         *   - if the task is already gone, only its left-over links are deleted, the counters were already
+         *       decremented by the delete that removed it.
+         * */
 
+        // set once an attempt may have deleted the task before one of its links failed (see fanOutWrite),
+        // the task is then missing because of this delete, not because of another one.
+        boolean taskMayBeDeleted = false;
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                writeConflictBackoff.sleep(attempt);
+            }
+
+            // fetch the task (strongly consistent, its version conditions the delete),
+            // then its task account links from the database.
+            CompletableFuture<Optional<Task>> taskFuture = asyncTaskRepository.load(
+                    Task.builder().withTaskUuid(taskUuid).build(), true
+            );
+            // the links are read after the task (strongly consistent): a link shared after the task was read has
+            // bumped its version (see TaskAccountsService.shareTaskWithAccount), so the write fails and is retried.
+            CompletableFuture<List<TaskAccountLink>> taskAccountLinksFuture = taskFuture.thenCompose(
+                    task -> asyncTaskAccountsRepository.getTaskAccounts(taskUuid, true));
+
+            Optional<Task> dbTask = Futures.join(taskFuture);
+            List<TaskAccountLink> taskAccountLinks = Futures.join(taskAccountLinksFuture);
+            if (dbTask.isPresent()) {
+                checkExpectedVersion(dbTask.get(), expectedVersion);
+            } else if (expectedVersion != null && !taskMayBeDeleted) {
+                throw new PreconditionFailedException(
+                        "task with uuid: " + taskUuid + " doesn't have the expected version"
+                );
+            }
+
+            // task to be deleted.
+            Task task = Task
+                    .builder()
+                    .withTaskUuid(taskUuid)
+                    .build();
+
+            // account task links to be deleted.
+            List<AccountTaskLink> accountTaskLinks = taskAccountLinks.stream().map(taskAccountLink ->
+                    AccountTaskLink.builder()
+                            .withTaskUuid(taskAccountLink.getTaskUuid())
+                            .withAccountUuid(taskAccountLink.getAccountUuid())
+                            .build()
+            ).toList();
+
+            // create transact write items for ( task account links & account task links).
+            List<TransactWriteItem> linksTransactWriteItems = Stream.concat(
+                            taskAccountLinks.stream().map(taskAccountsService::generateDeleteTransactWriteItem),
+                            accountTaskLinks.stream().map(accountTasksService::generateDeleteTransactWriteItem)
+                    )
+                    .toList();
+
+            // the task is only deleted if it still has the version that was read,
+            // and only then the accounts it was shared with have one task less.
+            List<TransactWriteItem> taskTransactWriteItems = dbTask
+                    .map(found -> List.of(taskRepository.generateVersionedDeleteTransactWriteItem(task, found.getVersion())))
+                    .orElse(List.of());
+            List<TransactWriteItem> counterTransactWriteItems = dbTask
+                    .map(found -> taskAccountLinks
+                            .stream()
+                            .map(taskAccountLink -> accountTaskStatsRepository.generateAddTransactWriteItem(
+                                    taskAccountLink.getAccountUuid(), found.getStatus(), -1))
+                            .toList())
+                    .orElse(List.of());
+
+            // delete the task, then its links (in the same transaction if they fit).
+            try {
+                if (!taskTransactWriteItems.isEmpty() || !linksTransactWriteItems.isEmpty()) {
+                    transactionsRepository.fanOutWrite(
+                            taskTransactWriteItems, linksTransactWriteItems, counterTransactWriteItems);
+                }
+            } catch (TransactionCanceledException e) {
+                if (!VersionedWrites.isWriteConflict(e)) {
+                    throw e;
+                }
+                // the task (the first item, if it was still there) was written since it was read,
+                // a failed link only means it changed meanwhile, the delete is retried.
+                if (expectedVersion != null && !taskTransactWriteItems.isEmpty()
+                        && VersionedWrites.isConditionalCheckFailure(e, 0)) {
+                    throw new PreconditionFailedException(
+                            "task with uuid: " + taskUuid + " doesn't have the expected version"
+                    );
+                }
+                taskMayBeDeleted = taskMayBeDeleted || !taskTransactWriteItems.isEmpty();
+                continue;
+            } finally {
+                // the task may be deleted even if the fan-out of its links failed.
+                taskCache.invalidate(taskUuid);
+            }
+
+            // the deleted task is no longer shared with any account.
+            List<UUID> accountUuids = taskAccountLinks.stream().map(TaskAccountLink::getAccountUuid).toList();
+            taskAccessService.taskDeleted(accountUuids);
+            taskEventHub.publish(TaskEventType.DELETED, task, accountUuids);
+            return;
+        }
+        throw new ConflictException(
+                "couldn't delete task with uuid: " + taskUuid + " because of concurrent updates, try again later"
+        );
     }
     public Task save(Task task){
         generateUuid(task);
         taskRepository.save(task);
+        taskCache.invalidate(task.getTaskUuid());
         return task;
     }
     public TransactWriteItem generatePutTransactWriteItem(Task task) {
@@ -295,15 +362,108 @@ public class TaskService {
         return taskRepository.generateDeleteTransactWriteItem(task);
     }
 
-    private List<TaskAccountLink> fetchAndUpdateTaskAccountLinks(Task updatedTask) {
+    private Task writeTaskWithLinks(UUID taskUuid, Long expectedVersion, Consumer<Task> update) {
         /*
-         * Helper method, it
-         *   1) Fetches all task account links based on the updatedTask uuid.
-         *   2) Updates the common attributes, between task and task account link.
+         * Helper method, applies the update to the task, propagates it to the task links,
+         * and writes all of them conditioned on the versions that were read (optimistic concurrency control).
+         *   - if another request wrote the task (or one of its links) meanwhile, the write fails as a whole,
+         *       then the task and its links are read again, and the update is retried after a jittered backoff.
+         *   - if the client expects a specific version, a concurrent write of the task is reported (412)
+         *       instead of retried.
+         *   - after MAX_WRITE_ATTEMPTS lost races, the write fails with ConflictException.
+         *   - if the status changes, the task moves between the status counters of the accounts it is shared with,
+         *       in the same transaction as the task (see TransactionsRepository.fanOutWrite).
+         * Returns the task as written, so no extra read is needed after the write.
          * */
 
-        // fetch task account links from the database.
-        List<TaskAccountLink> taskAccountLinks = taskAccountsService.getTaskAccounts(updatedTask.getTaskUuid());
+        // the version written by the previous attempt, whose task may have been committed before one of its links
+        // failed (see fanOutWrite), the task then has this version because of this update, not because of another one.
+        Long writtenVersion = null;
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                writeConflictBackoff.sleep(attempt);
+            }
+
+            // fetch the latest task (strongly consistent, as it is about to be overwritten),
+            // then its task account links from the database (after the task, see deleteTaskByUuid).
+            CompletableFuture<Optional<Task>> taskFuture = asyncTaskRepository.load(
+                    Task.builder().withTaskUuid(taskUuid).build(), true
+            );
+            CompletableFuture<List<TaskAccountLink>> taskAccountLinksFuture = taskFuture.thenCompose(
+                    task -> asyncTaskAccountsRepository.getTaskAccounts(taskUuid, true));
+
+            // check the task is still the version the client has seen.
+            Task dbTask = Futures.join(taskFuture).orElseThrow(
+                    () -> new NotFoundException("There is no task with uuid: " + taskUuid)
+            );
+            if (writtenVersion == null || !writtenVersion.equals(dbTask.getVersion())) {
+                checkExpectedVersion(dbTask, expectedVersion);
+            }
+
+            // update the dbTask.
+            TaskStatus previousStatus = dbTask.getStatus();
+            update.accept(dbTask);
+
+            // Update (task account link), then fetch and Update (account task link).
+            List<TaskAccountLink> taskAccountLinks = updateTaskAccountLinks(Futures.join(taskAccountLinksFuture), dbTask);
+            List<AccountTaskLink> accountTaskLinks = fetchAndUpdateAccountTaskLinks(taskAccountLinks, dbTask);
+
+            // create transact write items, each one is conditioned on the version that was read.
+            TransactWriteItem taskPutTransactWriteItem = taskRepository.generateVersionedPutTransactWriteItem(dbTask);
+            List<TransactWriteItem> linksTransactWriteItems = Stream
+                    .concat(
+                            taskAccountLinks.stream().map(taskAccountsService::generateVersionedPutTransactWriteItem),
+                            accountTaskLinks.stream().map(accountTasksService::generateVersionedPutTransactWriteItem))
+                    .toList();
+            List<TransactWriteItem> counterTransactWriteItems = previousStatus == dbTask.getStatus()
+                    ? List.of()
+                    : taskAccountLinks
+                            .stream()
+                            .map(taskAccountLink -> accountTaskStatsRepository.generateMoveTransactWriteItem(
+                                    taskAccountLink.getAccountUuid(), previousStatus, dbTask.getStatus()))
+                            .toList();
+
+            // write the task and propagate the update to its links,
+            // in a single transaction if they fit, otherwise the links are written after the task in parallel.
+            try {
+                transactionsRepository.fanOutWrite(
+                        List.of(taskPutTransactWriteItem), linksTransactWriteItems, counterTransactWriteItems);
+                taskEventHub.publish(TaskEventType.UPDATED, dbTask,
+                        taskAccountLinks.stream().map(TaskAccountLink::getAccountUuid).toList());
+                return dbTask;
+            } catch (TransactionCanceledException e) {
+                if (!VersionedWrites.isWriteConflict(e)) {
+                    throw e;
+                }
+                // the task (the first item) was written since it was read, so it no longer has the expected version,
+                // a failed link only means it changed meanwhile, the update is retried.
+                if (expectedVersion != null && VersionedWrites.isConditionalCheckFailure(e, 0)) {
+                    throw new PreconditionFailedException(
+                            "task with uuid: " + taskUuid + " doesn't have the expected version"
+                    );
+                }
+                writtenVersion = dbTask.getVersion();
+            }
+        }
+        throw new ConflictException(
+                "couldn't update task with uuid: " + taskUuid + " because of concurrent updates, try again later"
+        );
+    }
+
+    private void checkExpectedVersion(Task dbTask, Long expectedVersion) {
+        // tasks written before versioning was introduced are at version 0.
+        long version = dbTask.getVersion() == null ? 0 : dbTask.getVersion();
+        if (expectedVersion != null && expectedVersion != version) {
+            throw new PreconditionFailedException(
+                    "task with uuid: " + dbTask.getTaskUuid() + " doesn't have the expected version"
+            );
+        }
+    }
+
+    private List<TaskAccountLink> updateTaskAccountLinks(List<TaskAccountLink> taskAccountLinks, Task updatedTask) {
+        /*
+         * Helper method, it updates the common attributes, between task and the fetched task account links.
+         * */
 
         // update common attributes between task entity and TaskAccountLink entity.
         taskAccountLinks.forEach(
@@ -322,39 +482,37 @@ public class TaskService {
          *   2) Updates the common attributes between account task link and the updated task.
          * */
 
-        // fetch all AccountTaskLinks from the database.
-        List<AccountTaskLink> accountTaskLinks = taskAccountLinks
-                .stream()
-                .map(
-                        (taskAccountLink) ->
-                                accountTasksService
-                                        .getByAccountUuidAndTaskUuid(
-                                                taskAccountLink.getAccountUuid(), updatedTask.getTaskUuid()
-                                        )
-                )
-                .toList();
+        // fetch all AccountTaskLinks from the database (batched, instead of one request per link).
+        List<AccountTaskLink> accountTaskLinks = accountTasksService.getByAccountUuidsAndTaskUuid(
+                taskAccountLinks.stream().map(TaskAccountLink::getAccountUuid).toList(),
+                updatedTask.getTaskUuid()
+        );
 
         // update common attributes between task entity and account task link entity.
-        accountTaskLinks.forEach(
-                accountTaskLink ->
-                        accountTaskLink.setTaskTitle(updatedTask.getTitle()) // update task title in account task link.
-        );
+        accountTaskLinks.forEach(accountTaskLink -> {
+            accountTaskLink.setTaskTitle(updatedTask.getTitle()); // update task title in account task link.
+            accountTaskLink.setTaskStatus(updatedTask.getStatus()); // keeps the link in the status index up to date.
+        });
         return accountTaskLinks;
     }
 
     public boolean isTaskSharedWithUser(UUID taskUuid, CustomUserDetails customUserDetails) {
-
-        UUID accountUuid = customUserDetails.getAccountUuid();
-        AccountTaskLink accountTaskLink = accountTasksService.getByAccountUuidAndTaskUuid(accountUuid, taskUuid);
+        /*
+         * used by @PreAuthorize, checks that the task is shared with the authenticated account.
+         * The check is answered from memory (see TaskAccessService), a task that isn't shared with the account
+         * throws NotFoundException, so the task existence isn't leaked to accounts it isn't shared with.
+         * */
+        taskAccessService.checkTaskSharedWithAccount(taskUuid, customUserDetails.getAccountUuid());
         return true;
     }
 
     private void generateUuid(Task task) {
         /*
-         * generates uuid for the task if it is not created yet
+         * generates uuid for the task if it is not created yet,
+         * time ordered, so the account tasks can be queried by creation time (see TimeOrderedUuid).
          * */
         if (task.getTaskUuid() == null) {
-            task.setTaskUuid(UUID.randomUUID());
+            task.setTaskUuid(TimeOrderedUuid.generate());
         }
 
     }
@@ -374,47 +532,21 @@ public class TaskService {
 
         transactWriteItems = Stream.concat(
                 // generate put transact write items for accountTaskLinks
-                accountTaskLinks.map(accountTasksService::generatePutTransactWriteItem),
+                accountTaskLinks.map(accountTasksService::generateVersionedPutTransactWriteItem),
 
                 // generate put transact write items for taskAccountLinks.
-                taskAccountLinks.map(taskAccountsService::generatePutTransactWriteItem)
+                taskAccountLinks.map(taskAccountsService::generateVersionedPutTransactWriteItem)
         ).collect(Collectors.toList());
 
-        // generate put transact write item for task.
-        transactWriteItems.add(generatePutTransactWriteItem(task));
+        // generate put transact write item for task,
+        // conditioned on attribute_not_exists(pk), so it fails if a task with the same uuid already exists.
+        transactWriteItems.add(taskRepository.generateCreateTransactWriteItem(task));
 
         // returns the transact write items list, which contains transact write items for
         // accountTaskLinks, taskAccountLinks, and task. With PUT action.
         return transactWriteItems;
     }
 
-    private List<TransactWriteItem> buildDeleteTransactWriteItemsWith(
-            Stream<AccountTaskLink> accountTaskLinks,
-            Stream<TaskAccountLink> taskAccountLinks,
-            Task task) {
-        /*
-         * It's a helper method builds transactWrites with DELETE action from the provided:
-         *   - accountTaskLinks.
-         *   - taskAccountLinks.
-         *   - task.
-         * */
-
-        // in case the action is delete.
-        List<TransactWriteItem> transactWriteItems = Stream.concat(
-                // generate delete transact write items for accountTaskLinks.
-                accountTaskLinks.map(accountTasksService::generateDeleteTransactWriteItem),
-                // generate delete transact write items for taskAccountLinks.
-                taskAccountLinks.map(taskAccountsService::generateDeleteTransactWriteItem)
-        ).collect(Collectors.toList());
-
-        // generate write transact item for the task.
-        transactWriteItems.add(generateDeleteTransactWriteItem(task));
-
-        // returns the transact write items list, which contains transact write items for
-        // accountTaskLinks, taskAccountLinks, and task. With DELETE action.
-        return transactWriteItems;
-    }
-
     private TaskAccountLink buildTaskAccountLinkWith(Account account, Task task) {
         /*
          * It's a helper method that builds taskAccountLink entity.
@@ -445,6 +577,7 @@ public class TaskService {
                 .withAccountName(account.getName())
                 .withTaskUuid(task.getTaskUuid())
                 .withTaskTitle(task.getTitle())
+                .withTaskStatus(task.getStatus())
                 .build();
     }
 
@@ -1,12 +1,24 @@
 package com.example.project6.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
+    public AppConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled) {
+        // spring boot silently ignores the flag on a runtime older than Java 21,
+        // so the application would run on platform threads while configured for virtual ones.
+        if (virtualThreadsEnabled && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("spring.threads.virtual.enabled needs a Java 21 runtime (build with "
+                    + "-Pvirtual-threads), it is running on Java " + Runtime.version().feature());
+        }
+    }
+
     @Bean
     BCryptPasswordEncoder bCryptPasswordEncoder(){
         return new BCryptPasswordEncoder();
@@ -0,0 +1,55 @@
+package com.example.project6.config;
+
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.retry.RetryPolicyContext;
+import software.amazon.awssdk.core.retry.backoff.BackoffStrategy;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+public class DecorrelatedJitterBackoffStrategy implements BackoffStrategy {
+    /*
+     * Backoff of the sdk retries with decorrelated jitter:
+     * the delay before a retry is a random value in [baseDelay, 3 * previous delay], capped at maxDelay.
+     * Unlike exponential backoff, the delays of the clients retrying at the same time quickly drift apart,
+     * so their retries don't hit the table in synchronized waves.
+     * The previous delay is kept in the execution attributes of the call, so it is shared with the other
+     * strategies of the same retry policy (e.g. the throttling one).
+     * onRetry is called before every retry with the attributes of the call (see DynamoDbRateLimiter).
+     * */
+
+    private static final ExecutionAttribute<Long> PREVIOUS_DELAY = new ExecutionAttribute<>("Project6PreviousRetryDelay");
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Consumer<ExecutionAttributes> onRetry;
+
+    public DecorrelatedJitterBackoffStrategy(Duration baseDelay, Duration maxDelay, Consumer<ExecutionAttributes> onRetry) {
+        this.baseDelayMillis = Math.max(1, baseDelay.toMillis());
+        this.maxDelayMillis = Math.max(baseDelayMillis, maxDelay.toMillis());
+        this.onRetry = onRetry;
+    }
+
+    public DecorrelatedJitterBackoffStrategy(Duration baseDelay, Duration maxDelay) {
+        this(baseDelay, maxDelay, executionAttributes -> {
+        });
+    }
+
+    @Override
+    public Duration computeDelayBeforeNextRetry(RetryPolicyContext context) {
+        ExecutionAttributes executionAttributes = context.executionAttributes();
+        onRetry.accept(executionAttributes);
+
+        Long previousDelay = executionAttributes.getAttribute(PREVIOUS_DELAY);
+        long delay = nextDelayMillis(previousDelay != null ? previousDelay : baseDelayMillis);
+        executionAttributes.putAttribute(PREVIOUS_DELAY, delay);
+        return Duration.ofMillis(delay);
+    }
+
+    long nextDelayMillis(long previousDelayMillis) {
+        long ceiling = Math.min(maxDelayMillis, Math.max(baseDelayMillis, previousDelayMillis) * 3);
+        return Math.min(maxDelayMillis, ThreadLocalRandom.current().nextLong(baseDelayMillis, ceiling + 1));
+    }
+}
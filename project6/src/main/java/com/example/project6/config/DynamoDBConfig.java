@@ -1,14 +1,28 @@
 package com.example.project6.config;
 
+import com.example.project6.dao.DynamoDbMetricsInterceptor;
+import com.example.project6.dao.DynamoDbRateLimiter;
 import com.example.project6.entity.Account;
 import com.example.project6.entity.AccountTaskLink;
+import com.example.project6.entity.AccountTaskStats;
 import com.example.project6.entity.Task;
 import com.example.project6.entity.TaskAccountLink;
+import com.example.project6.util.KeyCodec;
+import com.example.project6.util.entityAndDtoMappers.CompressedStringConverter;
+import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
+import io.micrometer.core.instrument.MeterRegistry;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 
@@ -17,6 +31,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.net.URI;
+import java.time.Duration;
 
 
 @Configuration
@@ -34,13 +49,73 @@ public class DynamoDBConfig {
     @Value("${amazon.aws.region}")
     private String region;
 
+    /*
+     * HTTP connection pool settings, shared by the blocking and the non-blocking clients.
+     *   - max-connections: connections kept open to DynamoDB, calls beyond it wait for a free connection.
+     *   - connection-acquisition-timeout: how long a call waits for a free connection before failing.
+     *   - connection-ttl: connections are recycled after this time, to pick up DynamoDB endpoint changes.
+     *   - tcp-keep-alive: keeps idle pooled connections from being dropped by the network.
+     * */
+    @Value("${amazon.dynamodb.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${amazon.dynamodb.http.connection-acquisition-timeout:2s}")
+    private Duration connectionAcquisitionTimeout;
+
+    @Value("${amazon.dynamodb.http.connection-ttl:60s}")
+    private Duration connectionTimeToLive;
+
+    @Value("${amazon.dynamodb.http.tcp-keep-alive:true}")
+    private boolean tcpKeepAlive;
+
+    @Value("${amazon.dynamodb.http.connection-timeout:2s}")
+    private Duration connectionTimeout;
+
+    @Value("${amazon.dynamodb.http.socket-timeout:5s}")
+    private Duration socketTimeout;
+
+    /*
+     * Retries of the sdk, for both clients (the standard retry mode, which also stops retrying
+     * when most attempts fail, instead of multiplying the load of an overloaded table).
+     *   - max-retries: retries of a failed call, on top of the first attempt.
+     *   - base-delay / max-delay: decorrelated jitter backoff of the retries (see DecorrelatedJitterBackoffStrategy).
+     *   - throttling-base-delay / throttling-max-delay: backoff of the throttled calls, which also shrink
+     *       the client-side rate limit of their table (see DynamoDbRateLimiter).
+     * */
+    @Value("${amazon.dynamodb.retry.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${amazon.dynamodb.retry.base-delay:25ms}")
+    private Duration retryBaseDelay;
+
+    @Value("${amazon.dynamodb.retry.max-delay:1s}")
+    private Duration retryMaxDelay;
+
+    @Value("${amazon.dynamodb.retry.throttling-base-delay:100ms}")
+    private Duration throttlingRetryBaseDelay;
+
+    @Value("${amazon.dynamodb.retry.throttling-max-delay:2s}")
+    private Duration throttlingRetryMaxDelay;
+
     @Bean
-    public DynamoDbClient dynamoDbClient() {
+    public DynamoDbClient dynamoDbClient(DynamoDbMetricsInterceptor metricsInterceptor,
+                                         DynamoDbRateLimiter rateLimiter) {
         return DynamoDbClient.builder()
                 .region(Region.of(region))// Your AWS region
                 .credentialsProvider(StaticCredentialsProvider.create(
                         AwsBasicCredentials.create(amazonAWSAccessKey, amazonAWSSecretKey)
                 )).endpointOverride(URI.create(amazonDynamoDBEndpoint))
+                .httpClientBuilder(
+                        ApacheHttpClient
+                                .builder()
+                                .maxConnections(maxConnections)
+                                .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                                .connectionTimeToLive(connectionTimeToLive)
+                                .tcpKeepAlive(tcpKeepAlive)
+                                .connectionTimeout(connectionTimeout)
+                                .socketTimeout(socketTimeout)
+                )
+                .overrideConfiguration(overrideConfiguration(metricsInterceptor, rateLimiter))
                 .build();
     }
 
@@ -51,22 +126,130 @@ public class DynamoDBConfig {
                 .build();
     }
 
+    /*
+     * The tables use static schemas (see TableSchemas), instead of introspecting the entity beans at startup.
+     * */
     @Bean
-    public DynamoDbTable<Account> accountTable(DynamoDbEnhancedClient enhancedClient) {
-        return enhancedClient.table("app", TableSchema.fromBean(Account.class));
+    public DynamoDbTable<Account> accountTable(DynamoDbEnhancedClient enhancedClient, UUIDConverter uuidConverter) {
+        return enhancedClient.table("app", TableSchemas.account(uuidConverter));
     }
 
     @Bean
-    public DynamoDbTable<Task> taskTable(DynamoDbEnhancedClient enhancedClient) {
-        return enhancedClient.table("app", TableSchema.fromBean(Task.class));
+    public DynamoDbTable<Task> taskTable(DynamoDbEnhancedClient enhancedClient, UUIDConverter uuidConverter,
+                                         CompressedStringConverter taskDescriptionConverter) {
+        return enhancedClient.table("app", TableSchemas.task(uuidConverter, taskDescriptionConverter));
     }
 
+    /*
+     * uuid attributes are written in "uuid-attributes.encoding" (TEXT or BINARY), both are read (see KeyCodec).
+     * Every table is built with this converter, so every item is written in the same encoding.
+     * */
     @Bean
-    public DynamoDbTable<AccountTaskLink> accountTaskTable(DynamoDbEnhancedClient enhancedClient) {
-        return enhancedClient.table("app", TableSchema.fromBean(AccountTaskLink.class));
+    public UUIDConverter uuidConverter(@Value("${uuid-attributes.encoding:TEXT}") KeyCodec.UuidEncoding encoding) {
+        return new UUIDConverter(encoding);
     }
+
+    /*
+     * task descriptions of at least "task-description.compression-threshold" UTF-8 bytes are stored compressed
+     * (see CompressedStringConverter), both task tables write through this instance, the only one measured.
+     * */
+    @Bean
+    public CompressedStringConverter taskDescriptionConverter(
+            @Value("${task-description.compression-threshold:1024}") int compressionThreshold,
+            MeterRegistry meterRegistry) {
+        return new CompressedStringConverter(compressionThreshold, meterRegistry);
+    }
+
+    @Bean
+    public DynamoDbTable<AccountTaskLink> accountTaskTable(DynamoDbEnhancedClient enhancedClient,
+                                                           UUIDConverter uuidConverter) {
+        return enhancedClient.table("app", TableSchemas.accountTaskLink(uuidConverter));
+    }
+    @Bean
+    public DynamoDbTable<TaskAccountLink> taskAccountTable(DynamoDbEnhancedClient enhancedClient,
+                                                           UUIDConverter uuidConverter) {
+        return enhancedClient.table("app", TableSchemas.taskAccountLink(uuidConverter));
+    }
+    @Bean
+    public DynamoDbTable<AccountTaskStats> accountTaskStatsTable(DynamoDbEnhancedClient enhancedClient,
+                                                                 UUIDConverter uuidConverter) {
+        return enhancedClient.table("app", TableSchemas.accountTaskStats(uuidConverter));
+    }
+
+    /*
+     * Non-blocking clients, used where independent reads can run concurrently.
+     * Requests are sent through the netty event loop, so the caller thread isn't blocked while they are in flight.
+     * */
+    @Bean
+    public DynamoDbAsyncClient dynamoDbAsyncClient(DynamoDbMetricsInterceptor metricsInterceptor,
+                                                   DynamoDbRateLimiter rateLimiter) {
+        return DynamoDbAsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(amazonAWSAccessKey, amazonAWSSecretKey)
+                )).endpointOverride(URI.create(amazonDynamoDBEndpoint))
+                .httpClientBuilder(
+                        NettyNioAsyncHttpClient
+                                .builder()
+                                .maxConcurrency(maxConnections)
+                                .connectionAcquisitionTimeout(connectionAcquisitionTimeout)
+                                .connectionTimeToLive(connectionTimeToLive)
+                                .tcpKeepAlive(tcpKeepAlive)
+                                .connectionTimeout(connectionTimeout)
+                                .readTimeout(socketTimeout)
+                                .writeTimeout(socketTimeout)
+                )
+                .overrideConfiguration(overrideConfiguration(metricsInterceptor, rateLimiter))
+                .build();
+    }
+
+    private ClientOverrideConfiguration overrideConfiguration(DynamoDbMetricsInterceptor metricsInterceptor,
+                                                              DynamoDbRateLimiter rateLimiter) {
+        // every call of both clients is rate limited, then measured (see DynamoDbMetricsInterceptor),
+        // so the time spent waiting for the rate limit isn't counted as DynamoDB latency.
+        return ClientOverrideConfiguration
+                .builder()
+                .addExecutionInterceptor(rateLimiter)
+                .addExecutionInterceptor(metricsInterceptor)
+                .retryPolicy(RetryPolicy
+                        .builder(RetryMode.STANDARD)
+                        .numRetries(maxRetries)
+                        .backoffStrategy(new DecorrelatedJitterBackoffStrategy(retryBaseDelay, retryMaxDelay))
+                        .throttlingBackoffStrategy(new DecorrelatedJitterBackoffStrategy(
+                                throttlingRetryBaseDelay, throttlingRetryMaxDelay, rateLimiter::onThrottledAttempt))
+                        .build())
+                .build();
+    }
+
+    @Bean
+    public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        return DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
+                .build();
+    }
+
+    @Bean
+    public DynamoDbAsyncTable<Account> accountAsyncTable(DynamoDbEnhancedAsyncClient enhancedAsyncClient,
+                                                         UUIDConverter uuidConverter) {
+        return enhancedAsyncClient.table("app", TableSchemas.account(uuidConverter));
+    }
+
+    @Bean
+    public DynamoDbAsyncTable<Task> taskAsyncTable(DynamoDbEnhancedAsyncClient enhancedAsyncClient,
+                                                   UUIDConverter uuidConverter,
+                                                   CompressedStringConverter taskDescriptionConverter) {
+        return enhancedAsyncClient.table("app", TableSchemas.task(uuidConverter, taskDescriptionConverter));
+    }
+
+    @Bean
+    public DynamoDbAsyncTable<AccountTaskLink> accountTaskAsyncTable(DynamoDbEnhancedAsyncClient enhancedAsyncClient,
+                                                                     UUIDConverter uuidConverter) {
+        return enhancedAsyncClient.table("app", TableSchemas.accountTaskLink(uuidConverter));
+    }
+
     @Bean
-    public DynamoDbTable<TaskAccountLink> taskAccountTable(DynamoDbEnhancedClient enhancedClient) {
-        return enhancedClient.table("app", TableSchema.fromBean(TaskAccountLink.class));
+    public DynamoDbAsyncTable<TaskAccountLink> taskAccountAsyncTable(DynamoDbEnhancedAsyncClient enhancedAsyncClient,
+                                                                     UUIDConverter uuidConverter) {
+        return enhancedAsyncClient.table("app", TableSchemas.taskAccountLink(uuidConverter));
     }
-}
\ No newline at end of file
+}
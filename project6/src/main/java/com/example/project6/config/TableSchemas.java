@@ -0,0 +1,251 @@
+package com.example.project6.config;
+
+import com.example.project6.Enum.Role;
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.entity.*;
+import com.example.project6.util.entityAndDtoMappers.CompressedStringConverter;
+import com.example.project6.util.entityAndDtoMappers.RoleConverter;
+import com.example.project6.util.entityAndDtoMappers.TaskStatusConverter;
+import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.util.UUID;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.*;
+
+public final class TableSchemas {
+    /*
+     * Static table schemas of the entities.
+     * TableSchema.fromBean introspects the entity annotations at startup, and maps every attribute through
+     * generated lambdas, these schemas declare the same attributes with plain getter / setter references instead.
+     * They must be kept in sync with the annotations on the entities, which remain the reference for
+     * attribute names, keys and converters (TableSchemasTest checks both produce the same items).
+     * */
+
+    // converters are stateless, so a single instance of each is shared by all the schemas.
+    private static final RoleConverter ROLE_CONVERTER = new RoleConverter();
+    private static final TaskStatusConverter TASK_STATUS_CONVERTER = new TaskStatusConverter();
+
+    // the schemas with the default converters: TEXT uuid attributes and the default compression threshold.
+    // the application tables are built with the configured converters instead (see DynamoDBConfig).
+    private static final UUIDConverter UUID_CONVERTER = new UUIDConverter();
+    private static final CompressedStringConverter COMPRESSED_STRING_CONVERTER = new CompressedStringConverter();
+
+    public static final TableSchema<Account> ACCOUNT = account(UUID_CONVERTER);
+    public static final TableSchema<Task> TASK = task(UUID_CONVERTER, COMPRESSED_STRING_CONVERTER);
+    public static final TableSchema<AccountTaskLink> ACCOUNT_TASK_LINK = accountTaskLink(UUID_CONVERTER);
+    public static final TableSchema<TaskAccountLink> TASK_ACCOUNT_LINK = taskAccountLink(UUID_CONVERTER);
+    public static final TableSchema<AccountTaskStats> ACCOUNT_TASK_STATS = accountTaskStats(UUID_CONVERTER);
+    public static final TableSchema<Comment> COMMENT = comment(UUID_CONVERTER);
+
+    public static TableSchema<Account> account(UUIDConverter uuidConverter) {
+        return StaticTableSchema
+                .builder(Account.class)
+                .newItemSupplier(Account::new)
+                .addAttribute(String.class, a -> a.name("pk")
+                        .getter(Account::getPk)
+                        .setter(Account::setPk)
+                        .tags(primaryPartitionKey(), secondarySortKey("ROLE_SHARD_INDEX")))
+                .addAttribute(String.class, a -> a.name("sk")
+                        .getter(Account::getSk)
+                        .setter(Account::setSk)
+                        .tags(primarySortKey()))
+                .addAttribute(UUID.class, a -> a.name("account_uuid")
+                        .getter(Account::getAccountUuid)
+                        .setter(Account::setAccountUuid)
+                        .attributeConverter(uuidConverter))
+                .addAttribute(String.class, a -> a.name("name")
+                        .getter(Account::getName)
+                        .setter(Account::setName))
+                .addAttribute(String.class, a -> a.name("email")
+                        .getter(Account::getEmail)
+                        .setter(Account::setEmail)
+                        .tags(secondaryPartitionKey("EMAIL_INDEX")))
+                .addAttribute(String.class, a -> a.name("password")
+                        .getter(Account::getPassword)
+                        .setter(Account::setPassword))
+                .addAttribute(Role.class, a -> a.name("role")
+                        .getter(Account::getRole)
+                        .setter(Account::setRole)
+                        .attributeConverter(ROLE_CONVERTER))
+                .addAttribute(String.class, a -> a.name("role_shard")
+                        .getter(Account::getRoleShard)
+                        .setter(Account::setRoleShard)
+                        .tags(secondaryPartitionKey("ROLE_SHARD_INDEX")))
+                .build();
+    }
+
+    public static TableSchema<Task> task(UUIDConverter uuidConverter, CompressedStringConverter descriptionConverter) {
+        // the task schema, with the given compression threshold of the descriptions (see DynamoDBConfig).
+        return StaticTableSchema
+                .builder(Task.class)
+                .newItemSupplier(Task::new)
+                .addAttribute(String.class, a -> a.name("pk")
+                        .getter(Task::getPk)
+                        .setter(Task::setPk)
+                        .tags(primaryPartitionKey()))
+                .addAttribute(String.class, a -> a.name("sk")
+                        .getter(Task::getSk)
+                        .setter(Task::setSk)
+                        .tags(primarySortKey()))
+                .addAttribute(UUID.class, a -> a.name("task_uuid")
+                        .getter(Task::getTaskUuid)
+                        .setter(Task::setTaskUuid)
+                        .attributeConverter(uuidConverter))
+                .addAttribute(String.class, a -> a.name("task_title")
+                        .getter(Task::getTitle)
+                        .setter(Task::setTitle))
+                .addAttribute(String.class, a -> a.name("task_description")
+                        .getter(Task::getDescription)
+                        .setter(Task::setDescription)
+                        .attributeConverter(descriptionConverter))
+                .addAttribute(TaskStatus.class, a -> a.name("task_status")
+                        .getter(Task::getStatus)
+                        .setter(Task::setStatus)
+                        .attributeConverter(TASK_STATUS_CONVERTER))
+                .addAttribute(Long.class, a -> a.name("version")
+                        .getter(Task::getVersion)
+                        .setter(Task::setVersion))
+                .build();
+    }
+
+    public static TableSchema<AccountTaskLink> accountTaskLink(UUIDConverter uuidConverter) {
+        return StaticTableSchema
+                .builder(AccountTaskLink.class)
+                .newItemSupplier(AccountTaskLink::new)
+                .addAttribute(String.class, a -> a.name("pk")
+                        .getter(AccountTaskLink::getPk)
+                        .setter(AccountTaskLink::setPk)
+                        .tags(primaryPartitionKey(), secondaryPartitionKey("ACCOUNT_CREATED_INDEX")))
+                .addAttribute(String.class, a -> a.name("sk")
+                        .getter(AccountTaskLink::getSk)
+                        .setter(AccountTaskLink::setSk)
+                        .tags(primarySortKey(), secondarySortKey("ACCOUNT_STATUS_INDEX")))
+                .addAttribute(String.class, a -> a.name("account_name")
+                        .getter(AccountTaskLink::getAccountName)
+                        .setter(AccountTaskLink::setAccountName))
+                .addAttribute(UUID.class, a -> a.name("account_uuid")
+                        .getter(AccountTaskLink::getAccountUuid)
+                        .setter(AccountTaskLink::setAccountUuid)
+                        .attributeConverter(uuidConverter))
+                .addAttribute(String.class, a -> a.name("task_title")
+                        .getter(AccountTaskLink::getTaskTitle)
+                        .setter(AccountTaskLink::setTaskTitle))
+                .addAttribute(UUID.class, a -> a.name("task_uuid")
+                        .getter(AccountTaskLink::getTaskUuid)
+                        .setter(AccountTaskLink::setTaskUuid)
+                        .attributeConverter(uuidConverter))
+                .addAttribute(TaskStatus.class, a -> a.name("task_status")
+                        .getter(AccountTaskLink::getTaskStatus)
+                        .setter(AccountTaskLink::setTaskStatus)
+                        .attributeConverter(TASK_STATUS_CONVERTER))
+                .addAttribute(String.class, a -> a.name("status_pk")
+                        .getter(AccountTaskLink::getStatusPk)
+                        .setter(AccountTaskLink::setStatusPk)
+                        .tags(secondaryPartitionKey("ACCOUNT_STATUS_INDEX")))
+                .addAttribute(String.class, a -> a.name("created_sk")
+                        .getter(AccountTaskLink::getCreatedSk)
+                        .setter(AccountTaskLink::setCreatedSk)
+                        .tags(secondarySortKey("ACCOUNT_CREATED_INDEX")))
+                .addAttribute(Long.class, a -> a.name("version")
+                        .getter(AccountTaskLink::getVersion)
+                        .setter(AccountTaskLink::setVersion))
+                .build();
+    }
+
+    public static TableSchema<TaskAccountLink> taskAccountLink(UUIDConverter uuidConverter) {
+        return StaticTableSchema
+                .builder(TaskAccountLink.class)
+                .newItemSupplier(TaskAccountLink::new)
+                .addAttribute(String.class, a -> a.name("pk")
+                        .getter(TaskAccountLink::getPk)
+                        .setter(TaskAccountLink::setPk)
+                        .tags(primaryPartitionKey()))
+                .addAttribute(String.class, a -> a.name("sk")
+                        .getter(TaskAccountLink::getSk)
+                        .setter(TaskAccountLink::setSk)
+                        .tags(primarySortKey()))
+                .addAttribute(String.class, a -> a.name("account_name")
+                        .getter(TaskAccountLink::getAccountName)
+                        .setter(TaskAccountLink::setAccountName))
+                .addAttribute(UUID.class, a -> a.name("account_uuid")
+                        .getter(TaskAccountLink::getAccountUuid)
+                        .setter(TaskAccountLink::setAccountUuid)
+                        .attributeConverter(uuidConverter))
+                .addAttribute(String.class, a -> a.name("task_title")
+                        .getter(TaskAccountLink::getTaskTitle)
+                        .setter(TaskAccountLink::setTaskTitle))
+                .addAttribute(UUID.class, a -> a.name("task_uuid")
+                        .getter(TaskAccountLink::getTaskUuid)
+                        .setter(TaskAccountLink::setTaskUuid)
+                        .attributeConverter(uuidConverter))
+                .addAttribute(Long.class, a -> a.name("version")
+                        .getter(TaskAccountLink::getVersion)
+                        .setter(TaskAccountLink::setVersion))
+                .build();
+    }
+
+    public static TableSchema<AccountTaskStats> accountTaskStats(UUIDConverter uuidConverter) {
+        return StaticTableSchema
+                .builder(AccountTaskStats.class)
+                .newItemSupplier(AccountTaskStats::new)
+                .addAttribute(String.class, a -> a.name("pk")
+                        .getter(AccountTaskStats::getPk)
+                        .setter(AccountTaskStats::setPk)
+                        .tags(primaryPartitionKey()))
+                .addAttribute(String.class, a -> a.name("sk")
+                        .getter(AccountTaskStats::getSk)
+                        .setter(AccountTaskStats::setSk)
+                        .tags(primarySortKey()))
+                .addAttribute(UUID.class, a -> a.name("account_uuid")
+                        .getter(AccountTaskStats::getAccountUuid)
+                        .setter(AccountTaskStats::setAccountUuid)
+                        .attributeConverter(uuidConverter))
+                .addAttribute(Long.class, a -> a.name("task_count")
+                        .getter(AccountTaskStats::getTaskCount)
+                        .setter(AccountTaskStats::setTaskCount))
+                .addAttribute(Long.class, a -> a.name("todo_count")
+                        .getter(AccountTaskStats::getTodoCount)
+                        .setter(AccountTaskStats::setTodoCount))
+                .addAttribute(Long.class, a -> a.name("in_progress_count")
+                        .getter(AccountTaskStats::getInProgressCount)
+                        .setter(AccountTaskStats::setInProgressCount))
+                .addAttribute(Long.class, a -> a.name("done_count")
+                        .getter(AccountTaskStats::getDoneCount)
+                        .setter(AccountTaskStats::setDoneCount))
+                .addAttribute(Long.class, a -> a.name("version")
+                        .getter(AccountTaskStats::getVersion)
+                        .setter(AccountTaskStats::setVersion))
+                .build();
+    }
+
+    public static TableSchema<Comment> comment(UUIDConverter uuidConverter) {
+        return StaticTableSchema
+                .builder(Comment.class)
+                .newItemSupplier(Comment::new)
+                .addAttribute(String.class, a -> a.name("pk")
+                        .getter(Comment::getPk)
+                        .setter(Comment::setPk)
+                        .tags(primaryPartitionKey()))
+                .addAttribute(String.class, a -> a.name("sk")
+                        .getter(Comment::getSk)
+                        .setter(Comment::setSk)
+                        .tags(primarySortKey()))
+                .addAttribute(UUID.class, a -> a.name("comment_uuid")
+                        .getter(Comment::getCommentUuid)
+                        .setter(Comment::setCommentUuid)
+                        .attributeConverter(uuidConverter))
+                .addAttribute(String.class, a -> a.name("body")
+                        .getter(Comment::getBody)
+                        .setter(Comment::setBody))
+                .addAttribute(UUID.class, a -> a.name("creator_account_uuid")
+                        .getter(Comment::getCreatorAccountUuid)
+                        .setter(Comment::setCreatorAccountUuid)
+                        .attributeConverter(uuidConverter))
+                .build();
+    }
+
+    private TableSchemas() {
+    }
+}
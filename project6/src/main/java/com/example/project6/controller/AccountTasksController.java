@@ -1,16 +1,27 @@
 package com.example.project6.controller;
 
+import com.example.project6.Enum.TaskStatus;
 import com.example.project6.Service.AccountTasksService;
 import com.example.project6.Service.AuthenticationService;
 import com.example.project6.entity.Account;
+import com.example.project6.dao.QueryPage;
 import com.example.project6.entity.AccountTaskLink;
+import com.example.project6.util.NdJson;
+import com.example.project6.util.Pagination;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,9 +30,11 @@ import java.util.UUID;
 public class AccountTasksController {
 
     private final AccountTasksService accountTasksService;
+    private final ObjectMapper objectMapper;
 
-    public AccountTasksController(AccountTasksService accountTasksService) {
+    public AccountTasksController(AccountTasksService accountTasksService, ObjectMapper objectMapper) {
         this.accountTasksService = accountTasksService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{accountUuid}/tasks")
@@ -36,15 +49,81 @@ public class AccountTasksController {
         return new ResponseEntity<>(tasks, HttpStatus.OK);
     }
     @GetMapping("/tasks")
-    public ResponseEntity<List<AccountTaskLink>> getMyTasks(){
+    public ResponseEntity<List<AccountTaskLink>> getMyTasks(@RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String nextToken,
+                                                            @RequestParam(required = false) TaskStatus status){
         /*
         * Handles HTTP GET requests to "api/account/tasks"
         * In case of success it returns:
         *   - list of "AccountTaskLink". represents links between the currently authenticated account and his tasks.
         *   - HTTP STATUS CODE 200 OK.
+        * When "limit" or "nextToken" are provided, it returns a single page of at most "limit" links,
+        * the token of the next page (if any) is returned in the "X-Next-Token" header.
+        * When "status" is provided (e.g. "api/account/tasks?status=IN_PROGRESS"), it returns a single page
+        * of the links to the tasks with that status, newest first.
         * */
 
-        List<AccountTaskLink>accountTaskLinks = accountTasksService.getMyTasks();
-        return new ResponseEntity<>(accountTaskLinks, HttpStatus.OK);
+        if (limit == null && nextToken == null && status == null) {
+            List<AccountTaskLink>accountTaskLinks = accountTasksService.getMyTasks();
+            return new ResponseEntity<>(accountTaskLinks, HttpStatus.OK);
+        }
+
+        QueryPage<AccountTaskLink> page = status == null
+                ? accountTasksService.getMyTasksPage(limit, nextToken)
+                : accountTasksService.getMyTasksPageByStatus(status, limit, nextToken);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNextPage()) {
+            headers.add(Pagination.NEXT_TOKEN_HEADER, Pagination.encodeNextToken(page.lastEvaluatedKey()));
+        }
+        return new ResponseEntity<>(page.items(), headers, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/tasks", params = "stream=true", produces = NdJson.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamMyTasks(@RequestParam(required = false) Integer limit){
+        /*
+        * Handles HTTP GET requests to "api/account/tasks?stream=true"
+        * Streams the links of the currently authenticated account as NDJSON,
+        * pages of "limit" links are fetched from the database as the response is written.
+        * */
+        StreamingResponseBody body = NdJson.writePages(objectMapper, accountTasksService.streamMyTasks(limit));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NdJson.MEDIA_TYPE)).body(body);
+    }
+
+    @GetMapping("/tasks/recent")
+    public ResponseEntity<List<AccountTaskLink>> getMyRecentTasks(@RequestParam(required = false) Instant since,
+                                                                  @RequestParam(required = false) Instant before,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String nextToken){
+        /*
+        * Handles HTTP GET requests to "api/account/tasks/recent"
+        * In case of success it returns:
+        *   - a single page of at most "limit" links of the currently authenticated account, newest task first,
+        *       restricted to the tasks created in ["since", "before") when provided (ISO-8601 instants).
+        *   - HTTP STATUS CODE 200 OK.
+        * The token of the next (older) page, if any, is returned in the "X-Next-Token" header.
+        * e.g. the latest 20 tasks: "api/account/tasks/recent?limit=20".
+        * */
+        QueryPage<AccountTaskLink> page = accountTasksService.getMyRecentTasksPage(since, before, limit, nextToken);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNextPage()) {
+            headers.add(Pagination.NEXT_TOKEN_HEADER, Pagination.encodeNextToken(page.lastEvaluatedKey()));
+        }
+        return new ResponseEntity<>(page.items(), headers, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/tasks/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToMyTaskEvents(){
+        /*
+        * Handles HTTP GET requests to "api/account/tasks/events"
+        * Streams the changes of the tasks of the currently authenticated account as Server-Sent Events
+        * ("created", "updated", "deleted", "shared", "unshared", and "resync" when the client should fetch
+        * "api/account/tasks" again), instead of polling "api/account/tasks".
+        * */
+        return ResponseEntity
+                .ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // disables response buffering in nginx, so the events aren't held back by the proxy.
+                .header("X-Accel-Buffering", "no")
+                .body(accountTasksService.subscribeToMyTaskEvents());
     }
 }
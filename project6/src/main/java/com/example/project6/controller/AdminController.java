@@ -2,11 +2,14 @@ package com.example.project6.controller;
 
 import com.example.project6.Enum.Role;
 import com.example.project6.Service.AccountService;
+import com.example.project6.dao.QueryPage;
 import com.example.project6.dto.CreateAccountRequest;
 import com.example.project6.dto.ProfileDto;
 import com.example.project6.entity.Account;
+import com.example.project6.util.Pagination;
 import com.example.project6.util.entityAndDtoMappers.AccountMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -61,19 +64,36 @@ public class AdminController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<ProfileDto>> getAllAdminAccounts(){
+    public ResponseEntity<List<ProfileDto>> getAllAdminAccounts(@RequestParam(required = false) Integer limit,
+                                                                @RequestParam(required = false) String nextToken){
         /*
         * Handle HTTP GET requests  to /api/admin/all
         * In case of success it returns
         *   - profile dto.
         *   - HTTP response status OK 200.
+        * When "limit" or "nextToken" are provided, it returns a single page of at most "limit" admins,
+        * the token of the next page (if any) is returned in the "X-Next-Token" header.
         * */
-        List<Account> admins = accountService.getAllAdmins();
-        List<ProfileDto>adminProfilesDto = admins
+        if (limit == null && nextToken == null) {
+            List<Account> admins = accountService.getAllAdmins();
+            List<ProfileDto>adminProfilesDto = admins
+                    .stream()
+                    .map(AccountMapper::AccountEntityToAccountProfileDto)
+                    .toList();
+            return new ResponseEntity<>(adminProfilesDto, HttpStatus.OK);
+        }
+
+        QueryPage<Account> page = accountService.getAccountsPageByRole(Role.ADMIN, limit, nextToken);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNextPage()) {
+            headers.add(Pagination.NEXT_TOKEN_HEADER, Pagination.encodeNextToken(page.lastEvaluatedKey()));
+        }
+        List<ProfileDto>adminProfilesDto = page
+                .items()
                 .stream()
                 .map(AccountMapper::AccountEntityToAccountProfileDto)
                 .toList();
-        return new ResponseEntity<>(adminProfilesDto, HttpStatus.OK);
+        return new ResponseEntity<>(adminProfilesDto, headers, HttpStatus.OK);
 
     }
 
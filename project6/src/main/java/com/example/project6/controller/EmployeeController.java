@@ -2,11 +2,16 @@ package com.example.project6.controller;
 
 import com.example.project6.Enum.Role;
 import com.example.project6.Service.AccountService;
+import com.example.project6.Service.AccountTaskStatsService;
+import com.example.project6.dao.QueryPage;
+import com.example.project6.dto.AccountTaskStatsDto;
 import com.example.project6.dto.CreateAccountRequest;
 import com.example.project6.dto.ProfileDto;
 import com.example.project6.entity.Account;
+import com.example.project6.util.Pagination;
 import com.example.project6.util.entityAndDtoMappers.AccountMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +23,12 @@ import java.util.UUID;
 @RestController
 public class EmployeeController {
     private final AccountService accountService;
+    private final AccountTaskStatsService accountTaskStatsService;
 
 
-    public EmployeeController(AccountService accountService) {
+    public EmployeeController(AccountService accountService, AccountTaskStatsService accountTaskStatsService) {
         this.accountService = accountService;
+        this.accountTaskStatsService = accountTaskStatsService;
     }
 
     @PostMapping
@@ -56,14 +63,63 @@ public class EmployeeController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<ProfileDto>> getAllEmployees(){
-        List<Account> employees = accountService.getAllEmployees();
-        // convert the accounts to profile dto.
-        List<ProfileDto> employeesProfileDto = employees
+    public ResponseEntity<List<ProfileDto>> getAllEmployees(@RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String nextToken){
+        /*
+        * Handles HTTP GET requests to "/api/admin/employees/all"
+        * When "limit" or "nextToken" are provided, it returns a single page of at most "limit" employees,
+        * the token of the next page (if any) is returned in the "X-Next-Token" header.
+        * */
+        if (limit == null && nextToken == null) {
+            List<Account> employees = accountService.getAllEmployees();
+            // convert the accounts to profile dto.
+            List<ProfileDto> employeesProfileDto = employees
+                    .stream()
+                    .map(AccountMapper::AccountEntityToAccountProfileDto)
+                    .toList();
+            return new ResponseEntity<>(employeesProfileDto, HttpStatus.OK);
+        }
+
+        QueryPage<Account> page = accountService.getAccountsPageByRole(Role.EMPLOYEE, limit, nextToken);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNextPage()) {
+            headers.add(Pagination.NEXT_TOKEN_HEADER, Pagination.encodeNextToken(page.lastEvaluatedKey()));
+        }
+        List<ProfileDto> employeesProfileDto = page
+                .items()
                 .stream()
                 .map(AccountMapper::AccountEntityToAccountProfileDto)
                 .toList();
-        return new ResponseEntity<>(employeesProfileDto, HttpStatus.OK);
+        return new ResponseEntity<>(employeesProfileDto, headers, HttpStatus.OK);
+    }
+
+    @GetMapping("/task-stats")
+    public ResponseEntity<List<AccountTaskStatsDto>> getEmployeesTaskStats(@RequestParam(required = false) Integer limit,
+                                                                          @RequestParam(required = false) String nextToken){
+        /*
+        * Handles HTTP GET requests to "/api/admin/employees/task-stats"
+        * returns a single page of at most "limit" employees, with the number of their tasks in total and per status,
+        * the token of the next page (if any) is returned in the "X-Next-Token" header.
+        * */
+        QueryPage<AccountTaskStatsDto> page = accountTaskStatsService.getAccountsTaskStatsPage(
+                Role.EMPLOYEE, limit, nextToken
+        );
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNextPage()) {
+            headers.add(Pagination.NEXT_TOKEN_HEADER, Pagination.encodeNextToken(page.lastEvaluatedKey()));
+        }
+        return new ResponseEntity<>(page.items(), headers, HttpStatus.OK);
+    }
+
+    @PostMapping("/{accountUuid}/task-stats/recount")
+    public ResponseEntity<AccountTaskStatsDto> recountEmployeeTaskStats(@PathVariable UUID accountUuid){
+        /*
+        * Handles HTTP POST requests to "/api/admin/employees/{accountUuid}/task-stats/recount"
+        * counts the tasks of the employee again, and returns the new counters.
+        * */
+        return new ResponseEntity<>(
+                accountTaskStatsService.recountAccountTaskStats(accountUuid, Role.EMPLOYEE), HttpStatus.OK
+        );
     }
 
     @DeleteMapping("/{accountUuid}")
@@ -0,0 +1,62 @@
+package com.example.project6.controller;
+
+import com.example.project6.Service.SnapshotService;
+import com.example.project6.dao.SnapshotJob;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/snapshots")
+public class SnapshotController {
+    private final SnapshotService snapshotService;
+
+    public SnapshotController(SnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<String>> getSnapshots(){
+        /*
+        * Handles HTTP GET requests to "/api/admin/snapshots"
+        * returns the names of the snapshot files, oldest first.
+        * */
+        return new ResponseEntity<>(snapshotService.getSnapshots(), HttpStatus.OK);
+    }
+
+    @PostMapping("/export")
+    public ResponseEntity<SnapshotJob> exportSnapshot(){
+        /*
+        * Handles HTTP POST requests to "/api/admin/snapshots/export"
+        * starts exporting the table into a new snapshot file, in the background.
+        * In case of success it returns:
+        *   - the started job, its progress is returned by "/api/admin/snapshots/job".
+        *   - HTTP STATUS CODE 202 ACCEPTED.
+        * returns 409 CONFLICT when another snapshot job is running.
+        * */
+        return new ResponseEntity<>(snapshotService.startExport(), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<SnapshotJob> importSnapshot(@RequestParam String file){
+        /*
+        * Handles HTTP POST requests to "/api/admin/snapshots/import?file={file}"
+        * starts putting the items of the snapshot file back into the table, in the background.
+        * In case of success it returns:
+        *   - the started job.
+        *   - HTTP STATUS CODE 202 ACCEPTED.
+        * */
+        return new ResponseEntity<>(snapshotService.startImport(file), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/job")
+    public ResponseEntity<SnapshotJob> getLastJob(){
+        /*
+        * Handles HTTP GET requests to "/api/admin/snapshots/job"
+        * returns the progress of the last started snapshot job.
+        * */
+        return new ResponseEntity<>(snapshotService.getLastJob(), HttpStatus.OK);
+    }
+}
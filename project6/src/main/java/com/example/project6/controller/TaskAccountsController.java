@@ -1,44 +1,95 @@
 package com.example.project6.controller;
 
 import com.example.project6.Service.TaskAccountsService;
+import com.example.project6.dao.QueryPage;
 import com.example.project6.dto.TaskAccountDto;
 import com.example.project6.entity.TaskAccountLink;
+import com.example.project6.util.NdJson;
+import com.example.project6.util.Pagination;
 import com.example.project6.util.entityAndDtoMappers.TaskAccountMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/task")
 public class TaskAccountsController {
     private final TaskAccountsService taskAccountsService;
+    private final ObjectMapper objectMapper;
 
-    public TaskAccountsController(TaskAccountsService taskAccountsService) {
+    public TaskAccountsController(TaskAccountsService taskAccountsService, ObjectMapper objectMapper) {
         this.taskAccountsService = taskAccountsService;
+        this.objectMapper = objectMapper;
     }
 
     @PreAuthorize("(hasAuthority('ADMIN')) or (hasAuthority('EMPLOYEE') and" +
             " @taskService.isTaskSharedWithUser(#taskUuid, T(com.example.project6.security.CustomUserDetails).cast(principal)))")
     @GetMapping("/{taskUuid}/accounts")
-    public ResponseEntity<List<TaskAccountDto>> getTaskAccounts(@PathVariable UUID taskUuid){
+    public ResponseEntity<List<TaskAccountDto>> getTaskAccounts(@PathVariable UUID taskUuid,
+                                                                @RequestParam(required = false) Integer limit,
+                                                                @RequestParam(required = false) String nextToken){
+        /*
+        * Handles HTTP GET requests to "/api/task/{taskUuid}/accounts"
+        * When "limit" or "nextToken" are provided, it returns a single page of at most "limit" accounts,
+        * the token of the next page (if any) is returned in the "X-Next-Token" header.
+        * */
+        if (limit == null && nextToken == null) {
+            return new ResponseEntity<>(
+                    taskAccountsService.getTaskAccounts(taskUuid)
+                            .stream()
+                            .map(TaskAccountMapper::TaskAccountToTaskAccountDto)
+                            .toList(),
+                    HttpStatus.OK);
+        }
+
+        QueryPage<TaskAccountLink> page = taskAccountsService.getTaskAccountsPage(taskUuid, limit, nextToken);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.hasNextPage()) {
+            headers.add(Pagination.NEXT_TOKEN_HEADER, Pagination.encodeNextToken(page.lastEvaluatedKey()));
+        }
         return new ResponseEntity<>(
-                taskAccountsService.getTaskAccounts(taskUuid)
+                page.items()
                         .stream()
                         .map(TaskAccountMapper::TaskAccountToTaskAccountDto)
                         .toList(),
+                headers,
                 HttpStatus.OK);
     }
 
+    @PreAuthorize("(hasAuthority('ADMIN')) or (hasAuthority('EMPLOYEE') and" +
+            " @taskService.isTaskSharedWithUser(#taskUuid, T(com.example.project6.security.CustomUserDetails).cast(principal)))")
+    @GetMapping(value = "/{taskUuid}/accounts", params = "stream=true", produces = NdJson.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamTaskAccounts(@PathVariable UUID taskUuid,
+                                                                    @RequestParam(required = false) Integer limit){
+        /*
+        * Handles HTTP GET requests to "/api/task/{taskUuid}/accounts?stream=true"
+        * Streams the task accounts as NDJSON, pages of "limit" accounts are fetched as the response is written.
+        * */
+        Stream<List<TaskAccountDto>> pages = taskAccountsService
+                .streamTaskAccounts(taskUuid, limit)
+                .map(page -> page.stream().map(TaskAccountMapper::TaskAccountToTaskAccountDto).toList());
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.parseMediaType(NdJson.MEDIA_TYPE))
+                .body(NdJson.writePages(objectMapper, pages));
+    }
+
     @PreAuthorize("hasAuthority('ADMIN')")
     @PostMapping("/{taskUuid}/accounts/{accountUuid}")
-    public ResponseEntity<List<TaskAccountLink>> shareTaskWithAccount(@PathVariable UUID taskUuid,
+    public ResponseEntity<TaskAccountLink> shareTaskWithAccount(@PathVariable UUID taskUuid,
                                                                  @PathVariable UUID accountUuid){
-        taskAccountsService.shareTaskWithAccount(taskUuid, accountUuid);
-        return new ResponseEntity<>(HttpStatus.OK);
+        // returns the created link.
+        TaskAccountLink taskAccountLink = taskAccountsService.shareTaskWithAccount(taskUuid, accountUuid);
+        return new ResponseEntity<>(taskAccountLink, HttpStatus.OK);
     }
 
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -6,8 +6,10 @@ import com.example.project6.Service.AuthenticationService;
 import com.example.project6.Service.TaskService;
 import com.example.project6.dto.*;
 import com.example.project6.entity.Task;
+import com.example.project6.util.ETags;
 import com.example.project6.util.entityAndDtoMappers.TaskMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -34,7 +36,7 @@ public class TaskController {
     public ResponseEntity<TaskDto> createNewTask(@RequestBody @Valid CreateTaskRequest request){
         Task task = TaskMapper.createTaskRequestToTaskEntity(request);
         Task dbTask = taskService.createNewTask(task);
-        return new ResponseEntity<>(TaskMapper.TaskEntityToTaskDto(dbTask) ,HttpStatus.CREATED);
+        return buildTaskResponse(dbTask, HttpStatus.CREATED);
     }
 
     @GetMapping("/{taskUuid}")
@@ -44,66 +46,79 @@ public class TaskController {
 
         Task task = taskService.getTaskByUuid(taskUuid);
 
-        // convert task to taskDto
-        TaskDto taskDto = TaskMapper.TaskEntityToTaskDto(taskService.getTaskByUuid(taskUuid));
-
-        return new ResponseEntity<>(taskDto, HttpStatus.OK);
+        // convert task to taskDto, the task version is returned in the ETag header.
+        return buildTaskResponse(task, HttpStatus.OK);
     }
 
     @PutMapping("/{taskUuid}")
     @PreAuthorize("(hasAuthority('ADMIN')) or (hasAuthority('EMPLOYEE') and" +
             " @taskService.isTaskSharedWithUser(#taskUuid, T(com.example.project6.security.CustomUserDetails).cast(principal)))")
-    public ResponseEntity<TaskDto> updateTaskByUuid(@RequestBody @Valid UpdateTaskRequest request, @PathVariable UUID taskUuid){
+    public ResponseEntity<TaskDto> updateTaskByUuid(@RequestBody @Valid UpdateTaskRequest request, @PathVariable UUID taskUuid,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         /*
         * Handles HTTP PUT requests to "/api/task/{taskUuid}".
         * It updates the all task attributes.
-        * It returns HTTP STATUS CODE 200 OK in case of success.
+        * If the "If-Match" header is provided, the task is only updated if its ETag still matches.
+        * It returns HTTP STATUS CODE 200 OK in case of success, 412 PRECONDITION FAILED if the ETag doesn't match.
         * */
-        Task dbTask = taskService.updateTaskByTaskUuid(TaskMapper.updateTaskRequestToTaskEntity(request), taskUuid);
-        return new ResponseEntity(TaskMapper.TaskEntityToTaskDto(dbTask) ,HttpStatus.OK);
+        Task dbTask = taskService.updateTaskByTaskUuid(
+                TaskMapper.updateTaskRequestToTaskEntity(request), taskUuid, ETags.parseIfMatch(ifMatch)
+        );
+        return buildTaskResponse(dbTask, HttpStatus.OK);
     }
 
     @PatchMapping("/{taskUuid}/title")
     @PreAuthorize("(hasAuthority('ADMIN')) or (hasAuthority('EMPLOYEE')" +
             " and @taskService.isTaskSharedWithUser(#taskUuid, principal))")
-    public ResponseEntity updateTaskTitleByUuid(@RequestBody @Valid  UpdateTaskTitleRequest request, @PathVariable UUID taskUuid){
-        Task dbTask = taskService.updateTaskTitleByUuid(request.title(), taskUuid);
-        return new ResponseEntity<>(TaskMapper.TaskEntityToTaskDto(dbTask), HttpStatus.OK);
+    public ResponseEntity updateTaskTitleByUuid(@RequestBody @Valid  UpdateTaskTitleRequest request, @PathVariable UUID taskUuid,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Task dbTask = taskService.updateTaskTitleByUuid(request.title(), taskUuid, ETags.parseIfMatch(ifMatch));
+        return buildTaskResponse(dbTask, HttpStatus.OK);
     }
 
     @PatchMapping("/{taskUuid}/description")
     @PreAuthorize("(hasAuthority('ADMIN')) or (hasAuthority('EMPLOYEE') and" +
             " @taskService.isTaskSharedWithUser(#taskUuid, T(com.example.project6.security.CustomUserDetails).cast(principal)))")
     public ResponseEntity updateTaskDescriptionByUuid(@RequestBody @Valid UpdateTaskDescriptionRequest request,
-                                                @PathVariable UUID taskUuid){
+                                                @PathVariable UUID taskUuid,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         /*
         * Handles HTTP PATCH requests to "/api/task/{taskUuid}"
         * Updates the task description.
         * Returns HTTP RESPONSE STATUS CODE 200 OK.
         * */
-        Task dbTask = taskService.updateTaskDescriptionByUuid(request.description(), taskUuid);
-        return new ResponseEntity(TaskMapper.TaskEntityToTaskDto(dbTask), HttpStatus.OK);
+        Task dbTask = taskService.updateTaskDescriptionByUuid(request.description(), taskUuid, ETags.parseIfMatch(ifMatch));
+        return buildTaskResponse(dbTask, HttpStatus.OK);
     }
 
     @PatchMapping("/{taskUuid}/status")
     @PreAuthorize("(hasAuthority('ADMIN')) or (hasAuthority('EMPLOYEE') and" +
             " @taskService.isTaskSharedWithUser(#taskUuid, T(com.example.project6.security.CustomUserDetails).cast(principal)))")
     public ResponseEntity updateTaskStatusByUuid(@RequestBody @Valid  UpdateTaskStatusRequest request,
-                                                 @PathVariable UUID taskUuid){
+                                                 @PathVariable UUID taskUuid,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         /*
         * Handles HTTP PATCH requests to "/api/task/{taskUuid}/status"
         * Updates the task status.
         * Returns HTTP response STATUS CODE 200 OK.
         * */
 
-        Task dbTask = taskService.updateTaskStatusByUuid(request.status(), taskUuid);
-        return new ResponseEntity<>(TaskMapper.TaskEntityToTaskDto(dbTask), HttpStatus.OK);
+        Task dbTask = taskService.updateTaskStatusByUuid(request.status(), taskUuid, ETags.parseIfMatch(ifMatch));
+        return buildTaskResponse(dbTask, HttpStatus.OK);
     }
 
     @PreAuthorize("hasAuthority('ADMIN')")
     @DeleteMapping("/{taskUuid}")
-    public ResponseEntity deleteByTaskUuid(@PathVariable UUID taskUuid){
-        taskService.deleteTaskByUuid(taskUuid);
+    public ResponseEntity deleteByTaskUuid(@PathVariable UUID taskUuid,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        taskService.deleteTaskByUuid(taskUuid, ETags.parseIfMatch(ifMatch));
         return new ResponseEntity<>(HttpStatus.OK);
     }
+
+    private ResponseEntity<TaskDto> buildTaskResponse(Task task, HttpStatus httpStatus){
+        // returns the task, with its version as ETag, to be sent back in "If-Match" by conditional updates.
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETags.toETag(task.getVersion()));
+        return new ResponseEntity<>(TaskMapper.TaskEntityToTaskDto(task), headers, httpStatus);
+    }
 }
@@ -3,29 +3,64 @@ package com.example.project6.dao;
 
 
 
+import com.example.project6.Enum.EntityType;
 import com.example.project6.Enum.Role;
 import com.example.project6.entity.Account;
 
 
+import com.example.project6.util.Futures;
+import com.example.project6.util.KeyCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 
 @Repository
 public class AccountRepository {
+    /*
+     * The accounts of a role are listed through ROLE_SHARD_INDEX,
+     * whose partition key is "role_shard" ("ROLE#N") and sort key is the account pk.
+     *   - every account is written to one of "amazon.dynamodb.role-index.shards" shards, derived from its uuid,
+     *       so the writes of a role are spread over several index partitions instead of a single hot one.
+     *   - listings query all the shards concurrently and merge the results in account pk order.
+     *   - changing the number of shards moves accounts to other shards, run backfillRoleShards() afterwards.
+     * */
+
+    public static final String ROLE_SHARD_INDEX = "ROLE_SHARD_INDEX";
+
     final private DynamoDbTable<Account> accountTable;
+    final private DynamoDbClient dynamoDbClient;
+    final private DynamoDbAsyncClient dynamoDbAsyncClient;
+    final private int roleIndexShards;
 
-    public AccountRepository(DynamoDbTable<Account> accountTable) {
+    public AccountRepository(DynamoDbTable<Account> accountTable, DynamoDbClient dynamoDbClient,
+                             DynamoDbAsyncClient dynamoDbAsyncClient,
+                             @Value("${amazon.dynamodb.role-index.shards:8}") int roleIndexShards) {
         this.accountTable = accountTable;
+        this.dynamoDbClient = dynamoDbClient;
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.roleIndexShards = roleIndexShards;
     }
 
 
     public void save(Account account) {
+        // the role shard is always derived from the account, so it can't be set to a wrong shard by the caller.
+        account.setRoleShard(roleShardOf(account.getRole(), account.getAccountUuid()));
         accountTable.putItem(
                 PutItemEnhancedRequest
                         .builder(Account.class)
@@ -35,25 +70,101 @@ public class AccountRepository {
 
     }
 
-    public Optional<Account> load(Account account) {
-        return Optional.ofNullable(accountTable.getItem(account));
+    public Optional<Account> load(Account account){
+        // eventually consistent read.
+        return load(account, false);
+    }
+    public Optional<Account> load(Account account, boolean consistentRead){
+        return Optional.ofNullable(accountTable.getItem(
+                GetItemEnhancedRequest
+                        .builder()
+                        .key(accountTable.keyFrom(account))
+                        .consistentRead(consistentRead)
+                        .build()
+        ));
     }
 
     public List<Account> getAllByRole(Role role){
-        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
-                .queryConditional(QueryConditional.keyEqualTo(
-                        Key.builder()
-                                .partitionValue(role.toString()) // Specify the partition key value for the GSI
-                                .build()
-                ))
-                .build();
+        // queries all the shards concurrently, each shard is read until its last page.
+        Function<QueryRequest, CompletableFuture<QueryResponse>> query =
+                RequestCapacity.propagate(dynamoDbAsyncClient::query);
+        List<CompletableFuture<List<Map<String, AttributeValue>>>> shards = IntStream
+                .range(0, roleIndexShards)
+                .mapToObj(shard -> queryWholeShard(query, buildRoleShardQuery(roleShard(role, shard), null).build(),
+                        new ArrayList<>()))
+                .toList();
 
-        return accountTable.index("ROLE_INDEX").query(request)
+        return shards
                 .stream()
-                .flatMap(page -> page.items().stream())
+                .flatMap(shard -> Futures.join(shard).stream())
+                .sorted(Comparator.comparing(AccountRepository::pkOf))
+                .map(item -> accountTable.tableSchema().mapToItem(item))
                 .toList();
     }
 
+    public QueryPage<Account> getPageByRole(Role role, int limit, Map<String, AttributeValue> exclusiveStartKey){
+        /*
+         * Fetches a single page of the accounts of a role, in account pk order (scatter-gather).
+         *   - every shard is queried concurrently for the accounts after the last account of the previous page,
+         *       each for about twice its share of the page.
+         *   - the shards results are merged, when a shard runs out of results while it has more accounts,
+         *       it is queried again before the merge goes on, since its next account may come first.
+         *   - exclusiveStartKey: {"role": role, "pk": pk of the last account of the previous page}.
+         * */
+        String afterPk = exclusiveStartKey == null ? null : exclusiveStartKey.get("pk").s();
+        int shardLimit = Math.min(limit, 2 * ((limit + roleIndexShards - 1) / roleIndexShards));
+        Function<QueryRequest, CompletableFuture<QueryResponse>> query =
+                RequestCapacity.propagate(dynamoDbAsyncClient::query);
+
+        // scatter.
+        List<ShardCursor> cursors = IntStream
+                .range(0, roleIndexShards)
+                .mapToObj(shard -> new ShardCursor(
+                        buildRoleShardQuery(roleShard(role, shard), afterPk).limit(shardLimit).build()))
+                .toList();
+        List<CompletableFuture<QueryResponse>> responses = cursors
+                .stream()
+                .map(cursor -> query.apply(cursor.request))
+                .toList();
+
+        // gather.
+        PriorityQueue<ShardCursor> heads = new PriorityQueue<>(Comparator.comparing(ShardCursor::headPk));
+        for (int shard = 0; shard < cursors.size(); shard++) {
+            ShardCursor cursor = cursors.get(shard);
+            cursor.add(Futures.join(responses.get(shard)));
+            cursor.refillIfEmpty(query);
+            if (cursor.hasItems()) {
+                heads.add(cursor);
+            }
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        while (items.size() < limit && !heads.isEmpty()) {
+            ShardCursor cursor = heads.poll();
+            items.add(cursor.next());
+            if (items.size() < limit) {
+                cursor.refillIfEmpty(query);
+            }
+            if (cursor.hasItems()) {
+                heads.add(cursor);
+            }
+        }
+
+        // the page is followed by another one, unless all the shards were read to their end.
+        Map<String, AttributeValue> lastEvaluatedKey = Map.of();
+        boolean hasMore = !heads.isEmpty() || cursors.stream().anyMatch(ShardCursor::hasMorePages);
+        if (items.size() == limit && hasMore) {
+            lastEvaluatedKey = Map.of(
+                    "role", AttributeValue.builder().s(role.toString()).build(),
+                    "pk", items.get(items.size() - 1).get("pk")
+            );
+        }
+        return new QueryPage<>(
+                items.stream().map(item -> accountTable.tableSchema().mapToItem(item)).toList(),
+                lastEvaluatedKey
+        );
+    }
+
     public Optional<Account> findByEmail(String email){
         QueryEnhancedRequest request = QueryEnhancedRequest.builder()
                 .queryConditional(QueryConditional.keyEqualTo(
@@ -73,4 +184,136 @@ public class AccountRepository {
     public void deleteByAccountUuid(Account account) {
        accountTable.deleteItem(account);
     }
-}
\ No newline at end of file
+
+    public int backfillRoleShards() {
+        /*
+         * Sets the role shard of the accounts that were saved without one (or with the shard of another
+         * number of shards), so they are listed again.
+         * Scans the accounts, and updates only the ones whose shard is wrong, the update is conditional on
+         * the account still existing, so an account deleted during the backfill isn't recreated.
+         * Returns the number of updated accounts.
+         * */
+        int updated = 0;
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName(accountTable.tableName())
+                .filterExpression("begins_with(pk, :accountPrefix) AND pk = sk")
+                .projectionExpression("pk, sk, account_uuid, #role, role_shard")
+                .expressionAttributeNames(Map.of("#role", "role"))
+                .expressionAttributeValues(Map.of(
+                        ":accountPrefix", AttributeValue.builder().s(KeyCodec.prefix(EntityType.ACCOUNT)).build()
+                ))
+                .build();
+
+        for (Map<String, AttributeValue> item : dynamoDbClient.scanPaginator(scanRequest).items()) {
+            Account account = accountTable.tableSchema().mapToItem(item);
+            if (account.getRole() == null) {
+                continue;
+            }
+            String roleShard = roleShardOf(account.getRole(), account.getAccountUuid());
+            if (roleShard.equals(account.getRoleShard())) {
+                continue;
+            }
+            try {
+                dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                        .tableName(accountTable.tableName())
+                        .key(Map.of("pk", item.get("pk"), "sk", item.get("sk")))
+                        .updateExpression("SET role_shard = :roleShard")
+                        .conditionExpression("attribute_exists(pk)")
+                        .expressionAttributeValues(Map.of(
+                                ":roleShard", AttributeValue.builder().s(roleShard).build()
+                        ))
+                        .build());
+                updated++;
+            } catch (ConditionalCheckFailedException e) {
+                // deleted since it was scanned.
+            }
+        }
+        return updated;
+    }
+
+    public String roleShardOf(Role role, UUID accountUuid) {
+        // the shard is derived from the account uuid, so an account always lands in the same shard.
+        if (role == null || accountUuid == null) {
+            return null;
+        }
+        return roleShard(role, Math.floorMod(accountUuid.hashCode(), roleIndexShards));
+    }
+
+    private static String roleShard(Role role, int shard) {
+        return String.format("%s#%d", role, shard);
+    }
+
+    private QueryRequest.Builder buildRoleShardQuery(String roleShard, String afterPk) {
+        // builds a query for the accounts of a role shard, after the afterPk account (if provided).
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":roleShard", AttributeValue.builder().s(roleShard).build());
+        String keyConditionExpression = "role_shard = :roleShard";
+        if (afterPk != null) {
+            expressionAttributeValues.put(":afterPk", AttributeValue.builder().s(afterPk).build());
+            keyConditionExpression += " AND pk > :afterPk";
+        }
+        return QueryRequest.builder()
+                .tableName(accountTable.tableName())
+                .indexName(ROLE_SHARD_INDEX)
+                .keyConditionExpression(keyConditionExpression)
+                .expressionAttributeValues(expressionAttributeValues);
+    }
+
+    private CompletableFuture<List<Map<String, AttributeValue>>> queryWholeShard(
+            Function<QueryRequest, CompletableFuture<QueryResponse>> query,
+            QueryRequest request,
+            List<Map<String, AttributeValue>> items) {
+        // follows LastEvaluatedKey until the whole shard is read.
+        return query.apply(request).thenCompose(response -> {
+            items.addAll(response.items());
+            if (response.lastEvaluatedKey() == null || response.lastEvaluatedKey().isEmpty()) {
+                return CompletableFuture.completedFuture(items);
+            }
+            return queryWholeShard(query, request.toBuilder().exclusiveStartKey(response.lastEvaluatedKey()).build(),
+                    items);
+        });
+    }
+
+    private static String pkOf(Map<String, AttributeValue> item) {
+        return item.get("pk").s();
+    }
+
+    private static class ShardCursor {
+        // the fetched but not yet merged accounts of a shard, and where to continue its query from.
+        private final QueryRequest request;
+        private final Deque<Map<String, AttributeValue>> items = new ArrayDeque<>();
+        private Map<String, AttributeValue> lastEvaluatedKey = Map.of();
+
+        ShardCursor(QueryRequest request) {
+            this.request = request;
+        }
+
+        void add(QueryResponse response) {
+            items.addAll(response.items());
+            lastEvaluatedKey = response.lastEvaluatedKey();
+        }
+
+        void refillIfEmpty(Function<QueryRequest, CompletableFuture<QueryResponse>> query) {
+            // a page can be empty while the shard has more accounts, so it is queried until it has one or ends.
+            while (items.isEmpty() && hasMorePages()) {
+                add(Futures.join(query.apply(request.toBuilder().exclusiveStartKey(lastEvaluatedKey).build())));
+            }
+        }
+
+        boolean hasItems() {
+            return !items.isEmpty();
+        }
+
+        boolean hasMorePages() {
+            return lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty();
+        }
+
+        Map<String, AttributeValue> next() {
+            return items.poll();
+        }
+
+        String headPk() {
+            return pkOf(items.peek());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.project6.dao;
+
+import com.example.project6.Enum.EntityType;
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.entity.AccountTaskStats;
+import com.example.project6.exception.ConflictException;
+import com.example.project6.util.KeyCodec;
+import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+@Repository
+public class AccountTaskStatsRepository {
+    /*
+     * Task counters of the accounts (see AccountTaskStats).
+     *   - the counters are changed with ADD update actions, added to the transactions that change the account
+     *       task links, so they are committed (or not) together with them. An ADD creates the counter item
+     *       if it doesn't exist yet.
+     *   - every change bumps the version of the counters, recount() relies on it to overwrite them safely.
+     * */
+
+    private static final int MAX_RECOUNT_ATTEMPTS = 4;
+
+    private final DynamoDbTable<AccountTaskStats> accountTaskStatsTable;
+    private final DynamoDbClient dynamoDbClient;
+    private final BatchGetItemLoader batchGetItemLoader;
+    // writes account_uuid in the encoding of the table (see DynamoDBConfig).
+    private final UUIDConverter uuidConverter;
+
+    public AccountTaskStatsRepository(DynamoDbTable<AccountTaskStats> accountTaskStatsTable,
+                                      DynamoDbClient dynamoDbClient,
+                                      BatchGetItemLoader batchGetItemLoader,
+                                      UUIDConverter uuidConverter) {
+        this.accountTaskStatsTable = accountTaskStatsTable;
+        this.dynamoDbClient = dynamoDbClient;
+        this.batchGetItemLoader = batchGetItemLoader;
+        this.uuidConverter = uuidConverter;
+    }
+
+    public Optional<AccountTaskStats> load(UUID accountUuid, boolean consistentRead) {
+        return Optional.ofNullable(accountTaskStatsTable.getItem(
+                GetItemEnhancedRequest
+                        .builder()
+                        .key(accountTaskStatsTable.keyFrom(AccountTaskStats.builder().withAccountUuid(accountUuid).build()))
+                        .consistentRead(consistentRead)
+                        .build()
+        ));
+    }
+
+    public List<AccountTaskStats> loadAll(Collection<UUID> accountUuids) {
+        // loads the counters of the accounts using BatchGetItem, accounts without counters are skipped.
+        return batchGetItemLoader.loadAll(
+                accountTaskStatsTable,
+                accountUuids
+                        .stream()
+                        .map(accountUuid -> AccountTaskStats.builder().withAccountUuid(accountUuid).build())
+                        .toList()
+        );
+    }
+
+    public TransactWriteItem generateAddTransactWriteItem(UUID accountUuid, TaskStatus status, long delta) {
+        // a task (with the given status, if any) was shared with the account (delta = 1), or un-shared (delta = -1).
+        Map<TaskStatus, Long> statusDeltas = new EnumMap<>(TaskStatus.class);
+        if (status != null) {
+            statusDeltas.put(status, delta);
+        }
+        return generateUpdateTransactWriteItem(accountUuid, delta, statusDeltas);
+    }
+
+    public TransactWriteItem generateMoveTransactWriteItem(UUID accountUuid, TaskStatus from, TaskStatus to) {
+        // the status of a task shared with the account changed.
+        Map<TaskStatus, Long> statusDeltas = new EnumMap<>(TaskStatus.class);
+        if (from != null) {
+            statusDeltas.put(from, -1L);
+        }
+        if (to != null) {
+            statusDeltas.merge(to, 1L, Long::sum);
+        }
+        return generateUpdateTransactWriteItem(accountUuid, 0, statusDeltas);
+    }
+
+    private TransactWriteItem generateUpdateTransactWriteItem(UUID accountUuid, long taskDelta,
+                                                              Map<TaskStatus, Long> statusDeltas) {
+        AccountTaskStats key = AccountTaskStats.builder().withAccountUuid(accountUuid).build();
+
+        Map<String, String> expressionAttributeNames = new HashMap<>(VersionedWrites.versionAttributeNames());
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        List<String> additions = new ArrayList<>();
+        additions.add("#version :one");
+        expressionAttributeValues.put(":one", AttributeValue.builder().n("1").build());
+        if (taskDelta != 0) {
+            additions.add("task_count :taskDelta");
+            expressionAttributeValues.put(":taskDelta", AttributeValue.builder().n(Long.toString(taskDelta)).build());
+        }
+        statusDeltas.forEach((status, delta) -> {
+            if (delta != 0) {
+                expressionAttributeNames.put("#" + status, AccountTaskStats.countAttributeOf(status));
+                additions.add(String.format("#%s :%s", status, status));
+                expressionAttributeValues.put(":" + status, AttributeValue.builder().n(delta.toString()).build());
+            }
+        });
+        expressionAttributeValues.put(":accountUuid", uuidConverter.transformFrom(accountUuid));
+
+        Update update = Update
+                .builder()
+                .tableName("app")
+                .key(Map.of(
+                        "pk", AttributeValue.builder().s(key.getPk()).build(),
+                        "sk", AttributeValue.builder().s(key.getSk()).build()
+                ))
+                .updateExpression("ADD " + String.join(", ", additions) + " SET account_uuid = :accountUuid")
+                .expressionAttributeNames(expressionAttributeNames)
+                .expressionAttributeValues(expressionAttributeValues)
+                .build();
+        return TransactWriteItem.builder().update(update).build();
+    }
+
+    public AccountTaskStats recount(UUID accountUuid) {
+        /*
+         * Counts the account task links, and overwrites the counters of the account with the result,
+         * to initialize the counters of accounts that had tasks before they were introduced, or to repair them.
+         * The counters are only overwritten if no task of the account changed meanwhile (same version),
+         * otherwise the account is counted again.
+         * Links saved without a status (see AccountTasksRepository.backfillTaskStatus) are only in the total.
+         * */
+        for (int attempt = 0; attempt < MAX_RECOUNT_ATTEMPTS; attempt++) {
+            Long version = load(accountUuid, true).map(AccountTaskStats::getVersion).orElse(null);
+
+            long taskCount = 0;
+            Map<TaskStatus, Long> statusCounts = new EnumMap<>(TaskStatus.class);
+            QueryRequest queryRequest = QueryRequest.builder()
+                    .tableName("app")
+                    .keyConditionExpression("pk = :pk AND begins_with(sk, :taskPrefix)")
+                    .projectionExpression("task_status")
+                    .expressionAttributeValues(Map.of(
+                            ":pk", AttributeValue.builder().s(KeyCodec.key(EntityType.ACCOUNT, accountUuid)).build(),
+                            ":taskPrefix", AttributeValue.builder().s(KeyCodec.prefix(EntityType.TASK)).build()
+                    ))
+                    .consistentRead(true)
+                    .build();
+            for (Map<String, AttributeValue> item : dynamoDbClient.queryPaginator(queryRequest).items()) {
+                taskCount++;
+                AttributeValue status = item.get("task_status");
+                if (status != null) {
+                    statusCounts.merge(TaskStatus.valueOf(status.s()), 1L, Long::sum);
+                }
+            }
+
+            AccountTaskStats accountTaskStats = AccountTaskStats
+                    .builder()
+                    .withAccountUuid(accountUuid)
+                    .withTaskCount(taskCount)
+                    .withTodoCount(statusCounts.getOrDefault(TaskStatus.TODO, 0L))
+                    .withInProgressCount(statusCounts.getOrDefault(TaskStatus.IN_PROGRESS, 0L))
+                    .withDoneCount(statusCounts.getOrDefault(TaskStatus.DONE, 0L))
+                    .withVersion(VersionedWrites.nextVersion(version))
+                    .build();
+            try {
+                dynamoDbClient.putItem(PutItemRequest
+                        .builder()
+                        .tableName("app")
+                        .item(accountTaskStatsTable.tableSchema().itemToMap(accountTaskStats, true))
+                        .conditionExpression(VersionedWrites.versionCondition(version))
+                        .expressionAttributeNames(VersionedWrites.versionAttributeNames())
+                        .expressionAttributeValues(VersionedWrites.versionAttributeValues(version))
+                        .build());
+                return accountTaskStats;
+            } catch (ConditionalCheckFailedException e) {
+                // a task of the account changed while it was counted.
+            }
+        }
+        throw new ConflictException(
+                "couldn't count the tasks of account with uuid: " + accountUuid + " because of concurrent updates"
+        );
+    }
+}
@@ -4,30 +4,267 @@ package com.example.project6.dao;
 
 
 
+import com.example.project6.Enum.EntityType;
+import com.example.project6.Enum.TaskStatus;
 import com.example.project6.entity.AccountTaskLink;
 import com.example.project6.entity.Task;
+import com.example.project6.util.KeyCodec;
 import org.springframework.stereotype.Repository;
 
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Repository
 public class AccountTasksRepository {
+    /*
+     * The account task links are in the account partition ("ACCOUNT#uuid", "TASK#uuid").
+     * The links to a task with a status are also in ACCOUNT_STATUS_INDEX, a sparse index whose partitions are
+     * the tasks of an account with a given status ("ACCOUNT#uuid#STATUS", sorted by "TASK#uuid"),
+     * so listing them reads only the matching links.
+     * They are also in ACCOUNT_CREATED_INDEX, the account partition sorted by the creation time of the tasks
+     * ("<creation time>#uuid", see AccountTaskLink.getCreatedSk), so listing the tasks created in a time range
+     * reads only the links it returns.
+     * */
+    public static final String ACCOUNT_STATUS_INDEX = "ACCOUNT_STATUS_INDEX";
+    public static final String ACCOUNT_CREATED_INDEX = "ACCOUNT_CREATED_INDEX";
+
     private final DynamoDbClient dynamoDbClient;
     private final DynamoDbTable<AccountTaskLink>accountTaskLinkTable;
+    private final BatchGetItemLoader batchGetItemLoader;
 
-    public AccountTasksRepository(DynamoDbClient dynamoDbClient, DynamoDbTable<AccountTaskLink> accountTaskLinkTable) {
+    public AccountTasksRepository(DynamoDbClient dynamoDbClient, DynamoDbTable<AccountTaskLink> accountTaskLinkTable,
+                                  BatchGetItemLoader batchGetItemLoader) {
         this.dynamoDbClient = dynamoDbClient;
         this.accountTaskLinkTable = accountTaskLinkTable;
+        this.batchGetItemLoader = batchGetItemLoader;
     }
 
     public void save(AccountTaskLink accountTaskLink){
         accountTaskLinkTable.putItem(accountTaskLink);
     }
     public List<AccountTaskLink> getAccountTasks(UUID accountUuid){
+        // follows LastEvaluatedKey until the whole partition is read.
+        return dynamoDbClient.queryPaginator(buildAccountTasksQuery(accountUuid).build())
+                .items()
+                .stream()
+                .map(item-> accountTaskLinkTable.tableSchema().mapToItem(item)).toList();
+
+
+    }
+
+    public QueryPage<AccountTaskLink> getAccountTasksPage(UUID accountUuid, int limit,
+                                                          Map<String, AttributeValue> exclusiveStartKey){
+        // fetches a single page of the account tasks, starting after the exclusiveStartKey (if provided).
+        QueryResponse queryResponse = dynamoDbClient.query(
+                buildAccountTasksQuery(accountUuid)
+                        .limit(limit)
+                        .exclusiveStartKey(exclusiveStartKey)
+                        .build()
+        );
+        List<AccountTaskLink> accountTaskLinks = queryResponse
+                .items()
+                .stream()
+                .map(item-> accountTaskLinkTable.tableSchema().mapToItem(item))
+                .toList();
+        return new QueryPage<>(accountTaskLinks, queryResponse.lastEvaluatedKey());
+    }
+
+    public QueryPage<AccountTaskLink> getAccountTasksPageNewestFirst(UUID accountUuid, Instant createdSince,
+                                                                     Instant createdBefore, int limit,
+                                                                     Map<String, AttributeValue> exclusiveStartKey){
+        /*
+         * fetches a single page of the account tasks created in [createdSince, createdBefore), newest first,
+         * from ACCOUNT_CREATED_INDEX (eventually consistent, like every global secondary index).
+         *   - null bounds are open, bounds out of [EPOCH, AccountTaskLink.MAX_CREATED_AT] are clamped.
+         *   - the tasks created before task uuids were time ordered sort as created at 1970-01-01T00:00:00Z.
+         * */
+        Instant to = createdBefore != null ? createdBefore : AccountTaskLink.MAX_CREATED_AT;
+
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":pk", AttributeValue.builder()
+                .s(AccountTaskLink.builder().withAccountUuid(accountUuid).build().getPk()).build());
+        expressionAttributeValues.put(":from", AttributeValue.builder()
+                .s(AccountTaskLink.createdSkBound(createdSince != null ? createdSince : Instant.EPOCH)).build());
+        // the bound sorts before every sort key of its millisecond, so createdBefore is excluded.
+        expressionAttributeValues.put(":to", AttributeValue.builder()
+                .s(AccountTaskLink.createdSkBound(to)).build());
+
+        QueryResponse queryResponse = dynamoDbClient.query(
+                QueryRequest.builder()
+                        .tableName("app")
+                        .indexName(ACCOUNT_CREATED_INDEX)
+                        .keyConditionExpression("pk = :pk AND created_sk BETWEEN :from AND :to")
+                        .expressionAttributeValues(expressionAttributeValues)
+                        // newest first.
+                        .scanIndexForward(false)
+                        .limit(limit)
+                        .exclusiveStartKey(exclusiveStartKey)
+                        .build()
+        );
+        List<AccountTaskLink> accountTaskLinks = queryResponse
+                .items()
+                .stream()
+                .map(item-> accountTaskLinkTable.tableSchema().mapToItem(item))
+                .toList();
+        return new QueryPage<>(accountTaskLinks, queryResponse.lastEvaluatedKey());
+    }
+
+    public QueryPage<AccountTaskLink> getAccountTasksPageByStatus(UUID accountUuid, TaskStatus taskStatus, int limit,
+                                                                  Map<String, AttributeValue> exclusiveStartKey){
+        // fetches a single page of the account tasks that have the given status, newest first,
+        // from ACCOUNT_STATUS_INDEX (eventually consistent, like every global secondary index).
+        QueryResponse queryResponse = dynamoDbClient.query(
+                QueryRequest.builder()
+                        .tableName("app")
+                        .indexName(ACCOUNT_STATUS_INDEX)
+                        .keyConditionExpression("status_pk = :statusPk")
+                        .expressionAttributeValues(Map.of(
+                                ":statusPk",
+                                AttributeValue.builder().s(AccountTaskLink.statusPkOf(accountUuid, taskStatus)).build()
+                        ))
+                        .scanIndexForward(false)
+                        .limit(limit)
+                        .exclusiveStartKey(exclusiveStartKey)
+                        .build()
+        );
+        List<AccountTaskLink> accountTaskLinks = queryResponse
+                .items()
+                .stream()
+                .map(item-> accountTaskLinkTable.tableSchema().mapToItem(item))
+                .toList();
+        return new QueryPage<>(accountTaskLinks, queryResponse.lastEvaluatedKey());
+    }
+
+    public int backfillTaskStatus(){
+        /*
+         * Copies the status of the tasks into their account task links saved without one,
+         * so they are listed by ACCOUNT_STATUS_INDEX.
+         * Scans the tasks, and updates their links that still exist and still have no status: a link deleted during
+         * the backfill isn't recreated, and a status written since the task was scanned (e.g. by a status update)
+         * is newer than the scanned one, so it isn't overwritten.
+         * Returns the number of updated links.
+         * */
+        String taskPrefix = KeyCodec.prefix(EntityType.TASK);
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName("app")
+                .filterExpression("begins_with(pk, :taskPrefix) AND pk = sk AND attribute_exists(task_status)")
+                .projectionExpression("pk, task_uuid, task_status")
+                .expressionAttributeValues(Map.of(
+                        ":taskPrefix", AttributeValue.builder().s(taskPrefix).build()
+                ))
+                .build();
+
+        int updated = 0;
+        for (Map<String, AttributeValue> task : dynamoDbClient.scanPaginator(scanRequest).items()) {
+            TaskStatus taskStatus = TaskStatus.valueOf(task.get("task_status").s());
+
+            // the accounts the task is shared with, from the task account links in the task partition.
+            QueryRequest taskAccountsQuery = QueryRequest.builder()
+                    .tableName("app")
+                    .keyConditionExpression("pk = :pk AND begins_with(sk, :accountPrefix)")
+                    .projectionExpression("account_uuid")
+                    .expressionAttributeValues(Map.of(
+                            ":pk", task.get("pk"),
+                            ":accountPrefix", AttributeValue.builder().s(KeyCodec.prefix(EntityType.ACCOUNT)).build()
+                    ))
+                    .build();
+            for (Map<String, AttributeValue> taskAccount : dynamoDbClient.queryPaginator(taskAccountsQuery).items()) {
+                AccountTaskLink accountTaskLink = AccountTaskLink
+                        .builder()
+                        .withAccountUuid(KeyCodec.uuidOf(taskAccount.get("account_uuid")))
+                        .withTaskUuid(KeyCodec.uuidOf(task.get("task_uuid")))
+                        .withTaskStatus(taskStatus)
+                        .build();
+
+                Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+                expressionAttributeValues.put(":taskStatus", AttributeValue.builder().s(taskStatus.toString()).build());
+                expressionAttributeValues.put(":statusPk", AttributeValue.builder().s(accountTaskLink.getStatusPk()).build());
+                expressionAttributeValues.put(":zero", AttributeValue.builder().n("0").build());
+                expressionAttributeValues.put(":one", AttributeValue.builder().n("1").build());
+                try {
+                    dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                            .tableName("app")
+                            .key(Map.of(
+                                    "pk", AttributeValue.builder().s(accountTaskLink.getPk()).build(),
+                                    "sk", AttributeValue.builder().s(accountTaskLink.getSk()).build()
+                            ))
+                            // the version is bumped, so concurrent full writes of the link notice the update.
+                            .updateExpression("SET task_status = :taskStatus, status_pk = :statusPk, "
+                                    + "#version = if_not_exists(#version, :zero) + :one")
+                            .conditionExpression("attribute_exists(pk) AND attribute_not_exists(task_status)")
+                            .expressionAttributeNames(VersionedWrites.versionAttributeNames())
+                            .expressionAttributeValues(expressionAttributeValues)
+                            .build());
+                    updated++;
+                } catch (ConditionalCheckFailedException e) {
+                    // deleted since the task was scanned, or already has a status.
+                }
+            }
+        }
+        return updated;
+    }
+
+    public int backfillCreatedSk(){
+        /*
+         * Adds the ACCOUNT_CREATED_INDEX sort key to the account task links saved without one,
+         * so they are listed by the creation time of their tasks.
+         * The sort key is derived from the task uuid (the key of the link), so it is only added if it is missing,
+         * and only to links that still exist: a concurrent write of the link writes the same value,
+         * and a link deleted during the backfill isn't recreated.
+         * Returns the number of updated links.
+         * */
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName("app")
+                .filterExpression("begins_with(pk, :accountPrefix) AND begins_with(sk, :taskPrefix) "
+                        + "AND attribute_not_exists(created_sk)")
+                .projectionExpression("pk, sk")
+                .expressionAttributeValues(Map.of(
+                        ":accountPrefix", AttributeValue.builder().s(KeyCodec.prefix(EntityType.ACCOUNT)).build(),
+                        ":taskPrefix", AttributeValue.builder().s(KeyCodec.prefix(EntityType.TASK)).build()
+                ))
+                .build();
+
+        int updated = 0;
+        for (Map<String, AttributeValue> accountTaskLink : dynamoDbClient.scanPaginator(scanRequest).items()) {
+            UUID taskUuid = KeyCodec.uuidOf(EntityType.TASK, accountTaskLink.get("sk").s());
+            try {
+                dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                        .tableName("app")
+                        .key(Map.of("pk", accountTaskLink.get("pk"), "sk", accountTaskLink.get("sk")))
+                        .updateExpression("SET created_sk = :createdSk")
+                        .conditionExpression("attribute_exists(pk) AND attribute_not_exists(created_sk)")
+                        .expressionAttributeValues(Map.of(
+                                ":createdSk", AttributeValue.builder().s(AccountTaskLink.createdSkOf(taskUuid)).build()
+                        ))
+                        .build());
+                updated++;
+            } catch (ConditionalCheckFailedException e) {
+                // deleted since the link was scanned, or already written again with its sort key.
+            }
+        }
+        return updated;
+    }
+
+    public Stream<List<AccountTaskLink>> streamAccountTasks(UUID accountUuid, int pageSize){
+        // lazily fetches the account tasks page by page, each page is fetched only when it is consumed.
+        return dynamoDbClient.queryPaginator(buildAccountTasksQuery(accountUuid).limit(pageSize).build())
+                .stream()
+                .map(queryResponse -> queryResponse
+                        .items()
+                        .stream()
+                        .map(item-> accountTaskLinkTable.tableSchema().mapToItem(item))
+                        .toList()
+                );
+    }
+
+    private QueryRequest.Builder buildAccountTasksQuery(UUID accountUuid){
+        // builds a query for all account task links in the account partition.
         AccountTaskLink accountTaskLink  =  AccountTaskLink
                 .builder()
                 .withAccountUuid(accountUuid)
@@ -37,19 +274,10 @@ public class AccountTasksRepository {
         expressionAttributeValues.put(":pk", AttributeValue.builder().s(accountTaskLink.getPk()).build());
         expressionAttributeValues.put(":sk", AttributeValue.builder().s(accountTaskLink.getSk()).build());
 
-        QueryRequest queryRequest = QueryRequest.builder()
+        return QueryRequest.builder()
                 .tableName("app")
                 .keyConditionExpression("pk = :pk AND begins_with(sk, :sk)")
-                .expressionAttributeValues(expressionAttributeValues)
-                .build();
-
-        // Execute the query
-        return dynamoDbClient.query(queryRequest)
-                .items()
-                .stream()
-                .map(item-> accountTaskLinkTable.tableSchema().mapToItem(item)).toList();
-
-
+                .expressionAttributeValues(expressionAttributeValues);
     }
 
     public Optional<AccountTaskLink> getByAccountUuidAndTaskUuid(UUID accountUuid, UUID taskUuid){
@@ -63,8 +291,22 @@ public class AccountTasksRepository {
     }
 
     public Optional<AccountTaskLink> load(AccountTaskLink accountTaskLink){
+        // eventually consistent read.
+        return load(accountTaskLink, false);
+    }
+    public Optional<AccountTaskLink> load(AccountTaskLink accountTaskLink, boolean consistentRead){
+        return Optional.ofNullable(accountTaskLinkTable.getItem(
+                GetItemEnhancedRequest
+                        .builder()
+                        .key(accountTaskLinkTable.keyFrom(accountTaskLink))
+                        .consistentRead(consistentRead)
+                        .build()
+        ));
+    }
 
-        return Optional.ofNullable(accountTaskLinkTable.getItem(accountTaskLink));
+    public List<AccountTaskLink> loadAll(List<AccountTaskLink> accountTaskLinks){
+        // loads the account task links (by their keys) using BatchGetItem, links that don't exist are skipped.
+        return batchGetItemLoader.loadAll(accountTaskLinkTable, accountTaskLinks);
     }
 
 
@@ -74,7 +316,9 @@ public class AccountTasksRepository {
                 .builder()
                 .tableName("app")
                 .item(
-                        accountTaskLinkTable.tableSchema().itemToMap(accountTaskLink, false)
+                        // true: null attributes are left out, instead of being stored as NUL
+                        // (a NUL version fails every later version check, a NUL index key is rejected).
+                        accountTaskLinkTable.tableSchema().itemToMap(accountTaskLink, true)
                 )
                 .build();
     }
@@ -104,6 +348,45 @@ public class AccountTasksRepository {
                 .put(putAction)
                 .build();
     }
+    public TransactWriteItem generateVersionedPutTransactWriteItem(AccountTaskLink accountTaskLink){
+        // It takes AccountTaskLink entity, that was read from the database, as a parameter.
+        // Bumps its version, and generates a put action that only succeeds if the stored version
+        // is still the one that was read (optimistic concurrency control).
+        Long expectedVersion = accountTaskLink.getVersion();
+        accountTaskLink.setVersion(VersionedWrites.nextVersion(expectedVersion));
+
+        Put putAction = VersionedWrites.conditionOnVersion(generatePutAction(accountTaskLink), expectedVersion);
+        return TransactWriteItem
+                .builder()
+                .put(putAction)
+                .build();
+    }
+    public TransactWriteItem generateCreateTransactWriteItem(AccountTaskLink accountTaskLink){
+        // It takes a new AccountTaskLink entity as a parameter.
+        // Generates a put action that only succeeds if the task isn't shared with the account yet,
+        // so the task counters of the account (added in the same transaction) aren't incremented twice.
+        accountTaskLink.setVersion(VersionedWrites.nextVersion(null));
+        Put putAction = generatePutAction(accountTaskLink)
+                .toBuilder()
+                .conditionExpression("attribute_not_exists(pk)")
+                .build();
+        return TransactWriteItem
+                .builder()
+                .put(putAction)
+                .build();
+    }
+    public TransactWriteItem generateVersionedDeleteTransactWriteItem(AccountTaskLink accountTaskLink){
+        // It takes AccountTaskLink entity, that was read from the database, as a parameter.
+        // Generates a delete action that only succeeds if the link still exists with the version that was read,
+        // so the task counters of the account (decremented in the same transaction) aren't decremented twice.
+        Long expectedVersion = accountTaskLink.getVersion();
+        Delete deleteAction = VersionedWrites.conditionOnVersion(generateDeleteAction(accountTaskLink), expectedVersion);
+        deleteAction = deleteAction
+                .toBuilder()
+                .conditionExpression("attribute_exists(pk) AND " + deleteAction.conditionExpression())
+                .build();
+        return TransactWriteItem.builder().delete(deleteAction).build();
+    }
     public TransactWriteItem generateDeleteTransactWriteItem(AccountTaskLink accountTaskLink){
         // It takes Account task link entity as a parameter.
         // Generates delete action for the provided accountTaskLink.
@@ -0,0 +1,42 @@
+package com.example.project6.dao;
+
+import com.example.project6.entity.Account;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@Repository
+public class AsyncAccountRepository {
+    /*
+     * Non-blocking counterpart of AccountRepository,
+     * the returned futures complete on the SDK threads once the response arrives.
+     * */
+    final private DynamoDbAsyncTable<Account> accountAsyncTable;
+
+    public AsyncAccountRepository(DynamoDbAsyncTable<Account> accountAsyncTable) {
+        this.accountAsyncTable = accountAsyncTable;
+    }
+
+    public CompletableFuture<Void> save(Account account) {
+        return accountAsyncTable.putItem(account);
+    }
+
+    public CompletableFuture<Optional<Account>> load(Account account) {
+        return load(account, false);
+    }
+
+    public CompletableFuture<Optional<Account>> load(Account account, boolean consistentRead) {
+        return accountAsyncTable
+                .getItem(
+                        GetItemEnhancedRequest
+                                .builder()
+                                .key(accountAsyncTable.keyFrom(account))
+                                .consistentRead(consistentRead)
+                                .build()
+                )
+                .thenApply(Optional::ofNullable);
+    }
+}
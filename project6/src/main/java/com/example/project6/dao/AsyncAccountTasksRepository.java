@@ -0,0 +1,63 @@
+package com.example.project6.dao;
+
+import com.example.project6.entity.AccountTaskLink;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@Repository
+public class AsyncAccountTasksRepository {
+    /*
+     * Non-blocking counterpart of AccountTasksRepository,
+     * the returned futures complete on the SDK threads once the response arrives.
+     * */
+    final private DynamoDbAsyncTable<AccountTaskLink> accountTaskLinkAsyncTable;
+
+    public AsyncAccountTasksRepository(DynamoDbAsyncTable<AccountTaskLink> accountTaskLinkAsyncTable) {
+        this.accountTaskLinkAsyncTable = accountTaskLinkAsyncTable;
+    }
+
+    public CompletableFuture<Optional<AccountTaskLink>> load(AccountTaskLink accountTaskLink) {
+        return load(accountTaskLink, false);
+    }
+
+    public CompletableFuture<Optional<AccountTaskLink>> load(AccountTaskLink accountTaskLink, boolean consistentRead) {
+        return accountTaskLinkAsyncTable
+                .getItem(
+                        GetItemEnhancedRequest
+                                .builder()
+                                .key(accountTaskLinkAsyncTable.keyFrom(accountTaskLink))
+                                .consistentRead(consistentRead)
+                                .build()
+                )
+                .thenApply(Optional::ofNullable);
+    }
+
+    public CompletableFuture<List<AccountTaskLink>> getAccountTasks(UUID accountUuid) {
+        // reads the whole account partition, pages are requested as the previous one is consumed.
+        AccountTaskLink accountTaskLink = AccountTaskLink.builder().withAccountUuid(accountUuid).build();
+        QueryEnhancedRequest queryEnhancedRequest = QueryEnhancedRequest
+                .builder()
+                .queryConditional(QueryConditional.sortBeginsWith(
+                        Key.builder().partitionValue(accountTaskLink.getPk()).sortValue(accountTaskLink.getSk()).build()
+                ))
+                .build();
+
+        List<AccountTaskLink> accountTaskLinks = Collections.synchronizedList(new ArrayList<>());
+        return accountTaskLinkAsyncTable
+                .query(queryEnhancedRequest)
+                .items()
+                .subscribe(accountTaskLinks::add)
+                .thenApply(done -> List.copyOf(accountTaskLinks));
+    }
+}
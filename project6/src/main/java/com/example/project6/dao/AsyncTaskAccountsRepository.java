@@ -0,0 +1,69 @@
+package com.example.project6.dao;
+
+import com.example.project6.entity.TaskAccountLink;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+@Repository
+public class AsyncTaskAccountsRepository {
+    /*
+     * Non-blocking counterpart of TaskAccountsRepository,
+     * the returned futures complete on the SDK threads once the response arrives.
+     * */
+    final private DynamoDbAsyncTable<TaskAccountLink> taskAccountLinkAsyncTable;
+
+    public AsyncTaskAccountsRepository(DynamoDbAsyncTable<TaskAccountLink> taskAccountLinkAsyncTable) {
+        this.taskAccountLinkAsyncTable = taskAccountLinkAsyncTable;
+    }
+
+    public CompletableFuture<Optional<TaskAccountLink>> load(TaskAccountLink taskAccountLink) {
+        return load(taskAccountLink, false);
+    }
+
+    public CompletableFuture<Optional<TaskAccountLink>> load(TaskAccountLink taskAccountLink, boolean consistentRead) {
+        return taskAccountLinkAsyncTable
+                .getItem(
+                        GetItemEnhancedRequest
+                                .builder()
+                                .key(taskAccountLinkAsyncTable.keyFrom(taskAccountLink))
+                                .consistentRead(consistentRead)
+                                .build()
+                )
+                .thenApply(Optional::ofNullable);
+    }
+
+    public CompletableFuture<List<TaskAccountLink>> getTaskAccounts(UUID taskUuid) {
+        // eventually consistent read.
+        return getTaskAccounts(taskUuid, false);
+    }
+
+    public CompletableFuture<List<TaskAccountLink>> getTaskAccounts(UUID taskUuid, boolean consistentRead) {
+        // reads the whole task partition, pages are requested as the previous one is consumed.
+        TaskAccountLink taskAccountLink = TaskAccountLink.builder().withTaskUuid(taskUuid).build();
+        QueryEnhancedRequest queryEnhancedRequest = QueryEnhancedRequest
+                .builder()
+                .queryConditional(QueryConditional.sortBeginsWith(
+                        Key.builder().partitionValue(taskAccountLink.getPk()).sortValue(taskAccountLink.getSk()).build()
+                ))
+                .consistentRead(consistentRead)
+                .build();
+
+        List<TaskAccountLink> taskAccountLinks = Collections.synchronizedList(new ArrayList<>());
+        return taskAccountLinkAsyncTable
+                .query(queryEnhancedRequest)
+                .items()
+                .subscribe(taskAccountLinks::add)
+                .thenApply(done -> List.copyOf(taskAccountLinks));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.project6.dao;
+
+import com.example.project6.entity.Task;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@Repository
+public class AsyncTaskRepository {
+    /*
+     * Non-blocking counterpart of TaskRepository,
+     * the returned futures complete on the SDK threads once the response arrives.
+     * */
+    final private DynamoDbAsyncTable<Task> taskAsyncTable;
+
+    public AsyncTaskRepository(DynamoDbAsyncTable<Task> taskAsyncTable) {
+        this.taskAsyncTable = taskAsyncTable;
+    }
+
+    public CompletableFuture<Void> save(Task task) {
+        return taskAsyncTable.putItem(task);
+    }
+
+    public CompletableFuture<Optional<Task>> load(Task task) {
+        return load(task, false);
+    }
+
+    public CompletableFuture<Optional<Task>> load(Task task, boolean consistentRead) {
+        return taskAsyncTable
+                .getItem(
+                        GetItemEnhancedRequest
+                                .builder()
+                                .key(taskAsyncTable.keyFrom(task))
+                                .consistentRead(consistentRead)
+                                .build()
+                )
+                .thenApply(Optional::ofNullable);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.project6.dao;
+
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+@Repository
+public class AsyncTransactionsRepository {
+    /*
+     * Non-blocking counterpart of TransactionsRepository.transactionWrite.
+     * */
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    public AsyncTransactionsRepository(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+    }
+
+    public CompletableFuture<Void> transactionWrite(TransactWriteItemsRequest transactWriteItemsRequest) {
+        return dynamoDbAsyncClient
+                .transactWriteItems(transactWriteItemsRequest)
+                .thenApply(response -> null);
+    }
+}
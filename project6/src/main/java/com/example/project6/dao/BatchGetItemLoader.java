@@ -0,0 +1,138 @@
+package com.example.project6.dao;
+
+import com.example.project6.util.RetryBackoff;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class BatchGetItemLoader {
+    /*
+     * Loads many items by their primary key using BatchGetItem.
+     *   - keys are split into chunks of at most 100 keys (the BatchGetItem limit).
+     *   - chunks are fetched in parallel.
+     *   - UnprocessedKeys are retried with exponential backoff and jitter.
+     * */
+
+    public static final int MAX_KEYS_PER_REQUEST = 100;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final List<String> KEY_ATTRIBUTES = List.of("pk", "sk");
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ExecutorService executorService;
+    private final RetryBackoff retryBackoff = new RetryBackoff(25, 1000);
+
+    public BatchGetItemLoader(DynamoDbClient dynamoDbClient,
+                              @Value("${amazon.dynamodb.batch.parallelism:4}") int parallelism) {
+        this.dynamoDbClient = dynamoDbClient;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "dynamodb-batch-get-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> List<T> loadAll(DynamoDbTable<T> table, Collection<T> keyItems) {
+        /*
+         * Arguments:
+         *   - table: the table (and schema) of the items.
+         *   - keyItems: items that have at least their primary key set.
+         * Returns the found items in the same order as the keyItems, items that don't exist are skipped.
+         * */
+
+        // extract the primary keys, duplicated keys are rejected by BatchGetItem so they are removed.
+        Map<String, Map<String, AttributeValue>> keys = new LinkedHashMap<>();
+        for (T keyItem : keyItems) {
+            Map<String, AttributeValue> key = table.tableSchema().itemToMap(keyItem, KEY_ATTRIBUTES);
+            keys.putIfAbsent(keyString(key), key);
+        }
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+
+        // split the keys into chunks.
+        List<Map<String, AttributeValue>> allKeys = new ArrayList<>(keys.values());
+        List<List<Map<String, AttributeValue>>> chunks = new ArrayList<>();
+        for (int i = 0; i < allKeys.size(); i += MAX_KEYS_PER_REQUEST) {
+            chunks.add(allKeys.subList(i, Math.min(i + MAX_KEYS_PER_REQUEST, allKeys.size())));
+        }
+
+        // fetch the chunks, a single chunk is fetched on the calling thread.
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        if (chunks.size() == 1) {
+            items.addAll(loadChunk(table.tableName(), chunks.get(0)));
+        } else {
+            List<CompletableFuture<List<Map<String, AttributeValue>>>> futures = chunks
+                    .stream()
+                    .map(chunk -> CompletableFuture.supplyAsync(
+                            RequestCapacity.propagate(() -> loadChunk(table.tableName(), chunk)), executorService))
+                    .toList();
+            try {
+                futures.forEach(future -> items.addAll(future.join()));
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        // map the items back into entities, keeping the order of the provided keys.
+        Map<String, T> itemsByKey = new HashMap<>();
+        items.forEach(item -> itemsByKey.put(keyString(item), table.tableSchema().mapToItem(item)));
+        return keys.keySet()
+                .stream()
+                .map(itemsByKey::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private List<Map<String, AttributeValue>> loadChunk(String tableName, List<Map<String, AttributeValue>> keys) {
+        // fetches a chunk of keys, retrying the unprocessed keys until all keys are processed.
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, KeysAndAttributes> requestItems = Map.of(
+                tableName, KeysAndAttributes.builder().keys(keys).build()
+        );
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                retryBackoff.sleep(attempt);
+            }
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(
+                    BatchGetItemRequest.builder().requestItems(requestItems).build()
+            );
+            items.addAll(response.responses().getOrDefault(tableName, List.of()));
+
+            if (!response.hasUnprocessedKeys() || response.unprocessedKeys().isEmpty()) {
+                return items;
+            }
+            requestItems = response.unprocessedKeys();
+        }
+        throw new IllegalStateException(
+                String.format("couldn't load all keys from table: %s after %d attempts", tableName, MAX_ATTEMPTS)
+        );
+    }
+
+    private static String keyString(Map<String, AttributeValue> item) {
+        return item.get("pk").s() + "|" + item.get("sk").s();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdown();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.project6.dao;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.project6.DynamoDbCall")
+@Label("DynamoDB Call")
+@Category({"project6", "DynamoDB"})
+@Description("A DynamoDB operation, from the first attempt until its response (or failure)")
+public class DynamoDbCallEvent extends Event {
+    /*
+     * JFR event committed by DynamoDbMetricsInterceptor for every DynamoDB call,
+     * when "amazon.dynamodb.metrics.jfr-events" is enabled.
+     * The event duration is the duration of the call, so a recording shows the calls next to the threads
+     * and allocations of the request that made them.
+     * record with: java -XX:StartFlightRecording=filename=project6.jfr,settings=profile -jar project6.jar
+     * */
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Entity Type")
+    public String entityType;
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Consumed Capacity Units")
+    public double consumedCapacity;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,396 @@
+package com.example.project6.dao;
+
+import com.example.project6.Enum.EntityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+public class DynamoDbMetricsInterceptor implements ExecutionInterceptor {
+    /*
+     * Records metrics of every DynamoDB call made through the blocking and the non-blocking clients.
+     *   - dynamodb.operation: latency histogram (first attempt until the response, retries included),
+     *       tagged with the operation, the entity type of the items, the api endpoint that made the call,
+     *       and the outcome (success, or the exception name).
+     *   - dynamodb.retries / dynamodb.throttles: attempts retried by the sdk, calls that failed throttled.
+     *   - dynamodb.transaction.cancellations: cancelled transactions, tagged with each cancellation reason.
+     *   - dynamodb.transaction.items: number of items per transaction.
+     *   - dynamodb.consumed.capacity: consumed read / write capacity units, per operation and endpoint.
+     *       Every request asks for ReturnConsumedCapacity TOTAL, unless it already asks for a level
+     *       ("amazon.dynamodb.metrics.return-consumed-capacity").
+     * The endpoint is the handler pattern of the api request (e.g. "PATCH /api/task/{taskUuid}/title"),
+     * calls made outside an api request are tagged "none".
+     * The consumed capacity is also added to the RequestCapacity of the api request that made the call.
+     * When "amazon.dynamodb.metrics.jfr-events" is enabled, every call is also committed as a DynamoDbCallEvent.
+     * */
+
+    private static final Set<String> READ_OPERATIONS = Set.of("GetItem", "Query", "Scan", "BatchGetItem", "TransactGetItems");
+    private static final String NONE = "none";
+
+    // state of a call, kept between the interceptor callbacks.
+    private static final ExecutionAttribute<Long> START_TIME = new ExecutionAttribute<>("Project6StartTime");
+    private static final ExecutionAttribute<String> ENDPOINT = new ExecutionAttribute<>("Project6Endpoint");
+    private static final ExecutionAttribute<String> ENTITY_TYPE = new ExecutionAttribute<>("Project6EntityType");
+    private static final ExecutionAttribute<AtomicInteger> ATTEMPTS = new ExecutionAttribute<>("Project6Attempts");
+    private static final ExecutionAttribute<DynamoDbCallEvent> EVENT = new ExecutionAttribute<>("Project6Event");
+    private static final ExecutionAttribute<RequestCapacity> REQUEST_CAPACITY = new ExecutionAttribute<>("Project6RequestCapacity");
+
+    // "name = :value" and "begins_with(name, :value)" in key conditions.
+    private static final Pattern KEY_CONDITION = Pattern.compile(
+            "([#\\w]+)\\s*=\\s*(:\\w+)|begins_with\\(\\s*([#\\w]+)\\s*,\\s*(:\\w+)\\s*\\)");
+
+    private final MeterRegistry meterRegistry;
+    private final boolean returnConsumedCapacity;
+    private final boolean jfrEventsEnabled;
+
+    public DynamoDbMetricsInterceptor(MeterRegistry meterRegistry,
+                                      @Value("${amazon.dynamodb.metrics.return-consumed-capacity:true}") boolean returnConsumedCapacity,
+                                      @Value("${amazon.dynamodb.metrics.jfr-events:false}") boolean jfrEventsEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.returnConsumedCapacity = returnConsumedCapacity;
+        this.jfrEventsEnabled = jfrEventsEnabled;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        // runs on the calling thread (also for the non-blocking client), where the api request is known.
+        RequestCapacity requestCapacity = RequestCapacity.current();
+        executionAttributes.putAttribute(START_TIME, System.nanoTime());
+        executionAttributes.putAttribute(ENDPOINT, requestCapacity != null ? requestCapacity.getEndpoint() : currentEndpoint());
+        if (requestCapacity != null) {
+            executionAttributes.putAttribute(REQUEST_CAPACITY, requestCapacity);
+        }
+        executionAttributes.putAttribute(ENTITY_TYPE, entityType(context.request()));
+        executionAttributes.putAttribute(ATTEMPTS, new AtomicInteger());
+        if (jfrEventsEnabled) {
+            DynamoDbCallEvent event = new DynamoDbCallEvent();
+            event.begin();
+            executionAttributes.putAttribute(EVENT, event);
+        }
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        return returnConsumedCapacity ? withReturnConsumedCapacity(context.request()) : context.request();
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+        // called once per attempt.
+        AtomicInteger attempts = executionAttributes.getAttribute(ATTEMPTS);
+        if (attempts != null) {
+            attempts.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        double consumedCapacity = consumedCapacity(context.response());
+        RequestCapacity requestCapacity = executionAttributes.getAttribute(REQUEST_CAPACITY);
+        if (requestCapacity != null) {
+            requestCapacity.record(READ_OPERATIONS.contains(operation), consumedCapacity);
+        }
+        if (consumedCapacity > 0) {
+            Counter.builder("dynamodb.consumed.capacity")
+                    .description("capacity units consumed by DynamoDB calls")
+                    .baseUnit("capacity_units")
+                    .tags("operation", operation,
+                            "capacity", READ_OPERATIONS.contains(operation) ? "read" : "write",
+                            "endpoint", executionAttributes.getAttribute(ENDPOINT))
+                    .register(meterRegistry)
+                    .increment(consumedCapacity);
+        }
+        recordTransactionItems(operation, context.request());
+        recordCall(executionAttributes, operation, "success", consumedCapacity);
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        Throwable exception = context.exception();
+
+        if (exception instanceof TransactionCanceledException transactionCanceledException
+                && transactionCanceledException.hasCancellationReasons()) {
+            transactionCanceledException.cancellationReasons()
+                    .stream()
+                    .map(CancellationReason::code)
+                    .filter(code -> code != null && !code.equals("None"))
+                    .distinct()
+                    .forEach(code -> Counter.builder("dynamodb.transaction.cancellations")
+                            .description("cancelled transactions, by cancellation reason")
+                            .tags("operation", operation, "reason", code)
+                            .register(meterRegistry)
+                            .increment());
+        }
+        if (exception instanceof SdkServiceException serviceException && serviceException.isThrottlingException()) {
+            Counter.builder("dynamodb.throttles")
+                    .description("DynamoDB calls that failed because they were throttled")
+                    .tags("operation", operation)
+                    .register(meterRegistry)
+                    .increment();
+        }
+        recordTransactionItems(operation, context.request());
+        recordCall(executionAttributes, operation, exception.getClass().getSimpleName(), 0);
+    }
+
+    private void recordCall(ExecutionAttributes executionAttributes, String operation, String outcome, double consumedCapacity) {
+        Long startTime = executionAttributes.getAttribute(START_TIME);
+        if (startTime == null) {
+            return;
+        }
+        String endpoint = executionAttributes.getAttribute(ENDPOINT);
+        String entityType = executionAttributes.getAttribute(ENTITY_TYPE);
+        int attempts = executionAttributes.getAttribute(ATTEMPTS).get();
+
+        Timer.builder("dynamodb.operation")
+                .description("latency of DynamoDB calls, retries included")
+                .tags("operation", operation, "entity", entityType, "endpoint", endpoint, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        if (attempts > 1) {
+            Counter.builder("dynamodb.retries")
+                    .description("attempts retried by the sdk")
+                    .tags("operation", operation)
+                    .register(meterRegistry)
+                    .increment(attempts - 1);
+        }
+
+        DynamoDbCallEvent event = executionAttributes.getAttribute(EVENT);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.entityType = entityType;
+                event.endpoint = endpoint;
+                event.attempts = attempts;
+                event.consumedCapacity = consumedCapacity;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    private void recordTransactionItems(String operation, SdkRequest request) {
+        int items;
+        if (request instanceof TransactWriteItemsRequest transactWriteItemsRequest) {
+            items = transactWriteItemsRequest.transactItems().size();
+        } else if (request instanceof TransactGetItemsRequest transactGetItemsRequest) {
+            items = transactGetItemsRequest.transactItems().size();
+        } else {
+            return;
+        }
+        DistributionSummary.builder("dynamodb.transaction.items")
+                .description("items per transaction")
+                .tags("operation", operation)
+                .register(meterRegistry)
+                .record(items);
+    }
+
+    private static String currentEndpoint() {
+        // the handler pattern of the api request being processed by the current thread, if any.
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                return request.getMethod() + " " + pattern;
+            }
+        }
+        return NONE;
+    }
+
+    private static SdkRequest withReturnConsumedCapacity(SdkRequest request) {
+        // requests that already ask for a level of detail are left as they are.
+        ReturnConsumedCapacity total = ReturnConsumedCapacity.TOTAL;
+        if (request instanceof GetItemRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof PutItemRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof DeleteItemRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof UpdateItemRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof QueryRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof ScanRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof BatchGetItemRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof BatchWriteItemRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof TransactWriteItemsRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        if (request instanceof TransactGetItemsRequest r && r.returnConsumedCapacity() == null) {
+            return r.toBuilder().returnConsumedCapacity(total).build();
+        }
+        return request;
+    }
+
+    private static double consumedCapacity(SdkResponse response) {
+        List<ConsumedCapacity> consumedCapacities;
+        if (response instanceof GetItemResponse r) {
+            consumedCapacities = Collections.singletonList(r.consumedCapacity());
+        } else if (response instanceof PutItemResponse r) {
+            consumedCapacities = Collections.singletonList(r.consumedCapacity());
+        } else if (response instanceof DeleteItemResponse r) {
+            consumedCapacities = Collections.singletonList(r.consumedCapacity());
+        } else if (response instanceof UpdateItemResponse r) {
+            consumedCapacities = Collections.singletonList(r.consumedCapacity());
+        } else if (response instanceof QueryResponse r) {
+            consumedCapacities = Collections.singletonList(r.consumedCapacity());
+        } else if (response instanceof ScanResponse r) {
+            consumedCapacities = Collections.singletonList(r.consumedCapacity());
+        } else if (response instanceof BatchGetItemResponse r) {
+            consumedCapacities = r.consumedCapacity();
+        } else if (response instanceof BatchWriteItemResponse r) {
+            consumedCapacities = r.consumedCapacity();
+        } else if (response instanceof TransactWriteItemsResponse r) {
+            consumedCapacities = r.consumedCapacity();
+        } else if (response instanceof TransactGetItemsResponse r) {
+            consumedCapacities = r.consumedCapacity();
+        } else {
+            return 0;
+        }
+        return consumedCapacities.stream()
+                .filter(Objects::nonNull)
+                .map(ConsumedCapacity::capacityUnits)
+                .filter(Objects::nonNull)
+                .mapToDouble(Double::doubleValue)
+                .sum();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // entity types.
+
+    static String entityType(SdkRequest request) {
+        /*
+         * The entity type of the items a request reads or writes, derived from their keys
+         * (e.g. pk "ACCOUNT#..." and sk "TASK#..." is an account task link).
+         * Requests on several entity types are tagged with all of them, e.g. "ACCOUNT_TASK_LINK,TASK".
+         * Queries of a secondary index are tagged with the index name.
+         * */
+        Stream<String> entityTypes;
+        if (request instanceof GetItemRequest r) {
+            entityTypes = Stream.of(entityType(r.key()));
+        } else if (request instanceof PutItemRequest r) {
+            entityTypes = Stream.of(entityType(r.item()));
+        } else if (request instanceof DeleteItemRequest r) {
+            entityTypes = Stream.of(entityType(r.key()));
+        } else if (request instanceof UpdateItemRequest r) {
+            entityTypes = Stream.of(entityType(r.key()));
+        } else if (request instanceof QueryRequest r) {
+            entityTypes = Stream.of(r.indexName() != null ? r.indexName() : queryEntityType(r));
+        } else if (request instanceof ScanRequest r) {
+            entityTypes = Stream.of(r.indexName() != null ? r.indexName() : "ALL");
+        } else if (request instanceof BatchGetItemRequest r) {
+            entityTypes = r.requestItems().values().stream()
+                    .flatMap(keysAndAttributes -> keysAndAttributes.keys().stream())
+                    .map(DynamoDbMetricsInterceptor::entityType);
+        } else if (request instanceof BatchWriteItemRequest r) {
+            entityTypes = r.requestItems().values().stream()
+                    .flatMap(List::stream)
+                    .map(writeRequest -> writeRequest.putRequest() != null
+                            ? entityType(writeRequest.putRequest().item())
+                            : entityType(writeRequest.deleteRequest().key()));
+        } else if (request instanceof TransactWriteItemsRequest r) {
+            entityTypes = r.transactItems().stream().map(DynamoDbMetricsInterceptor::entityType);
+        } else if (request instanceof TransactGetItemsRequest r) {
+            entityTypes = r.transactItems().stream().map(transactGetItem -> entityType(transactGetItem.get().key()));
+        } else {
+            return NONE;
+        }
+        return entityTypes.distinct().sorted().collect(Collectors.joining(","));
+    }
+
+    private static String entityType(TransactWriteItem transactWriteItem) {
+        if (transactWriteItem.put() != null) {
+            return entityType(transactWriteItem.put().item());
+        }
+        if (transactWriteItem.delete() != null) {
+            return entityType(transactWriteItem.delete().key());
+        }
+        if (transactWriteItem.update() != null) {
+            return entityType(transactWriteItem.update().key());
+        }
+        return entityType(transactWriteItem.conditionCheck().key());
+    }
+
+    private static String queryEntityType(QueryRequest request) {
+        // resolves the key values of the key condition, e.g. "pk = :pk AND begins_with(sk, :sk)".
+        if (request.keyConditionExpression() == null) {
+            return NONE;
+        }
+        Map<String, String> keyValues = new HashMap<>();
+        Matcher matcher = KEY_CONDITION.matcher(request.keyConditionExpression());
+        while (matcher.find()) {
+            String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(3);
+            String placeholder = matcher.group(2) != null ? matcher.group(2) : matcher.group(4);
+            AttributeValue value = request.expressionAttributeValues().get(placeholder);
+            if (value != null && value.s() != null) {
+                keyValues.put(request.expressionAttributeNames().getOrDefault(name, name), value.s());
+            }
+        }
+        return entityType(keyValues.get("pk"), keyValues.get("sk"));
+    }
+
+    private static String entityType(Map<String, AttributeValue> key) {
+        AttributeValue pk = key.get("pk");
+        AttributeValue sk = key.get("sk");
+        return entityType(pk == null ? null : pk.s(), sk == null ? null : sk.s());
+    }
+
+    private static String entityType(String pk, String sk) {
+        String partitionType = typePrefix(pk);
+        if (partitionType == null) {
+            return "UNKNOWN";
+        }
+        String sortType = typePrefix(sk);
+        if (sortType == null || sortType.equals(partitionType)) {
+            return partitionType;
+        }
+        // items of another entity type in the partition are links, e.g. ACCOUNT_TASK_LINK.
+        return partitionType + "_" + sortType + "_LINK";
+    }
+
+    private static String typePrefix(String key) {
+        if (key == null || key.indexOf('#') <= 0) {
+            return null;
+        }
+        String prefix = key.substring(0, key.indexOf('#'));
+        return Arrays.stream(EntityType.values()).anyMatch(type -> type.name().equals(prefix)) ? prefix : null;
+    }
+}
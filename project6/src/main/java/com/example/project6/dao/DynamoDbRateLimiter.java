@@ -0,0 +1,223 @@
+package com.example.project6.dao;
+
+import com.example.project6.exception.TooManyRequestsException;
+import com.example.project6.util.AdaptiveRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import software.amazon.awssdk.core.ClientType;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class DynamoDbRateLimiter implements ExecutionInterceptor {
+    /*
+     * Client-side rate limit of the DynamoDB calls, per table and per operation class (read, write, transact).
+     * Each limit is an AdaptiveRateLimiter: it shrinks when DynamoDB throttles the calls, and grows back
+     * on success, so when the table is throttled the calls slow down instead of hammering it with retries.
+     *   - a call takes one token per item (batch and transaction items), one for the other operations.
+     *   - api request threads wait at most "amazon.dynamodb.rate-limiter.max-wait" for their tokens,
+     *       then the call fails with TooManyRequestsException (429), instead of queueing request threads.
+     *   - async calls wait at most as long as api request threads too, wherever they are started from:
+     *       the ones chained on a previous call (e.g. thenCompose) start on the sdk thread that completed it,
+     *       which must not be blocked (it completes the other calls too).
+     *   - the synchronous calls of background threads (fan-out, batch loads, snapshot jobs) wait for their
+     *       tokens as long as needed.
+     *   - throttled attempts retried by the sdk also shrink the limit (see DecorrelatedJitterBackoffStrategy).
+     * Metrics: dynamodb.rate.limit (current calls per second) and dynamodb.rate.limited (rejected calls),
+     * tagged with the table and the operation class.
+     * */
+
+    private static final Map<String, String> OPERATION_CLASSES = Map.of(
+            "GetItem", "read",
+            "Query", "read",
+            "Scan", "read",
+            "BatchGetItem", "read",
+            "PutItem", "write",
+            "UpdateItem", "write",
+            "DeleteItem", "write",
+            "BatchWriteItem", "write",
+            "TransactWriteItems", "transact",
+            "TransactGetItems", "transact"
+    );
+    // cancellation reasons of a transaction that was throttled.
+    private static final Set<String> THROTTLED_REASONS = Set.of("ThrottlingError", "ProvisionedThroughputExceeded");
+    private static final String UNKNOWN_TABLE = "unknown";
+
+    private static final ExecutionAttribute<AdaptiveRateLimiter> LIMITER = new ExecutionAttribute<>("Project6RateLimiter");
+
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final double minRate;
+    private final Map<String, Double> maxRates;
+    private final double additiveIncrease;
+    private final double multiplicativeDecrease;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    public DynamoDbRateLimiter(@Value("${amazon.dynamodb.rate-limiter.enabled:true}") boolean enabled,
+                               @Value("${amazon.dynamodb.rate-limiter.max-wait:50ms}") Duration maxWait,
+                               @Value("${amazon.dynamodb.rate-limiter.min-rate:10}") double minRate,
+                               @Value("${amazon.dynamodb.rate-limiter.read.max-rate:2000}") double readMaxRate,
+                               @Value("${amazon.dynamodb.rate-limiter.write.max-rate:1000}") double writeMaxRate,
+                               @Value("${amazon.dynamodb.rate-limiter.transact.max-rate:500}") double transactMaxRate,
+                               @Value("${amazon.dynamodb.rate-limiter.additive-increase:10}") double additiveIncrease,
+                               @Value("${amazon.dynamodb.rate-limiter.multiplicative-decrease:0.5}")
+                               double multiplicativeDecrease,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.minRate = minRate;
+        this.maxRates = Map.of("read", readMaxRate, "write", writeMaxRate, "transact", transactMaxRate);
+        this.additiveIncrease = additiveIncrease;
+        this.multiplicativeDecrease = multiplicativeDecrease;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        // runs on the calling thread, once per call (the sdk retries don't take tokens again).
+        String operationClass = OPERATION_CLASSES.get(executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME));
+        if (!enabled || operationClass == null) {
+            return;
+        }
+        String table = tableName(context.request());
+        AdaptiveRateLimiter limiter = limiters.computeIfAbsent(table + " " + operationClass,
+                key -> newLimiter(table, operationClass));
+
+        // only api request threads are bound to a request context.
+        boolean boundedWait = RequestContextHolder.getRequestAttributes() != null
+                || executionAttributes.getAttribute(SdkExecutionAttribute.CLIENT_TYPE) == ClientType.ASYNC;
+        if (!limiter.tryAcquire(permits(context.request()), boundedWait ? maxWaitNanos : Long.MAX_VALUE)) {
+            Counter.builder("dynamodb.rate.limited")
+                    .description("DynamoDB calls rejected by the client-side rate limit")
+                    .tags("table", table, "class", operationClass)
+                    .register(meterRegistry)
+                    .increment();
+            throw new TooManyRequestsException("the database is busy, try again later");
+        }
+        executionAttributes.putAttribute(LIMITER, limiter);
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        AdaptiveRateLimiter limiter = executionAttributes.getAttribute(LIMITER);
+        if (limiter != null) {
+            limiter.onSuccess();
+        }
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        if (isThrottled(context.exception())) {
+            onThrottledAttempt(executionAttributes);
+        }
+    }
+
+    public void onThrottledAttempt(ExecutionAttributes executionAttributes) {
+        // called for every throttled attempt, including the ones the sdk retries.
+        AdaptiveRateLimiter limiter = executionAttributes.getAttribute(LIMITER);
+        if (limiter != null) {
+            limiter.onThrottle();
+        }
+    }
+
+    public static boolean isThrottled(Throwable exception) {
+        if (exception instanceof TransactionCanceledException transactionCanceledException
+                && transactionCanceledException.hasCancellationReasons()) {
+            return transactionCanceledException.cancellationReasons()
+                    .stream()
+                    .anyMatch(reason -> THROTTLED_REASONS.contains(reason.code()));
+        }
+        return exception instanceof SdkServiceException serviceException && serviceException.isThrottlingException();
+    }
+
+    private AdaptiveRateLimiter newLimiter(String table, String operationClass) {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(
+                minRate, maxRates.get(operationClass), additiveIncrease, multiplicativeDecrease);
+        Gauge.builder("dynamodb.rate.limit", limiter, AdaptiveRateLimiter::getRate)
+                .description("calls per second allowed by the client-side rate limit")
+                .tags("table", table, "class", operationClass)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private static String tableName(SdkRequest request) {
+        if (request instanceof GetItemRequest getItemRequest) {
+            return getItemRequest.tableName();
+        } else if (request instanceof QueryRequest queryRequest) {
+            return queryRequest.tableName();
+        } else if (request instanceof ScanRequest scanRequest) {
+            return scanRequest.tableName();
+        } else if (request instanceof PutItemRequest putItemRequest) {
+            return putItemRequest.tableName();
+        } else if (request instanceof UpdateItemRequest updateItemRequest) {
+            return updateItemRequest.tableName();
+        } else if (request instanceof DeleteItemRequest deleteItemRequest) {
+            return deleteItemRequest.tableName();
+        } else if (request instanceof BatchGetItemRequest batchGetItemRequest) {
+            return firstTable(batchGetItemRequest.requestItems().keySet());
+        } else if (request instanceof BatchWriteItemRequest batchWriteItemRequest) {
+            return firstTable(batchWriteItemRequest.requestItems().keySet());
+        } else if (request instanceof TransactWriteItemsRequest transactWriteItemsRequest) {
+            return transactWriteItemsRequest.transactItems()
+                    .stream()
+                    .map(DynamoDbRateLimiter::tableName)
+                    .findFirst()
+                    .orElse(UNKNOWN_TABLE);
+        } else if (request instanceof TransactGetItemsRequest transactGetItemsRequest) {
+            return transactGetItemsRequest.transactItems()
+                    .stream()
+                    .map(item -> item.get() != null ? item.get().tableName() : null)
+                    .findFirst()
+                    .orElse(UNKNOWN_TABLE);
+        }
+        return UNKNOWN_TABLE;
+    }
+
+    private static String tableName(TransactWriteItem transactWriteItem) {
+        if (transactWriteItem.put() != null) {
+            return transactWriteItem.put().tableName();
+        } else if (transactWriteItem.update() != null) {
+            return transactWriteItem.update().tableName();
+        } else if (transactWriteItem.delete() != null) {
+            return transactWriteItem.delete().tableName();
+        } else if (transactWriteItem.conditionCheck() != null) {
+            return transactWriteItem.conditionCheck().tableName();
+        }
+        return UNKNOWN_TABLE;
+    }
+
+    private static String firstTable(Set<String> tables) {
+        // the application only uses one table, so the batches never span several ones.
+        return tables.isEmpty() ? UNKNOWN_TABLE : tables.iterator().next();
+    }
+
+    private static double permits(SdkRequest request) {
+        if (request instanceof BatchGetItemRequest batchGetItemRequest) {
+            return batchGetItemRequest.requestItems().values().stream().mapToInt(keys -> keys.keys().size()).sum();
+        } else if (request instanceof BatchWriteItemRequest batchWriteItemRequest) {
+            return batchWriteItemRequest.requestItems().values().stream().mapToInt(List::size).sum();
+        } else if (request instanceof TransactWriteItemsRequest transactWriteItemsRequest) {
+            return transactWriteItemsRequest.transactItems().size();
+        } else if (request instanceof TransactGetItemsRequest transactGetItemsRequest) {
+            return transactGetItemsRequest.transactItems().size();
+        }
+        return 1;
+    }
+}
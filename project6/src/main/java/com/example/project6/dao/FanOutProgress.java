@@ -0,0 +1,49 @@
+package com.example.project6.dao;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FanOutProgress {
+    /*
+     * Tracks the progress of a single fan-out write.
+     *   - totalItems: number of derived items to propagate.
+     *   - writtenItems: number of derived items that are already written.
+     *   - committedAtNanos: the time at which the primary items were committed,
+     *       used to compute how far behind the derived items are (lag).
+     * */
+
+    private final String id;
+    private final int totalItems;
+    private final AtomicInteger writtenItems = new AtomicInteger();
+    private final long committedAtNanos;
+
+    public FanOutProgress(String id, int totalItems) {
+        this.id = id;
+        this.totalItems = totalItems;
+        this.committedAtNanos = System.nanoTime();
+    }
+
+    public void markWritten(int items) {
+        writtenItems.addAndGet(items);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public int getWrittenItems() {
+        return writtenItems.get();
+    }
+
+    public int getPendingItems() {
+        return totalItems - writtenItems.get();
+    }
+
+    public Duration getLag() {
+        return Duration.ofNanos(System.nanoTime() - committedAtNanos);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.project6.dao;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+public record QueryPage<T>(List<T> items, Map<String, AttributeValue> lastEvaluatedKey) {
+    /*
+     * A single page of query results.
+     *   - items: the items of the page.
+     *   - lastEvaluatedKey: the key to continue the query from, empty when there are no more pages.
+     * */
+
+    public boolean hasNextPage() {
+        return lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty();
+    }
+}
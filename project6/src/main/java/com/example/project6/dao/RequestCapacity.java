@@ -0,0 +1,164 @@
+package com.example.project6.dao;
+
+import com.example.project6.exception.CapacityBudgetExceededException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class RequestCapacity {
+    /*
+     * The DynamoDB capacity consumed by a single api request.
+     *   - created and bound to the request thread by RequestCapacityFilter,
+     *       DynamoDbMetricsInterceptor adds the consumed capacity of every call made while it is bound.
+     *   - work handed to other threads (batch loads, fan-out writes) must be wrapped with propagate(),
+     *       so its calls are accounted to the request too.
+     *   - checkBudget() is called before expensive writes, with their estimated cost,
+     *       to reject them (or only flag them) before they exceed the budget of the endpoint.
+     * */
+
+    private static final ThreadLocal<RequestCapacity> CURRENT = new ThreadLocal<>();
+
+    private final HttpServletRequest request;
+    private final Function<String, Double> budgets;
+    private final boolean rejectOverBudget;
+
+    private final DoubleAdder readUnits = new DoubleAdder();
+    private final DoubleAdder writeUnits = new DoubleAdder();
+    private final LongAdder calls = new LongAdder();
+    private final AtomicBoolean overBudget = new AtomicBoolean();
+
+    public RequestCapacity(HttpServletRequest request, Function<String, Double> budgets, boolean rejectOverBudget) {
+        this.request = request;
+        this.budgets = budgets;
+        this.rejectOverBudget = rejectOverBudget;
+    }
+
+    public static RequestCapacity current() {
+        return CURRENT.get();
+    }
+
+    public Scope bind() {
+        // binds this request capacity to the current thread, until the returned scope is closed.
+        RequestCapacity previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static <T> Supplier<T> propagate(Supplier<T> supplier) {
+        // runs the supplier with the request capacity of the calling thread (if any) bound.
+        RequestCapacity requestCapacity = current();
+        if (requestCapacity == null) {
+            return supplier;
+        }
+        return () -> {
+            try (Scope ignored = requestCapacity.bind()) {
+                return supplier.get();
+            }
+        };
+    }
+
+    public static Runnable propagate(Runnable runnable) {
+        RequestCapacity requestCapacity = current();
+        if (requestCapacity == null) {
+            return runnable;
+        }
+        return () -> {
+            try (Scope ignored = requestCapacity.bind()) {
+                runnable.run();
+            }
+        };
+    }
+
+    public static <T, R> Function<T, R> propagate(Function<T, R> function) {
+        // for calls issued from callbacks of async calls, which run on the SDK threads.
+        RequestCapacity requestCapacity = current();
+        if (requestCapacity == null) {
+            return function;
+        }
+        return argument -> {
+            try (Scope ignored = requestCapacity.bind()) {
+                return function.apply(argument);
+            }
+        };
+    }
+
+    public void record(boolean read, double capacityUnits) {
+        calls.increment();
+        if (read) {
+            readUnits.add(capacityUnits);
+        } else {
+            writeUnits.add(capacityUnits);
+        }
+    }
+
+    public void checkBudget(double estimatedCapacityUnits) {
+        /*
+         * Checks that the consumed capacity plus the estimated cost of the next write stays within the budget.
+         * Throws CapacityBudgetExceededException if it doesn't and over budget requests are rejected,
+         * otherwise the request is only flagged (and reported once it completes).
+         * */
+        Double budget = getBudget();
+        if (budget == null || getTotalUnits() + estimatedCapacityUnits <= budget) {
+            return;
+        }
+        overBudget.set(true);
+        if (rejectOverBudget) {
+            throw new CapacityBudgetExceededException(String.format(Locale.ROOT,
+                    "request would consume %.1f capacity units, more than the %.1f units budget of %s",
+                    getTotalUnits() + estimatedCapacityUnits, budget, getEndpoint()));
+        }
+    }
+
+    public boolean isOverBudget() {
+        Double budget = getBudget();
+        return overBudget.get() || (budget != null && getTotalUnits() > budget);
+    }
+
+    public Double getBudget() {
+        return budgets.apply(getEndpoint());
+    }
+
+    public String getEndpoint() {
+        // the handler pattern is only known once the request is mapped to a controller method.
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "none" : request.getMethod() + " " + pattern;
+    }
+
+    public double getReadUnits() {
+        return readUnits.sum();
+    }
+
+    public double getWriteUnits() {
+        return writeUnits.sum();
+    }
+
+    public double getTotalUnits() {
+        return getReadUnits() + getWriteUnits();
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%.1f", getTotalUnits());
+    }
+}
@@ -0,0 +1,502 @@
+package com.example.project6.dao;
+
+import com.example.project6.Enum.EntityType;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.util.KeyCodec;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public final class SnapshotFile {
+    /*
+     * Binary snapshot of the table items (see TableSnapshotRepository).
+     *   - header: magic, version, then the record layouts: for each entity type, the attribute names of
+     *       its table schema (see TableSchemas), in the order their values are written.
+     *   - blocks: record count, uncompressed length, compressed length, then the deflate compressed records.
+     *       blocks are independent, so they are compressed and decompressed in parallel.
+     *   - records: length-prefixed, the layout tag (0 for items that don't match an entity),
+     *       a bitmap of the layout attributes present in the item and their values (without their names),
+     *       then the attributes that aren't part of the layout, with their names.
+     * Values are written as they are stored (no converter runs), so importing a snapshot restores the same items.
+     * The reader takes the layouts from the header, so a snapshot stays readable after the schemas change.
+     * */
+
+    public static final int TARGET_BLOCK_BYTES = 1 << 20;
+
+    private static final int MAGIC = 0x50365350;
+    private static final short VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 10;
+    private static final int BLOCK_HEADER_BYTES = 12;
+
+    private static final Map<EntityType, TableSchema<?>> SCHEMAS = new LinkedHashMap<>();
+
+    static {
+        SCHEMAS.put(EntityType.ACCOUNT, TableSchemas.ACCOUNT);
+        SCHEMAS.put(EntityType.TASK, TableSchemas.TASK);
+        SCHEMAS.put(EntityType.ACCOUNT_TASK_LINK, TableSchemas.ACCOUNT_TASK_LINK);
+        SCHEMAS.put(EntityType.TASK_ACCOUNT_LINK, TableSchemas.TASK_ACCOUNT_LINK);
+    }
+
+    // attribute value kinds.
+    private static final byte KIND_S = 1, KIND_N = 2, KIND_B = 3, KIND_BOOL = 4, KIND_NUL = 5,
+            KIND_SS = 6, KIND_NS = 7, KIND_BS = 8, KIND_L = 9, KIND_M = 10;
+
+    private SnapshotFile() {
+    }
+
+    public static EntityType entityTypeOf(Map<String, AttributeValue> item) {
+        // the entity of an item is identified by its key prefixes, returns null for other items.
+        AttributeValue pk = item.get("pk");
+        AttributeValue sk = item.get("sk");
+        if (pk == null || sk == null || pk.s() == null || sk.s() == null) {
+            return null;
+        }
+        boolean accountPartition = pk.s().startsWith(KeyCodec.prefix(EntityType.ACCOUNT));
+        boolean taskPartition = pk.s().startsWith(KeyCodec.prefix(EntityType.TASK));
+        if (pk.s().equals(sk.s())) {
+            return accountPartition ? EntityType.ACCOUNT : taskPartition ? EntityType.TASK : null;
+        }
+        if (accountPartition && sk.s().startsWith(KeyCodec.prefix(EntityType.TASK))) {
+            return EntityType.ACCOUNT_TASK_LINK;
+        }
+        if (taskPartition && sk.s().startsWith(KeyCodec.prefix(EntityType.ACCOUNT))) {
+            return EntityType.TASK_ACCOUNT_LINK;
+        }
+        return null;
+    }
+
+    public static Writer create(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    public static Reader open(Path path) throws IOException {
+        return new Reader(path);
+    }
+
+    public record Block(long position, int records, int uncompressedLength, int compressedLength) {
+    }
+
+    public static final class Writer implements Closeable {
+        /*
+         * Appends blocks to a new snapshot file.
+         * Each thread fills its own BlockBuilder, full blocks are compressed by that thread,
+         * only appending the compressed block to the file is serialized.
+         * */
+        private final FileChannel channel;
+        private final Map<EntityType, Integer> tags = new EnumMap<>(EntityType.class);
+        private final List<List<String>> layouts = new ArrayList<>();
+        private final AtomicLong items = new AtomicLong();
+
+        private Writer(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(header);
+            writeVarInt(out, SCHEMAS.size());
+            for (Map.Entry<EntityType, TableSchema<?>> schema : SCHEMAS.entrySet()) {
+                List<String> attributeNames = List.copyOf(schema.getValue().attributeNames());
+                tags.put(schema.getKey(), layouts.size() + 1);
+                layouts.add(attributeNames);
+                writeString(out, schema.getKey().name());
+                writeVarInt(out, attributeNames.size());
+                for (String attributeName : attributeNames) {
+                    writeString(out, attributeName);
+                }
+            }
+
+            ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_BYTES + header.size());
+            fileHeader.putInt(MAGIC).putShort(VERSION).putInt(header.size()).put(header.toByteArray()).flip();
+            writeFully(fileHeader);
+        }
+
+        public BlockBuilder newBlock() {
+            return new BlockBuilder();
+        }
+
+        public long getItems() {
+            return items.get();
+        }
+
+        public long getBytes() throws IOException {
+            synchronized (channel) {
+                return channel.position();
+            }
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            synchronized (channel) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.force(true);
+            channel.close();
+        }
+
+        public final class BlockBuilder implements Closeable {
+            private final ByteArrayOutputStream block = new ByteArrayOutputStream(TARGET_BLOCK_BYTES + 4096);
+            private final DataOutputStream blockOut = new DataOutputStream(block);
+            private final ByteArrayOutputStream record = new ByteArrayOutputStream(1024);
+            private final DataOutputStream recordOut = new DataOutputStream(record);
+            private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            private int records;
+
+            public void add(Map<String, AttributeValue> item) throws IOException {
+                // encodes the item, and writes the block once it reaches the target size.
+                record.reset();
+                EntityType entityType = entityTypeOf(item);
+                int tag = entityType == null ? 0 : tags.get(entityType);
+                writeVarInt(recordOut, tag);
+
+                Set<String> extraAttributes = new LinkedHashSet<>(item.keySet());
+                if (tag > 0) {
+                    List<String> layout = layouts.get(tag - 1);
+                    byte[] bitmap = new byte[(layout.size() + 7) / 8];
+                    for (int i = 0; i < layout.size(); i++) {
+                        if (item.containsKey(layout.get(i))) {
+                            bitmap[i / 8] |= (byte) (1 << (i % 8));
+                        }
+                    }
+                    recordOut.write(bitmap);
+                    for (String attributeName : layout) {
+                        AttributeValue value = item.get(attributeName);
+                        if (value != null) {
+                            writeValue(recordOut, value);
+                            extraAttributes.remove(attributeName);
+                        }
+                    }
+                }
+                writeVarInt(recordOut, extraAttributes.size());
+                for (String attributeName : extraAttributes) {
+                    writeString(recordOut, attributeName);
+                    writeValue(recordOut, item.get(attributeName));
+                }
+
+                writeVarInt(blockOut, record.size());
+                record.writeTo(blockOut);
+                records++;
+                if (block.size() >= TARGET_BLOCK_BYTES) {
+                    flush();
+                }
+            }
+
+            public void flush() throws IOException {
+                // compresses the buffered records and appends them to the file as one block.
+                if (records == 0) {
+                    return;
+                }
+                byte[] uncompressed = block.toByteArray();
+                deflater.reset();
+                deflater.setInput(uncompressed);
+                deflater.finish();
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(uncompressed.length / 2 + 64);
+                byte[] chunk = new byte[64 * 1024];
+                while (!deflater.finished()) {
+                    compressed.write(chunk, 0, deflater.deflate(chunk));
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate(BLOCK_HEADER_BYTES + compressed.size());
+                buffer.putInt(records).putInt(uncompressed.length).putInt(compressed.size())
+                        .put(compressed.toByteArray())
+                        .flip();
+                writeFully(buffer);
+                items.addAndGet(records);
+
+                block.reset();
+                records = 0;
+            }
+
+            @Override
+            public void close() {
+                // releases the native memory of the deflater, whether the block was flushed or not:
+                // the records that weren't flushed are dropped (the export failed anyway).
+                deflater.end();
+            }
+        }
+    }
+
+    public static final class Reader implements Closeable {
+        /*
+         * Reads a snapshot file through memory-mapped blocks,
+         * so blocks are decompressed straight from the page cache, without copying them to the heap first.
+         * */
+        private final FileChannel channel;
+        private final List<List<String>> layouts = new ArrayList<>();
+        private final long firstBlockPosition;
+
+        private Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            if (channel.size() < FILE_HEADER_BYTES) {
+                throw new IOException("not a snapshot file: " + path);
+            }
+            MappedByteBuffer fileHeader = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_BYTES);
+            if (fileHeader.getInt() != MAGIC) {
+                throw new IOException("not a snapshot file: " + path);
+            }
+            short version = fileHeader.getShort();
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version: " + version);
+            }
+            int headerLength = fileHeader.getInt();
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, FILE_HEADER_BYTES, headerLength);
+            int layoutCount = readVarInt(header);
+            for (int i = 0; i < layoutCount; i++) {
+                readString(header); // entity type, informational.
+                int attributeCount = readVarInt(header);
+                List<String> layout = new ArrayList<>(attributeCount);
+                for (int j = 0; j < attributeCount; j++) {
+                    layout.add(readString(header));
+                }
+                layouts.add(layout);
+            }
+            this.firstBlockPosition = FILE_HEADER_BYTES + (long) headerLength;
+        }
+
+        public List<Block> blocks() throws IOException {
+            // walks the block headers, without decompressing the blocks.
+            List<Block> blocks = new ArrayList<>();
+            long position = firstBlockPosition;
+            long size = channel.size();
+            while (position < size) {
+                if (size - position < BLOCK_HEADER_BYTES) {
+                    throw new IOException("truncated snapshot block at: " + position);
+                }
+                MappedByteBuffer blockHeader = channel.map(FileChannel.MapMode.READ_ONLY, position, BLOCK_HEADER_BYTES);
+                Block block = new Block(position, blockHeader.getInt(), blockHeader.getInt(), blockHeader.getInt());
+                position += BLOCK_HEADER_BYTES + (long) block.compressedLength();
+                if (position > size) {
+                    throw new IOException("truncated snapshot block at: " + block.position());
+                }
+                blocks.add(block);
+            }
+            return blocks;
+        }
+
+        public List<Map<String, AttributeValue>> read(Block block) throws IOException {
+            // decompresses and decodes the items of a block, safe to call from several threads.
+            MappedByteBuffer compressed = channel.map(FileChannel.MapMode.READ_ONLY,
+                    block.position() + BLOCK_HEADER_BYTES, block.compressedLength());
+            byte[] uncompressed = new byte[block.uncompressedLength()];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                int length = 0;
+                while (length < uncompressed.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(uncompressed, length, uncompressed.length - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                if (length != uncompressed.length) {
+                    throw new IOException("corrupted snapshot block at: " + block.position());
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("corrupted snapshot block at: " + block.position(), e);
+            } finally {
+                inflater.end();
+            }
+
+            ByteBuffer records = ByteBuffer.wrap(uncompressed);
+            List<Map<String, AttributeValue>> items = new ArrayList<>(block.records());
+            for (int i = 0; i < block.records(); i++) {
+                int recordLength = readVarInt(records);
+                ByteBuffer record = records.slice(records.position(), recordLength);
+                records.position(records.position() + recordLength);
+                items.add(readRecord(record));
+            }
+            return items;
+        }
+
+        private Map<String, AttributeValue> readRecord(ByteBuffer record) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            int tag = readVarInt(record);
+            if (tag > 0) {
+                List<String> layout = layouts.get(tag - 1);
+                byte[] bitmap = new byte[(layout.size() + 7) / 8];
+                record.get(bitmap);
+                for (int i = 0; i < layout.size(); i++) {
+                    if ((bitmap[i / 8] & (1 << (i % 8))) != 0) {
+                        item.put(layout.get(i), readValue(record));
+                    }
+                }
+            }
+            int extraAttributes = readVarInt(record);
+            for (int i = 0; i < extraAttributes; i++) {
+                String attributeName = readString(record);
+                item.put(attributeName, readValue(record));
+            }
+            return item;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, AttributeValue value) throws IOException {
+        switch (value.type()) {
+            case S -> {
+                out.writeByte(KIND_S);
+                writeString(out, value.s());
+            }
+            case N -> {
+                out.writeByte(KIND_N);
+                writeString(out, value.n());
+            }
+            case B -> {
+                out.writeByte(KIND_B);
+                writeBytes(out, value.b().asByteArrayUnsafe());
+            }
+            case BOOL -> {
+                out.writeByte(KIND_BOOL);
+                out.writeBoolean(value.bool());
+            }
+            case NUL -> out.writeByte(KIND_NUL);
+            case SS -> {
+                out.writeByte(KIND_SS);
+                writeVarInt(out, value.ss().size());
+                for (String s : value.ss()) {
+                    writeString(out, s);
+                }
+            }
+            case NS -> {
+                out.writeByte(KIND_NS);
+                writeVarInt(out, value.ns().size());
+                for (String n : value.ns()) {
+                    writeString(out, n);
+                }
+            }
+            case BS -> {
+                out.writeByte(KIND_BS);
+                writeVarInt(out, value.bs().size());
+                for (SdkBytes b : value.bs()) {
+                    writeBytes(out, b.asByteArrayUnsafe());
+                }
+            }
+            case L -> {
+                out.writeByte(KIND_L);
+                writeVarInt(out, value.l().size());
+                for (AttributeValue element : value.l()) {
+                    writeValue(out, element);
+                }
+            }
+            case M -> {
+                out.writeByte(KIND_M);
+                writeVarInt(out, value.m().size());
+                for (Map.Entry<String, AttributeValue> entry : value.m().entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+            }
+            default -> throw new IllegalArgumentException("unsupported attribute value: " + value);
+        }
+    }
+
+    private static AttributeValue readValue(ByteBuffer in) {
+        byte kind = in.get();
+        return switch (kind) {
+            case KIND_S -> AttributeValue.builder().s(readString(in)).build();
+            case KIND_N -> AttributeValue.builder().n(readString(in)).build();
+            case KIND_B -> AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(readBytes(in))).build();
+            case KIND_BOOL -> AttributeValue.builder().bool(in.get() != 0).build();
+            case KIND_NUL -> AttributeValue.builder().nul(true).build();
+            case KIND_SS, KIND_NS -> {
+                int size = readVarInt(in);
+                List<String> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(readString(in));
+                }
+                yield kind == KIND_SS ? AttributeValue.builder().ss(values).build() : AttributeValue.builder().ns(values).build();
+            }
+            case KIND_BS -> {
+                int size = readVarInt(in);
+                List<SdkBytes> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(SdkBytes.fromByteArrayUnsafe(readBytes(in)));
+                }
+                yield AttributeValue.builder().bs(values).build();
+            }
+            case KIND_L -> {
+                int size = readVarInt(in);
+                List<AttributeValue> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(readValue(in));
+                }
+                yield AttributeValue.builder().l(values).build();
+            }
+            case KIND_M -> {
+                int size = readVarInt(in);
+                Map<String, AttributeValue> values = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String name = readString(in);
+                    values.put(name, readValue(in));
+                }
+                yield AttributeValue.builder().m(values).build();
+            }
+            default -> throw new IllegalStateException("corrupted snapshot record, unknown value kind: " + kind);
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        writeVarInt(out, value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] value = new byte[readVarInt(in)];
+        in.get(value);
+        return value;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        // 7 bits per byte, the high bit is set on all the bytes but the last one.
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("corrupted snapshot record, invalid length");
+    }
+}
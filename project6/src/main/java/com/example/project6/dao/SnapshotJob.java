@@ -0,0 +1,109 @@
+package com.example.project6.dao;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+public class SnapshotJob {
+    /*
+     * Tracks the progress of a snapshot export or import (see TableSnapshotRepository).
+     *   - items: number of items exported / imported so far.
+     *   - consumedCapacity: capacity units consumed so far, throttled by the job capacity rate.
+     *   - bytes: size of the snapshot file.
+     * */
+
+    public enum Type {
+        EXPORT,
+        IMPORT
+    }
+
+    public enum State {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final UUID id = UUID.randomUUID();
+    private final Type type;
+    private final String file;
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong items = new AtomicLong();
+    private final DoubleAdder consumedCapacity = new DoubleAdder();
+    private volatile long bytes;
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public SnapshotJob(Type type, String file) {
+        this.type = type;
+        this.file = file;
+    }
+
+    public void addItems(long items) {
+        this.items.addAndGet(items);
+    }
+
+    public void addConsumedCapacity(double capacityUnits) {
+        consumedCapacity.add(capacityUnits);
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public void succeed() {
+        finishedAt = Instant.now();
+        state = State.SUCCEEDED;
+    }
+
+    public void fail(Throwable cause) {
+        error = cause.getMessage();
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getItems() {
+        return items.get();
+    }
+
+    public double getConsumedCapacity() {
+        return consumedCapacity.sum();
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.project6.dao;
+
+import com.example.project6.util.CapacityRateLimiter;
+import com.example.project6.util.Futures;
+import com.example.project6.util.RetryBackoff;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Repository
+public class TableSnapshotRepository {
+    /*
+     * Exports the whole table into a snapshot file (see SnapshotFile), and imports it back.
+     *   - export: a parallel Scan of "snapshot.parallelism" segments, each segment encodes and compresses
+     *       its own blocks, the consumed read capacity is limited to "snapshot.export.read-capacity-per-second".
+     *   - import: the snapshot blocks are memory-mapped and written back in parallel BatchWriteItem chunks,
+     *       the consumed write capacity is limited to "snapshot.import.write-capacity-per-second".
+     * Both are meant to run in the background (see SnapshotService), and report their progress in a SnapshotJob.
+     * */
+
+    private static final String TABLE_NAME = "app";
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_WRITE_ATTEMPTS = 10;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final int parallelism;
+    private final double exportReadCapacityPerSecond;
+    private final double importWriteCapacityPerSecond;
+    private final ExecutorService executorService;
+    private final RetryBackoff retryBackoff = new RetryBackoff(50, 5000);
+
+    public TableSnapshotRepository(DynamoDbClient dynamoDbClient,
+                                   @Value("${snapshot.parallelism:4}") int parallelism,
+                                   @Value("${snapshot.export.read-capacity-per-second:100}")
+                                   double exportReadCapacityPerSecond,
+                                   @Value("${snapshot.import.write-capacity-per-second:100}")
+                                   double importWriteCapacityPerSecond) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.parallelism = parallelism;
+        this.exportReadCapacityPerSecond = exportReadCapacityPerSecond;
+        this.importWriteCapacityPerSecond = importWriteCapacityPerSecond;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "dynamodb-snapshot-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void export(Path path, SnapshotJob job) throws IOException {
+        // writes a new snapshot file, which is deleted if the export fails.
+        CapacityRateLimiter rateLimiter = new CapacityRateLimiter(exportReadCapacityPerSecond);
+        SnapshotFile.Writer writer = SnapshotFile.create(path);
+        try (writer) {
+            List<CompletableFuture<Void>> segments = new ArrayList<>();
+            try {
+                for (int segment = 0; segment < parallelism; segment++) {
+                    int scanSegment = segment;
+                    segments.add(CompletableFuture.runAsync(
+                            () -> exportSegment(writer, scanSegment, rateLimiter, job), executorService));
+                }
+            } finally {
+                awaitAll(segments);
+            }
+            Futures.join(CompletableFuture.allOf(segments.toArray(CompletableFuture[]::new)));
+            job.setBytes(writer.getBytes());
+        } catch (RuntimeException | IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private void exportSegment(SnapshotFile.Writer writer, int segment, CapacityRateLimiter rateLimiter,
+                               SnapshotJob job) {
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName(TABLE_NAME)
+                .segment(segment)
+                .totalSegments(parallelism)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .build();
+
+        try (SnapshotFile.Writer.BlockBuilder block = writer.newBlock()) {
+            for (ScanResponse page : dynamoDbClient.scanPaginator(scanRequest)) {
+                for (Map<String, AttributeValue> item : page.items()) {
+                    block.add(item);
+                }
+                job.addItems(page.items().size());
+
+                // the next page waits until the capacity consumed by this one fits in the rate.
+                double consumedCapacity = capacityUnits(page.consumedCapacity());
+                job.addConsumedCapacity(consumedCapacity);
+                rateLimiter.acquire(consumedCapacity);
+            }
+            // writes the remaining records.
+            block.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void importSnapshot(Path path, SnapshotJob job) throws IOException {
+        // puts the snapshot items into the table, overwriting the items with the same keys.
+        CapacityRateLimiter rateLimiter = new CapacityRateLimiter(importWriteCapacityPerSecond);
+        try (SnapshotFile.Reader reader = SnapshotFile.open(path)) {
+            job.setBytes(Files.size(path));
+
+            // a block is only mapped and decoded once a thread is free to write it.
+            // once a block failed, the blocks that haven't started yet are skipped.
+            AtomicBoolean failed = new AtomicBoolean();
+            List<CompletableFuture<Void>> blocks = new ArrayList<>();
+            try {
+                for (SnapshotFile.Block block : reader.blocks()) {
+                    blocks.add(CompletableFuture
+                            .runAsync(() -> importBlock(reader, block, rateLimiter, job, failed), executorService)
+                            .whenComplete((ignored, e) -> {
+                                if (e != null) {
+                                    failed.set(true);
+                                }
+                            }));
+                }
+            } finally {
+                awaitAll(blocks);
+            }
+            Futures.join(CompletableFuture.allOf(blocks.toArray(CompletableFuture[]::new)));
+        }
+    }
+
+    private void importBlock(SnapshotFile.Reader reader, SnapshotFile.Block block, CapacityRateLimiter rateLimiter,
+                             SnapshotJob job, AtomicBoolean failed) {
+        if (failed.get()) {
+            return;
+        }
+        List<Map<String, AttributeValue>> items;
+        try {
+            items = reader.read(block);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = 0; i < items.size(); i += MAX_BATCH_WRITE_ITEMS) {
+            List<WriteRequest> writeRequests = new ArrayList<>();
+            for (Map<String, AttributeValue> item : items.subList(i, Math.min(i + MAX_BATCH_WRITE_ITEMS, items.size()))) {
+                writeRequests.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+            }
+            batchWrite(writeRequests, rateLimiter, job);
+        }
+    }
+
+    private void batchWrite(List<WriteRequest> writeRequests, CapacityRateLimiter rateLimiter, SnapshotJob job) {
+        // writes a chunk of at most 25 items, retrying the unprocessed items until all of them are written.
+        Map<String, List<WriteRequest>> requestItems = Map.of(TABLE_NAME, writeRequests);
+
+        for (int attempt = 0; attempt < MAX_BATCH_WRITE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                retryBackoff.sleep(attempt);
+            }
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(
+                    BatchWriteItemRequest.builder()
+                            .requestItems(requestItems)
+                            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                            .build()
+            );
+
+            int unprocessed = response.unprocessedItems().values().stream().mapToInt(List::size).sum();
+            job.addItems(requestItems.values().stream().mapToInt(List::size).sum() - unprocessed);
+            double consumedCapacity = response.consumedCapacity()
+                    .stream()
+                    .mapToDouble(TableSnapshotRepository::capacityUnits)
+                    .sum();
+            job.addConsumedCapacity(consumedCapacity);
+            rateLimiter.acquire(consumedCapacity);
+
+            if (unprocessed == 0) {
+                return;
+            }
+            requestItems = response.unprocessedItems();
+        }
+        throw new IllegalStateException(
+                String.format("couldn't import all items after %d attempts", MAX_BATCH_WRITE_ATTEMPTS)
+        );
+    }
+
+    private static void awaitAll(List<CompletableFuture<Void>> futures) {
+        // waits until every submitted task is done, whether it failed or not (their failure is rethrown by the caller):
+        // the file is only closed once no task uses it anymore, even if the submission itself failed midway.
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+    }
+
+    private static double capacityUnits(ConsumedCapacity consumedCapacity) {
+        if (consumedCapacity == null || consumedCapacity.capacityUnits() == null) {
+            return 0;
+        }
+        return consumedCapacity.capacityUnits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+}
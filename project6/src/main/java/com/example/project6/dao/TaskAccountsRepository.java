@@ -7,10 +7,12 @@ import com.example.project6.entity.Task;
 import com.example.project6.entity.TaskAccountLink;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 @Repository
 public class TaskAccountsRepository {
@@ -27,12 +29,61 @@ public class TaskAccountsRepository {
         this.taskAccountLinkTable.putItem(taskAccountLink);
     }
     public Optional<TaskAccountLink> load(TaskAccountLink taskAccountLink){
-        return Optional.ofNullable(this.taskAccountLinkTable.getItem(taskAccountLink));
+        // eventually consistent read.
+        return load(taskAccountLink, false);
+    }
+    public Optional<TaskAccountLink> load(TaskAccountLink taskAccountLink, boolean consistentRead){
+        return Optional.ofNullable(this.taskAccountLinkTable.getItem(
+                GetItemEnhancedRequest
+                        .builder()
+                        .key(this.taskAccountLinkTable.keyFrom(taskAccountLink))
+                        .consistentRead(consistentRead)
+                        .build()
+        ));
     }
     public void delete(TaskAccountLink taskAccountLink){
         this.taskAccountLinkTable.deleteItem(taskAccountLink);
     }
     public List<TaskAccountLink> getTaskAccounts(UUID taskUuid) {
+        // follows LastEvaluatedKey until the whole partition is read.
+        return dynamoDbClient.queryPaginator(buildTaskAccountsQuery(taskUuid).build())
+                .items()
+                .stream()
+                .map(item-> taskAccountLinkTable.tableSchema().mapToItem(item))
+                .toList();
+    }
+
+    public QueryPage<TaskAccountLink> getTaskAccountsPage(UUID taskUuid, int limit,
+                                                          Map<String, AttributeValue> exclusiveStartKey) {
+        // fetches a single page of the task accounts, starting after the exclusiveStartKey (if provided).
+        QueryResponse queryResponse = dynamoDbClient.query(
+                buildTaskAccountsQuery(taskUuid)
+                        .limit(limit)
+                        .exclusiveStartKey(exclusiveStartKey)
+                        .build()
+        );
+        List<TaskAccountLink> taskAccountLinks = queryResponse
+                .items()
+                .stream()
+                .map(item-> taskAccountLinkTable.tableSchema().mapToItem(item))
+                .toList();
+        return new QueryPage<>(taskAccountLinks, queryResponse.lastEvaluatedKey());
+    }
+
+    public Stream<List<TaskAccountLink>> streamTaskAccounts(UUID taskUuid, int pageSize) {
+        // lazily fetches the task accounts page by page, each page is fetched only when it is consumed.
+        return dynamoDbClient.queryPaginator(buildTaskAccountsQuery(taskUuid).limit(pageSize).build())
+                .stream()
+                .map(queryResponse -> queryResponse
+                        .items()
+                        .stream()
+                        .map(item-> taskAccountLinkTable.tableSchema().mapToItem(item))
+                        .toList()
+                );
+    }
+
+    private QueryRequest.Builder buildTaskAccountsQuery(UUID taskUuid) {
+        // builds a query for all task account links in the task partition.
         TaskAccountLink accountTaskLink = TaskAccountLink
                 .builder()
                 .withTaskUuid(taskUuid)
@@ -42,18 +93,10 @@ public class TaskAccountsRepository {
         expressionAttributeValues.put(":pk", AttributeValue.builder().s(accountTaskLink.getPk()).build());
         expressionAttributeValues.put(":sk", AttributeValue.builder().s(accountTaskLink.getSk()).build());
 
-        QueryRequest queryRequest = QueryRequest.builder()
+        return QueryRequest.builder()
                 .tableName("app")
                 .keyConditionExpression("pk = :pk AND begins_with(sk, :sk)")
-                .expressionAttributeValues(expressionAttributeValues)
-                .build();
-
-        // Execute the query
-        return dynamoDbClient.query(queryRequest)
-                .items()
-                .stream()
-                .map(item-> taskAccountLinkTable.tableSchema().mapToItem(item))
-                .toList();
+                .expressionAttributeValues(expressionAttributeValues);
     }
 
     public Put generatePutAction(TaskAccountLink taskAccountLink){
@@ -62,7 +105,9 @@ public class TaskAccountsRepository {
                 .builder()
                 .tableName("app")
                 .item(
-                        taskAccountLinkTable.tableSchema().itemToMap(taskAccountLink, false)// false: won't map null values
+                        // true: null attributes are left out, instead of being stored as NUL (a NUL version
+                        // would fail every later version check of the link).
+                        taskAccountLinkTable.tableSchema().itemToMap(taskAccountLink, true)
                 )
                 .build();
     }
@@ -91,6 +136,32 @@ public class TaskAccountsRepository {
                 .put(putAction)
                 .build();
     }
+    public TransactWriteItem generateVersionedPutTransactWriteItem(TaskAccountLink taskAccountLink){
+        // It takes TaskAccountLink entity, that was read from the database, as a parameter.
+        // Bumps its version, and generates a put action that only succeeds if the stored version
+        // is still the one that was read (optimistic concurrency control).
+        Long expectedVersion = taskAccountLink.getVersion();
+        taskAccountLink.setVersion(VersionedWrites.nextVersion(expectedVersion));
+
+        Put putAction = VersionedWrites.conditionOnVersion(generatePutAction(taskAccountLink), expectedVersion);
+        return TransactWriteItem
+                .builder()
+                .put(putAction)
+                .build();
+    }
+    public TransactWriteItem generateCreateTransactWriteItem(TaskAccountLink taskAccountLink){
+        // It takes a new TaskAccountLink entity as a parameter.
+        // Generates a put action of its first version, that only succeeds if the task isn't shared with the account yet.
+        taskAccountLink.setVersion(VersionedWrites.nextVersion(null));
+        Put putAction = generatePutAction(taskAccountLink)
+                .toBuilder()
+                .conditionExpression("attribute_not_exists(pk)")
+                .build();
+        return TransactWriteItem
+                .builder()
+                .put(putAction)
+                .build();
+    }
     public TransactWriteItem generateDeleteTransactWriteItem(TaskAccountLink taskAccountLink){
         // It takes Task Account link entity as a parameter.
         // Generates delete action for the provided TaskAccountLink.
@@ -2,23 +2,27 @@ package com.example.project6.dao;
 
 import com.example.project6.entity.Task;
 import com.example.project6.entity.TaskAccountLink;
+import com.example.project6.exception.PreconditionFailedException;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.Delete;
-import software.amazon.awssdk.services.dynamodb.model.Put;
-import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @Repository
 public class TaskRepository {
     final private DynamoDbTable<Task> taskTable;
+    final private DynamoDbClient dynamoDbClient;
 
-    public TaskRepository(DynamoDbTable<Task> taskTable) {
+    public TaskRepository(DynamoDbTable<Task> taskTable, DynamoDbClient dynamoDbClient) {
         this.taskTable = taskTable;
+        this.dynamoDbClient = dynamoDbClient;
     }
     // TODO: change return type to void.
     public Task save(Task task){
@@ -26,8 +30,76 @@ public class TaskRepository {
         return task;
     }
     public Optional<Task> load(Task task){
-        return Optional.ofNullable(taskTable.getItem(task));
+        // eventually consistent read.
+        return load(task, false);
+    }
+    public Optional<Task> load(Task task, boolean consistentRead){
+        // consistentRead: true returns the latest committed write, at twice the read capacity cost.
+        return Optional.ofNullable(taskTable.getItem(
+                GetItemEnhancedRequest
+                        .builder()
+                        .key(taskTable.keyFrom(task))
+                        .consistentRead(consistentRead)
+                        .build()
+        ));
+    }
+    public Optional<Task> updateAttributes(Task task, List<String> attributeNames, Long expectedVersion){
+        /*
+         * Partially updates an existing task in a single round trip.
+         *   - only the given attributes are written (SET), their values are taken from the provided task.
+         *   - the task version is incremented, so concurrent full writes of the task notice the update.
+         *   - the task must already exist, "attribute_exists(pk)" replaces reading it before the update.
+         *   - if expectedVersion is provided, the task is only updated if it still has that version.
+         * Returns the task after the update, or empty if the task doesn't exist.
+         * Throws PreconditionFailedException if the task exists, but its version isn't the expected one.
+         * */
+
+        // build the SET expression, using placeholders for both the attribute names and values.
+        Map<String, String> expressionAttributeNames = new HashMap<>(VersionedWrites.versionAttributeNames());
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        List<String> assignments = new ArrayList<>();
+        for (int i = 0; i < attributeNames.size(); i++) {
+            expressionAttributeNames.put("#a" + i, attributeNames.get(i));
+            expressionAttributeValues.put(":v" + i, taskTable.tableSchema().attributeValue(task, attributeNames.get(i)));
+            assignments.add(String.format("#a%d = :v%d", i, i));
+        }
+
+        // items written before versioning was introduced don't have a version yet.
+        assignments.add("#version = if_not_exists(#version, :zero) + :one");
+        expressionAttributeValues.put(":zero", AttributeValue.builder().n("0").build());
+        expressionAttributeValues.put(":one", AttributeValue.builder().n("1").build());
 
+        String conditionExpression = "attribute_exists(pk)";
+        if (expectedVersion != null) {
+            conditionExpression += " AND " + VersionedWrites.versionCondition(expectedVersion);
+            Map<String, AttributeValue> versionAttributeValues = VersionedWrites.versionAttributeValues(expectedVersion);
+            if (versionAttributeValues != null) {
+                expressionAttributeValues.putAll(versionAttributeValues);
+            }
+        }
+
+        UpdateItemRequest updateItemRequest = UpdateItemRequest
+                .builder()
+                .tableName("app")
+                .key(generateKey(task))
+                .updateExpression("SET " + String.join(", ", assignments))
+                .conditionExpression(conditionExpression)
+                .expressionAttributeNames(expressionAttributeNames)
+                .expressionAttributeValues(expressionAttributeValues)
+                .returnValues(ReturnValue.ALL_NEW)
+                // returns the stored task when the condition fails, to tell a missing task from a stale version.
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+        try {
+            return Optional.of(taskTable.tableSchema().mapToItem(dynamoDbClient.updateItem(updateItemRequest).attributes()));
+        } catch (ConditionalCheckFailedException e) {
+            if (e.hasItem() && !e.item().isEmpty()) {
+                throw new PreconditionFailedException(
+                        "task with uuid: " + task.getTaskUuid() + " doesn't have the expected version"
+                );
+            }
+            return Optional.empty();
+        }
     }
     public Put generatePutAction(Task task){
         // Takes task parameter and generates a Put action for it.
@@ -35,20 +107,23 @@ public class TaskRepository {
                 .builder()
                 .tableName("app")
                 .item(
-                        taskTable.tableSchema().itemToMap(task, false)// false: won't map null values
+                        // true: null attributes are left out, instead of being stored as NUL.
+                        taskTable.tableSchema().itemToMap(task, true)
                 )
                 .build();
     }
     public Delete generateDeleteAction(Task task){
         // takes task parameter and generated a delete action for it.
 
+        // create the delete action for the task.
+        return Delete.builder().tableName("app").key(generateKey(task)).build();
+    }
+    private Map<String, AttributeValue> generateKey(Task task){
         // create a map containing the partition key and sort key.
         Map<String, AttributeValue> key = new HashMap<>();
         key.put("pk", AttributeValue.builder().s(task.getPk()).build());
         key.put("sk", AttributeValue.builder().s(task.getSk()).build());
-
-        // create the delete action for the task.
-        return Delete.builder().tableName("app").key(key).build();
+        return key;
     }
     public TransactWriteItem generatePutTransactWriteItem(Task task){
         // It takes task entity as a parameter.
@@ -64,6 +139,63 @@ public class TaskRepository {
                 .put(putAction)
                 .build();
     }
+    public TransactWriteItem generateVersionedPutTransactWriteItem(Task task){
+        // It takes Task entity, that was read from the database, as a parameter.
+        // Bumps its version, and generates a put action that only succeeds if the stored version
+        // is still the one that was read (optimistic concurrency control).
+        Long expectedVersion = task.getVersion();
+        task.setVersion(VersionedWrites.nextVersion(expectedVersion));
+
+        Put putAction = VersionedWrites.conditionOnVersion(generatePutAction(task), expectedVersion);
+        return TransactWriteItem
+                .builder()
+                .put(putAction)
+                .build();
+    }
+    public TransactWriteItem generateCreateTransactWriteItem(Task task){
+        // It takes a new Task entity as a parameter.
+        // Generates a put action of its first version, that only succeeds if no task with the same uuid exists
+        // (whether it is versioned or not).
+        task.setVersion(VersionedWrites.nextVersion(null));
+        Put putAction = generatePutAction(task)
+                .toBuilder()
+                .conditionExpression("attribute_not_exists(pk)")
+                .build();
+        return TransactWriteItem
+                .builder()
+                .put(putAction)
+                .build();
+    }
+    public TransactWriteItem generateVersionBumpTransactWriteItem(Task task){
+        // It takes Task entity, that was read from the database, as a parameter.
+        // Bumps its version without changing anything else, only if the stored version is still the one that was read,
+        // so a change of its links (e.g. sharing it) and a concurrent write of the task can't both succeed.
+        Long expectedVersion = task.getVersion();
+        task.setVersion(VersionedWrites.nextVersion(expectedVersion));
+
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":nextVersion", AttributeValue.builder().n(task.getVersion().toString()).build());
+        Map<String, AttributeValue> versionAttributeValues = VersionedWrites.versionAttributeValues(expectedVersion);
+        if (versionAttributeValues != null) {
+            expressionAttributeValues.putAll(versionAttributeValues);
+        }
+        Update updateAction = Update
+                .builder()
+                .tableName("app")
+                .key(generateKey(task))
+                .updateExpression("SET #version = :nextVersion")
+                .conditionExpression("attribute_exists(pk) AND " + VersionedWrites.versionCondition(expectedVersion))
+                .expressionAttributeNames(VersionedWrites.versionAttributeNames())
+                .expressionAttributeValues(expressionAttributeValues)
+                .build();
+        return TransactWriteItem.builder().update(updateAction).build();
+    }
+    public TransactWriteItem generateVersionedDeleteTransactWriteItem(Task task, Long expectedVersion){
+        // It takes Task entity and the version the caller expects it to have.
+        // Generates a delete action that only succeeds if the task still has the expected version.
+        Delete deleteAction = VersionedWrites.conditionOnVersion(generateDeleteAction(task), expectedVersion);
+        return TransactWriteItem.builder().delete(deleteAction).build();
+    }
     public TransactWriteItem generateDeleteTransactWriteItem(Task task){
         // It takes Task entity as a parameter.
         // Generates delete action for the provided Task.
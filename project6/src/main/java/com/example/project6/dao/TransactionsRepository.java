@@ -1,19 +1,266 @@
 package com.example.project6.dao;
 
+import com.example.project6.util.RetryBackoff;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 @Repository
 public class TransactionsRepository {
 
+    // DynamoDB limits.
+    public static final int MAX_TRANSACT_ITEMS = 100;
+    public static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_WRITE_ATTEMPTS = 8;
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionsRepository.class);
+
     private final DynamoDbClient dynamoDbClient;
+    private final ExecutorService fanOutExecutor;
+    private final RetryBackoff retryBackoff = new RetryBackoff(25, 1000);
+
+    // fan-outs that are still propagating their derived items.
+    private final Map<String, FanOutProgress> inFlightFanOuts = new ConcurrentHashMap<>();
+
+    // metrics.
+    private final Timer fanOutLagTimer;
+    private final Counter fanOutItemsCounter;
+    private final Counter fanOutRetriesCounter;
 
-    public TransactionsRepository(DynamoDbClient dynamoDbClient) {
+    public TransactionsRepository(DynamoDbClient dynamoDbClient,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${amazon.dynamodb.fan-out.parallelism:8}") int parallelism) {
         this.dynamoDbClient = dynamoDbClient;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "dynamodb-fan-out-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.fanOutLagTimer = Timer
+                .builder("dynamodb.fanout.lag")
+                .description("time between committing the primary items and writing the last derived item")
+                .register(meterRegistry);
+        this.fanOutItemsCounter = Counter
+                .builder("dynamodb.fanout.items")
+                .description("derived items written by fan-out writes")
+                .register(meterRegistry);
+        this.fanOutRetriesCounter = Counter
+                .builder("dynamodb.fanout.retries")
+                .description("BatchWriteItem calls retried because of unprocessed items")
+                .register(meterRegistry);
+        meterRegistry.gauge("dynamodb.fanout.pending.items", inFlightFanOuts,
+                fanOuts -> fanOuts.values().stream().mapToInt(FanOutProgress::getPendingItems).sum());
     }
 
     public void transactionWrite(TransactWriteItemsRequest transactWriteItemsRequest){
+        checkCapacityBudget(transactWriteItemsRequest.transactItems().size(), 0);
         dynamoDbClient.transactWriteItems(transactWriteItemsRequest);
     }
+
+    private static void checkCapacityBudget(int transactItems, int batchItems) {
+        // estimated write cost, assuming items of at most 1 KB: transactional writes cost 2 WCU, batch writes 1 WCU.
+        RequestCapacity requestCapacity = RequestCapacity.current();
+        if (requestCapacity != null) {
+            requestCapacity.checkBudget(2.0 * transactItems + batchItems);
+        }
+    }
+
+    public void fanOutWrite(List<TransactWriteItem> primaryItems, List<TransactWriteItem> derivedItems) {
+        /*
+         * Writes primary items (e.g. a task) together with items derived from them (e.g. the task links).
+         *   - if everything fits in a single transaction, all items are written atomically.
+         *   - otherwise, the primary items are committed atomically in a transaction,
+         *       then the derived items are propagated in parallel BatchWriteItem chunks.
+         *       BatchWriteItem has no conditions: derived items with one (e.g. a versioned link) are propagated
+         *       in parallel transactions of at most 100 items instead, so their conditions are still checked,
+         *       and a failed one fails the fan-out (TransactionCanceledException).
+         * Derived items must be Put or Delete actions of whole items, so writing them again is harmless,
+         * and a failed fan-out can be retried by repeating the whole write (reading the versions again).
+         * */
+        fanOutWrite(primaryItems, derivedItems, List.of());
+    }
+
+    public void fanOutWrite(List<TransactWriteItem> primaryItems, List<TransactWriteItem> derivedItems,
+                            List<TransactWriteItem> counterItems) {
+        /*
+         * Same as above, with counter updates (e.g. ADD of a count) that depend on the primary items being written.
+         * Counter updates aren't idempotent, so unlike the derived items they are never sent as batch writes:
+         *   - they are committed in the transaction of the primary items, as far as it stays within the limit.
+         *   - the ones that don't fit are committed right after it, in transactions of their own
+         *       (the sdk retries a transaction with the same idempotency token, so a retry doesn't count twice).
+         * */
+
+        if (primaryItems.size() + derivedItems.size() + counterItems.size() <= MAX_TRANSACT_ITEMS) {
+            // checked by transactionWrite.
+            transactionWrite(
+                    TransactWriteItemsRequest
+                            .builder()
+                            .transactItems(Stream.of(primaryItems, derivedItems, counterItems).flatMap(List::stream).toList())
+                            .build()
+            );
+            return;
+        }
+
+        // the derived items that can't be batch written (see toWriteRequest).
+        List<TransactWriteItem> conditionedItems = derivedItems
+                .stream()
+                .filter(TransactionsRepository::isConditioned)
+                .toList();
+        List<WriteRequest> writeRequests = derivedItems
+                .stream()
+                .filter(derivedItem -> !isConditioned(derivedItem))
+                .map(TransactionsRepository::toWriteRequest)
+                .toList();
+
+        // check the cost of the whole write up front, so it isn't rejected halfway through the fan-out.
+        checkCapacityBudget(primaryItems.size() + counterItems.size() + conditionedItems.size(), writeRequests.size());
+
+        // commit the primary items atomically, with as many counter updates as fit, then the other counter updates.
+        // (without primary items, e.g. the left-over links of a deleted task, there is nothing to commit first).
+        int committedCounters = Math.max(0, Math.min(counterItems.size(), MAX_TRANSACT_ITEMS - primaryItems.size()));
+        if (!primaryItems.isEmpty()) {
+            dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                    .transactItems(Stream.concat(primaryItems.stream(), counterItems.subList(0, committedCounters).stream()).toList())
+                    .build());
+        } else {
+            committedCounters = 0;
+        }
+        for (int i = committedCounters; i < counterItems.size(); i += MAX_TRANSACT_ITEMS) {
+            dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                    .transactItems(counterItems.subList(i, Math.min(i + MAX_TRANSACT_ITEMS, counterItems.size())))
+                    .build());
+        }
+
+        if (derivedItems.isEmpty()) {
+            return;
+        }
+
+        // propagate the derived items.
+        FanOutProgress progress = new FanOutProgress(UUID.randomUUID().toString(), derivedItems.size());
+        inFlightFanOuts.put(progress.getId(), progress);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < conditionedItems.size(); i += MAX_TRANSACT_ITEMS) {
+                List<TransactWriteItem> chunk = conditionedItems.subList(i, Math.min(i + MAX_TRANSACT_ITEMS, conditionedItems.size()));
+                futures.add(CompletableFuture.runAsync(
+                        RequestCapacity.propagate(() -> transactWrite(chunk, progress)), fanOutExecutor));
+            }
+            for (int i = 0; i < writeRequests.size(); i += MAX_BATCH_WRITE_ITEMS) {
+                List<WriteRequest> chunk = writeRequests.subList(i, Math.min(i + MAX_BATCH_WRITE_ITEMS, writeRequests.size()));
+                futures.add(CompletableFuture.runAsync(
+                        RequestCapacity.propagate(() -> batchWrite(chunk, progress)), fanOutExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            logger.error("fan-out {} stopped after writing {} of {} derived items",
+                    progress.getId(), progress.getWrittenItems(), progress.getTotalItems());
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            inFlightFanOuts.remove(progress.getId());
+        }
+
+        fanOutLagTimer.record(progress.getLag());
+        logger.debug("fan-out {} wrote {} derived items in {} ms",
+                progress.getId(), progress.getTotalItems(), progress.getLag().toMillis());
+    }
+
+    public Collection<FanOutProgress> getInFlightFanOuts() {
+        return Collections.unmodifiableCollection(inFlightFanOuts.values());
+    }
+
+    private void transactWrite(List<TransactWriteItem> transactWriteItems, FanOutProgress progress) {
+        // writes a chunk of at most 100 conditioned items atomically.
+        dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(transactWriteItems).build());
+        progress.markWritten(transactWriteItems.size());
+        fanOutItemsCounter.increment(transactWriteItems.size());
+    }
+
+    private void batchWrite(List<WriteRequest> writeRequests, FanOutProgress progress) {
+        // writes a chunk of at most 25 items, retrying the unprocessed items until all of them are written.
+        Map<String, List<WriteRequest>> requestItems = Map.of("app", writeRequests);
+
+        for (int attempt = 0; attempt < MAX_BATCH_WRITE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                fanOutRetriesCounter.increment();
+                retryBackoff.sleep(attempt);
+            }
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(
+                    BatchWriteItemRequest.builder().requestItems(requestItems).build()
+            );
+
+            int unprocessed = response.unprocessedItems().values().stream().mapToInt(List::size).sum();
+            int written = requestItems.values().stream().mapToInt(List::size).sum() - unprocessed;
+            progress.markWritten(written);
+            fanOutItemsCounter.increment(written);
+
+            if (unprocessed == 0) {
+                return;
+            }
+            requestItems = response.unprocessedItems();
+        }
+        throw new IllegalStateException(
+                String.format("couldn't write all items of fan-out %s after %d attempts",
+                        progress.getId(), MAX_BATCH_WRITE_ATTEMPTS)
+        );
+    }
+
+    private static boolean isConditioned(TransactWriteItem transactWriteItem) {
+        // true for the items that only a transaction can write as requested: conditioned Put / Delete actions,
+        // and Update / ConditionCheck actions.
+        if (transactWriteItem.put() != null) {
+            return transactWriteItem.put().conditionExpression() != null;
+        }
+        if (transactWriteItem.delete() != null) {
+            return transactWriteItem.delete().conditionExpression() != null;
+        }
+        return true;
+    }
+
+    private static WriteRequest toWriteRequest(TransactWriteItem transactWriteItem) {
+        // converts an unconditioned transact write item (Put / Delete) into the equivalent BatchWriteItem request,
+        // a condition is rejected rather than dropped (BatchWriteItem has none).
+        if (isConditioned(transactWriteItem)) {
+            throw new IllegalArgumentException("conditioned items can't be batch written");
+        }
+        if (transactWriteItem.put() != null) {
+            return WriteRequest
+                    .builder()
+                    .putRequest(PutRequest.builder().item(transactWriteItem.put().item()).build())
+                    .build();
+        }
+        if (transactWriteItem.delete() != null) {
+            return WriteRequest
+                    .builder()
+                    .deleteRequest(DeleteRequest.builder().key(transactWriteItem.delete().key()).build())
+                    .build();
+        }
+        throw new IllegalArgumentException("only Put and Delete actions can be batch written");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.shutdown();
+    }
 }
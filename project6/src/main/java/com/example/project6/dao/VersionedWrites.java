@@ -0,0 +1,93 @@
+package com.example.project6.dao;
+
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class VersionedWrites {
+    /*
+     * Helpers for optimistic concurrency control.
+     * Every versioned item carries a numeric "version" attribute that is incremented on each write,
+     * a write is conditioned on the version that was read, so a concurrent write makes it fail
+     * instead of silently overwriting the other writer's changes.
+     * Items written before versioning was introduced have no version, they are treated as version 0.
+     * */
+
+    public static final String VERSION_ATTRIBUTE = "version";
+
+    // cancellation reasons that mean another writer got there first.
+    public static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    public static final String TRANSACTION_CONFLICT = "TransactionConflict";
+
+    private VersionedWrites() {
+    }
+
+    public static long nextVersion(Long version) {
+        return version == null ? 1 : version + 1;
+    }
+
+    public static Put conditionOnVersion(Put put, Long expectedVersion) {
+        // adds the version condition to a put action, the item of the put action must hold the next version.
+        return put.toBuilder()
+                .conditionExpression(versionCondition(expectedVersion))
+                .expressionAttributeNames(versionAttributeNames())
+                .expressionAttributeValues(versionAttributeValues(expectedVersion))
+                .build();
+    }
+
+    public static Delete conditionOnVersion(Delete delete, Long expectedVersion) {
+        // adds the version condition to a delete action.
+        return delete.toBuilder()
+                .conditionExpression(versionCondition(expectedVersion))
+                .expressionAttributeNames(versionAttributeNames())
+                .expressionAttributeValues(versionAttributeValues(expectedVersion))
+                .build();
+    }
+
+    public static String versionCondition(Long expectedVersion) {
+        // an item that was read without a version must still have no version (or not exist at all).
+        return isUnversioned(expectedVersion) ? "attribute_not_exists(#version)" : "#version = :expectedVersion";
+    }
+
+    public static Map<String, String> versionAttributeNames() {
+        Map<String, String> expressionAttributeNames = new HashMap<>();
+        expressionAttributeNames.put("#version", VERSION_ATTRIBUTE);
+        return expressionAttributeNames;
+    }
+
+    public static Map<String, AttributeValue> versionAttributeValues(Long expectedVersion) {
+        // returns null when there is no value to bind, as DynamoDB rejects an empty values map.
+        if (isUnversioned(expectedVersion)) {
+            return null;
+        }
+        Map<String, AttributeValue> expressionAttributeValues = new HashMap<>();
+        expressionAttributeValues.put(":expectedVersion", AttributeValue.builder().n(expectedVersion.toString()).build());
+        return expressionAttributeValues;
+    }
+
+    private static boolean isUnversioned(Long version) {
+        return version == null || version == 0;
+    }
+
+    public static boolean isConditionalCheckFailure(TransactionCanceledException e) {
+        return hasCancellationReason(e, CONDITIONAL_CHECK_FAILED);
+    }
+
+    public static boolean isConditionalCheckFailure(TransactionCanceledException e, int itemIndex) {
+        // the cancellation reasons are in the order of the items of the transaction.
+        return e.hasCancellationReasons()
+                && itemIndex < e.cancellationReasons().size()
+                && CONDITIONAL_CHECK_FAILED.equals(e.cancellationReasons().get(itemIndex).code());
+    }
+
+    public static boolean isWriteConflict(TransactionCanceledException e) {
+        // the transaction lost against another writer (either a failed version check, or a conflicting transaction).
+        return hasCancellationReason(e, CONDITIONAL_CHECK_FAILED) || hasCancellationReason(e, TRANSACTION_CONFLICT);
+    }
+
+    private static boolean hasCancellationReason(TransactionCanceledException e, String code) {
+        return e.hasCancellationReasons()
+                && e.cancellationReasons().stream().anyMatch(reason -> code.equals(reason.code()));
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.project6.dto;
+
+import com.example.project6.Enum.TaskStatus;
+
+import java.util.Map;
+import java.util.UUID;
+
+public record AccountTaskStatsDto(UUID accountUuid,
+                                  String accountName,
+                                  long taskCount,
+                                  Map<TaskStatus, Long> statusCounts) {
+}
@@ -0,0 +1,8 @@
+package com.example.project6.dto;
+
+import com.example.project6.Enum.TaskEventType;
+
+import java.util.UUID;
+
+public record TaskEventDto(TaskEventType type, UUID taskUuid, TaskDto task, Long version) {
+}
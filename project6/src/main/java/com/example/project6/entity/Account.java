@@ -4,6 +4,7 @@ package com.example.project6.entity;
 
 import com.example.project6.Enum.EntityType;
 import com.example.project6.Enum.Role;
+import com.example.project6.util.KeyCodec;
 import com.example.project6.util.entityAndDtoMappers.RoleConverter;
 import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
@@ -23,6 +24,7 @@ public class Account {
     private String email;
     private String password;
     private Role role;
+    private String roleShard;
 
     // **** Constructors ****
     public Account(){}
@@ -38,6 +40,7 @@ public class Account {
         this.email = builder.email;
         this.password = builder.password;
         this.role = builder.role;
+        this.roleShard = builder.roleShard;
 
     }
 
@@ -48,8 +51,9 @@ public class Account {
     }
 
     @DynamoDbPartitionKey
+    @DynamoDbSecondarySortKey(indexNames = "ROLE_SHARD_INDEX")
     public String getPk() {
-        return String.format("%s#%s", EntityType.ACCOUNT, accountUuid) ;
+        return KeyCodec.key(EntityType.ACCOUNT, accountUuid);
     }
 
     public void setPk(String pk) {
@@ -58,7 +62,7 @@ public class Account {
 
     @DynamoDbSortKey
     public String getSk() {
-        return String.format("%s#%s", EntityType.ACCOUNT, accountUuid) ;
+        return KeyCodec.key(EntityType.ACCOUNT, accountUuid);
     }
 
     public void setSk(String sk) {
@@ -105,7 +109,6 @@ public class Account {
     }
 
     @DynamoDbConvertedBy(RoleConverter.class)
-    @DynamoDbSecondaryPartitionKey(indexNames = "ROLE_INDEX")
     @DynamoDbAttribute(value = "role")
     public Role getRole() {
         return role;
@@ -115,6 +118,17 @@ public class Account {
         this.role = role;
     }
 
+    // "ROLE#N", the role index is split into shards so the accounts of a role aren't all in one partition.
+    @DynamoDbSecondaryPartitionKey(indexNames = "ROLE_SHARD_INDEX")
+    @DynamoDbAttribute(value = "role_shard")
+    public String getRoleShard() {
+        return roleShard;
+    }
+
+    public void setRoleShard(String roleShard) {
+        this.roleShard = roleShard;
+    }
+
     public void generateAccountUuid(){
         if (accountUuid == null) {
             this.accountUuid = UUID.randomUUID();
@@ -131,6 +145,7 @@ public class Account {
         private String email;
         private String password;
         private Role role;
+        private String roleShard;
         private UUID accountUuid;
 
         public Builder() {
@@ -163,6 +178,10 @@ public class Account {
             this.role = role;
             return this;
         }
+        public Builder withRoleShard(String roleShard){
+            this.roleShard = roleShard;
+            return this;
+        }
         public Builder withAccountUuid(UUID uuid){
             this.accountUuid = uuid;
             return this;
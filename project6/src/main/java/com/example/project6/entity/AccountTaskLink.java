@@ -2,11 +2,20 @@ package com.example.project6.entity;
 
 
 import com.example.project6.Enum.EntityType;
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.util.KeyCodec;
+import com.example.project6.util.TimeOrderedUuid;
+import com.example.project6.util.entityAndDtoMappers.TaskStatusConverter;
+import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbConvertedBy;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
+import java.time.Instant;
 import java.util.UUID;
 @DynamoDbBean
 public class AccountTaskLink {
@@ -23,6 +32,19 @@ public class AccountTaskLink {
     // **** task attributes ****
     private String taskTitle;
     private UUID taskUuid;
+    private TaskStatus taskStatus;
+
+    // ACCOUNT_STATUS_INDEX partition key.
+    private String statusPk;
+
+    // ACCOUNT_CREATED_INDEX sort key.
+    private String createdSk;
+
+    // the largest creation time of the ACCOUNT_CREATED_INDEX sort keys (13 digits of milliseconds).
+    public static final Instant MAX_CREATED_AT = Instant.ofEpochMilli(9_999_999_999_999L);
+
+    // **** Concurrency control ****
+    private Long version;
 
     // **** Constructors ****
     public AccountTaskLink(){
@@ -40,7 +62,10 @@ public class AccountTaskLink {
         // **** Task Attributes ****
         this.taskTitle = builder.taskTitle;
         this.taskUuid = builder.taskUuid;
+        this.taskStatus = builder.taskStatus;
 
+        // **** Concurrency control ****
+        this.version = builder.version;
     }
 
     // **** methods ****
@@ -50,13 +75,15 @@ public class AccountTaskLink {
     }
 
     @DynamoDbPartitionKey
+    @DynamoDbSecondaryPartitionKey(indexNames = "ACCOUNT_CREATED_INDEX")
     public String getPk() {
-        return String.format("%s#%s", EntityType.ACCOUNT, accountUuid) ;
+        return KeyCodec.key(EntityType.ACCOUNT, accountUuid);
     }
 
     @DynamoDbSortKey
+    @DynamoDbSecondarySortKey(indexNames = "ACCOUNT_STATUS_INDEX")
     public String getSk() {
-        return String.format("%s#%s", EntityType.TASK, taskUuid == null ? "" : taskUuid) ;
+        return taskUuid == null ? KeyCodec.prefix(EntityType.TASK) : KeyCodec.key(EntityType.TASK, taskUuid);
     }
 
     @DynamoDbAttribute(value = "account_name")
@@ -65,6 +92,7 @@ public class AccountTaskLink {
     }
 
     @DynamoDbAttribute(value = "account_uuid")
+    @DynamoDbConvertedBy(UUIDConverter.class)
     public UUID getAccountUuid() {
         return accountUuid;
     }
@@ -75,10 +103,59 @@ public class AccountTaskLink {
     }
 
     @DynamoDbAttribute(value = "task_uuid")
+    @DynamoDbConvertedBy(UUIDConverter.class)
     public UUID getTaskUuid() {
         return taskUuid;
     }
 
+    @DynamoDbConvertedBy(TaskStatusConverter.class)
+    @DynamoDbAttribute(value = "task_status")
+    public TaskStatus getTaskStatus() {
+        return taskStatus;
+    }
+
+    // "ACCOUNT#uuid#STATUS", only links to a task with a status are in the (sparse) status index.
+    @DynamoDbSecondaryPartitionKey(indexNames = "ACCOUNT_STATUS_INDEX")
+    @DynamoDbAttribute(value = "status_pk")
+    public String getStatusPk() {
+        return taskStatus == null ? null : statusPkOf(accountUuid, taskStatus);
+    }
+
+    public static String statusPkOf(UUID accountUuid, TaskStatus taskStatus) {
+        return KeyCodec.key(EntityType.ACCOUNT, accountUuid) + "#" + taskStatus;
+    }
+
+    // "<creation time>#uuid", the links of an account in the order their tasks were created.
+    @DynamoDbSecondarySortKey(indexNames = "ACCOUNT_CREATED_INDEX")
+    @DynamoDbAttribute(value = "created_sk")
+    public String getCreatedSk() {
+        return taskUuid == null ? null : createdSkOf(taskUuid);
+    }
+
+    public static String createdSkOf(UUID taskUuid) {
+        // tasks created before task uuids were time ordered have no known creation time, they sort as the oldest.
+        Instant createdAt = TimeOrderedUuid.isTimeOrdered(taskUuid)
+                ? TimeOrderedUuid.timestampOf(taskUuid)
+                : Instant.EPOCH;
+        return createdSkBound(createdAt) + "#" + taskUuid;
+    }
+
+    public static String createdSkBound(Instant time) {
+        // the creation time in milliseconds, on 13 digits so the sort keys sort by it: it sorts after the sort keys
+        // of the tasks created before "time", and before those of the tasks created at "time" or after.
+        // times out of [EPOCH, MAX_CREATED_AT] are clamped, so any time gives a valid bound.
+        Instant clamped = time.isBefore(Instant.EPOCH) ? Instant.EPOCH
+                : time.isAfter(MAX_CREATED_AT) ? MAX_CREATED_AT
+                : time;
+        String millis = Long.toString(clamped.toEpochMilli());
+        return "0000000000000".substring(millis.length()) + millis;
+    }
+
+    @DynamoDbAttribute(value = "version")
+    public Long getVersion() {
+        return version;
+    }
+
     public void setPk(String pk) {
         this.pk = pk;
     }
@@ -103,6 +180,22 @@ public class AccountTaskLink {
         this.taskUuid = taskUuid;
     }
 
+    public void setTaskStatus(TaskStatus taskStatus) {
+        this.taskStatus = taskStatus;
+    }
+
+    public void setStatusPk(String statusPk) {
+        this.statusPk = statusPk;
+    }
+
+    public void setCreatedSk(String createdSk) {
+        this.createdSk = createdSk;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public static class Builder {
 
 
@@ -117,6 +210,10 @@ public class AccountTaskLink {
         // **** Task Attributes ****
         public String taskTitle;
         public UUID taskUuid;
+        private TaskStatus taskStatus;
+
+        // **** Concurrency control ****
+        private Long version;
 
         public Builder() {
         }
@@ -150,6 +247,16 @@ public class AccountTaskLink {
             this.taskTitle = taskTitle;
             return this;
         }
+        public Builder withTaskStatus(TaskStatus taskStatus){
+            this.taskStatus = taskStatus;
+            return this;
+        }
+
+        // **** Concurrency control ****
+        public Builder withVersion(Long version){
+            this.version = version;
+            return this;
+        }
 
         public AccountTaskLink build() {
             return new AccountTaskLink(this);
@@ -0,0 +1,222 @@
+package com.example.project6.entity;
+
+
+import com.example.project6.Enum.EntityType;
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.util.KeyCodec;
+import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
+
+import java.util.Locale;
+import java.util.UUID;
+
+@DynamoDbBean
+public class AccountTaskStats {
+    /*
+     * Counters of the tasks shared with an account ("ACCOUNT#uuid", "STATS"), in total and per status.
+     * They are updated with ADD in the transactions that share / un-share / delete the tasks of the account
+     * or change their status (see AccountTaskStatsRepository), instead of counting the account tasks.
+     * */
+
+    public static final String SORT_KEY = "STATS";
+
+    // Composite Primary Key
+    private String pk; // partition key
+    private String sk; // sort key
+
+    // **** Account attributes ****
+    private UUID accountUuid;
+
+    // **** Counters ****
+    private Long taskCount;
+    private Long todoCount;
+    private Long inProgressCount;
+    private Long doneCount;
+
+    // **** Concurrency control ****
+    private Long version;
+
+    // **** Constructors ****
+    public AccountTaskStats() {
+    }
+
+    private AccountTaskStats(Builder builder) {
+        // **** Composite primary key ****
+        this.pk = builder.pk;
+        this.sk = builder.sk;
+
+        // **** Account Attributes ****
+        this.accountUuid = builder.accountUuid;
+
+        // **** Counters ****
+        this.taskCount = builder.taskCount;
+        this.todoCount = builder.todoCount;
+        this.inProgressCount = builder.inProgressCount;
+        this.doneCount = builder.doneCount;
+
+        // **** Concurrency control ****
+        this.version = builder.version;
+    }
+
+    // **** methods ****
+    public static Builder builder() {
+        // creates and returns an instance of Builder.
+        return new Builder();
+    }
+
+    public static String countAttributeOf(TaskStatus status) {
+        // e.g. "in_progress_count".
+        return status.name().toLowerCase(Locale.ROOT) + "_count";
+    }
+
+    public long getCount(TaskStatus status) {
+        Long count = switch (status) {
+            case TODO -> todoCount;
+            case IN_PROGRESS -> inProgressCount;
+            case DONE -> doneCount;
+        };
+        return count == null ? 0 : count;
+    }
+
+    @DynamoDbPartitionKey
+    public String getPk() {
+        return KeyCodec.key(EntityType.ACCOUNT, accountUuid);
+    }
+
+    @DynamoDbSortKey
+    public String getSk() {
+        return SORT_KEY;
+    }
+
+    @DynamoDbAttribute(value = "account_uuid")
+    @DynamoDbConvertedBy(UUIDConverter.class)
+    public UUID getAccountUuid() {
+        return accountUuid;
+    }
+
+    @DynamoDbAttribute(value = "task_count")
+    public Long getTaskCount() {
+        return taskCount;
+    }
+
+    @DynamoDbAttribute(value = "todo_count")
+    public Long getTodoCount() {
+        return todoCount;
+    }
+
+    @DynamoDbAttribute(value = "in_progress_count")
+    public Long getInProgressCount() {
+        return inProgressCount;
+    }
+
+    @DynamoDbAttribute(value = "done_count")
+    public Long getDoneCount() {
+        return doneCount;
+    }
+
+    @DynamoDbAttribute(value = "version")
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setPk(String pk) {
+        this.pk = pk;
+    }
+
+    public void setSk(String sk) {
+        this.sk = sk;
+    }
+
+    public void setAccountUuid(UUID accountUuid) {
+        this.accountUuid = accountUuid;
+    }
+
+    public void setTaskCount(Long taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    public void setTodoCount(Long todoCount) {
+        this.todoCount = todoCount;
+    }
+
+    public void setInProgressCount(Long inProgressCount) {
+        this.inProgressCount = inProgressCount;
+    }
+
+    public void setDoneCount(Long doneCount) {
+        this.doneCount = doneCount;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public static class Builder {
+        // **** Composite Key ****
+        private String pk;
+        private String sk;
+
+        // **** Account Attributes ****
+        private UUID accountUuid;
+
+        // **** Counters ****
+        private Long taskCount;
+        private Long todoCount;
+        private Long inProgressCount;
+        private Long doneCount;
+
+        // **** Concurrency control ****
+        private Long version;
+
+        public Builder() {
+        }
+
+        // **** Composite Key ****
+        public Builder withPk(String pk) {
+            this.pk = pk;
+            return this;
+        }
+
+        public Builder withSk(String sk) {
+            this.sk = sk;
+            return this;
+        }
+
+        // **** Account Attributes ****
+        public Builder withAccountUuid(UUID accountUuid) {
+            this.accountUuid = accountUuid;
+            return this;
+        }
+
+        // **** Counters ****
+        public Builder withTaskCount(Long taskCount) {
+            this.taskCount = taskCount;
+            return this;
+        }
+
+        public Builder withTodoCount(Long todoCount) {
+            this.todoCount = todoCount;
+            return this;
+        }
+
+        public Builder withInProgressCount(Long inProgressCount) {
+            this.inProgressCount = inProgressCount;
+            return this;
+        }
+
+        public Builder withDoneCount(Long doneCount) {
+            this.doneCount = doneCount;
+            return this;
+        }
+
+        // **** Concurrency control ****
+        public Builder withVersion(Long version) {
+            this.version = version;
+            return this;
+        }
+
+        public AccountTaskStats build() {
+            return new AccountTaskStats(this);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.project6.entity;
 
 
 import com.example.project6.Enum.EntityType;
+import com.example.project6.util.KeyCodec;
 import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
 
@@ -67,6 +68,26 @@ public class Comment {
         return creatorAccountUuid;
     }
 
+    public void setPk(String pk) {
+        this.pk = pk;
+    }
+
+    public void setSk(String sk) {
+        this.sk = sk;
+    }
+
+    public void setCommentUuid(UUID commentUuid) {
+        this.commentUuid = commentUuid;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public void setCreatorAccountUuid(UUID creatorAccountUuid) {
+        this.creatorAccountUuid = creatorAccountUuid;
+    }
+
     public static class Builder {
         // **** Composite Key ****
         private String pk;
@@ -83,12 +104,12 @@ public class Comment {
 
         // **** Composite Key ****
         public Builder withPk(String pk) {
-            this.pk = String.format("%s#%s", EntityType.ACCOUNT, pk);
+            this.pk = KeyCodec.prefix(EntityType.ACCOUNT) + pk;
             return this;
         }
 
         public Builder withSk(String sk) {
-            this.sk = String.format("%s#%s", EntityType.ACCOUNT, sk);
+            this.sk = KeyCodec.prefix(EntityType.ACCOUNT) + sk;
             return this;
         }
 
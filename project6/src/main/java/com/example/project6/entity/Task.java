@@ -5,6 +5,8 @@ package com.example.project6.entity;
 
 import com.example.project6.Enum.EntityType;
 import com.example.project6.Enum.TaskStatus;
+import com.example.project6.util.KeyCodec;
+import com.example.project6.util.entityAndDtoMappers.CompressedStringConverter;
 import com.example.project6.util.entityAndDtoMappers.TaskStatusConverter;
 import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
@@ -23,6 +25,9 @@ public class Task {
     private String description;
     private TaskStatus status;
 
+    // **** Concurrency control ****
+    private Long version;
+
     // Constructors
     public Task() {
     }
@@ -37,6 +42,9 @@ public class Task {
         this.description = builder.description;
         this.title = builder.title;
         this.status = builder.status;
+
+        // **** Concurrency control ****
+        this.version = builder.version;
     }
 
     // **** methods ****
@@ -47,12 +55,12 @@ public class Task {
 
     @DynamoDbPartitionKey
     public String getPk() {
-        return String.format("%s#%s", EntityType.TASK, taskUuid);
+        return KeyCodec.key(EntityType.TASK, taskUuid);
     }
 
     @DynamoDbSortKey
     public String getSk() {
-        return String.format("%s#%s", EntityType.TASK, taskUuid);
+        return KeyCodec.key(EntityType.TASK, taskUuid);
     }
 
     @DynamoDbAttribute(value = "task_uuid")
@@ -66,6 +74,7 @@ public class Task {
         return title;
     }
 
+    @DynamoDbConvertedBy(CompressedStringConverter.class)
     @DynamoDbAttribute(value = "task_description")
     public String getDescription() {
         return description;
@@ -77,6 +86,11 @@ public class Task {
         return status;
     }
 
+    @DynamoDbAttribute(value = "version")
+    public Long getVersion() {
+        return version;
+    }
+
     public void setPk(String pk) {
         this.pk = pk;
     }
@@ -101,6 +115,10 @@ public class Task {
         this.status = status;
     }
 
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public static class Builder {
         // **** Composite Key ****
         private String pk;
@@ -112,6 +130,9 @@ public class Task {
         private TaskStatus status;
         private UUID taskUuid;
 
+        // **** Concurrency control ****
+        private Long version;
+
         public Builder() {
         }
 
@@ -146,6 +167,12 @@ public class Task {
             return this;
         }
 
+        // **** Concurrency control ****
+        public Builder withVersion(Long version) {
+            this.version = version;
+            return this;
+        }
+
         public Task build() {
             return new Task(this);
         }
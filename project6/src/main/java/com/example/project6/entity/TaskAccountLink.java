@@ -2,8 +2,11 @@ package com.example.project6.entity;
 
 
 import com.example.project6.Enum.EntityType;
+import com.example.project6.util.KeyCodec;
+import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbConvertedBy;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
@@ -24,6 +27,9 @@ public class TaskAccountLink {
     private String taskTitle;
     private UUID taskUuid;
 
+    // **** Concurrency control ****
+    private Long version;
+
     // **** Constructors ****
     public TaskAccountLink(){}
 
@@ -40,6 +46,8 @@ public class TaskAccountLink {
         this.taskTitle = builder.taskTitle;
         this.taskUuid = builder.taskUuid;
 
+        // **** Concurrency control ****
+        this.version = builder.version;
     }
 
     // **** methods ****
@@ -50,12 +58,12 @@ public class TaskAccountLink {
 
     @DynamoDbPartitionKey
     public String getPk() {
-        return String.format("%s#%s", EntityType.TASK, taskUuid) ;
+        return KeyCodec.key(EntityType.TASK, taskUuid);
     }
 
     @DynamoDbSortKey
     public String getSk() {
-        return String.format("%s#%s", EntityType.ACCOUNT, accountUuid == null ? "": accountUuid) ;
+        return accountUuid == null ? KeyCodec.prefix(EntityType.ACCOUNT) : KeyCodec.key(EntityType.ACCOUNT, accountUuid);
     }
 
     @DynamoDbAttribute(value = "account_name")
@@ -64,6 +72,7 @@ public class TaskAccountLink {
     }
 
     @DynamoDbAttribute(value = "account_uuid")
+    @DynamoDbConvertedBy(UUIDConverter.class)
     public UUID getAccountUuid() {
         return accountUuid;
     }
@@ -74,10 +83,16 @@ public class TaskAccountLink {
     }
 
     @DynamoDbAttribute(value = "task_uuid")
+    @DynamoDbConvertedBy(UUIDConverter.class)
     public UUID getTaskUuid() {
         return taskUuid;
     }
 
+    @DynamoDbAttribute(value = "version")
+    public Long getVersion() {
+        return version;
+    }
+
     public void setPk(String pk) {
         this.pk = pk;
     }
@@ -102,6 +117,10 @@ public class TaskAccountLink {
         this.taskUuid = taskUuid;
     }
 
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public static class Builder {
 
 
@@ -117,6 +136,9 @@ public class TaskAccountLink {
         public String taskTitle;
         public UUID taskUuid;
 
+        // **** Concurrency control ****
+        private Long version;
+
         public Builder() {
         }
 
@@ -150,6 +172,12 @@ public class TaskAccountLink {
             return this;
         }
 
+        // **** Concurrency control ****
+        public Builder withVersion(Long version){
+            this.version = version;
+            return this;
+        }
+
         public TaskAccountLink build() {
             return new TaskAccountLink(this);
         }
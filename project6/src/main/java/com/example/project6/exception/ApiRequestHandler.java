@@ -2,6 +2,7 @@ package com.example.project6.exception;
 
 
 import com.example.project6.dto.ApiExceptionDto;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -28,6 +29,41 @@ public class ApiRequestHandler {
         errors.put("error", e.getMessage());
         return new ResponseEntity<>(errors, httpStatus);
     }
+    @ExceptionHandler(value = {BadRequestException.class})
+    public ResponseEntity<Object> handleBadRequestException(BadRequestException e) {
+        HttpStatus httpStatus = HttpStatus.BAD_REQUEST;
+        Map<String, String>errors = new HashMap<>();
+        errors.put("error", e.getMessage());
+        return new ResponseEntity<>(errors, httpStatus);
+    }
+    @ExceptionHandler(value = {PreconditionFailedException.class})
+    public ResponseEntity<Object> handlePreconditionFailedException(PreconditionFailedException e) {
+        HttpStatus httpStatus = HttpStatus.PRECONDITION_FAILED;
+        Map<String, String>errors = new HashMap<>();
+        errors.put("error", e.getMessage());
+        return new ResponseEntity<>(errors, httpStatus);
+    }
+    @ExceptionHandler(value = {ConflictException.class})
+    public ResponseEntity<Object> handleConflictException(ConflictException e) {
+        HttpStatus httpStatus = HttpStatus.CONFLICT;
+        Map<String, String>errors = new HashMap<>();
+        errors.put("error", e.getMessage());
+        return new ResponseEntity<>(errors, httpStatus);
+    }
+    @ExceptionHandler(value = {CapacityBudgetExceededException.class})
+    public ResponseEntity<Object> handleCapacityBudgetExceededException(CapacityBudgetExceededException e) {
+        HttpStatus httpStatus = HttpStatus.TOO_MANY_REQUESTS;
+        Map<String, String>errors = new HashMap<>();
+        errors.put("error", e.getMessage());
+        return new ResponseEntity<>(errors, httpStatus);
+    }
+    @ExceptionHandler(value = {TooManyRequestsException.class})
+    public ResponseEntity<Object> handleTooManyRequestsException(TooManyRequestsException e) {
+        HttpStatus httpStatus = HttpStatus.TOO_MANY_REQUESTS;
+        Map<String, String>errors = new HashMap<>();
+        errors.put("error", e.getMessage());
+        return ResponseEntity.status(httpStatus).header(HttpHeaders.RETRY_AFTER, "1").body(errors);
+    }
     @ExceptionHandler(value = {MethodArgumentNotValidException.class})
     public ResponseEntity<Map<String, String>> handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
         Map<String, String> errors = new HashMap<>();
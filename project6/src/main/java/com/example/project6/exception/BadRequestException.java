@@ -0,0 +1,8 @@
+package com.example.project6.exception;
+
+
+public class BadRequestException extends RuntimeException{
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.project6.exception;
+
+
+public class CapacityBudgetExceededException extends RuntimeException{
+    public CapacityBudgetExceededException(String message) {
+        super(message);
+    }
+}
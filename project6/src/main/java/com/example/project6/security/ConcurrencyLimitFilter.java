@@ -0,0 +1,92 @@
+package com.example.project6.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    /*
+     * Bounds the number of api requests that are processed at the same time.
+     * With virtual threads, Tomcat no longer caps the number of concurrent requests,
+     * so without this bound thousands of requests would all queue on the DynamoDB connection pool
+     * and fail with connection acquisition timeouts after holding memory for the whole wait.
+     *   - "request-limiter.max-concurrent-requests": requests processed at the same time (0 disables the limit).
+     *   - "request-limiter.acquire-timeout": how long a request waits for a slot, before it is rejected
+     *       with 503 SERVICE UNAVAILABLE, so clients back off instead of piling up.
+     * */
+
+    private final int maxConcurrentRequests;
+    private final long acquireTimeoutNanos;
+    private final Semaphore permits;
+    private final Counter rejectedCounter;
+
+    public ConcurrencyLimitFilter(@Value("${request-limiter.max-concurrent-requests:200}") int maxConcurrentRequests,
+                                  @Value("${request-limiter.acquire-timeout:250ms}") Duration acquireTimeout,
+                                  MeterRegistry meterRegistry) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.permits = new Semaphore(Math.max(maxConcurrentRequests, 0));
+
+        this.rejectedCounter = Counter
+                .builder("http.requests.rejected")
+                .description("requests rejected because too many requests were in flight")
+                .register(meterRegistry);
+        meterRegistry.gauge("http.requests.in.flight", permits,
+                semaphore -> this.maxConcurrentRequests - semaphore.availablePermits());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // only api requests reach the database.
+        return maxConcurrentRequests <= 0 || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejectedCounter.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"too many concurrent requests, try again later\"}");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -24,11 +24,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final AccountService accountService;
+    private final PrincipalCache principalCache;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtService jwtService, AccountService accountService) {
+    public JwtAuthenticationFilter(JwtService jwtService, AccountService accountService, PrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.accountService = accountService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -51,14 +53,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 7 : is the length of the Bearer + the space after it
         jwtToken = authHeader.substring(7);
 
-        //extract the user email from the jwt token.
-        UUID accountUuid = jwtService.extractAccountUuid(jwtToken);
+        // verify the jwt token once, then use its claims for the rest of the request.
+        VerifiedToken verifiedToken = jwtService.verify(jwtToken);
+        UUID accountUuid = verifiedToken.accountUuid();
 
         // check if the user is already authenticated.
         if (SecurityContextHolder.getContext().getAuthentication() == null) {
-            CustomUserDetails userDetails = new CustomUserDetails(this.accountService.getAccountByUuid(accountUuid));
+            // the account is cached, instead of being fetched from the database on every request.
+            CustomUserDetails userDetails = new CustomUserDetails(
+                    principalCache.getAccount(accountUuid, accountService::getAccountByUuid)
+            );
 
-            if (jwtService.isTokenValid(jwtToken, userDetails)) {
+            if (jwtService.isTokenValid(verifiedToken, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -0,0 +1,58 @@
+package com.example.project6.security;
+
+import com.example.project6.entity.Account;
+import com.example.project6.util.TtlCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Component
+public class PrincipalCache {
+    /*
+     * Caches the accounts of authenticated principals by account uuid,
+     * so authenticating a request doesn't need a GetItem for the account.
+     *   - entries are invalidated when the account is saved or deleted (on this instance).
+     *   - "security.principal-cache.ttl" bounds how stale an entry can be, which also covers
+     *       changes made through other instances. A ttl of 0 disables the cache.
+     *   - "security.principal-cache.max-size" bounds the number of cached accounts.
+     * */
+
+    private final TtlCache<UUID, Account> cache;
+
+    public PrincipalCache(@Value("${security.principal-cache.ttl:30s}") Duration ttl,
+                          @Value("${security.principal-cache.max-size:10000}") int maxSize,
+                          MeterRegistry meterRegistry) {
+        this.cache = new TtlCache<>(ttl, maxSize);
+
+        FunctionCounter
+                .builder("security.principal.cache.hits", cache, TtlCache::getHits)
+                .description("authenticated requests whose account was found in the cache")
+                .register(meterRegistry);
+        FunctionCounter
+                .builder("security.principal.cache.misses", cache, TtlCache::getMisses)
+                .description("authenticated requests whose account was loaded from the database")
+                .register(meterRegistry);
+        FunctionCounter
+                .builder("security.principal.cache.evictions", cache, TtlCache::getEvictions)
+                .description("accounts evicted from the cache because it was full")
+                .register(meterRegistry);
+        Gauge
+                .builder("security.principal.cache.size", cache, TtlCache::size)
+                .description("number of cached accounts")
+                .register(meterRegistry);
+    }
+
+    public Account getAccount(UUID accountUuid, Function<UUID, Account> loader) {
+        return cache.get(accountUuid, loader);
+    }
+
+    public void invalidate(UUID accountUuid) {
+        cache.invalidate(accountUuid);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.project6.security;
+
+import com.example.project6.dao.RequestCapacity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestCapacityFilter extends OncePerRequestFilter {
+    /*
+     * Sums the DynamoDB capacity units consumed by each api request (see RequestCapacity).
+     *   - the total is returned in the "X-Consumed-Capacity" header (set by RequestCapacityHeaderAdvice
+     *       before the body is written, streamed responses don't get it).
+     *   - "request-capacity.slow-request-threshold": requests slower than this are logged with their capacity.
+     *   - "request-capacity.budgets": capacity units budgets per endpoint,
+     *       e.g. "PUT /api/task/{taskUuid}=100;DELETE /api/task/{taskUuid}=100".
+     *   - "request-capacity.reject-over-budget": false only logs (and counts) requests over their budget,
+     *       true also rejects writes that would exceed it with 429 TOO MANY REQUESTS.
+     * Runs right after ConcurrencyLimitFilter, so the authentication reads are accounted too.
+     * */
+
+    public static final String CONSUMED_CAPACITY_HEADER = "X-Consumed-Capacity";
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCapacityFilter.class);
+
+    private final long slowRequestThresholdNanos;
+    private final Map<String, Double> budgets;
+    private final boolean rejectOverBudget;
+    private final MeterRegistry meterRegistry;
+
+    public RequestCapacityFilter(@Value("${request-capacity.slow-request-threshold:500ms}") Duration slowRequestThreshold,
+                                 @Value("${request-capacity.budgets:}") String budgets,
+                                 @Value("${request-capacity.reject-over-budget:false}") boolean rejectOverBudget,
+                                 MeterRegistry meterRegistry) {
+        this.slowRequestThresholdNanos = slowRequestThreshold.toNanos();
+        this.budgets = parseBudgets(budgets);
+        this.rejectOverBudget = rejectOverBudget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RequestCapacity requestCapacity = new RequestCapacity(request, budgets::get, rejectOverBudget);
+        long startTime = System.nanoTime();
+        try (RequestCapacity.Scope ignored = requestCapacity.bind()) {
+            filterChain.doFilter(request, response);
+        } finally {
+            // responses without a body are still open here.
+            if (!response.isCommitted()) {
+                response.setHeader(CONSUMED_CAPACITY_HEADER, requestCapacity.toString());
+            }
+            report(requestCapacity, System.nanoTime() - startTime);
+        }
+    }
+
+    private void report(RequestCapacity requestCapacity, long durationNanos) {
+        if (requestCapacity.isOverBudget()) {
+            Counter.builder("http.requests.capacity.over.budget")
+                    .description("api requests that exceeded (or would have exceeded) the capacity budget of their endpoint")
+                    .tags("endpoint", requestCapacity.getEndpoint(), "rejected", Boolean.toString(rejectOverBudget))
+                    .register(meterRegistry)
+                    .increment();
+            logger.warn("{} exceeded its capacity budget of {} units: read {} units, write {} units in {} calls",
+                    requestCapacity.getEndpoint(), requestCapacity.getBudget(),
+                    requestCapacity.getReadUnits(), requestCapacity.getWriteUnits(), requestCapacity.getCalls());
+        } else if (durationNanos >= slowRequestThresholdNanos) {
+            logger.info("slow request {} took {} ms: read {} units, write {} units in {} calls",
+                    requestCapacity.getEndpoint(), Duration.ofNanos(durationNanos).toMillis(),
+                    requestCapacity.getReadUnits(), requestCapacity.getWriteUnits(), requestCapacity.getCalls());
+        }
+    }
+
+    private static Map<String, Double> parseBudgets(String budgets) {
+        // "METHOD pattern=units;METHOD pattern=units"
+        Map<String, Double> parsedBudgets = new HashMap<>();
+        for (String budget : budgets.split(";")) {
+            if (budget.isBlank()) {
+                continue;
+            }
+            int separator = budget.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("invalid capacity budget: \"" + budget + "\", expected METHOD pattern=units");
+            }
+            parsedBudgets.put(budget.substring(0, separator).trim(), Double.parseDouble(budget.substring(separator + 1).trim()));
+        }
+        return parsedBudgets;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.project6.security;
+
+import com.example.project6.dao.RequestCapacity;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+@ControllerAdvice
+public class RequestCapacityHeaderAdvice implements ResponseBodyAdvice<Object> {
+    /*
+     * Sets the consumed capacity header right before the response body is written,
+     * the response is committed once the body is written, so RequestCapacityFilter can't set it afterwards.
+     * */
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+                            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  @NonNull MethodParameter returnType,
+                                  @NonNull MediaType selectedContentType,
+                                  @NonNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  @NonNull ServerHttpRequest request,
+                                  @NonNull ServerHttpResponse response) {
+        RequestCapacity requestCapacity = RequestCapacity.current();
+        if (requestCapacity != null) {
+            response.getHeaders().set(RequestCapacityFilter.CONSUMED_CAPACITY_HEADER, requestCapacity.toString());
+        }
+        return body;
+    }
+}
@@ -2,9 +2,14 @@ package com.example.project6.security;
 
 import com.example.project6.Enum.Role;
 import com.example.project6.Service.UserDetailsService;
+import com.example.project6.util.Pagination;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -13,7 +18,9 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -31,12 +38,45 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CustomAuthenticationProvider customAuthenticationProvider;
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
     @Autowired
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
                           UserDetailsService userDetailsService,
                           BCryptPasswordEncoder bCryptPasswordEncoder, CustomAuthenticationProvider customAuthenticationProvider) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.customAuthenticationProvider = customAuthenticationProvider;
+        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+    }
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain prometheusFilterChain(HttpSecurity http,
+                                                     @Value("${metrics.scrape.username:prometheus}") String username,
+                                                     @Value("${metrics.scrape.password:}") String password) throws Exception {
+        /*
+         * The prometheus endpoint is scraped with a credential of its own (http basic), rather than an account:
+         * the metrics tell who calls which endpoint how often, they aren't public.
+         * Without a configured password, the endpoint can't be scraped at all.
+         * */
+        InMemoryUserDetailsManager scrapeUsers = new InMemoryUserDetailsManager();
+        if (!password.isBlank()) {
+            scrapeUsers.createUser(User
+                    .withUsername(username)
+                    .password(bCryptPasswordEncoder.encode(password))
+                    .roles("METRICS_SCRAPER")
+                    .build());
+        }
+        DaoAuthenticationProvider scrapeAuthenticationProvider = new DaoAuthenticationProvider();
+        scrapeAuthenticationProvider.setUserDetailsService(scrapeUsers);
+        scrapeAuthenticationProvider.setPasswordEncoder(bCryptPasswordEncoder);
+
+        http
+                .securityMatcher("/actuator/prometheus")
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> auth.anyRequest().hasRole("METRICS_SCRAPER"))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authenticationProvider(scrapeAuthenticationProvider);
+        return http.httpBasic(withDefaults()).build();
     }
 
     @Bean
@@ -48,6 +88,18 @@ public class SecurityConfig {
                         auth.requestMatchers("api/auth/register/**")
                                 .permitAll()
                 )
+                .authorizeHttpRequests(auth->
+                        // the health endpoint is public, the other actuator endpoints require authentication
+                        // (prometheus is scraped through a chain of its own).
+                        auth.requestMatchers("/actuator/health")
+                                .permitAll()
+                )
+                .authorizeHttpRequests(auth->
+                        // the async dispatch that ends a stream (e.g. the task events) belongs to a request
+                        // that was already authorized, the jwt filter doesn't run again for it.
+                        auth.dispatcherTypeMatchers(DispatcherType.ASYNC)
+                                .permitAll()
+                )
                 .authorizeHttpRequests(auth->
                         auth
                                 .requestMatchers("api/admin/**")
@@ -69,8 +121,9 @@ public class SecurityConfig {
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         config.setAllowCredentials(true);
         config.setAllowedHeaders(List.of("Authorization", "Cache-Control", "Content-Type", "Access-Control-Allowed" +
-                "-Origin", "Accept"));
-        config.setExposedHeaders(List.of("Authorization"));
+                "-Origin", "Accept", HttpHeaders.IF_MATCH));
+        config.setExposedHeaders(List.of("Authorization", Pagination.NEXT_TOKEN_HEADER, HttpHeaders.ETAG,
+                RequestCapacityFilter.CONSUMED_CAPACITY_HEADER));
         final UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
         return source;
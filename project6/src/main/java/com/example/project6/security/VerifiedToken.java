@@ -0,0 +1,15 @@
+package com.example.project6.security;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record VerifiedToken(UUID accountUuid, Instant issuedAt, Instant expiresAt) {
+    /*
+     * The claims of a jwt token whose signature and expiration were already verified.
+     * It is immutable, so it can be shared between requests carrying the same token.
+     * */
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.project6.util;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveRateLimiter {
+    /*
+     * Token bucket whose rate follows the throttling of the downstream service (AIMD):
+     *   - additive increase: every successful call adds additiveIncrease / rate to the rate,
+     *       so a fully used bucket grows by about additiveIncrease calls per second, every second.
+     *   - multiplicative decrease: a throttled call multiplies the rate by multiplicativeDecrease,
+     *       at most once per DECREASE_COOLDOWN, so the throttles of a single burst shrink it only once.
+     * The rate stays in [minRate, maxRate], starts at maxRate, and the bucket holds at most one second of tokens.
+     * Callers reserve their tokens and wait for them, but never longer than the wait they accept.
+     * */
+
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final double multiplicativeDecrease;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveRateLimiter(double minRate, double maxRate, double additiveIncrease, double multiplicativeDecrease) {
+        if (minRate <= 0 || maxRate < minRate) {
+            throw new IllegalArgumentException("rates should be positive, and minRate <= maxRate");
+        }
+        if (multiplicativeDecrease <= 0 || multiplicativeDecrease >= 1) {
+            throw new IllegalArgumentException("multiplicativeDecrease should be in (0, 1)");
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.additiveIncrease = additiveIncrease;
+        this.multiplicativeDecrease = multiplicativeDecrease;
+        this.rate = maxRate;
+        this.tokens = maxRate;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastDecreaseNanos = lastRefillNanos - DECREASE_COOLDOWN_NANOS;
+    }
+
+    public boolean tryAcquire(double permits, long maxWaitNanos) {
+        // returns false, without taking any token, if the permits aren't available within maxWaitNanos.
+        long waitNanos = reserve(permits, maxWaitNanos);
+        if (waitNanos < 0) {
+            return false;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    synchronized long reserve(double permits, long maxWaitNanos) {
+        // returns how long the caller should wait for its permits, or -1 if that is longer than maxWaitNanos.
+        refill(System.nanoTime());
+        // a call never needs more than a full bucket, or large batches could never get through.
+        double needed = Math.min(permits, rate);
+        long waitNanos = needed <= tokens ? 0 : (long) ((needed - tokens) / rate * 1e9);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        // the tokens can go negative: the reservation is paid by the following callers' wait.
+        tokens -= needed;
+        return waitNanos;
+    }
+
+    public synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + additiveIncrease / rate);
+    }
+
+    public synchronized void onThrottle() {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < DECREASE_COOLDOWN_NANOS) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        refill(now);
+        rate = Math.max(minRate, rate * multiplicativeDecrease);
+        tokens = Math.min(tokens, rate);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(rate, tokens + (now - lastRefillNanos) / 1e9 * rate);
+        lastRefillNanos = now;
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+}
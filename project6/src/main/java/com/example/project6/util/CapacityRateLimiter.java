@@ -0,0 +1,48 @@
+package com.example.project6.util;
+
+import java.util.concurrent.TimeUnit;
+
+public class CapacityRateLimiter {
+    /*
+     * Limits the capacity units consumed per second by background jobs (e.g. snapshot exports),
+     * so they leave the table capacity to the api requests.
+     * The cost of a DynamoDB call is only known from its response, so callers pay after each call:
+     * acquire() waits until the consumed units fit in the rate, which delays the next call instead.
+     * Up to one second of unused capacity can be used as a burst.
+     * */
+
+    private final double unitsPerSecond;
+    private final long burstNanos = TimeUnit.SECONDS.toNanos(1);
+    private long nextFreeNanos = System.nanoTime();
+
+    public CapacityRateLimiter(double unitsPerSecond) {
+        if (unitsPerSecond <= 0) {
+            throw new IllegalArgumentException("unitsPerSecond should be positive");
+        }
+        this.unitsPerSecond = unitsPerSecond;
+    }
+
+    public void acquire(double units) {
+        long waitNanos = reserve(units);
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for capacity", e);
+        }
+    }
+
+    synchronized long reserve(double units) {
+        // returns how long the caller should wait for the units to be paid for.
+        long now = System.nanoTime();
+        nextFreeNanos = Math.max(nextFreeNanos, now - burstNanos) + (long) (units / unitsPerSecond * 1e9);
+        return nextFreeNanos - now;
+    }
+
+    public double getUnitsPerSecond() {
+        return unitsPerSecond;
+    }
+}
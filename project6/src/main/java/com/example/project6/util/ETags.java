@@ -0,0 +1,42 @@
+package com.example.project6.util;
+
+import com.example.project6.exception.BadRequestException;
+
+public class ETags {
+    /*
+     * Helpers for conditional requests.
+     * The ETag of a versioned item is its version as a strong entity tag e.g. "3",
+     * clients send it back in the "If-Match" header to update the item only if nobody changed it meanwhile.
+     * */
+
+    private ETags() {
+    }
+
+    public static String toETag(Long version) {
+        // items written before versioning was introduced are at version 0.
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    public static Long parseIfMatch(String ifMatch) {
+        /*
+         * returns the version the client expects, or null if the request isn't conditional.
+         *   - a missing header and "*" both mean that any version is accepted.
+         *   - weak tags (W/"3") are accepted as well, as the version identifies the whole item.
+         * */
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("invalid If-Match header");
+        }
+    }
+}
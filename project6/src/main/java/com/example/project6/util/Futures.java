@@ -0,0 +1,29 @@
+package com.example.project6.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class Futures {
+    /*
+     * Helpers for waiting on futures from blocking code.
+     * */
+
+    private Futures() {
+    }
+
+    public static <T> T join(CompletableFuture<T> future) {
+        // waits for the future, and rethrows its failure as is (e.g. NotFoundException),
+        // instead of wrapped in a CompletionException, so it is handled like a synchronous failure.
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
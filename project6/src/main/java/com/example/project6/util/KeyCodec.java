@@ -0,0 +1,85 @@
+package com.example.project6.util;
+
+import com.example.project6.Enum.EntityType;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+public class KeyCodec {
+    /*
+     * Encoding of the keys ("TYPE#uuid") and of the uuid attributes of the single table.
+     *   - keys are built from precomputed "TYPE#" prefixes, instead of parsing a format string on every
+     *       getPk / getSk (they are called several times per item written or read).
+     *   - uuid attributes (e.g. account_uuid, task_uuid) are stored as 36 chars strings (TEXT),
+     *       or as 16 bytes binary values (BINARY), which makes every item with a uuid attribute smaller,
+     *       so every read and write of it cheaper.
+     *       Both encodings are always read, so the encoding of the writes (held by the UUIDConverter the tables
+     *       are built with, see DynamoDBConfig) can be switched (or switched back) at any time:
+     *       items are migrated as they are written again, without a backfill.
+     * The keys themselves stay strings: pk / sk are declared as strings in the key schemas of the table and
+     * its indexes (their type can't change without a new table), and their "TYPE#" prefixes are queried
+     * with begins_with.
+     * */
+
+    public enum UuidEncoding {
+        TEXT,
+        BINARY
+    }
+
+    private static final String[] PREFIXES = new String[EntityType.values().length];
+
+    static {
+        for (EntityType type : EntityType.values()) {
+            PREFIXES[type.ordinal()] = type.name() + "#";
+        }
+    }
+
+    private KeyCodec() {
+    }
+
+    public static String prefix(EntityType type) {
+        // e.g. "TASK#", to query the keys of a type with begins_with.
+        return PREFIXES[type.ordinal()];
+    }
+
+    public static String key(EntityType type, UUID uuid) {
+        // e.g. "TASK#uuid" (a null uuid gives "TASK#null", like String.format did).
+        return PREFIXES[type.ordinal()].concat(String.valueOf(uuid));
+    }
+
+    public static UUID uuidOf(EntityType type, String key) {
+        // the uuid of a key built by key(type, uuid).
+        String prefix = PREFIXES[type.ordinal()];
+        if (!key.startsWith(prefix)) {
+            throw new IllegalArgumentException("not a " + type + " key: " + key);
+        }
+        return UUID.fromString(key.substring(prefix.length()));
+    }
+
+    public static AttributeValue uuidAttributeValue(UUID uuid, UuidEncoding encoding) {
+        // the value of a uuid attribute, in the given encoding (the configured one is held by UUIDConverter).
+        if (encoding == UuidEncoding.BINARY) {
+            byte[] bytes = ByteBuffer
+                    .allocate(16)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array();
+            return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(bytes)).build();
+        }
+        return AttributeValue.builder().s(uuid.toString()).build();
+    }
+
+    public static UUID uuidOf(AttributeValue attributeValue) {
+        // reads a uuid attribute in either encoding.
+        if (attributeValue.s() != null) {
+            return UUID.fromString(attributeValue.s());
+        }
+        ByteBuffer bytes = attributeValue.b().asByteBuffer();
+        if (bytes.remaining() != 16) {
+            throw new IllegalArgumentException("binary uuid attribute of " + bytes.remaining() + " bytes");
+        }
+        return new UUID(bytes.getLong(), bytes.getLong());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.project6.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class NdJson {
+    /*
+     * Helpers for streaming responses as newline delimited JSON (one JSON document per line).
+     * */
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private NdJson() {
+    }
+
+    public static <T> StreamingResponseBody writePages(ObjectMapper objectMapper, Stream<List<T>> pages) {
+        /*
+         * Writes the items of each page as they arrive, then flushes the page to the client.
+         * Only one page is held in memory at a time.
+         * */
+        return outputStream -> {
+            try (pages) {
+                Iterator<List<T>> iterator = pages.iterator();
+                while (iterator.hasNext()) {
+                    for (T item : iterator.next()) {
+                        outputStream.write(objectMapper.writeValueAsBytes(item));
+                        outputStream.write('\n');
+                    }
+                    outputStream.flush();
+                }
+            }
+        };
+    }
+}
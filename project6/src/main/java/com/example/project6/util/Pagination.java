@@ -0,0 +1,98 @@
+package com.example.project6.util;
+
+import com.example.project6.exception.BadRequestException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+public class Pagination {
+    /*
+     * Helpers for cursor based pagination.
+     * The continuation token handed to clients is the query's LastEvaluatedKey,
+     * serialized as JSON and encoded with base64url, clients should treat it as opaque.
+     * */
+
+    // response header that carries the token of the next page.
+    public static final String NEXT_TOKEN_HEADER = "X-Next-Token";
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> keyType = new TypeReference<>() {
+    };
+
+    private Pagination() {
+    }
+
+    public static String encodeNextToken(Map<String, AttributeValue> lastEvaluatedKey) {
+        // returns null when there is no next page.
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+
+        // all the keys of the table and its indexes are strings, the token only carries strings.
+        // a key of another type (e.g. a binary uuid key) would be encoded as null, so it is rejected instead.
+        Map<String, String> key = new HashMap<>();
+        lastEvaluatedKey.forEach((name, value) -> {
+            if (value.s() == null) {
+                throw new IllegalStateException("couldn't encode pagination token, key " + name + " isn't a string");
+            }
+            key.put(name, value.s());
+        });
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(key));
+        } catch (IOException e) {
+            throw new IllegalStateException("couldn't encode pagination token", e);
+        }
+    }
+
+    public static Map<String, AttributeValue> decodeNextToken(String nextToken, String expectedPartitionKey) {
+        /*
+         * decodes the token sent by the client back into an ExclusiveStartKey.
+         * The token must belong to the partition being queried,
+         * otherwise a client could use it to read another partition.
+         * returns null when no token is provided (first page).
+         * */
+        return decodeNextToken(nextToken, "pk", expectedPartitionKey);
+    }
+
+    public static Map<String, AttributeValue> decodeNextToken(String nextToken, String partitionKeyName,
+                                                              String expectedPartitionKey) {
+        // same as above, for tokens whose partition is identified by another attribute than "pk".
+        if (nextToken == null || nextToken.isBlank()) {
+            return null;
+        }
+        Map<String, String> key;
+        try {
+            key = objectMapper.readValue(Base64.getUrlDecoder().decode(nextToken), keyType);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadRequestException("invalid pagination token");
+        }
+        if (key == null || !expectedPartitionKey.equals(key.get(partitionKeyName))) {
+            throw new BadRequestException("invalid pagination token");
+        }
+
+        Map<String, AttributeValue> exclusiveStartKey = new HashMap<>();
+        key.forEach((name, value) -> exclusiveStartKey.put(name, AttributeValue.builder().s(value).build()));
+        return exclusiveStartKey;
+    }
+
+    public static int resolvePageSize(Integer limit) {
+        // falls back to the default page size, and rejects out of range values.
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException(
+                    String.format("limit should be between 1 and %d", MAX_PAGE_SIZE)
+            );
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.project6.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public class RetryBackoff {
+    /*
+     * Exponential backoff with full jitter.
+     * The delay before retry number "attempt" is a random value in [0, min(maxDelay, baseDelay * 2^attempt)].
+     * */
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryBackoff(long baseDelayMillis, long maxDelayMillis) {
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public long delayMillis(int attempt) {
+        // caps the shift to avoid overflowing for large attempt numbers.
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public void sleep(int attempt) {
+        try {
+            Thread.sleep(delayMillis(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.project6.util;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+
+public class TimeOrderedUuid {
+    /*
+     * Time ordered uuids (version 7, RFC 9562): 48 bits of unix time in milliseconds, then random bits.
+     * Their string form sorts in creation order, and their creation time is read back from them (timestampOf),
+     * e.g. to sort the account task links by creation (see AccountTaskLink.getCreatedSk).
+     *   - the uuids generated by this process are strictly increasing, those of the same millisecond
+     *       use the 12 bits that follow the version as a counter (started at a random value).
+     *   - the uuids generated before (random, version 4) are kept as is: a uuid is the public id of a task.
+     * */
+
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long RANDOM_BITS = 0x3FFFFFFFFFFFFFFFL;
+    private static final int MAX_SEQUENCE = 0xFFF;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    // guarded by the class lock.
+    private static long lastMillis;
+    private static int sequence;
+
+    private TimeOrderedUuid() {
+    }
+
+    public static UUID generate() {
+        long millis;
+        int counter;
+        synchronized (TimeOrderedUuid.class) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                // the counter starts low enough in the millisecond to leave room for the following uuids.
+                lastMillis = now;
+                sequence = random.nextInt(MAX_SEQUENCE / 2);
+            } else if (++sequence > MAX_SEQUENCE) {
+                // more uuids than the counter can hold in this millisecond (or the clock went back):
+                // borrow the next millisecond, the uuids stay increasing.
+                lastMillis++;
+                sequence = 0;
+            }
+            millis = lastMillis;
+            counter = sequence;
+        }
+        return new UUID((millis << 16) | VERSION | counter, VARIANT | (random.nextLong() & RANDOM_BITS));
+    }
+
+    public static boolean isTimeOrdered(UUID uuid) {
+        return uuid.version() == 7;
+    }
+
+    public static Instant timestampOf(UUID uuid) {
+        if (!isTimeOrdered(uuid)) {
+            throw new IllegalArgumentException("not a time ordered uuid: " + uuid);
+        }
+        return Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.project6.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class TtlCache<K, V> {
+    /*
+     * A small in-process cache, bounded both in size and in staleness.
+     *   - entries expire "ttl" after they were loaded, so a change is seen at most "ttl" late.
+     *   - once "maxSize" entries are cached, the least recently used entry is evicted.
+     *   - a ttl of zero disables caching, every lookup goes to the loader.
+     * Loading happens outside the lock, and concurrent misses on the same key share a single load (single-flight):
+     * the first miss loads the value, the others wait for it (or for its failure) instead of loading it again.
+     * A value loaded while an invalidation happened isn't cached, as it may predate the invalidated change,
+     * and a miss that comes after the invalidation of its key starts a new load instead of joining the old one.
+     * */
+
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries;
+
+    // loads in flight, guarded by the entries lock.
+    private final Map<K, CompletableFuture<V>> loads = new HashMap<>();
+
+    // incremented by every invalidation, guarded by the entries lock.
+    private long generation;
+
+    // statistics.
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+
+    public TtlCache(Duration ttl, int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+
+        // access ordered, so the eldest entry is the least recently used one.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        // returns the cached value if it is still fresh, otherwise loads and caches it.
+        if (ttlNanos <= 0) {
+            misses.increment();
+            return loader.apply(key);
+        }
+
+        long now = System.nanoTime();
+        long loadGeneration;
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlight;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && !entry.isExpired(now)) {
+                hits.increment();
+                return entry.value();
+            }
+            inFlight = loads.putIfAbsent(key, load);
+            loadGeneration = generation;
+        }
+
+        if (inFlight != null) {
+            // another thread is already loading the key, wait for its value instead of loading it again.
+            coalesced.increment();
+            return Futures.join(inFlight);
+        }
+
+        misses.increment();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            // the waiting threads fail the same way.
+            synchronized (entries) {
+                loads.remove(key, load);
+            }
+            load.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (entries) {
+            loads.remove(key, load);
+            if (value != null && loadGeneration == generation) {
+                entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+            }
+        }
+        load.complete(value);
+        return value;
+    }
+
+    public V getIfPresent(K key) {
+        // returns the cached value if it is still fresh, without loading it (and without counting a hit / miss).
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry == null || entry.isExpired(System.nanoTime()) ? null : entry.value();
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+            loads.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+            loads.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCoalesced() {
+        // misses that waited for the load of another thread.
+        return coalesced.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.project6.util.entityAndDtoMappers;
+
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.dto.AccountTaskStatsDto;
+import com.example.project6.entity.Account;
+import com.example.project6.entity.AccountTaskStats;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class AccountTaskStatsMapper {
+
+    public static AccountTaskStatsDto AccountTaskStatsToAccountTaskStatsDto(Account account,
+                                                                            AccountTaskStats accountTaskStats){
+        // an account without counters has no tasks (or wasn't recounted yet).
+        Map<TaskStatus, Long> statusCounts = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            statusCounts.put(status, accountTaskStats == null ? 0 : accountTaskStats.getCount(status));
+        }
+        long taskCount = accountTaskStats == null || accountTaskStats.getTaskCount() == null
+                ? 0
+                : accountTaskStats.getTaskCount();
+        return new AccountTaskStatsDto(account.getAccountUuid(), account.getName(), taskCount, statusCounts);
+    }
+}
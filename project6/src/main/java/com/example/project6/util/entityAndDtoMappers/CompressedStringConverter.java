@@ -0,0 +1,186 @@
+package com.example.project6.util.entityAndDtoMappers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class CompressedStringConverter implements AttributeConverter<String> {
+    /*
+     * Stores long strings (e.g. task descriptions) compressed, to shrink the items and the capacity units
+     * of every read and write of them (including the transactions that carry them).
+     *   - strings of at least "threshold" UTF-8 bytes are stored as a binary (B) value: a format byte,
+     *       then the zlib stream of the UTF-8 bytes. Shorter strings, and strings that don't get smaller,
+     *       are stored as plain strings (S).
+     *   - plain strings are always read as is, so the items written before the compression (or below the
+     *       threshold) are read transparently, and the threshold can be changed at any time.
+     *   - the format byte leaves room for other formats, an unknown one fails the read instead of returning garbage.
+     *   - a value never inflates past the item size limit: a corrupted or hostile stream fails the read
+     *       instead of allocating without bound.
+     *   - only the instance built with a MeterRegistry (the one the tables write through, see DynamoDBConfig)
+     *       counts the values it compresses, the default instances (TableSchemas.TASK, @DynamoDbConvertedBy)
+     *       don't, so every written value is counted once, in the registered meters.
+     * */
+
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    // format byte of the binary values.
+    public static final byte FORMAT_ZLIB = 1;
+
+    // DynamoDB item size limit, no attribute value can be larger.
+    public static final int MAX_DECOMPRESSED_BYTES = 400 * 1024;
+
+    private final int threshold;
+
+    // metrics, null when the instance isn't measured.
+    private final Counter compressedCounter;
+    private final Counter bytesSavedCounter;
+    private final Counter incompressibleCounter;
+
+    public CompressedStringConverter() {
+        // used by @DynamoDbConvertedBy.
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public CompressedStringConverter(int threshold) {
+        // not measured.
+        this(threshold, null);
+    }
+
+    public CompressedStringConverter(int threshold, MeterRegistry meterRegistry) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        this.threshold = threshold;
+        if (meterRegistry == null) {
+            this.compressedCounter = null;
+            this.bytesSavedCounter = null;
+            this.incompressibleCounter = null;
+            return;
+        }
+        this.compressedCounter = Counter
+                .builder("task.description.compressed")
+                .description("task descriptions written compressed")
+                .register(meterRegistry);
+        this.bytesSavedCounter = Counter
+                .builder("task.description.bytes.saved")
+                .description("bytes saved by compressing the task descriptions that were written")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.incompressibleCounter = Counter
+                .builder("task.description.incompressible")
+                .description("task descriptions above the threshold written as plain strings, as they didn't get smaller")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AttributeValue transformFrom(String value) {
+        // a string can't have fewer UTF-8 bytes than chars, nor more than 3 per char.
+        if (value.length() < threshold / 3) {
+            return AttributeValue.builder().s(value).build();
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < threshold) {
+            return AttributeValue.builder().s(value).build();
+        }
+
+        byte[] compressed = compress(bytes);
+        if (compressed.length >= bytes.length) {
+            increment(incompressibleCounter, 1);
+            return AttributeValue.builder().s(value).build();
+        }
+        increment(compressedCounter, 1);
+        increment(bytesSavedCounter, bytes.length - compressed.length);
+        return AttributeValue.builder().b(SdkBytes.fromByteArrayUnsafe(compressed)).build();
+    }
+
+    @Override
+    public String transformTo(AttributeValue attributeValue) {
+        if (attributeValue.s() != null) {
+            return attributeValue.s();
+        }
+        byte[] bytes = attributeValue.b().asByteArrayUnsafe();
+        if (bytes.length == 0 || bytes[0] != FORMAT_ZLIB) {
+            throw new IllegalStateException(
+                    "unknown compressed string format: " + (bytes.length == 0 ? "empty" : bytes[0])
+            );
+        }
+        return new String(decompress(bytes), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public EnhancedType<String> type() {
+        return EnhancedType.of(String.class);
+    }
+
+    @Override
+    public AttributeValueType attributeValueType() {
+        // most values are short, and stored as plain strings.
+        return AttributeValueType.S;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    private static void increment(Counter counter, double amount) {
+        if (counter != null) {
+            counter.increment(amount);
+        }
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            // the format byte, then the zlib stream (it is only kept if it is smaller than the input).
+            byte[] buffer = new byte[bytes.length + 1];
+            buffer[0] = FORMAT_ZLIB;
+            int length = 1;
+            while (!deflater.finished() && length < buffer.length) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return deflater.finished() ? Arrays.copyOf(buffer, length) : buffer;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            // sized for a typical ratio, but never more than a value can hold.
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    (int) Math.min((long) bytes.length * 4, MAX_DECOMPRESSED_BYTES));
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("truncated compressed string");
+                }
+                if (out.size() + length > MAX_DECOMPRESSED_BYTES) {
+                    throw new IllegalStateException(
+                            "compressed string inflates past " + MAX_DECOMPRESSED_BYTES + " bytes");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("corrupted compressed string", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.project6.util.entityAndDtoMappers;
 
+import com.example.project6.util.KeyCodec;
 import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
 import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
 import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
@@ -9,14 +10,27 @@ import java.util.UUID;
 
 public class UUIDConverter implements AttributeConverter<UUID> {
 
+    // uuids are written in the given encoding, and read in either (see KeyCodec).
+    // the application uses the instance configured in DynamoDBConfig, the no-arg constructor
+    // (used by @DynamoDbConvertedBy) writes TEXT.
+    private final KeyCodec.UuidEncoding encoding;
+
+    public UUIDConverter() {
+        this(KeyCodec.UuidEncoding.TEXT);
+    }
+
+    public UUIDConverter(KeyCodec.UuidEncoding encoding) {
+        this.encoding = encoding;
+    }
+
     @Override
     public AttributeValue transformFrom(UUID uuid) {
-        return AttributeValue.builder().s(uuid.toString()).build();
+        return KeyCodec.uuidAttributeValue(uuid, encoding);
     }
 
     @Override
     public UUID transformTo(AttributeValue attributeValue) {
-        return UUID.fromString(attributeValue.s());
+        return KeyCodec.uuidOf(attributeValue);
     }
 
     @Override
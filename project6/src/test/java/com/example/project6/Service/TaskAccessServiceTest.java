@@ -0,0 +1,175 @@
+package com.example.project6.Service;
+
+import com.example.project6.Util;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.dao.AccountTasksRepository;
+import com.example.project6.dao.BatchGetItemLoader;
+import com.example.project6.dao.InMemoryDynamoDbClient;
+import com.example.project6.entity.AccountTaskLink;
+import com.example.project6.exception.NotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskAccessServiceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicInteger getItems = new AtomicInteger();
+    private final UUID accountUuid = UUID.randomUUID();
+    private final UUID taskUuid = UUID.randomUUID();
+
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private AccountTasksRepository accountTasksRepository;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new InMemoryDynamoDbClient() {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                queries.incrementAndGet();
+                return super.query(request);
+            }
+
+            @Override
+            public GetItemResponse getItem(GetItemRequest request) {
+                getItems.incrementAndGet();
+                return super.getItem(request);
+            }
+        };
+        dynamoDbClient.createTable(new Util().buildCreateTableRequest());
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+        accountTasksRepository = new AccountTasksRepository(dynamoDbClient,
+                enhancedClient.table("app", TableSchemas.ACCOUNT_TASK_LINK),
+                new BatchGetItemLoader(dynamoDbClient, 1));
+    }
+
+    @Test
+    void shouldAnswerRepeatedChecksFromASingleQuery() {
+        TaskAccessService taskAccessService = buildTaskAccessService(Duration.ofMinutes(1));
+        UUID otherTaskUuid = UUID.randomUUID();
+        accountTasksRepository.save(buildLink(taskUuid));
+        accountTasksRepository.save(buildLink(otherTaskUuid));
+
+        for (int i = 0; i < 2; i++) {
+            taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid);
+            taskAccessService.checkTaskSharedWithAccount(otherTaskUuid, accountUuid);
+        }
+
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(getItems.get()).isEqualTo(0);
+        assertThat(meterRegistry.get("security.task.access.hits").counter().count()).isEqualTo(4.0);
+    }
+
+    @Test
+    void shouldConfirmAMissWithAGetItem() {
+        // the task is shared after the account's tasks were loaded, e.g. through another instance.
+        TaskAccessService taskAccessService = buildTaskAccessService(Duration.ofMinutes(1));
+        assertThat(taskAccessService.isTaskSharedWithAccount(taskUuid, accountUuid)).isFalse();
+        accountTasksRepository.save(buildLink(taskUuid));
+
+        taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid);
+        assertThat(getItems.get()).isEqualTo(1);
+
+        // the confirmed task is added to the account's tasks.
+        taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid);
+        assertThat(getItems.get()).isEqualTo(1);
+        assertThat(queries.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDenyATaskThatIsNotShared() {
+        TaskAccessService taskAccessService = buildTaskAccessService(Duration.ofMinutes(1));
+        accountTasksRepository.save(buildLink(UUID.randomUUID()));
+
+        assertThatThrownBy(() -> taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid))
+                .isInstanceOf(NotFoundException.class);
+        assertThat(meterRegistry.get("security.task.access.misses").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldSeeARevocationMadeThroughThisInstanceRightAway() {
+        TaskAccessService taskAccessService = buildTaskAccessService(Duration.ofMinutes(1));
+        accountTasksRepository.save(buildLink(taskUuid));
+        taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid);
+
+        deleteLink(taskUuid);
+        taskAccessService.taskUnShared(accountUuid);
+
+        assertThatThrownBy(() -> taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void shouldSeeTheRevocationOfADeletedTaskRightAway() {
+        TaskAccessService taskAccessService = buildTaskAccessService(Duration.ofMinutes(1));
+        accountTasksRepository.save(buildLink(taskUuid));
+        taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid);
+
+        deleteLink(taskUuid);
+        taskAccessService.taskDeleted(List.of(accountUuid));
+
+        assertThat(taskAccessService.isTaskSharedWithAccount(taskUuid, accountUuid)).isFalse();
+    }
+
+    @Test
+    void shouldSeeARevocationMadeThroughAnotherInstanceWithinTheTtl() throws Exception {
+        TaskAccessService taskAccessService = buildTaskAccessService(Duration.ofMillis(500));
+        accountTasksRepository.save(buildLink(taskUuid));
+        taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid);
+
+        // this instance isn't told about the revocation, it is still allowed until the ttl passes.
+        deleteLink(taskUuid);
+        assertThat(taskAccessService.isTaskSharedWithAccount(taskUuid, accountUuid)).isTrue();
+
+        Thread.sleep(600);
+        assertThatThrownBy(() -> taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void shouldCheckTheLinkItselfWhenDisabled() {
+        // without the sets, a check must not query the whole account partition.
+        TaskAccessService taskAccessService = buildTaskAccessService(Duration.ZERO);
+        accountTasksRepository.save(buildLink(taskUuid));
+
+        taskAccessService.checkTaskSharedWithAccount(taskUuid, accountUuid);
+        assertThat(taskAccessService.isTaskSharedWithAccount(taskUuid, accountUuid)).isTrue();
+        assertThat(taskAccessService.isTaskSharedWithAccount(UUID.randomUUID(), accountUuid)).isFalse();
+
+        assertThat(queries.get()).isEqualTo(0);
+        assertThat(getItems.get()).isEqualTo(3);
+    }
+
+    private TaskAccessService buildTaskAccessService(Duration ttl) {
+        return new TaskAccessService(accountTasksRepository, meterRegistry, ttl, 100);
+    }
+
+    private AccountTaskLink buildLink(UUID taskUuid) {
+        return AccountTaskLink
+                .builder()
+                .withAccountUuid(accountUuid)
+                .withAccountName("name")
+                .withTaskUuid(taskUuid)
+                .withTaskTitle("title")
+                .build();
+    }
+
+    private void deleteLink(UUID taskUuid) {
+        dynamoDbClient.transactWriteItems(TransactWriteItemsRequest
+                .builder()
+                .transactItems(accountTasksRepository.generateDeleteTransactWriteItem(buildLink(taskUuid)))
+                .build());
+    }
+}
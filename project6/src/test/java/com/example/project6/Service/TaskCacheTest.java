@@ -0,0 +1,132 @@
+package com.example.project6.Service;
+
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.entity.Task;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskCacheTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TaskCache taskCache = new TaskCache(Duration.ofMinutes(1), 100, meterRegistry);
+    private final UUID taskUuid = UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldLoadAPopularTaskOnceForConcurrentReads() throws Exception {
+        AtomicInteger getItems = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Task>> reads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            reads.add(executor.submit(() -> taskCache.getTask(taskUuid, uuid -> {
+                getItems.incrementAndGet();
+                await(release);
+                return buildTask(1L);
+            })));
+        }
+        waitUntilCoalesced(7);
+        release.countDown();
+
+        for (Future<Task> read : reads) {
+            assertThat(read.get(5, TimeUnit.SECONDS).getVersion()).isEqualTo(1L);
+        }
+        assertThat(getItems.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("task.cache.misses").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldDropATaskLoadedWhileItWasWritten() throws Exception {
+        // a write invalidates the task while a read still loads its previous version.
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Task> staleRead = executor.submit(() -> taskCache.getTask(taskUuid, uuid -> {
+            loading.countDown();
+            await(release);
+            return buildTask(1L);
+        }));
+        await(loading);
+        taskCache.invalidate(taskUuid);
+        release.countDown();
+        assertThat(staleRead.get(5, TimeUnit.SECONDS).getVersion()).isEqualTo(1L);
+
+        assertThat(taskCache.getTask(taskUuid, uuid -> buildTask(2L)).getVersion()).isEqualTo(2L);
+        assertThat(taskCache.getTask(taskUuid, uuid -> buildTask(3L)).getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldNotCacheAFailedLoad() {
+        assertThatThrownBy(() -> taskCache.getTask(taskUuid, uuid -> {
+            throw new IllegalStateException("database unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(taskCache.getTask(taskUuid, uuid -> buildTask(1L)).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldNotCacheAMissingTask() {
+        assertThat(taskCache.getTask(taskUuid, uuid -> null)).isNull();
+        assertThat(taskCache.getTask(taskUuid, uuid -> buildTask(1L))).isNotNull();
+    }
+
+    @Test
+    void shouldReturnACopyOfTheCachedTask() {
+        Task task = taskCache.getTask(taskUuid, uuid -> buildTask(1L));
+        task.setTitle("changed by the caller");
+
+        Task cachedTask = taskCache.getTask(taskUuid, uuid -> buildTask(2L));
+        assertThat(cachedTask).isNotSameAs(task);
+        assertThat(cachedTask.getTitle()).isEqualTo("title");
+        assertThat(cachedTask.getVersion()).isEqualTo(1L);
+    }
+
+    private Task buildTask(long version) {
+        return Task
+                .builder()
+                .withTaskUuid(taskUuid)
+                .withTitle("title")
+                .withDescription("description")
+                .withStatus(TaskStatus.TODO)
+                .withVersion(version)
+                .build();
+    }
+
+    private void waitUntilCoalesced(int reads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("task.cache.coalesced").functionCounter().count() < reads) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("reads weren't coalesced within 5 seconds");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("latch wasn't released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
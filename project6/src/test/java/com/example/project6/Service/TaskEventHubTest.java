@@ -0,0 +1,172 @@
+package com.example.project6.Service;
+
+import com.example.project6.Enum.TaskEventType;
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.entity.Task;
+import com.example.project6.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskEventHubTest {
+    /*
+     * The emitters aren't attached to a response, what they were sent is observed through the hub's metrics.
+     * */
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<TaskEventHub> taskEventHubs = new ArrayList<>();
+    private final UUID accountUuid = UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        taskEventHubs.forEach(TaskEventHub::shutdown);
+    }
+
+    @Test
+    void shouldLimitTheSubscriptionsOfAnAccount() {
+        TaskEventHub taskEventHub = buildTaskEventHub(Duration.ofMillis(10), 10, 10, 2);
+
+        taskEventHub.subscribe(accountUuid);
+        taskEventHub.subscribe(accountUuid);
+
+        assertThatThrownBy(() -> taskEventHub.subscribe(accountUuid)).isInstanceOf(TooManyRequestsException.class);
+        // the other accounts can still subscribe.
+        taskEventHub.subscribe(UUID.randomUUID());
+        assertThat(taskEventHub.getSubscriptions()).isEqualTo(3);
+        assertThat(meterRegistry.get("task.events.subscribers").gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    void shouldLimitTheSubscriptionsInTotal() {
+        TaskEventHub taskEventHub = buildTaskEventHub(Duration.ofMillis(10), 10, 2, 2);
+
+        taskEventHub.subscribe(UUID.randomUUID());
+        taskEventHub.subscribe(UUID.randomUUID());
+
+        assertThatThrownBy(() -> taskEventHub.subscribe(accountUuid)).isInstanceOf(TooManyRequestsException.class);
+        assertThat(taskEventHub.getSubscriptions()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldOnlySendTheEventsOfTheSubscribedAccounts() throws Exception {
+        TaskEventHub taskEventHub = buildTaskEventHub(Duration.ofMillis(10), 10, 10, 5);
+        taskEventHub.subscribe(accountUuid);
+        taskEventHub.subscribe(accountUuid);
+
+        taskEventHub.publish(TaskEventType.SHARED, buildTask(UUID.randomUUID(), 1L), List.of(accountUuid, UUID.randomUUID()));
+        taskEventHub.publish(TaskEventType.CREATED, buildTask(UUID.randomUUID(), 1L), List.of(UUID.randomUUID()));
+
+        // once to each stream of the account.
+        waitUntil(() -> sentCount() == 2.0);
+        Thread.sleep(100);
+        assertThat(sentCount()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldOnlySendTheLatestEventOfATaskWithinTheCoalesceWindow() throws Exception {
+        TaskEventHub taskEventHub = buildTaskEventHub(Duration.ofMillis(200), 10, 10, 5);
+        taskEventHub.subscribe(accountUuid);
+        UUID taskUuid = UUID.randomUUID();
+
+        // a burst of title edits.
+        for (long version = 1; version <= 3; version++) {
+            taskEventHub.publish(TaskEventType.UPDATED, buildTask(taskUuid, version), List.of(accountUuid));
+        }
+
+        waitUntil(() -> sentCount() == 1.0);
+        Thread.sleep(300);
+        assertThat(sentCount()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("task.events.coalesced").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldTellASubscriberThatCantKeepUpToResync() throws Exception {
+        TaskEventHub taskEventHub = buildTaskEventHub(Duration.ofMillis(200), 2, 10, 5);
+        taskEventHub.subscribe(accountUuid);
+
+        for (int i = 0; i < 3; i++) {
+            taskEventHub.publish(TaskEventType.CREATED, buildTask(UUID.randomUUID(), 1L), List.of(accountUuid));
+        }
+
+        // the pending events are dropped, the subscriber gets a single resync instead.
+        waitUntil(() -> meterRegistry.get("task.events.resyncs").counter().count() == 1.0);
+        Thread.sleep(300);
+        assertThat(sentCount()).isEqualTo(0.0);
+
+        // then gets the events again.
+        taskEventHub.publish(TaskEventType.CREATED, buildTask(UUID.randomUUID(), 1L), List.of(accountUuid));
+        waitUntil(() -> sentCount() == 1.0);
+    }
+
+    @Test
+    void shouldReleaseTheSubscriptionOfAClosedStream() throws Exception {
+        TaskEventHub taskEventHub = buildTaskEventHub(Duration.ofMillis(10), 10, 10, 1);
+        SseEmitter emitter = taskEventHub.subscribe(accountUuid);
+        emitter.complete();
+
+        // noticed by the next send.
+        taskEventHub.publish(TaskEventType.DELETED, buildTask(UUID.randomUUID(), 1L), List.of(accountUuid));
+
+        waitUntil(() -> taskEventHub.getSubscriptions() == 0);
+        taskEventHub.subscribe(accountUuid);
+        assertThat(taskEventHub.getSubscriptions()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCloseEveryStreamOnShutdown() {
+        TaskEventHub taskEventHub = buildTaskEventHub(Duration.ofMillis(10), 10, 10, 5);
+        taskEventHub.subscribe(accountUuid);
+        taskEventHub.subscribe(UUID.randomUUID());
+
+        taskEventHub.shutdown();
+
+        assertThat(taskEventHub.getSubscriptions()).isEqualTo(0);
+        assertThat(meterRegistry.get("task.events.subscribers").gauge().value()).isEqualTo(0.0);
+    }
+
+    private TaskEventHub buildTaskEventHub(Duration coalesceWindow, int maxPending, int maxSubscriptions,
+                                           int maxSubscriptionsPerAccount) {
+        // the heartbeat is long enough not to be sent during a test.
+        TaskEventHub taskEventHub = new TaskEventHub(meterRegistry, Duration.ofMinutes(1), coalesceWindow, maxPending,
+                maxSubscriptions, maxSubscriptionsPerAccount, Duration.ofMinutes(1), Duration.ofSeconds(3), 2);
+        taskEventHubs.add(taskEventHub);
+        return taskEventHub;
+    }
+
+    private static Task buildTask(UUID taskUuid, long version) {
+        return Task
+                .builder()
+                .withTaskUuid(taskUuid)
+                .withTitle("title " + version)
+                .withDescription("description")
+                .withStatus(TaskStatus.TODO)
+                .withVersion(version)
+                .build();
+    }
+
+    private double sentCount() {
+        return meterRegistry.get("task.events.sent").counter().count();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition wasn't met within 5 seconds");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
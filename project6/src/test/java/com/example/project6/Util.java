@@ -50,12 +50,20 @@ public class Util {
                                 .attributeType(ScalarAttributeType.S) // String type
                                 .build(),
                         AttributeDefinition.builder()
-                                .attributeName("role")
-                                .attributeType(ScalarAttributeType.S) // ROLE_INDEX (GSI) partition key
+                                .attributeName("role_shard")
+                                .attributeType(ScalarAttributeType.S) // ROLE_SHARD_INDEX (GSI) partition key
                                 .build(),
                         AttributeDefinition.builder()
                                 .attributeName("email")
                                 .attributeType(ScalarAttributeType.S) // EMAIL_INDEX (GSI) partition key
+                                .build(),
+                        AttributeDefinition.builder()
+                                .attributeName("status_pk")
+                                .attributeType(ScalarAttributeType.S) // ACCOUNT_STATUS_INDEX (GSI) partition key
+                                .build(),
+                        AttributeDefinition.builder()
+                                .attributeName("created_sk")
+                                .attributeType(ScalarAttributeType.S) // ACCOUNT_CREATED_INDEX (GSI) sort key
                                 .build()
                 )
                 .globalSecondaryIndexes(GlobalSecondaryIndex.builder()
@@ -76,11 +84,57 @@ public class Util {
                                 )
                                 .build(),
                         GlobalSecondaryIndex.builder()
-                                .indexName("ROLE_INDEX")
+                                .indexName("ROLE_SHARD_INDEX")
                                 .keySchema(
                                         KeySchemaElement.builder()
-                                                .attributeName("role")  // ROLE_INDEX partition key.
+                                                .attributeName("role_shard")  // ROLE_SHARD_INDEX partition key.
                                                 .keyType(KeyType.HASH)
+                                                .build(),
+                                        KeySchemaElement.builder()
+                                                .attributeName("pk")  // ROLE_SHARD_INDEX sort key.
+                                                .keyType(KeyType.RANGE)
+                                                .build()
+                                )
+                                .provisionedThroughput(ProvisionedThroughput.builder()
+                                        .readCapacityUnits((long) 5)
+                                        .writeCapacityUnits((long) 5)
+                                        .build()
+                                )
+                                .projection(Projection.builder()
+                                        .projectionType(ProjectionType.ALL)
+                                        .build())
+                                .build(),
+                        GlobalSecondaryIndex.builder()
+                                .indexName("ACCOUNT_STATUS_INDEX")
+                                .keySchema(
+                                        KeySchemaElement.builder()
+                                                .attributeName("status_pk")  // ACCOUNT_STATUS_INDEX partition key.
+                                                .keyType(KeyType.HASH)
+                                                .build(),
+                                        KeySchemaElement.builder()
+                                                .attributeName("sk")  // ACCOUNT_STATUS_INDEX sort key.
+                                                .keyType(KeyType.RANGE)
+                                                .build()
+                                )
+                                .provisionedThroughput(ProvisionedThroughput.builder()
+                                        .readCapacityUnits((long) 5)
+                                        .writeCapacityUnits((long) 5)
+                                        .build()
+                                )
+                                .projection(Projection.builder()
+                                        .projectionType(ProjectionType.ALL)
+                                        .build())
+                                .build(),
+                        GlobalSecondaryIndex.builder()
+                                .indexName("ACCOUNT_CREATED_INDEX")
+                                .keySchema(
+                                        KeySchemaElement.builder()
+                                                .attributeName("pk")  // ACCOUNT_CREATED_INDEX partition key.
+                                                .keyType(KeyType.HASH)
+                                                .build(),
+                                        KeySchemaElement.builder()
+                                                .attributeName("created_sk")  // ACCOUNT_CREATED_INDEX sort key.
+                                                .keyType(KeyType.RANGE)
                                                 .build()
                                 )
                                 .provisionedThroughput(ProvisionedThroughput.builder()
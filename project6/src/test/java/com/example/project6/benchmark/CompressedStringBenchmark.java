@@ -0,0 +1,112 @@
+package com.example.project6.benchmark;
+
+import com.example.project6.util.entityAndDtoMappers.CompressedStringConverter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressedStringBenchmark {
+    /*
+     * CPU cost of the task description compression (see CompressedStringConverter), per description size.
+     *   - write / read: converting a description to the stored value and back.
+     *   - plainWrite / plainRead: the same description stored as a plain string, the cost without compression.
+     * The setup prints the stored size of the description and its compression ratio.
+     * The descriptions are generated from the words of typical task descriptions (with a fixed seed),
+     * random characters would compress far worse than real text, repeated text far better.
+     * run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+     *   -Dexec.mainClass=com.example.project6.benchmark.CompressedStringBenchmark
+     * */
+
+    private static final String[] WORDS = (
+            "the a to of and in for on with is be this that should when after before it as by from "
+                    + "report quarterly numbers customer invoice dashboard deploy release branch review fix bug "
+                    + "endpoint request response database table index migration backup restore account employee "
+                    + "admin task status title description update delete create share meeting notes deadline "
+                    + "sprint ticket priority high low blocked waiting approval test coverage performance latency "
+                    + "error timeout retry cache page token version conflict summary details steps expected actual "
+                    + "check verify make sure please also then next monday friday week month team owner"
+    ).split(" ");
+
+    @Param({"512", "2048", "8192", "32768"})
+    public int size;
+
+    private CompressedStringConverter converter;
+    private CompressedStringConverter plainConverter;
+
+    private String description;
+    private AttributeValue compressedValue;
+    private AttributeValue plainValue;
+
+    @Setup
+    public void setup() {
+        converter = new CompressedStringConverter(CompressedStringConverter.DEFAULT_THRESHOLD / 2);
+        plainConverter = new CompressedStringConverter(Integer.MAX_VALUE);
+
+        description = generateDescription(size, new Random(42));
+        compressedValue = converter.transformFrom(description);
+        plainValue = plainConverter.transformFrom(description);
+
+        if (!description.equals(converter.transformTo(compressedValue))) {
+            throw new IllegalStateException("the compressed description doesn't read back the same");
+        }
+        int storedSize = compressedValue.b() != null
+                ? compressedValue.b().asByteArrayUnsafe().length
+                : compressedValue.s().getBytes(StandardCharsets.UTF_8).length;
+        int originalSize = description.getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%n%d bytes description stored in %d bytes (ratio %.2f)%n",
+                originalSize, storedSize, (double) originalSize / storedSize);
+    }
+
+    @Benchmark
+    public AttributeValue write() {
+        return converter.transformFrom(description);
+    }
+
+    @Benchmark
+    public String read() {
+        return converter.transformTo(compressedValue);
+    }
+
+    @Benchmark
+    public AttributeValue plainWrite() {
+        return plainConverter.transformFrom(description);
+    }
+
+    @Benchmark
+    public String plainRead() {
+        return plainConverter.transformTo(plainValue);
+    }
+
+    private static String generateDescription(int size, Random random) {
+        // sentences of 6 to 20 words, until the description has the given number of chars.
+        StringBuilder builder = new StringBuilder(size + 32);
+        while (builder.length() < size) {
+            int words = 6 + random.nextInt(15);
+            for (int i = 0; i < words; i++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                builder.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                builder.append(i == words - 1 ? ". " : " ");
+            }
+            if (random.nextInt(5) == 0) {
+                builder.append(random.nextInt(1000)).append(" items are left. ");
+            }
+        }
+        return builder.substring(0, size);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CompressedStringBenchmark.class.getSimpleName()).build()).run();
+    }
+}
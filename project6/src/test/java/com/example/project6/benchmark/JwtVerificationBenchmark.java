@@ -0,0 +1,88 @@
+package com.example.project6.benchmark;
+
+import com.example.project6.Service.JwtService;
+import com.example.project6.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    /*
+     * Measures the per request cost of authenticating a jwt token.
+     *   - perRequestBefore: what the filter used to do, build the key and the parser,
+     *       then parse and verify the same token three times.
+     *   - verifyOnce: the token is verified once, without the verified tokens cache.
+     *   - verifyCached: the same token is sent again, so it is found in the verified tokens cache.
+     * run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+     *   -Dexec.mainClass=com.example.project6.benchmark.JwtVerificationBenchmark
+     * */
+
+    private String secret;
+    private String token;
+    private UUID accountUuid;
+    private JwtService uncachedJwtService;
+    private JwtService cachedJwtService;
+
+    @Setup
+    public void setup() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        secret = Base64.getEncoder().encodeToString(key);
+
+        uncachedJwtService = new JwtService(secret, Duration.ZERO, 0);
+        cachedJwtService = new JwtService(secret, Duration.ofMinutes(5), 10_000);
+
+        accountUuid = UUID.randomUUID();
+        token = cachedJwtService.generateToken(null, accountUuid.toString());
+    }
+
+    @Benchmark
+    public void perRequestBefore(Blackhole blackhole) {
+        UUID uuid = UUID.fromString(parseWithNewKey(token).getSubject());
+        boolean valid = uuid.equals(UUID.fromString(parseWithNewKey(token).getSubject()))
+                && !parseWithNewKey(token).getExpiration().before(new Date());
+        blackhole.consume(uuid);
+        blackhole.consume(valid);
+    }
+
+    @Benchmark
+    public boolean verifyOnce() {
+        VerifiedToken verifiedToken = uncachedJwtService.verify(token);
+        return verifiedToken.accountUuid().equals(accountUuid);
+    }
+
+    @Benchmark
+    public boolean verifyCached() {
+        VerifiedToken verifiedToken = cachedJwtService.verify(token);
+        return verifiedToken.accountUuid().equals(accountUuid);
+    }
+
+    private Claims parseWithNewKey(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
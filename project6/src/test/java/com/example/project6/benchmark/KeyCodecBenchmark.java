@@ -0,0 +1,113 @@
+package com.example.project6.benchmark;
+
+import com.example.project6.Enum.EntityType;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.entity.AccountTaskLink;
+import com.example.project6.util.KeyCodec;
+import com.example.project6.util.TimeOrderedUuid;
+import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyCodecBenchmark {
+    /*
+     * Cost of the keys and uuid attributes of the single table (see KeyCodec).
+     *   - formatKey / codecKey: building a "TYPE#uuid" key with String.format (as the entities did) and with KeyCodec.
+     *   - writeUuid / readUuid: a uuid attribute in the given encoding.
+     *   - accountTaskLinkItemToMap: a whole account task link item (2 keys, 2 uuid attributes).
+     * The setup prints the size of an account task link item in the given encoding.
+     * run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+     *   -Dexec.mainClass=com.example.project6.benchmark.KeyCodecBenchmark
+     * */
+
+    @Param({"TEXT", "BINARY"})
+    public KeyCodec.UuidEncoding encoding;
+
+    private UUIDConverter uuidConverter;
+    private TableSchema<AccountTaskLink> accountTaskLinkSchema;
+    private UUID uuid;
+    private AttributeValue uuidValue;
+    private AccountTaskLink accountTaskLink;
+
+    @Setup
+    public void setup() {
+        uuidConverter = new UUIDConverter(encoding);
+        accountTaskLinkSchema = TableSchemas.accountTaskLink(uuidConverter);
+        uuid = TimeOrderedUuid.generate();
+        uuidValue = uuidConverter.transformFrom(uuid);
+        accountTaskLink = AccountTaskLink.builder()
+                .withAccountUuid(UUID.randomUUID())
+                .withAccountName("employee")
+                .withTaskUuid(uuid)
+                .withTaskTitle("prepare the quarterly report")
+                .withVersion(1L)
+                .build();
+
+        if (!String.format("%s#%s", EntityType.TASK, uuid).equals(KeyCodec.key(EntityType.TASK, uuid))) {
+            throw new IllegalStateException("KeyCodec doesn't build the same keys");
+        }
+        System.out.printf("%naccount task link item of %d bytes with %s uuid attributes%n",
+                itemSize(accountTaskLinkSchema.itemToMap(accountTaskLink, true)), encoding);
+    }
+
+    @Benchmark
+    public String formatKey() {
+        return String.format("%s#%s", EntityType.TASK, uuid);
+    }
+
+    @Benchmark
+    public String codecKey() {
+        return KeyCodec.key(EntityType.TASK, uuid);
+    }
+
+    @Benchmark
+    public AttributeValue writeUuid() {
+        return uuidConverter.transformFrom(uuid);
+    }
+
+    @Benchmark
+    public UUID readUuid() {
+        return KeyCodec.uuidOf(uuidValue);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> accountTaskLinkItemToMap() {
+        return accountTaskLinkSchema.itemToMap(accountTaskLink, true);
+    }
+
+    private static int itemSize(Map<String, AttributeValue> item) {
+        // DynamoDB item size: the UTF-8 length of the attribute names plus the size of their values.
+        int size = 0;
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            AttributeValue value = attribute.getValue();
+            size += attribute.getKey().getBytes(StandardCharsets.UTF_8).length;
+            if (value.s() != null) {
+                size += value.s().getBytes(StandardCharsets.UTF_8).length;
+            } else if (value.b() != null) {
+                size += value.b().asByteArrayUnsafe().length;
+            } else if (value.n() != null) {
+                size += value.n().length();
+            }
+        }
+        return size;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KeyCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.project6.benchmark;
+
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.entity.AccountTaskLink;
+import com.example.project6.entity.Task;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableSchemaBenchmark {
+    /*
+     * Compares the reflective bean schemas (TableSchema.fromBean) with the static schemas (TableSchemas).
+     *   - itemToMap / mapToItem: throughput of converting a task and an account task link.
+     *   - beanSchemaStartup / staticSchemaStartup: cost of creating the schemas in a fresh JVM (single shot).
+     * The setup also checks that both schemas produce the same items, so the static schemas
+     * can't silently drift from the entity annotations.
+     * run with: ./mvnw test-compile exec:java -Dexec.classpathScope=test
+     *   -Dexec.mainClass=com.example.project6.benchmark.TableSchemaBenchmark
+     * */
+
+    @Param({"bean", "static"})
+    public String schema;
+
+    private TableSchema<Task> taskSchema;
+    private TableSchema<AccountTaskLink> accountTaskLinkSchema;
+
+    private Task task;
+    private AccountTaskLink accountTaskLink;
+    private Map<String, AttributeValue> taskItem;
+    private Map<String, AttributeValue> accountTaskLinkItem;
+
+    @Setup
+    public void setup() {
+        TableSchema<Task> beanTaskSchema = TableSchema.fromBean(Task.class);
+        TableSchema<AccountTaskLink> beanAccountTaskLinkSchema = TableSchema.fromBean(AccountTaskLink.class);
+
+        boolean useBeanSchemas = schema.equals("bean");
+        taskSchema = useBeanSchemas ? beanTaskSchema : TableSchemas.TASK;
+        accountTaskLinkSchema = useBeanSchemas ? beanAccountTaskLinkSchema : TableSchemas.ACCOUNT_TASK_LINK;
+
+        task = Task.builder()
+                .withTaskUuid(UUID.randomUUID())
+                .withTitle("prepare the quarterly report")
+                .withDescription("collect the numbers of the last three months and summarize them")
+                .withStatus(TaskStatus.IN_PROGRESS)
+                .withVersion(3L)
+                .build();
+        accountTaskLink = AccountTaskLink.builder()
+                .withAccountUuid(UUID.randomUUID())
+                .withAccountName("employee")
+                .withTaskUuid(task.getTaskUuid())
+                .withTaskTitle(task.getTitle())
+                .withVersion(1L)
+                .build();
+
+        taskItem = beanTaskSchema.itemToMap(task, true);
+        accountTaskLinkItem = beanAccountTaskLinkSchema.itemToMap(accountTaskLink, true);
+
+        // both schemas must map the entities to the same items.
+        if (!taskItem.equals(TableSchemas.TASK.itemToMap(task, true))
+                || !accountTaskLinkItem.equals(TableSchemas.ACCOUNT_TASK_LINK.itemToMap(accountTaskLink, true))) {
+            throw new IllegalStateException("static table schemas don't match the entity annotations");
+        }
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> taskItemToMap() {
+        return taskSchema.itemToMap(task, true);
+    }
+
+    @Benchmark
+    public Task taskMapToItem() {
+        return taskSchema.mapToItem(taskItem);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> accountTaskLinkItemToMap() {
+        return accountTaskLinkSchema.itemToMap(accountTaskLink, true);
+    }
+
+    @Benchmark
+    public AccountTaskLink accountTaskLinkMapToItem() {
+        return accountTaskLinkSchema.mapToItem(accountTaskLinkItem);
+    }
+
+    @State(Scope.Thread)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public static class Startup {
+
+        @Benchmark
+        public Object beanSchemaStartup() {
+            return new Object[]{
+                    TableSchema.fromBean(com.example.project6.entity.Account.class),
+                    TableSchema.fromBean(Task.class),
+                    TableSchema.fromBean(AccountTaskLink.class),
+                    TableSchema.fromBean(com.example.project6.entity.TaskAccountLink.class)
+            };
+        }
+
+        @Benchmark
+        public Object staticSchemaStartup() {
+            // the first access initializes the TableSchemas class, which builds all the schemas.
+            return TableSchemas.ACCOUNT;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TableSchemaBenchmark.class.getSimpleName()).build()).run();
+    }
+}
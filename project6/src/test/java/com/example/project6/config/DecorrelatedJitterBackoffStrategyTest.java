@@ -0,0 +1,70 @@
+package com.example.project6.config;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.retry.RetryPolicyContext;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecorrelatedJitterBackoffStrategyTest {
+
+    private final DecorrelatedJitterBackoffStrategy backoffStrategy =
+            new DecorrelatedJitterBackoffStrategy(Duration.ofMillis(25), Duration.ofSeconds(1));
+
+    @Test
+    void shouldPickADelayBetweenTheBaseDelayAndThreeTimesThePreviousOne() {
+        Set<Long> delays = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            long delay = backoffStrategy.nextDelayMillis(100);
+            assertThat(delay).isBetween(25L, 300L);
+            delays.add(delay);
+        }
+        // jittered, not a fixed delay.
+        assertThat(delays.size()).isGreaterThan(100);
+    }
+
+    @Test
+    void shouldCapTheDelayAtTheMaxDelay() {
+        for (int i = 0; i < 1000; i++) {
+            assertThat(backoffStrategy.nextDelayMillis(800)).isBetween(25L, 1000L);
+            assertThat(backoffStrategy.nextDelayMillis(Long.MAX_VALUE / 4)).isBetween(25L, 1000L);
+        }
+    }
+
+    @Test
+    void shouldStartFromTheBaseDelay() {
+        // a previous delay below the base one (or none) still allows up to three times the base delay.
+        for (int i = 0; i < 1000; i++) {
+            assertThat(backoffStrategy.nextDelayMillis(0)).isBetween(25L, 75L);
+        }
+    }
+
+    @Test
+    void shouldChainTheDelaysOfTheRetriesOfACall() {
+        AtomicInteger retries = new AtomicInteger();
+        DecorrelatedJitterBackoffStrategy strategy = new DecorrelatedJitterBackoffStrategy(
+                Duration.ofMillis(25), Duration.ofSeconds(1), executionAttributes -> retries.incrementAndGet());
+        RetryPolicyContext context = RetryPolicyContext.builder().executionAttributes(new ExecutionAttributes()).build();
+
+        long previousDelay = 25;
+        for (int i = 0; i < 20; i++) {
+            long delay = strategy.computeDelayBeforeNextRetry(context).toMillis();
+            assertThat(delay).isBetween(25L, Math.min(1000L, previousDelay * 3));
+            previousDelay = delay;
+        }
+        assertThat(retries.get()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldKeepTheMaxDelayAtLeastTheBaseDelay() {
+        DecorrelatedJitterBackoffStrategy strategy =
+                new DecorrelatedJitterBackoffStrategy(Duration.ofMillis(500), Duration.ofMillis(100));
+
+        assertThat(strategy.nextDelayMillis(500)).isEqualTo(500L);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.project6.config;
+
+import com.example.project6.Enum.Role;
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.entity.*;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TableSchemasTest {
+    /*
+     * The static schemas must map the entities like the annotations on the entities (TableSchema.fromBean) do,
+     * both ways: to the same items, and back to entities that map to the same items again.
+     * */
+
+    @Test
+    void shouldMapAccountsLikeTheBeanSchema() {
+        Account account = Account
+                .builder()
+                .withAccountUuid(UUID.randomUUID())
+                .withName("name")
+                .withEmail("name@email.com")
+                .withPassword("password")
+                .withRole(Role.ADMIN)
+                .withRoleShard("ADMIN#3")
+                .build();
+
+        assertSameItems(TableSchemas.ACCOUNT, TableSchema.fromBean(Account.class), account);
+    }
+
+    @Test
+    void shouldMapTasksLikeTheBeanSchema() {
+        Task task = buildTask("description");
+        // long enough to be stored compressed.
+        Task taskWithLongDescription = buildTask("a long description ".repeat(100));
+
+        assertSameItems(TableSchemas.TASK, TableSchema.fromBean(Task.class), task);
+        assertSameItems(TableSchemas.TASK, TableSchema.fromBean(Task.class), taskWithLongDescription);
+    }
+
+    @Test
+    void shouldMapAccountTaskLinksLikeTheBeanSchema() {
+        AccountTaskLink accountTaskLink = AccountTaskLink
+                .builder()
+                .withAccountUuid(UUID.randomUUID())
+                .withAccountName("name")
+                .withTaskUuid(UUID.randomUUID())
+                .withTaskTitle("title")
+                .withTaskStatus(TaskStatus.IN_PROGRESS)
+                .withVersion(2L)
+                .build();
+        // saved before the tasks had a status.
+        AccountTaskLink accountTaskLinkWithoutStatus = AccountTaskLink
+                .builder()
+                .withAccountUuid(UUID.randomUUID())
+                .withAccountName("name")
+                .withTaskUuid(UUID.randomUUID())
+                .withTaskTitle("title")
+                .build();
+
+        assertSameItems(TableSchemas.ACCOUNT_TASK_LINK, TableSchema.fromBean(AccountTaskLink.class), accountTaskLink);
+        assertSameItems(TableSchemas.ACCOUNT_TASK_LINK, TableSchema.fromBean(AccountTaskLink.class),
+                accountTaskLinkWithoutStatus);
+    }
+
+    @Test
+    void shouldMapTaskAccountLinksLikeTheBeanSchema() {
+        TaskAccountLink taskAccountLink = TaskAccountLink
+                .builder()
+                .withTaskUuid(UUID.randomUUID())
+                .withTaskTitle("title")
+                .withAccountUuid(UUID.randomUUID())
+                .withAccountName("name")
+                .withVersion(1L)
+                .build();
+
+        assertSameItems(TableSchemas.TASK_ACCOUNT_LINK, TableSchema.fromBean(TaskAccountLink.class), taskAccountLink);
+    }
+
+    @Test
+    void shouldMapAccountTaskStatsLikeTheBeanSchema() {
+        AccountTaskStats accountTaskStats = AccountTaskStats
+                .builder()
+                .withAccountUuid(UUID.randomUUID())
+                .withTaskCount(6L)
+                .withTodoCount(1L)
+                .withInProgressCount(2L)
+                .withDoneCount(3L)
+                .withVersion(4L)
+                .build();
+
+        assertSameItems(TableSchemas.ACCOUNT_TASK_STATS, TableSchema.fromBean(AccountTaskStats.class),
+                accountTaskStats);
+    }
+
+    @Test
+    void shouldMapCommentsLikeTheBeanSchema() {
+        UUID accountUuid = UUID.randomUUID();
+        UUID commentUuid = UUID.randomUUID();
+        Comment comment = Comment
+                .builder()
+                .withPk(accountUuid.toString())
+                .withSk(commentUuid.toString())
+                .withUuid(commentUuid)
+                .withBody("body")
+                .withCreatorAccountUuid(accountUuid)
+                .build();
+
+        assertSameItems(TableSchemas.COMMENT, TableSchema.fromBean(Comment.class), comment);
+    }
+
+    private static <T> void assertSameItems(TableSchema<T> staticSchema, TableSchema<T> beanSchema, T entity) {
+        Map<String, AttributeValue> item = beanSchema.itemToMap(entity, true);
+
+        assertThat(staticSchema.itemToMap(entity, true)).isEqualTo(item);
+        // the entities read by each schema map to the same item again.
+        assertThat(beanSchema.itemToMap(staticSchema.mapToItem(item), true)).isEqualTo(item);
+        assertThat(staticSchema.itemToMap(beanSchema.mapToItem(item), true)).isEqualTo(item);
+    }
+
+    private static Task buildTask(String description) {
+        return Task
+                .builder()
+                .withTaskUuid(UUID.randomUUID())
+                .withTitle("title")
+                .withDescription(description)
+                .withStatus(TaskStatus.TODO)
+                .withVersion(3L)
+                .build();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.project6.controller;
+
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.Service.AccountService;
+import com.example.project6.Service.AccountTasksService;
+import com.example.project6.Service.TaskAccountsService;
+import com.example.project6.Service.TaskService;
+import com.example.project6.Util;
+import com.example.project6.entity.Account;
+import com.example.project6.entity.Task;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// to make sure that spring boot doesn't override the configuration and creates h2 database or any other in memory
+// database.
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class AccountTasksControllerTest {
+
+    // hold the port on which the app will be listening.
+    @LocalServerPort
+    private Integer port;
+
+    // dependencies
+    private final DynamoDbClient dynamoDbClient;
+    private final AccountService accountService;
+    private final TaskService taskService;
+    private final AccountTasksService accountTasksService;
+    private final TaskAccountsService taskAccountsService;
+    private final Util util;
+
+    // holds sample data we will use in our tests.
+    private List<Account> sampleAccounts;
+    private List<Task> sharedTasks;
+
+    // endpoint for account tasks controller.
+    static final String API_URL = "/api/account/tasks";
+
+    // container in which holds dynamoDB.
+    private static LocalStackContainer localStack = new LocalStackContainer(DockerImageName.parse("localstack" +
+            "/localstack:3.2"))
+            .withServices(LocalStackContainer.Service.DYNAMODB);
+
+    // constructor
+    @Autowired
+    public AccountTasksControllerTest(DynamoDbClient dynamoDbClient,
+                                      AccountService accountService, TaskService taskService,
+                                      AccountTasksService accountTasksService,
+                                      TaskAccountsService taskAccountsService, Util util) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.accountService = accountService;
+        this.taskService = taskService;
+        this.accountTasksService = accountTasksService;
+        this.taskAccountsService = taskAccountsService;
+        this.util = util;
+    }
+
+    @BeforeAll
+    static void beforeAll() {
+        // starts local stack container.
+        localStack.start();
+
+        // extract the random port number on which dynamodb listens.
+        System.setProperty("amazon.dynamodb.endpoint",
+                localStack.getEndpointOverride(LocalStackContainer.Service.DYNAMODB).toString());
+    }
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost:" + port;
+        dynamoDbClient.createTable(util.buildCreateTableRequest());
+
+        // returns a list of 4 account first 2 accounts are admins, last 2 account are employees
+        sampleAccounts = Util.buildAccounts();
+        sampleAccounts.forEach(accountService::save);
+
+        // 5 tasks shared with admin1, more than a page of the tests.
+        sharedTasks = IntStream.range(0, 5)
+                .mapToObj(i -> Task.builder()
+                        .withTitle("task " + i)
+                        .withDescription("description " + i)
+                        .withStatus(TaskStatus.TODO)
+                        .build())
+                .toList();
+        sharedTasks.forEach(taskService::save);
+        sharedTasks.forEach(task -> {
+            accountTasksService.save(Util.buildAccountTaskLinkWith(sampleAccounts.get(0), task));
+            taskAccountsService.save(Util.buildTaskAccountLinkWith(sampleAccounts.get(0), task));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        dynamoDbClient.deleteTable(DeleteTableRequest.builder().tableName("app").build());
+    }
+
+    @Test
+    void shouldGetMyTasksPageByPage() {
+        /*
+         * Verifies that:
+         *   - the tasks of the authenticated account can be fetched one page at a time using "limit" and "nextToken".
+         *   - every page but the last one returns the token of the next page in the "X-Next-Token" header.
+         *   - all the pages together contain every shared task, once.
+         * */
+
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+
+        List<UUID> taskUuids = new ArrayList<>();
+        String nextToken = null;
+        int pages = 0;
+        do {
+            RequestSpecification request = given()
+                    .header("Authorization", "Bearer " + accessToken)
+                    .queryParam("limit", 2);
+            if (nextToken != null) {
+                request.queryParam("nextToken", nextToken);
+            }
+            Response page = request.when().get(API_URL);
+            page.then().statusCode(HttpStatus.OK.value());
+
+            List<String> pageTaskUuids = page.jsonPath().getList("taskUuid", String.class);
+            assertThat(pageTaskUuids).hasSizeLessThanOrEqualTo(2);
+            pageTaskUuids.forEach(taskUuid -> taskUuids.add(UUID.fromString(taskUuid)));
+
+            nextToken = page.getHeader("X-Next-Token");
+            pages++;
+        } while (nextToken != null && pages <= sharedTasks.size());
+
+        // the traversal ended because the last page has no token.
+        assertThat(nextToken).isNull();
+        assertThat(pages).isGreaterThanOrEqualTo(3);
+        assertThat(taskUuids).containsExactlyInAnyOrderElementsOf(
+                sharedTasks.stream().map(Task::getTaskUuid).toList()
+        );
+    }
+
+    @Test
+    void shouldStreamMyTasks() {
+        /*
+         * Verifies that:
+         *   - "stream=true" returns the tasks of the authenticated account as NDJSON, one link per line,
+         *       even though they are read from the database in several pages.
+         *   - response status code is 200 OK.
+         * */
+
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+
+        Response response = given()
+                .header("Authorization", "Bearer " + accessToken)
+                .queryParam("stream", true)
+                .queryParam("limit", 2)
+                .when()
+                .get(API_URL);
+
+        response.then()
+                .statusCode(HttpStatus.OK.value())
+                .contentType("application/x-ndjson");
+
+        List<String> lines = response.getBody().asString().lines().filter(line -> !line.isBlank()).toList();
+        assertThat(lines).hasSize(sharedTasks.size());
+        sharedTasks.forEach(task -> assertThat(lines).anyMatch(line -> line.contains(task.getTaskUuid().toString())));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.project6.controller;
 
+import com.example.project6.Enum.TaskStatus;
 import com.example.project6.Service.AccountService;
 import com.example.project6.Service.AccountTasksService;
 import com.example.project6.Service.TaskAccountsService;
@@ -33,6 +34,7 @@ import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -271,6 +273,66 @@ class TaskAccountsControllerTest {
         assertThat(error).isEqualTo(expectedError);
     }
 
+    @Test
+    void shouldGetTaskAccountsPageByPage(){
+        /*
+        * Verifies that:
+        *   - task accounts can be fetched one page at a time using "limit" and "nextToken".
+        *   - the token of the next page is returned in the "X-Next-Token" header.
+        *   - all the pages together contain all the task accounts.
+        * */
+
+        // get admin account.
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+
+        // note that this task  is shared with sampleAccounts.get(0) and sampleAccounts.get(2).
+        Task task = sampleTasks.get(0);
+
+        // fetch the first page.
+        Response firstPage = given()
+                .header("Authorization", "Bearer " + accessToken)
+                .queryParam("limit", 1)
+                .when()
+                .get(String.format("%s/%s/accounts", API_URL, task.getTaskUuid()));
+        firstPage.then().statusCode(HttpStatus.OK.value());
+        String nextToken = firstPage.getHeader("X-Next-Token");
+        assertThat(nextToken).isNotEmpty();
+
+        // fetch the second page.
+        Response secondPage = given()
+                .header("Authorization", "Bearer " + accessToken)
+                .queryParam("limit", 1)
+                .queryParam("nextToken", nextToken)
+                .when()
+                .get(String.format("%s/%s/accounts", API_URL, task.getTaskUuid()));
+        secondPage.then().statusCode(HttpStatus.OK.value());
+
+        List<TaskAccountDto> taskAccountDtos = new ArrayList<>();
+        taskAccountDtos.addAll(firstPage.jsonPath().getList("", TaskAccountDto.class));
+        taskAccountDtos.addAll(secondPage.jsonPath().getList("", TaskAccountDto.class));
+
+        assertThat(taskAccountDtos)
+                .extracting(TaskAccountDto::accountUuid)
+                .containsExactlyInAnyOrder(sampleAccounts.get(0).getAccountUuid(), sampleAccounts.get(2).getAccountUuid());
+    }
+
+    @Test
+    void shouldNotGetTaskAccountsWithInvalidToken(){
+        // verifies that a malformed pagination token is rejected with 400 BAD_REQUEST.
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+        Task task = sampleTasks.get(0);
+
+        given()
+                .header("Authorization", "Bearer " + accessToken)
+                .queryParam("nextToken", "randomString")
+                .when()
+                .get(String.format("%s/%s/accounts", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.BAD_REQUEST.value());
+    }
+
     /*
     * Share task with account tests.
     * */
@@ -280,6 +342,7 @@ class TaskAccountsControllerTest {
         * It verifies that:
         *   - admin can share a task with other accounts.
         *   - checks that response status code is 200 OK.
+        *   - checks that the created link is returned.
         * */
 
         // get sample account.
@@ -291,14 +354,84 @@ class TaskAccountsControllerTest {
         // authenticate with admin account.
         String accessToken =  util.attemptAuthenticationWith(admin);
 
-        given()
+        Map<String, Object> link = given()
                 .contentType(ContentType.JSON)
                 .header("Authorization", "Bearer " + accessToken)
                 .when()
                 .post(String.format("%s/%s/accounts/%s", API_URL, task.getTaskUuid(), admin.getAccountUuid()))
                 .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract()
+                .as(Map.class);
+
+        // the returned link is the one that was written, without reading it back.
+        assertThat(link.get("taskUuid")).isEqualTo(task.getTaskUuid().toString());
+        assertThat(link.get("accountUuid")).isEqualTo(admin.getAccountUuid().toString());
+        assertThat(link.get("taskTitle")).isEqualTo(task.getTitle());
+        assertThat(link.get("accountName")).isEqualTo(admin.getName());
+    }
+
+    @Test
+    void shouldUpdateAndDeleteTaskSharedThroughTheApi(){
+        /*
+        * It verifies that:
+        *   - the account with whom a task was shared through the api can update its title and status.
+        *   - admin can then delete the task.
+        *   - none of these writes are rejected with 409 CONFLICT by the version checks of the shared links.
+        * */
+
+        // get admin account.
+        Account admin = sampleAccounts.get(0);
+
+        // get employee with whom the task isn't shared yet.
+        Account employee = sampleAccounts.get(3);
+
+        // get sample task.
+        Task task = sampleTasks.get(0);
+
+        String adminAccessToken = util.attemptAuthenticationWith(admin);
+        String employeeAccessToken = util.attemptAuthenticationWith(employee);
+
+        // share the task with the employee.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .when()
+                .post(String.format("%s/%s/accounts/%s", API_URL, task.getTaskUuid(), employee.getAccountUuid()))
+                .then()
                 .statusCode(HttpStatus.OK.value());
 
-    }
+        // update the task title as the employee.
+        Map<String, String> titleRequestBody = new HashMap<>();
+        titleRequestBody.put("title", "new title");
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + employeeAccessToken)
+                .body(titleRequestBody)
+                .when()
+                .patch(String.format("%s/%s/title", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value());
 
-}
\ No newline at end of file
+        // update the task status as the employee.
+        Map<String, String> statusRequestBody = new HashMap<>();
+        statusRequestBody.put("status", TaskStatus.DONE.toString());
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + employeeAccessToken)
+                .body(statusRequestBody)
+                .when()
+                .patch(String.format("%s/%s/status", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        // delete the task as the admin.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .when()
+                .delete(String.format("%s/%s", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value());
+    }
+}
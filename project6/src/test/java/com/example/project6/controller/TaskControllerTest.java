@@ -41,6 +41,7 @@ import static io.restassured.RestAssured.given;
 
 import static io.restassured.RestAssured.request;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
 
 @Testcontainers
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -208,6 +209,51 @@ class TaskControllerTest {
                 .isEqualTo(expectedTaskDto);
     }
 
+    @Test
+    void shouldReadNewTaskRightAfterCreatingIt() {
+        /*
+         * checks that a created task is returned with ETag "1" (its first version),
+         * and that it can be read, and updated with that ETag, right after it was created.
+         * */
+
+        // get admin account.
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+
+        // create the task.
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .body(Map.of("title", "new task", "description", "new task description", "status", TaskStatus.TODO))
+                .when()
+                .post(API_URL);
+        response.then()
+                .statusCode(HttpStatus.CREATED.value())
+                .header("ETag", "\"1\"");
+        UUID taskUuid = response.getBody().as(TaskDto.class).taskUuid();
+
+        // the task can be read right away.
+        given()
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .get(String.format("%s/%s", API_URL, taskUuid))
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", "\"1\"");
+
+        // the ETag of the created task is the current one.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("If-Match", "\"1\"")
+                .when()
+                .body(Map.of("description", "updated description"))
+                .patch(String.format("%s/%s/description", API_URL, taskUuid))
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", "\"2\"");
+    }
+
     @ParameterizedTest
     @MethodSource("provideInvalidTasksAndErrorMessages")
     void shouldNotCreateTaskWithInValidData(Map<String, Object> requestBody, Map<String, String> expectedErrors) {
@@ -469,6 +515,96 @@ class TaskControllerTest {
 
     }
 
+    @Test
+    void shouldUpdateTitleOfWidelySharedTask() {
+        /*
+         * verifies that a task shared with more accounts than a single transaction can hold,
+         * can still have its title updated, and that the new title is propagated to all of its links.
+         * */
+
+        // get admin account.
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+
+        // share the task with 60 more accounts (2 links per account, way above the 100 items transaction limit).
+        Task task = sampleTasks.get(0);
+        for (int i = 0; i < 60; i++) {
+            Account account = Account.builder().withAccountUuid(UUID.randomUUID()).withName("account" + i).build();
+            accountTasksService.save(Util.buildAccountTaskLinkWith(account, task));
+            taskAccountsService.save(Util.buildTaskAccountLinkWith(account, task));
+        }
+
+        // send the request.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .body(Map.of("title", "updated title"))
+                .patch(String.format("%s/%s/title", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        // check that all the links have the new title.
+        List<TaskAccountLink> taskAccountLinks = taskAccountsService.getTaskAccounts(task.getTaskUuid());
+        assertThat(taskAccountLinks).hasSize(62);
+        taskAccountLinks.forEach(taskAccountLink -> {
+            assertThat(taskAccountLink.getTaskTitle()).isEqualTo("updated title");
+            assertThat(accountTasksService
+                    .getByAccountUuidAndTaskUuid(taskAccountLink.getAccountUuid(), task.getTaskUuid())
+                    .getTaskTitle()
+            ).isEqualTo("updated title");
+        });
+    }
+
+    @Test
+    void shouldNotUpdateTaskTitleWithStaleETag() {
+        /*
+         * checks that an update conditioned on an outdated ETag ("If-Match" header) is rejected
+         * with response status code 412 PRECONDITION FAILED, while the current ETag is accepted.
+         * */
+
+        // get admin account.
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+        Task task = sampleTasks.get(0);
+
+        // read the task to get its current ETag.
+        String eTag = given()
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .get(String.format("%s/%s", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract()
+                .header("ETag");
+
+        // the first conditional update succeeds, and changes the ETag.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("If-Match", eTag)
+                .when()
+                .body(Map.of("title", "first title"))
+                .patch(String.format("%s/%s/title", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", not(eTag));
+
+        // a second update based on the same (now stale) ETag is rejected.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("If-Match", eTag)
+                .when()
+                .body(Map.of("title", "second title"))
+                .patch(String.format("%s/%s/title", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.PRECONDITION_FAILED.value());
+
+        // the task keeps the title of the first update.
+        assertThat(taskService.getTaskByUuid(task.getTaskUuid()).getTitle()).isEqualTo("first title");
+    }
+
     /*
      * Update task description by uuid tests.
      * */
@@ -564,6 +700,79 @@ class TaskControllerTest {
 
     }
 
+    @Test
+    void shouldNotUpdateTaskDescriptionWithStaleETag() {
+        /*
+         * checks that a description update conditioned on an outdated ETag ("If-Match" header) is rejected
+         * with response status code 412 PRECONDITION FAILED, and doesn't change the task.
+         * */
+
+        // get admin account.
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+        Task task = sampleTasks.get(0);
+
+        // read the task to get its current ETag.
+        String eTag = given()
+                .header("Authorization", "Bearer " + accessToken)
+                .when()
+                .get(String.format("%s/%s", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract()
+                .header("ETag");
+
+        // the first conditional update succeeds, and changes the ETag.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("If-Match", eTag)
+                .when()
+                .body(Map.of("description", "first description"))
+                .patch(String.format("%s/%s/description", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .header("ETag", not(eTag));
+
+        // a second update based on the same (now stale) ETag is rejected.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .header("If-Match", eTag)
+                .when()
+                .body(Map.of("description", "second description"))
+                .patch(String.format("%s/%s/description", API_URL, task.getTaskUuid()))
+                .then()
+                .statusCode(HttpStatus.PRECONDITION_FAILED.value());
+
+        // the task keeps the description of the first update.
+        assertThat(taskService.getTaskByUuid(task.getTaskUuid(), true).getDescription()).isEqualTo("first description");
+    }
+
+    @Test
+    void shouldNotUpdateDescriptionOfMissingTask() {
+        /*
+         * checks that updating the description of a task that doesn't exist responds 404 NOT_FOUND,
+         * instead of creating the task (the update is a single UpdateItem, without a read before it).
+         * */
+
+        // get admin account.
+        Account admin = sampleAccounts.get(0);
+        String accessToken = util.attemptAuthenticationWith(admin);
+        UUID taskUuid = UUID.randomUUID();
+
+        Response response = given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + accessToken)
+                .body(Map.of("description", "new description"))
+                .when()
+                .patch(String.format("%s/%s/description", API_URL, taskUuid));
+
+        response.then().statusCode(HttpStatus.NOT_FOUND.value());
+        Map<String, String> responseBody = response.getBody().as(Map.class);
+        assertThat(responseBody.get("error")).contains("There is no task with uuid");
+    }
+
     /*
      * Update task status by uuid
      * */
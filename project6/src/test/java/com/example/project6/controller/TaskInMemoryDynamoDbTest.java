@@ -0,0 +1,156 @@
+package com.example.project6.controller;
+
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.Service.AccountService;
+import com.example.project6.Util;
+import com.example.project6.dao.InMemoryDynamoDbConfig;
+import com.example.project6.dto.TaskDto;
+import com.example.project6.entity.Account;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// to make sure that spring boot doesn't override the configuration and creates h2 database or any other in memory
+// database.
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(InMemoryDynamoDbConfig.class)
+class TaskInMemoryDynamoDbTest {
+    /*
+     * Runs the whole life of a task through the api against the in-memory DynamoDB client,
+     * so it runs without LocalStack (no Docker needed).
+     * */
+
+    @LocalServerPort
+    private Integer port;
+    private final DynamoDbClient dynamoDbClient;
+    private final AccountService accountService;
+    private final Util util;
+    private List<Account> sampleAccounts;
+
+    static final String API_URL = "/api/task";
+
+    @Autowired
+    TaskInMemoryDynamoDbTest(DynamoDbClient dynamoDbClient, AccountService accountService, Util util) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.accountService = accountService;
+        this.util = util;
+    }
+
+    @BeforeEach
+    void setUp() {
+        RestAssured.baseURI = "http://localhost:" + port;
+        dynamoDbClient.createTable(util.buildCreateTableRequest());
+
+        // returns a list of 4 account first 2 accounts are admins, last 2 account are employees
+        sampleAccounts = Util.buildAccounts();
+        sampleAccounts.forEach(accountService::save);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dynamoDbClient.deleteTable(DeleteTableRequest.builder().tableName("app").build());
+    }
+
+    @Test
+    void shouldCreateShareUpdateAndDeleteTask() {
+        /*
+         * verifies that:
+         *   - admin can create a task, and share it with an employee.
+         *   - the employee can read it, and update its title and status.
+         *   - admin can delete it, then it can't be read anymore.
+         * */
+
+        Account admin = sampleAccounts.get(0);
+        Account employee = sampleAccounts.get(2);
+        String adminAccessToken = util.attemptAuthenticationWith(admin);
+        String employeeAccessToken = util.attemptAuthenticationWith(employee);
+
+        // create the task.
+        UUID taskUuid = given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .body(Map.of("title", "new task", "description", "new task description", "status", TaskStatus.TODO))
+                .when()
+                .post(API_URL)
+                .then()
+                .statusCode(HttpStatus.CREATED.value())
+                .extract()
+                .as(TaskDto.class)
+                .taskUuid();
+
+        // share it with the employee.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .when()
+                .post(String.format("%s/%s/accounts/%s", API_URL, taskUuid, employee.getAccountUuid()))
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        // update its title and status as the employee.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + employeeAccessToken)
+                .body(Map.of("title", "updated title"))
+                .when()
+                .patch(String.format("%s/%s/title", API_URL, taskUuid))
+                .then()
+                .statusCode(HttpStatus.OK.value());
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + employeeAccessToken)
+                .body(Map.of("status", TaskStatus.DONE))
+                .when()
+                .patch(String.format("%s/%s/status", API_URL, taskUuid))
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        // the employee reads the updated task.
+        TaskDto taskDto = given()
+                .header("Authorization", "Bearer " + employeeAccessToken)
+                .when()
+                .get(String.format("%s/%s", API_URL, taskUuid))
+                .then()
+                .statusCode(HttpStatus.OK.value())
+                .extract()
+                .as(TaskDto.class);
+        assertThat(taskDto.title()).isEqualTo("updated title");
+        assertThat(taskDto.taskStatus()).isEqualTo(TaskStatus.DONE);
+
+        // delete it as the admin.
+        given()
+                .contentType(ContentType.JSON)
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .when()
+                .delete(String.format("%s/%s", API_URL, taskUuid))
+                .then()
+                .statusCode(HttpStatus.OK.value());
+
+        given()
+                .header("Authorization", "Bearer " + adminAccessToken)
+                .when()
+                .get(String.format("%s/%s", API_URL, taskUuid))
+                .then()
+                .statusCode(HttpStatus.NOT_FOUND.value());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.project6.dao;
+
+import com.example.project6.Util;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.entity.AccountTaskLink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountTasksRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private final UUID accountUuid = UUID.randomUUID();
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private AccountTasksRepository accountTasksRepository;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        dynamoDbClient.createTable(new Util().buildCreateTableRequest());
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+        accountTasksRepository = new AccountTasksRepository(dynamoDbClient,
+                enhancedClient.table("app", TableSchemas.ACCOUNT_TASK_LINK),
+                new BatchGetItemLoader(dynamoDbClient, 1));
+    }
+
+    @Test
+    void shouldListTheTasksNewestFirst() {
+        UUID oldest = saveTaskCreatedAt(NOW.minusSeconds(120));
+        UUID newest = saveTaskCreatedAt(NOW);
+        UUID middle = saveTaskCreatedAt(NOW.minusSeconds(60));
+
+        assertThat(taskUuids(accountTasksRepository.getAccountTasksPageNewestFirst(accountUuid, null, null, 10, null)))
+                .containsExactly(newest, middle, oldest);
+    }
+
+    @Test
+    void shouldOnlyListTheTasksCreatedInTheRange() {
+        // since is included, before is excluded.
+        saveTaskCreatedAt(NOW.minusSeconds(61));
+        UUID since = saveTaskCreatedAt(NOW.minusSeconds(60));
+        UUID inRange = saveTaskCreatedAt(NOW.minusSeconds(1));
+        saveTaskCreatedAt(NOW);
+
+        QueryPage<AccountTaskLink> page = accountTasksRepository
+                .getAccountTasksPageNewestFirst(accountUuid, NOW.minusSeconds(60), NOW, 10, null);
+
+        assertThat(taskUuids(page)).containsExactly(inRange, since);
+    }
+
+    @Test
+    void shouldClampTheBoundsOutOfTheSortKeyRange() {
+        UUID taskUuid = saveTaskCreatedAt(NOW);
+
+        QueryPage<AccountTaskLink> page = accountTasksRepository.getAccountTasksPageNewestFirst(accountUuid,
+                Instant.parse("1900-01-01T00:00:00Z"), Instant.parse("+400000-01-01T00:00:00Z"), 10, null);
+
+        assertThat(taskUuids(page)).containsExactly(taskUuid);
+    }
+
+    @Test
+    void shouldListTheTasksWithRandomUuidsAsTheOldest() {
+        // the tasks created before task uuids were time ordered.
+        UUID randomUuid = UUID.randomUUID();
+        accountTasksRepository.save(buildLink(randomUuid));
+        UUID timeOrderedUuid = saveTaskCreatedAt(NOW);
+
+        assertThat(taskUuids(accountTasksRepository.getAccountTasksPageNewestFirst(accountUuid, null, null, 10, null)))
+                .containsExactly(timeOrderedUuid, randomUuid);
+        assertThat(taskUuids(accountTasksRepository
+                .getAccountTasksPageNewestFirst(accountUuid, Instant.EPOCH.plusMillis(1), null, 10, null)))
+                .containsExactly(timeOrderedUuid);
+    }
+
+    @Test
+    void shouldPageThroughTheTasksNewestFirst() {
+        List<UUID> newestFirst = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            newestFirst.add(0, saveTaskCreatedAt(NOW.plusSeconds(i)));
+        }
+
+        List<UUID> listed = new ArrayList<>();
+        QueryPage<AccountTaskLink> page = accountTasksRepository
+                .getAccountTasksPageNewestFirst(accountUuid, null, null, 2, null);
+        listed.addAll(taskUuids(page));
+        while (page.hasNextPage()) {
+            page = accountTasksRepository
+                    .getAccountTasksPageNewestFirst(accountUuid, null, null, 2, page.lastEvaluatedKey());
+            listed.addAll(taskUuids(page));
+        }
+
+        assertThat(listed).isEqualTo(newestFirst);
+    }
+
+    @Test
+    void shouldUpdateALinkWithoutAStatus() {
+        // the links saved before the tasks had a status, the index key status_pk must be left out, not stored as NUL.
+        UUID taskUuid = saveTaskCreatedAt(NOW);
+        AccountTaskLink accountTaskLink = accountTasksRepository.load(buildLink(taskUuid), true).orElseThrow();
+        accountTaskLink.setTaskTitle("new title");
+
+        dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                .transactItems(accountTasksRepository.generateVersionedPutTransactWriteItem(accountTaskLink))
+                .build());
+
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName("app")
+                .key(Map.of(
+                        "pk", AttributeValue.builder().s(accountTaskLink.getPk()).build(),
+                        "sk", AttributeValue.builder().s(accountTaskLink.getSk()).build()
+                ))
+                .build()).item();
+        assertThat(item).doesNotContainKey("status_pk");
+        assertThat(item.get("task_title").s()).isEqualTo("new title");
+        assertThat(item.get("version").n()).isEqualTo("1");
+    }
+
+    private UUID saveTaskCreatedAt(Instant createdAt) {
+        // a version 7 uuid of the given creation time, like TimeOrderedUuid.generate().
+        UUID taskUuid = new UUID((createdAt.toEpochMilli() << 16) | 0x7000L,
+                0x8000000000000000L | (UUID.randomUUID().getLeastSignificantBits() & 0x3FFFFFFFFFFFFFFFL));
+        accountTasksRepository.save(buildLink(taskUuid));
+        return taskUuid;
+    }
+
+    private AccountTaskLink buildLink(UUID taskUuid) {
+        return AccountTaskLink
+                .builder()
+                .withAccountUuid(accountUuid)
+                .withAccountName("name")
+                .withTaskUuid(taskUuid)
+                .withTaskTitle("title")
+                .build();
+    }
+
+    private static List<UUID> taskUuids(QueryPage<AccountTaskLink> page) {
+        return page.items().stream().map(AccountTaskLink::getTaskUuid).toList();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.project6.dao;
+
+import com.example.project6.Util;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.entity.AccountTaskLink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncAccountTasksRepositoryTest {
+
+    // small pages, so reading a partition takes several queries.
+    private static final int PAGE_SIZE = 2;
+
+    private final UUID accountUuid = UUID.randomUUID();
+    private int queries;
+
+    private DynamoDbTable<AccountTaskLink> accountTaskLinkTable;
+    private AsyncAccountTasksRepository asyncAccountTasksRepository;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient() {
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                queries++;
+                return super.query(request.toBuilder().limit(PAGE_SIZE).build());
+            }
+        };
+        dynamoDbClient.createTable(new Util().buildCreateTableRequest());
+        accountTaskLinkTable = DynamoDbEnhancedClient
+                .builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build()
+                .table("app", TableSchemas.ACCOUNT_TASK_LINK);
+        asyncAccountTasksRepository = new AsyncAccountTasksRepository(DynamoDbEnhancedAsyncClient
+                .builder()
+                .dynamoDbClient(new InMemoryDynamoDbAsyncClient(dynamoDbClient))
+                .build()
+                .table("app", TableSchemas.ACCOUNT_TASK_LINK));
+    }
+
+    @Test
+    void shouldReadEveryPageOfTheAccountTasks() throws Exception {
+        List<UUID> taskUuids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            taskUuids.add(UUID.randomUUID());
+            accountTaskLinkTable.putItem(buildLink(accountUuid, taskUuids.get(i)));
+        }
+        // the links of another account aren't returned.
+        accountTaskLinkTable.putItem(buildLink(UUID.randomUUID(), taskUuids.get(0)));
+
+        List<AccountTaskLink> accountTaskLinks = asyncAccountTasksRepository.getAccountTasks(accountUuid)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(accountTaskLinks.stream().map(AccountTaskLink::getTaskUuid).toList())
+                .containsExactlyInAnyOrderElementsOf(taskUuids);
+        assertThat(queries).isEqualTo(3);
+    }
+
+    @Test
+    void shouldLoadLinksIndependently() throws Exception {
+        // the service starts both reads before waiting for either of them.
+        UUID taskUuid = UUID.randomUUID();
+        accountTaskLinkTable.putItem(buildLink(accountUuid, taskUuid));
+
+        CompletableFuture<Optional<AccountTaskLink>> sharedLink =
+                asyncAccountTasksRepository.load(buildLink(accountUuid, taskUuid));
+        CompletableFuture<Optional<AccountTaskLink>> missingLink =
+                asyncAccountTasksRepository.load(buildLink(accountUuid, UUID.randomUUID()), true);
+        CompletableFuture.allOf(sharedLink, missingLink).get(5, TimeUnit.SECONDS);
+
+        assertThat(sharedLink.join()).hasValueSatisfying(link -> assertThat(link.getTaskTitle()).isEqualTo("title"));
+        assertThat(missingLink.join()).isEmpty();
+    }
+
+    private static AccountTaskLink buildLink(UUID accountUuid, UUID taskUuid) {
+        return AccountTaskLink
+                .builder()
+                .withAccountUuid(accountUuid)
+                .withAccountName("name")
+                .withTaskUuid(taskUuid)
+                .withTaskTitle("title")
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.project6.dao;
+
+import com.example.project6.Util;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.entity.TaskAccountLink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncTaskAccountsRepositoryTest {
+
+    // small pages, so reading a partition takes several queries.
+    private static final int PAGE_SIZE = 2;
+
+    private final List<GetItemRequest> getItemRequests = new ArrayList<>();
+    private final List<QueryRequest> queryRequests = new ArrayList<>();
+    private final UUID taskUuid = UUID.randomUUID();
+
+    private DynamoDbTable<TaskAccountLink> taskAccountLinkTable;
+    private AsyncTaskAccountsRepository asyncTaskAccountsRepository;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient() {
+            @Override
+            public GetItemResponse getItem(GetItemRequest request) {
+                getItemRequests.add(request);
+                return super.getItem(request);
+            }
+
+            @Override
+            public QueryResponse query(QueryRequest request) {
+                queryRequests.add(request);
+                return super.query(request.toBuilder().limit(PAGE_SIZE).build());
+            }
+        };
+        dynamoDbClient.createTable(new Util().buildCreateTableRequest());
+        taskAccountLinkTable = DynamoDbEnhancedClient
+                .builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build()
+                .table("app", TableSchemas.TASK_ACCOUNT_LINK);
+        asyncTaskAccountsRepository = new AsyncTaskAccountsRepository(DynamoDbEnhancedAsyncClient
+                .builder()
+                .dynamoDbClient(new InMemoryDynamoDbAsyncClient(dynamoDbClient))
+                .build()
+                .table("app", TableSchemas.TASK_ACCOUNT_LINK));
+    }
+
+    @Test
+    void shouldLoadALink() throws Exception {
+        TaskAccountLink taskAccountLink = buildLink(taskUuid, UUID.randomUUID());
+        taskAccountLinkTable.putItem(taskAccountLink);
+
+        assertThat(asyncTaskAccountsRepository.load(taskAccountLink).get(5, TimeUnit.SECONDS))
+                .hasValueSatisfying(link -> assertThat(link.getAccountName()).isEqualTo("name"));
+        assertThat(asyncTaskAccountsRepository.load(taskAccountLink, true).get(5, TimeUnit.SECONDS)).isPresent();
+
+        assertThat(getItemRequests.get(0).consistentRead()).isFalse();
+        assertThat(getItemRequests.get(1).consistentRead()).isTrue();
+    }
+
+    @Test
+    void shouldCompleteWithEmptyForAMissingLink() throws Exception {
+        assertThat(asyncTaskAccountsRepository.load(buildLink(taskUuid, UUID.randomUUID())).get(5, TimeUnit.SECONDS))
+                .isEmpty();
+    }
+
+    @Test
+    void shouldReadEveryPageOfTheTaskAccounts() throws Exception {
+        List<UUID> accountUuids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accountUuids.add(UUID.randomUUID());
+            taskAccountLinkTable.putItem(buildLink(taskUuid, accountUuids.get(i)));
+        }
+        // the links of another task aren't returned.
+        taskAccountLinkTable.putItem(buildLink(UUID.randomUUID(), accountUuids.get(0)));
+
+        List<TaskAccountLink> taskAccountLinks = asyncTaskAccountsRepository.getTaskAccounts(taskUuid, true)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(taskAccountLinks.stream().map(TaskAccountLink::getAccountUuid).toList())
+                .containsExactlyInAnyOrderElementsOf(accountUuids);
+        assertThat(queryRequests).hasSize(3);
+        assertThat(queryRequests.get(0).consistentRead()).isTrue();
+    }
+
+    @Test
+    void shouldCompleteWithAnEmptyListForATaskWithoutAccounts() throws Exception {
+        assertThat(asyncTaskAccountsRepository.getTaskAccounts(taskUuid).get(5, TimeUnit.SECONDS)).isEmpty();
+    }
+
+    private static TaskAccountLink buildLink(UUID taskUuid, UUID accountUuid) {
+        return TaskAccountLink
+                .builder()
+                .withTaskUuid(taskUuid)
+                .withTaskTitle("title")
+                .withAccountUuid(accountUuid)
+                .withAccountName("name")
+                .build();
+    }
+}
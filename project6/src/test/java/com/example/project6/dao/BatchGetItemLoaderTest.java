@@ -0,0 +1,141 @@
+package com.example.project6.dao;
+
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.Util;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.entity.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchGetItemLoaderTest {
+
+    private UnprocessedKeysDynamoDbClient dynamoDbClient;
+    private BatchGetItemLoader batchGetItemLoader;
+    private DynamoDbTable<Task> taskTable;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new UnprocessedKeysDynamoDbClient();
+        dynamoDbClient.createTable(new Util().buildCreateTableRequest());
+        batchGetItemLoader = new BatchGetItemLoader(dynamoDbClient, 2);
+        taskTable = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build()
+                .table("app", TableSchemas.TASK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchGetItemLoader.shutdown();
+    }
+
+    @Test
+    void shouldRetryTheUnprocessedKeysUntilAllItemsAreLoaded() {
+        // 250 tasks: 3 chunks, the first 6 calls answer 40 keys only.
+        List<Task> tasks = saveTasks(250);
+        dynamoDbClient.partialCalls.set(6);
+        dynamoDbClient.keysPerPartialCall = 40;
+
+        List<Task> loadedTasks = batchGetItemLoader.loadAll(taskTable, keysOf(tasks));
+
+        assertThat(loadedTasks)
+                .extracting(Task::getTaskUuid)
+                .containsExactlyElementsOf(tasks.stream().map(Task::getTaskUuid).toList());
+        assertThat(dynamoDbClient.calls.get()).isGreaterThan(3);
+    }
+
+    @Test
+    void shouldFailWhenKeysStayUnprocessed() {
+        List<Task> tasks = saveTasks(10);
+        dynamoDbClient.partialCalls.set(Integer.MAX_VALUE);
+        dynamoDbClient.keysPerPartialCall = 0;
+
+        assertThatThrownBy(() -> batchGetItemLoader.loadAll(taskTable, keysOf(tasks)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("after 8 attempts");
+    }
+
+    @Test
+    void shouldSkipMissingItemsAndRequestDuplicatedKeysOnce() {
+        List<Task> tasks = saveTasks(3);
+        Task missingTask = buildTask();
+        List<Task> keyItems = List.of(tasks.get(2), missingTask, tasks.get(0), tasks.get(2));
+
+        List<Task> loadedTasks = batchGetItemLoader.loadAll(taskTable, keysOf(keyItems));
+
+        assertThat(loadedTasks)
+                .extracting(Task::getTaskUuid)
+                .containsExactly(tasks.get(2).getTaskUuid(), tasks.get(0).getTaskUuid());
+        assertThat(batchGetItemLoader.loadAll(taskTable, List.of())).isEmpty();
+    }
+
+    private List<Task> saveTasks(int count) {
+        List<Task> tasks = IntStream.range(0, count).mapToObj(i -> buildTask()).toList();
+        tasks.forEach(taskTable::putItem);
+        return tasks;
+    }
+
+    private static List<Task> keysOf(List<Task> tasks) {
+        // key items only carry the task uuid, like the links the loader is used for.
+        return tasks.stream().map(task -> Task.builder().withTaskUuid(task.getTaskUuid()).build()).toList();
+    }
+
+    private static Task buildTask() {
+        return Task
+                .builder()
+                .withTaskUuid(UUID.randomUUID())
+                .withTitle("title")
+                .withDescription("description")
+                .withStatus(TaskStatus.TODO)
+                .withVersion(1L)
+                .build();
+    }
+
+    private static class UnprocessedKeysDynamoDbClient extends InMemoryDynamoDbClient {
+        // the first "partialCalls" calls only answer "keysPerPartialCall" keys, and return the other keys
+        // as unprocessed, like DynamoDB does when a response is too large or the table is throttled.
+        private final AtomicInteger partialCalls = new AtomicInteger();
+        private volatile int keysPerPartialCall;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+            calls.incrementAndGet();
+            if (partialCalls.getAndDecrement() <= 0) {
+                return super.batchGetItem(request);
+            }
+            String tableName = request.requestItems().keySet().iterator().next();
+            List<Map<String, AttributeValue>> keys = request.requestItems().get(tableName).keys();
+            int processed = Math.min(keysPerPartialCall, keys.size());
+
+            List<Map<String, AttributeValue>> items = processed == 0
+                    ? List.of()
+                    : super.batchGetItem(batchGetItemRequest(tableName, keys.subList(0, processed)))
+                    .responses()
+                    .get(tableName);
+            // like DynamoDB, a table without unprocessed keys isn't listed.
+            Map<String, KeysAndAttributes> unprocessedKeys = processed == keys.size()
+                    ? Map.of()
+                    : batchGetItemRequest(tableName, keys.subList(processed, keys.size())).requestItems();
+            return BatchGetItemResponse.builder()
+                    .responses(Map.of(tableName, items))
+                    .unprocessedKeys(unprocessedKeys)
+                    .build();
+        }
+
+        private static BatchGetItemRequest batchGetItemRequest(String tableName, List<Map<String, AttributeValue>> keys) {
+            return BatchGetItemRequest.builder()
+                    .requestItems(Map.of(tableName, KeysAndAttributes.builder().keys(keys).build()))
+                    .build();
+        }
+    }
+}
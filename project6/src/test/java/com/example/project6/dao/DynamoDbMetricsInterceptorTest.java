@@ -0,0 +1,215 @@
+package com.example.project6.dao;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.backoff.BackoffStrategy;
+import software.amazon.awssdk.http.*;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DynamoDbMetricsInterceptorTest {
+    /*
+     * Runs the interceptor in a real DynamoDbClient, whose http client answers with canned DynamoDB responses.
+     * */
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CannedHttpClient httpClient = new CannedHttpClient();
+    private final DynamoDbClient dynamoDbClient = DynamoDbClient
+            .builder()
+            .region(Region.US_EAST_1)
+            .endpointOverride(URI.create("http://localhost:8000"))
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+            .httpClient(httpClient)
+            .overrideConfiguration(ClientOverrideConfiguration
+                    .builder()
+                    .addExecutionInterceptor(new DynamoDbMetricsInterceptor(meterRegistry, true, false))
+                    .retryPolicy(RetryPolicy
+                            .builder(RetryMode.STANDARD)
+                            .numRetries(1)
+                            .backoffStrategy(BackoffStrategy.none())
+                            .throttlingBackoffStrategy(BackoffStrategy.none())
+                            .build())
+                    .build())
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        dynamoDbClient.close();
+    }
+
+    @Test
+    void shouldRecordTheLatencyAndCapacityOfACall() {
+        httpClient.respond(200, "{\"Item\":{},\"ConsumedCapacity\":{\"TableName\":\"app\",\"CapacityUnits\":0.5}}");
+
+        dynamoDbClient.getItem(getItemRequest());
+
+        // every request asks for its consumed capacity.
+        assertThat(httpClient.requestBodies.get(0)).contains("\"ReturnConsumedCapacity\":\"TOTAL\"");
+        assertThat(meterRegistry.get("dynamodb.operation")
+                .tags("operation", "GetItem", "entity", "TASK", "endpoint", "none", "outcome", "success")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get("dynamodb.consumed.capacity")
+                .tags("operation", "GetItem", "capacity", "read", "endpoint", "none")
+                .counter()
+                .count()).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldAccountTheCapacityToTheApiRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/task/1/title");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/task/{taskUuid}/title");
+        RequestCapacity requestCapacity = new RequestCapacity(request, endpoint -> null, false);
+        httpClient.respond(200, "{\"ConsumedCapacity\":{\"TableName\":\"app\",\"CapacityUnits\":1.0}}");
+        httpClient.respond(200, "{\"Item\":{},\"ConsumedCapacity\":{\"TableName\":\"app\",\"CapacityUnits\":0.5}}");
+
+        try (RequestCapacity.Scope ignored = requestCapacity.bind()) {
+            dynamoDbClient.putItem(PutItemRequest.builder().tableName("app").item(taskKey()).build());
+            dynamoDbClient.getItem(getItemRequest());
+        }
+
+        assertThat(requestCapacity.getWriteUnits()).isEqualTo(1.0);
+        assertThat(requestCapacity.getReadUnits()).isEqualTo(0.5);
+        assertThat(requestCapacity.getCalls()).isEqualTo(2);
+        assertThat(meterRegistry.get("dynamodb.operation")
+                .tags("operation", "PutItem", "endpoint", "PATCH /api/task/{taskUuid}/title")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountRetriesAndThrottles() {
+        String throttled = "{\"__type\":\"com.amazonaws.dynamodb.v20120810#ProvisionedThroughputExceededException\","
+                + "\"message\":\"throttled\"}";
+        httpClient.respond(400, throttled);
+        httpClient.respond(400, throttled);
+
+        assertThatThrownBy(() -> dynamoDbClient.getItem(getItemRequest()))
+                .isInstanceOf(ProvisionedThroughputExceededException.class);
+
+        assertThat(meterRegistry.get("dynamodb.retries").tags("operation", "GetItem").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("dynamodb.throttles").tags("operation", "GetItem").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("dynamodb.operation")
+                .tags("operation", "GetItem", "outcome", "ProvisionedThroughputExceededException")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountTheCancellationReasonsOfATransaction() {
+        httpClient.respond(400, "{\"__type\":\"com.amazonaws.dynamodb.v20120810#TransactionCanceledException\","
+                + "\"message\":\"cancelled\","
+                + "\"CancellationReasons\":[{\"Code\":\"None\"},{\"Code\":\"ConditionalCheckFailed\"}]}");
+
+        TransactWriteItemsRequest transactWriteItemsRequest = TransactWriteItemsRequest
+                .builder()
+                .transactItems(
+                        TransactWriteItem.builder().put(Put.builder().tableName("app").item(taskKey()).build()).build(),
+                        TransactWriteItem.builder().put(Put.builder().tableName("app").item(linkKey()).build()).build())
+                .build();
+        assertThatThrownBy(() -> dynamoDbClient.transactWriteItems(transactWriteItemsRequest))
+                .isInstanceOf(TransactionCanceledException.class);
+
+        assertThat(meterRegistry.get("dynamodb.transaction.cancellations")
+                .tags("operation", "TransactWriteItems", "reason", "ConditionalCheckFailed")
+                .counter()
+                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("dynamodb.transaction.items").summary().totalAmount()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("dynamodb.operation")
+                .tags("operation", "TransactWriteItems", "entity", "ACCOUNT_TASK_LINK,TASK")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTagQueriesWithTheEntityTypeOfTheirKeyCondition() {
+        QueryRequest accountTasksQuery = QueryRequest
+                .builder()
+                .tableName("app")
+                .keyConditionExpression("#pk = :pk AND begins_with(#sk, :sk)")
+                .expressionAttributeNames(Map.of("#pk", "pk", "#sk", "sk"))
+                .expressionAttributeValues(Map.of(":pk", AttributeValue.fromS("ACCOUNT#1"), ":sk", AttributeValue.fromS("TASK#")))
+                .build();
+        QueryRequest indexQuery = accountTasksQuery.toBuilder().indexName("ACCOUNT_CREATED_INDEX").build();
+
+        assertThat(DynamoDbMetricsInterceptor.entityType(accountTasksQuery)).isEqualTo("ACCOUNT_TASK_LINK");
+        assertThat(DynamoDbMetricsInterceptor.entityType(indexQuery)).isEqualTo("ACCOUNT_CREATED_INDEX");
+    }
+
+    private static GetItemRequest getItemRequest() {
+        return GetItemRequest.builder().tableName("app").key(taskKey()).build();
+    }
+
+    private static Map<String, AttributeValue> taskKey() {
+        return Map.of("pk", AttributeValue.fromS("TASK#1"), "sk", AttributeValue.fromS("TASK#1"));
+    }
+
+    private static Map<String, AttributeValue> linkKey() {
+        return Map.of("pk", AttributeValue.fromS("ACCOUNT#1"), "sk", AttributeValue.fromS("TASK#1"));
+    }
+
+    private static final class CannedHttpClient implements SdkHttpClient {
+        // answers the requests with the queued responses, in order.
+        private final Deque<Map.Entry<Integer, String>> responses = new ArrayDeque<>();
+        private final List<String> requestBodies = new ArrayList<>();
+
+        void respond(int statusCode, String body) {
+            responses.add(Map.entry(statusCode, body));
+        }
+
+        @Override
+        public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+            request.contentStreamProvider().ifPresent(body -> {
+                try {
+                    requestBodies.add(new String(body.newStream().readAllBytes(), StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Map.Entry<Integer, String> response = responses.remove();
+            return new ExecutableHttpRequest() {
+                @Override
+                public HttpExecuteResponse call() {
+                    return HttpExecuteResponse
+                            .builder()
+                            .response(SdkHttpResponse.builder().statusCode(response.getKey()).build())
+                            .responseBody(AbortableInputStream.create(
+                                    new ByteArrayInputStream(response.getValue().getBytes(StandardCharsets.UTF_8))))
+                            .build();
+                }
+
+                @Override
+                public void abort() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.project6.dao;
+
+import com.example.project6.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ClientType;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DynamoDbRateLimiterTest {
+    /*
+     * Runs on a test thread, which isn't bound to a request context, like the background and the sdk threads.
+     * The read limit allows 10 calls per second, so once its bucket is empty the next read waits about 100 ms.
+     * */
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DynamoDbRateLimiter rateLimiter = new DynamoDbRateLimiter(true, Duration.ofMillis(10), 1,
+            10, 10, 10, 1, 0.5, meterRegistry);
+
+    @Test
+    void shouldNotBlockTheAsyncCallsOfABackgroundThread() {
+        // e.g. a call chained with thenCompose, started on the sdk thread that completed the previous one.
+        emptyTheReadBucket();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> beforeExecution(getItemRequest(), ClientType.ASYNC))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(80));
+        assertThat(meterRegistry.get("dynamodb.rate.limited").tags("class", "read").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldLetTheSyncCallsOfABackgroundThreadWaitForTheirTokens() {
+        emptyTheReadBucket();
+
+        long start = System.nanoTime();
+        beforeExecution(getItemRequest(), ClientType.SYNC);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void shouldLimitEachOperationClassSeparately() {
+        emptyTheReadBucket();
+
+        beforeExecution(PutItemRequest.builder().tableName("app").item(Map.of()).build(), ClientType.ASYNC);
+    }
+
+    @Test
+    void shouldShrinkTheLimitOfAThrottledCall() {
+        ExecutionAttributes executionAttributes = beforeExecution(getItemRequest(), ClientType.SYNC);
+        assertThat(meterRegistry.get("dynamodb.rate.limit").tags("class", "read").gauge().value()).isEqualTo(10.0);
+
+        rateLimiter.onThrottledAttempt(executionAttributes);
+        assertThat(meterRegistry.get("dynamodb.rate.limit").tags("class", "read").gauge().value()).isEqualTo(5.0);
+    }
+
+    @Test
+    void shouldRecognizeThrottledTransactions() {
+        TransactionCanceledException throttled = TransactionCanceledException.builder()
+                .cancellationReasons(
+                        CancellationReason.builder().code("None").build(),
+                        CancellationReason.builder().code("ThrottlingError").build())
+                .build();
+        TransactionCanceledException conflict = TransactionCanceledException.builder()
+                .cancellationReasons(CancellationReason.builder().code("ConditionalCheckFailed").build())
+                .build();
+
+        assertThat(DynamoDbRateLimiter.isThrottled(throttled)).isTrue();
+        assertThat(DynamoDbRateLimiter.isThrottled(conflict)).isFalse();
+    }
+
+    private void emptyTheReadBucket() {
+        // a batch of 10 keys takes the 10 tokens of the bucket.
+        List<Map<String, AttributeValue>> keys = IntStream.range(0, 10)
+                .mapToObj(i -> Map.of("pk", AttributeValue.fromS("TASK#" + i), "sk", AttributeValue.fromS("TASK#" + i)))
+                .toList();
+        beforeExecution(BatchGetItemRequest.builder()
+                .requestItems(Map.of("app", KeysAndAttributes.builder().keys(keys).build()))
+                .build(), ClientType.SYNC);
+    }
+
+    private ExecutionAttributes beforeExecution(SdkRequest request, ClientType clientType) {
+        ExecutionAttributes executionAttributes = new ExecutionAttributes();
+        executionAttributes.putAttribute(SdkExecutionAttribute.OPERATION_NAME,
+                request.getClass().getSimpleName().replace("Request", ""));
+        executionAttributes.putAttribute(SdkExecutionAttribute.CLIENT_TYPE, clientType);
+        rateLimiter.beforeExecution(() -> request, executionAttributes);
+        return executionAttributes;
+    }
+
+    private static GetItemRequest getItemRequest() {
+        return GetItemRequest.builder()
+                .tableName("app")
+                .key(Map.of("pk", AttributeValue.fromS("TASK#1"), "sk", AttributeValue.fromS("TASK#1")))
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.project6.dao;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public class InMemoryDynamoDbAsyncClient implements DynamoDbAsyncClient {
+    /*
+     * Non-blocking view of an InMemoryDynamoDbClient, so the async repositories read the same tables.
+     * Operations run on the calling thread and return completed futures, failures are returned as failed futures
+     * like the real client does.
+     * Paginated queries and scans go through the default paginators of the interface, which call query / scan.
+     * */
+
+    private final InMemoryDynamoDbClient client;
+
+    public InMemoryDynamoDbAsyncClient(InMemoryDynamoDbClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public CompletableFuture<GetItemResponse> getItem(GetItemRequest request) {
+        return complete(() -> client.getItem(request));
+    }
+
+    @Override
+    public CompletableFuture<PutItemResponse> putItem(PutItemRequest request) {
+        return complete(() -> client.putItem(request));
+    }
+
+    @Override
+    public CompletableFuture<DeleteItemResponse> deleteItem(DeleteItemRequest request) {
+        return complete(() -> client.deleteItem(request));
+    }
+
+    @Override
+    public CompletableFuture<UpdateItemResponse> updateItem(UpdateItemRequest request) {
+        return complete(() -> client.updateItem(request));
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> query(QueryRequest request) {
+        return complete(() -> client.query(request));
+    }
+
+    @Override
+    public CompletableFuture<ScanResponse> scan(ScanRequest request) {
+        return complete(() -> client.scan(request));
+    }
+
+    @Override
+    public CompletableFuture<BatchGetItemResponse> batchGetItem(BatchGetItemRequest request) {
+        return complete(() -> client.batchGetItem(request));
+    }
+
+    @Override
+    public CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest request) {
+        return complete(() -> client.batchWriteItem(request));
+    }
+
+    @Override
+    public CompletableFuture<TransactWriteItemsResponse> transactWriteItems(TransactWriteItemsRequest request) {
+        return complete(() -> client.transactWriteItems(request));
+    }
+
+    @Override
+    public CompletableFuture<TransactGetItemsResponse> transactGetItems(TransactGetItemsRequest request) {
+        return complete(() -> client.transactGetItems(request));
+    }
+
+    private static <T> CompletableFuture<T> complete(Supplier<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,976 @@
+package com.example.project6.dao;
+
+import com.example.project6.dao.InMemoryExpressions.Condition;
+import com.example.project6.dao.InMemoryExpressions.ExpressionContext;
+import com.example.project6.dao.InMemoryExpressions.ExpressionException;
+import com.example.project6.dao.InMemoryExpressions.Update;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+    /*
+     * An in-process stand-in for DynamoDB, implementing the subset of the API the dao package uses,
+     * so tests and benchmarks can run the repositories without LocalStack / DynamoDB Local.
+     *   - tables and their global secondary indexes keep the items in concurrent skip lists ordered by key,
+     *       so queries walk a partition in sort key order (forwards or backwards), and reads never block.
+     *   - writes of a table are serialized by a lock, a transaction takes the locks of all its tables,
+     *       checks every condition, and only then applies all its actions (all-or-nothing).
+     *   - indexes are updated right after the table, a query of an index may briefly miss a write
+     *       that a read of the table already returns, like the eventually consistent indexes of DynamoDB.
+     *   - queries and scans support Limit, ExclusiveStartKey / LastEvaluatedKey, the 1 MB page size,
+     *       ScanIndexForward, filters, projections, Select COUNT, and parallel scan segments.
+     *   - requests are validated like DynamoDB does (key schema, unused placeholders, request limits ...),
+     *       failures are thrown as the same exceptions the real client throws.
+     * Capacity, throttling, index projections (indexes return whole items), TTL and streams are not simulated.
+     * */
+
+    // DynamoDB limits.
+    private static final int MAX_PAGE_BYTES = 1024 * 1024;
+    private static final int MAX_BATCH_GET_KEYS = 100;
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_TRANSACT_ITEMS = 100;
+
+    // key components that sort before / after any value, used as the bounds of a partition.
+    private static final AttributeValue LOWEST = AttributeValue.builder().build();
+    private static final AttributeValue HIGHEST = AttributeValue.builder().build();
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // tables.
+
+    @Override
+    public CreateTableResponse createTable(CreateTableRequest request) {
+        return execute(() -> {
+            Table table = new Table(request);
+            if (tables.putIfAbsent(request.tableName(), table) != null) {
+                throw ResourceInUseException.builder()
+                        .message("Table already exists: " + request.tableName())
+                        .build();
+            }
+            return CreateTableResponse.builder().tableDescription(table.describe()).build();
+        });
+    }
+
+    @Override
+    public DescribeTableResponse describeTable(DescribeTableRequest request) {
+        return execute(() -> DescribeTableResponse.builder().table(table(request.tableName()).describe()).build());
+    }
+
+    @Override
+    public DeleteTableResponse deleteTable(DeleteTableRequest request) {
+        return execute(() -> {
+            Table table = tables.remove(request.tableName());
+            if (table == null) {
+                throw resourceNotFound(request.tableName());
+            }
+            return DeleteTableResponse.builder().tableDescription(table.describe()).build();
+        });
+    }
+
+    @Override
+    public UpdateTableResponse updateTable(UpdateTableRequest request) {
+        // only adding / removing global secondary indexes is supported, a new index is built from the existing items.
+        return execute(() -> {
+            Table table = table(request.tableName());
+            for (GlobalSecondaryIndexUpdate indexUpdate : request.globalSecondaryIndexUpdates()) {
+                if (indexUpdate.create() != null) {
+                    table.addIndex(indexUpdate.create().indexName(), indexUpdate.create().keySchema(),
+                            indexUpdate.create().projection());
+                }
+                if (indexUpdate.delete() != null) {
+                    table.removeIndex(indexUpdate.delete().indexName());
+                }
+            }
+            return UpdateTableResponse.builder().tableDescription(table.describe()).build();
+        });
+    }
+
+    @Override
+    public ListTablesResponse listTables(ListTablesRequest request) {
+        return ListTablesResponse.builder().tableNames(new TreeSet<>(tables.keySet())).build();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // single item operations.
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        return execute(() -> {
+            Table table = table(request.tableName());
+            ExpressionContext context = context(request.expressionAttributeNames(), null);
+            List<String> projection = projection(request.projectionExpression(), context);
+            context.checkAllUsed();
+
+            Map<String, AttributeValue> item = table.items.get(table.primaryKey(request.key()));
+            GetItemResponse.Builder response = GetItemResponse.builder();
+            if (item != null) {
+                response.item(project(item, projection));
+            }
+            return response.build();
+        });
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        return execute(() -> {
+            Table table = table(request.tableName());
+            ExpressionContext context = context(request.expressionAttributeNames(), request.expressionAttributeValues());
+            Condition condition = condition(request.conditionExpression(), context);
+            context.checkAllUsed();
+
+            Map<String, AttributeValue> item = Map.copyOf(request.item());
+            AttributeValue[] key = table.itemKey(item);
+            table.lock.lock();
+            try {
+                Map<String, AttributeValue> oldItem = table.items.get(key);
+                checkCondition(condition, oldItem, request.returnValuesOnConditionCheckFailure());
+                table.write(key, oldItem, item);
+                return PutItemResponse.builder()
+                        .attributes(request.returnValues() == ReturnValue.ALL_OLD ? oldItem : null)
+                        .build();
+            } finally {
+                table.lock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        return execute(() -> {
+            Table table = table(request.tableName());
+            ExpressionContext context = context(request.expressionAttributeNames(), request.expressionAttributeValues());
+            Condition condition = condition(request.conditionExpression(), context);
+            context.checkAllUsed();
+
+            AttributeValue[] key = table.primaryKey(request.key());
+            table.lock.lock();
+            try {
+                Map<String, AttributeValue> oldItem = table.items.get(key);
+                checkCondition(condition, oldItem, request.returnValuesOnConditionCheckFailure());
+                table.write(key, oldItem, null);
+                return DeleteItemResponse.builder()
+                        .attributes(request.returnValues() == ReturnValue.ALL_OLD ? oldItem : null)
+                        .build();
+            } finally {
+                table.lock.unlock();
+            }
+        });
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        return execute(() -> {
+            Table table = table(request.tableName());
+            if (request.updateExpression() == null) {
+                throw validation("the in-memory client only supports updates with an UpdateExpression");
+            }
+            ExpressionContext context = context(request.expressionAttributeNames(), request.expressionAttributeValues());
+            Update update = InMemoryExpressions.parseUpdate(request.updateExpression(), context);
+            Condition condition = condition(request.conditionExpression(), context);
+            context.checkAllUsed();
+
+            AttributeValue[] key = table.primaryKey(request.key());
+            table.lock.lock();
+            try {
+                Map<String, AttributeValue> oldItem = table.items.get(key);
+                checkCondition(condition, oldItem, request.returnValuesOnConditionCheckFailure());
+
+                Map<String, AttributeValue> newItem = new HashMap<>(oldItem != null ? oldItem : request.key());
+                Set<String> updatedAttributes = table.applyUpdate(update, newItem);
+                table.write(key, oldItem, Map.copyOf(newItem));
+
+                return UpdateItemResponse.builder()
+                        .attributes(returnValues(request.returnValues(), oldItem, newItem, updatedAttributes))
+                        .build();
+            } finally {
+                table.lock.unlock();
+            }
+        });
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // queries and scans.
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        return execute(() -> {
+            Table table = table(request.tableName());
+            KeySpace keySpace = table.keySpace(request.indexName());
+            if (request.keyConditionExpression() == null) {
+                throw validation("the in-memory client only supports queries with a KeyConditionExpression");
+            }
+            ExpressionContext context = context(request.expressionAttributeNames(), request.expressionAttributeValues());
+            Condition keyCondition = InMemoryExpressions.parseCondition(request.keyConditionExpression(), context);
+            Condition filter = condition(request.filterExpression(), context);
+            List<String> projection = projection(request.projectionExpression(), context);
+            context.checkAllUsed();
+
+            AttributeValue hashValue = InMemoryExpressions.equalities(keyCondition).get(keySpace.hashKey);
+            if (hashValue == null) {
+                throw validation("Query condition missed key schema element: " + keySpace.hashKey);
+            }
+            NavigableMap<AttributeValue[], Map<String, AttributeValue>> partition = keySpace.entries.subMap(
+                    new AttributeValue[]{hashValue, LOWEST}, true,
+                    new AttributeValue[]{hashValue, HIGHEST}, true
+            );
+            if (Boolean.FALSE.equals(request.scanIndexForward())) {
+                partition = partition.descendingMap();
+            }
+
+            Page page = readPage(keySpace, partition, request.exclusiveStartKey(), request.limit(),
+                    keyCondition, filter, projection);
+            return QueryResponse.builder()
+                    .items(request.select() == Select.COUNT ? null : page.items)
+                    .count(page.count)
+                    .scannedCount(page.scannedCount)
+                    .lastEvaluatedKey(page.lastEvaluatedKey)
+                    .build();
+        });
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        return execute(() -> {
+            Table table = table(request.tableName());
+            KeySpace keySpace = table.keySpace(request.indexName());
+            ExpressionContext context = context(request.expressionAttributeNames(), request.expressionAttributeValues());
+            Condition filter = condition(request.filterExpression(), context);
+            List<String> projection = projection(request.projectionExpression(), context);
+            context.checkAllUsed();
+
+            // parallel scans split the items by the hash of their partition key.
+            Integer totalSegments = request.totalSegments();
+            Integer segment = request.segment();
+            if ((totalSegments == null) != (segment == null)
+                    || (totalSegments != null && (segment < 0 || segment >= totalSegments))) {
+                throw validation("Segment must be less than TotalSegments, and both must be set for a parallel scan");
+            }
+
+            Page page = readPage(keySpace, keySpace.entries, request.exclusiveStartKey(), request.limit(),
+                    item -> totalSegments == null
+                            || Math.floorMod(item.get(table.hashKey).hashCode(), totalSegments) == segment,
+                    filter, projection);
+            return ScanResponse.builder()
+                    .items(request.select() == Select.COUNT ? null : page.items)
+                    .count(page.count)
+                    .scannedCount(page.scannedCount)
+                    .lastEvaluatedKey(page.lastEvaluatedKey)
+                    .build();
+        });
+    }
+
+    private record Page(List<Map<String, AttributeValue>> items, int count, int scannedCount,
+                        Map<String, AttributeValue> lastEvaluatedKey) {
+    }
+
+    private Page readPage(KeySpace keySpace,
+                          NavigableMap<AttributeValue[], Map<String, AttributeValue>> entries,
+                          Map<String, AttributeValue> exclusiveStartKey,
+                          Integer limit,
+                          Condition selection,
+                          Condition filter,
+                          List<String> projection) {
+        /*
+         * Reads a page of items in the order of the entries.
+         *   - selection: the items the request reads (the key condition of a query), other items are skipped.
+         *   - filter: applied after the items are read, filtered out items still count toward the limit.
+         * The page stops after "limit" read items, or once it reaches 1 MB,
+         * in both cases the key of the last read item is returned to continue from it.
+         * */
+        if (limit != null && limit <= 0) {
+            throw validation("Limit must be greater than or equal to 1");
+        }
+        if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty()) {
+            entries = entries.tailMap(keySpace.positionOf(exclusiveStartKey), false);
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        int scannedCount = 0;
+        long pageBytes = 0;
+        for (Map<String, AttributeValue> item : entries.values()) {
+            if (!selection.test(item)) {
+                continue;
+            }
+            scannedCount++;
+            pageBytes += itemSize(item);
+            if (filter == null || filter.test(item)) {
+                items.add(project(item, projection));
+            }
+            if ((limit != null && scannedCount == limit) || pageBytes >= MAX_PAGE_BYTES) {
+                return new Page(items, items.size(), scannedCount, keySpace.lastEvaluatedKey(item));
+            }
+        }
+        return new Page(items, items.size(), scannedCount, null);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // batches.
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        return execute(() -> {
+            int keys = request.requestItems().values().stream().mapToInt(keysAndAttributes -> keysAndAttributes.keys().size()).sum();
+            if (keys == 0 || keys > MAX_BATCH_GET_KEYS) {
+                throw validation("Too many items requested for the BatchGetItem call");
+            }
+
+            Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+            request.requestItems().forEach((tableName, keysAndAttributes) -> {
+                Table table = table(tableName);
+                ExpressionContext context = context(keysAndAttributes.expressionAttributeNames(), null);
+                List<String> projection = projection(keysAndAttributes.projectionExpression(), context);
+                context.checkAllUsed();
+
+                Set<String> requestedKeys = new HashSet<>();
+                List<Map<String, AttributeValue>> items = new ArrayList<>();
+                for (Map<String, AttributeValue> key : keysAndAttributes.keys()) {
+                    AttributeValue[] primaryKey = table.primaryKey(key);
+                    if (!requestedKeys.add(Arrays.toString(primaryKey))) {
+                        throw validation("Provided list of item keys contains duplicates");
+                    }
+                    Map<String, AttributeValue> item = table.items.get(primaryKey);
+                    if (item != null) {
+                        items.add(project(item, projection));
+                    }
+                }
+                responses.put(tableName, items);
+            });
+            return BatchGetItemResponse.builder().responses(responses).unprocessedKeys(Map.of()).build();
+        });
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        return execute(() -> {
+            int writes = request.requestItems().values().stream().mapToInt(List::size).sum();
+            if (writes == 0 || writes > MAX_BATCH_WRITE_ITEMS) {
+                throw validation("Too many items requested for the BatchWriteItem call");
+            }
+
+            // validate the whole batch before writing anything.
+            Set<String> writtenKeys = new HashSet<>();
+            request.requestItems().forEach((tableName, writeRequests) -> {
+                Table table = table(tableName);
+                for (WriteRequest writeRequest : writeRequests) {
+                    AttributeValue[] key = writeRequest.putRequest() != null
+                            ? table.itemKey(writeRequest.putRequest().item())
+                            : table.primaryKey(writeRequest.deleteRequest().key());
+                    if (!writtenKeys.add(tableName + Arrays.toString(key))) {
+                        throw validation("Provided list of item keys contains duplicates");
+                    }
+                }
+            });
+
+            // each write is applied on its own, a batch isn't atomic.
+            request.requestItems().forEach((tableName, writeRequests) -> {
+                Table table = table(tableName);
+                for (WriteRequest writeRequest : writeRequests) {
+                    table.lock.lock();
+                    try {
+                        if (writeRequest.putRequest() != null) {
+                            Map<String, AttributeValue> item = Map.copyOf(writeRequest.putRequest().item());
+                            AttributeValue[] key = table.itemKey(item);
+                            table.write(key, table.items.get(key), item);
+                        } else {
+                            AttributeValue[] key = table.primaryKey(writeRequest.deleteRequest().key());
+                            table.write(key, table.items.get(key), null);
+                        }
+                    } finally {
+                        table.lock.unlock();
+                    }
+                }
+            });
+            return BatchWriteItemResponse.builder().unprocessedItems(Map.of()).build();
+        });
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // transactions.
+
+    private record TransactAction(Table table,
+                                  AttributeValue[] key,
+                                  Condition condition,
+                                  ReturnValuesOnConditionCheckFailure returnValuesOnConditionCheckFailure,
+                                  ActionWrite write) {
+    }
+
+    private interface ActionWrite {
+        // returns the item after the action (null to delete it), or the old item to leave it untouched.
+        Map<String, AttributeValue> apply(Map<String, AttributeValue> oldItem);
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        return execute(() -> {
+            if (request.transactItems().isEmpty() || request.transactItems().size() > MAX_TRANSACT_ITEMS) {
+                throw validation("Member must have length less than or equal to " + MAX_TRANSACT_ITEMS);
+            }
+
+            // parse and validate all the actions.
+            List<TransactAction> actions = new ArrayList<>();
+            Set<String> actionKeys = new HashSet<>();
+            for (TransactWriteItem transactItem : request.transactItems()) {
+                TransactAction action = toTransactAction(transactItem);
+                if (!actionKeys.add(action.table().name + Arrays.toString(action.key()))) {
+                    throw validation("Transaction request cannot include multiple operations on one item");
+                }
+                actions.add(action);
+            }
+
+            List<Table> lockedTables = lockTables(actions.stream().map(TransactAction::table).toList());
+            try {
+                // check every condition before writing anything.
+                List<CancellationReason> reasons = new ArrayList<>();
+                List<Map<String, AttributeValue>> newItems = new ArrayList<>();
+                boolean cancelled = false;
+                for (TransactAction action : actions) {
+                    Map<String, AttributeValue> oldItem = action.table().items.get(action.key());
+                    if (action.condition() != null && !action.condition().test(oldItem != null ? oldItem : Map.of())) {
+                        cancelled = true;
+                        reasons.add(CancellationReason.builder()
+                                .code(VersionedWrites.CONDITIONAL_CHECK_FAILED)
+                                .message("The conditional request failed")
+                                .item(action.returnValuesOnConditionCheckFailure() == ReturnValuesOnConditionCheckFailure.ALL_OLD
+                                        ? oldItem : null)
+                                .build());
+                        newItems.add(null);
+                    } else {
+                        reasons.add(CancellationReason.builder().code("None").build());
+                        newItems.add(action.write().apply(oldItem));
+                    }
+                }
+                if (cancelled) {
+                    throw TransactionCanceledException.builder()
+                            .message("Transaction cancelled, please refer cancellation reasons for specific reasons "
+                                    + reasons.stream().map(CancellationReason::code).toList())
+                            .cancellationReasons(reasons)
+                            .awsErrorDetails(AwsErrorDetails.builder()
+                                    .errorCode("TransactionCanceledException")
+                                    .serviceName(SERVICE_NAME)
+                                    .build())
+                            .statusCode(400)
+                            .build();
+                }
+
+                // apply all the actions.
+                for (int i = 0; i < actions.size(); i++) {
+                    TransactAction action = actions.get(i);
+                    Map<String, AttributeValue> oldItem = action.table().items.get(action.key());
+                    if (newItems.get(i) != oldItem) {
+                        action.table().write(action.key(), oldItem, newItems.get(i));
+                    }
+                }
+                return TransactWriteItemsResponse.builder().build();
+            } finally {
+                lockedTables.forEach(table -> table.lock.unlock());
+            }
+        });
+    }
+
+    private TransactAction toTransactAction(TransactWriteItem transactItem) {
+        if (transactItem.put() != null) {
+            Put put = transactItem.put();
+            Table table = table(put.tableName());
+            ExpressionContext context = context(put.expressionAttributeNames(), put.expressionAttributeValues());
+            Condition condition = condition(put.conditionExpression(), context);
+            context.checkAllUsed();
+            Map<String, AttributeValue> item = Map.copyOf(put.item());
+            return new TransactAction(table, table.itemKey(item), condition,
+                    put.returnValuesOnConditionCheckFailure(), oldItem -> item);
+        }
+        if (transactItem.delete() != null) {
+            Delete delete = transactItem.delete();
+            Table table = table(delete.tableName());
+            ExpressionContext context = context(delete.expressionAttributeNames(), delete.expressionAttributeValues());
+            Condition condition = condition(delete.conditionExpression(), context);
+            context.checkAllUsed();
+            return new TransactAction(table, table.primaryKey(delete.key()), condition,
+                    delete.returnValuesOnConditionCheckFailure(), oldItem -> null);
+        }
+        if (transactItem.update() != null) {
+            software.amazon.awssdk.services.dynamodb.model.Update update = transactItem.update();
+            Table table = table(update.tableName());
+            ExpressionContext context = context(update.expressionAttributeNames(), update.expressionAttributeValues());
+            Update updateExpression = InMemoryExpressions.parseUpdate(update.updateExpression(), context);
+            Condition condition = condition(update.conditionExpression(), context);
+            context.checkAllUsed();
+            return new TransactAction(table, table.primaryKey(update.key()), condition,
+                    update.returnValuesOnConditionCheckFailure(), oldItem -> {
+                Map<String, AttributeValue> newItem = new HashMap<>(oldItem != null ? oldItem : update.key());
+                table.applyUpdate(updateExpression, newItem);
+                return Map.copyOf(newItem);
+            });
+        }
+        if (transactItem.conditionCheck() != null) {
+            ConditionCheck conditionCheck = transactItem.conditionCheck();
+            Table table = table(conditionCheck.tableName());
+            ExpressionContext context = context(conditionCheck.expressionAttributeNames(),
+                    conditionCheck.expressionAttributeValues());
+            Condition condition = InMemoryExpressions.parseCondition(conditionCheck.conditionExpression(), context);
+            context.checkAllUsed();
+            return new TransactAction(table, table.primaryKey(conditionCheck.key()), condition,
+                    conditionCheck.returnValuesOnConditionCheckFailure(), oldItem -> oldItem);
+        }
+        throw validation("TransactItems can only contain one of Check, Put, Update or Delete");
+    }
+
+    @Override
+    public TransactGetItemsResponse transactGetItems(TransactGetItemsRequest request) {
+        // reads all the items while holding the locks of their tables, so they reflect whole transactions.
+        return execute(() -> {
+            List<Get> gets = request.transactItems().stream().map(TransactGetItem::get).toList();
+            List<Table> lockedTables = lockTables(gets.stream().map(get -> table(get.tableName())).toList());
+            try {
+                List<ItemResponse> responses = new ArrayList<>();
+                for (Get get : gets) {
+                    Table table = table(get.tableName());
+                    ExpressionContext context = context(get.expressionAttributeNames(), null);
+                    List<String> projection = projection(get.projectionExpression(), context);
+                    context.checkAllUsed();
+                    Map<String, AttributeValue> item = table.items.get(table.primaryKey(get.key()));
+                    responses.add(ItemResponse.builder().item(item != null ? project(item, projection) : null).build());
+                }
+                return TransactGetItemsResponse.builder().responses(responses).build();
+            } finally {
+                lockedTables.forEach(table -> table.lock.unlock());
+            }
+        });
+    }
+
+    private static List<Table> lockTables(List<Table> tables) {
+        // tables are always locked in the order of their names, so concurrent transactions can't deadlock.
+        List<Table> sortedTables = tables.stream()
+                .distinct()
+                .sorted(Comparator.comparing(table -> table.name))
+                .toList();
+        sortedTables.forEach(table -> table.lock.lock());
+        return sortedTables;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // helpers.
+
+    private Table table(String tableName) {
+        Table table = tables.get(tableName);
+        if (table == null) {
+            throw resourceNotFound(tableName);
+        }
+        return table;
+    }
+
+    private static ExpressionContext context(Map<String, String> names, Map<String, AttributeValue> values) {
+        // the sdk sends an empty map only when it was explicitly set, which DynamoDB rejects.
+        if (names != null && names.isEmpty() && !(names instanceof software.amazon.awssdk.core.util.SdkAutoConstructMap)) {
+            throw validation("ExpressionAttributeNames must not be empty");
+        }
+        if (values != null && values.isEmpty() && !(values instanceof software.amazon.awssdk.core.util.SdkAutoConstructMap)) {
+            throw validation("ExpressionAttributeValues must not be empty");
+        }
+        return new ExpressionContext(names, values);
+    }
+
+    private static Condition condition(String expression, ExpressionContext context) {
+        return expression == null ? null : InMemoryExpressions.parseCondition(expression, context);
+    }
+
+    private static List<String> projection(String expression, ExpressionContext context) {
+        return expression == null ? null : InMemoryExpressions.parseProjection(expression, context);
+    }
+
+    private static void checkCondition(Condition condition,
+                                       Map<String, AttributeValue> oldItem,
+                                       ReturnValuesOnConditionCheckFailure returnValuesOnConditionCheckFailure) {
+        if (condition == null || condition.test(oldItem != null ? oldItem : Map.of())) {
+            return;
+        }
+        throw ConditionalCheckFailedException.builder()
+                .message("The conditional request failed")
+                .item(returnValuesOnConditionCheckFailure == ReturnValuesOnConditionCheckFailure.ALL_OLD ? oldItem : null)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode("ConditionalCheckFailedException")
+                        .serviceName(SERVICE_NAME)
+                        .build())
+                .statusCode(400)
+                .build();
+    }
+
+    private static Map<String, AttributeValue> project(Map<String, AttributeValue> item, List<String> projection) {
+        Map<String, AttributeValue> projectedItem = new HashMap<>();
+        if (projection == null) {
+            projectedItem.putAll(item);
+        } else {
+            projection.stream().filter(item::containsKey).forEach(name -> projectedItem.put(name, item.get(name)));
+        }
+        return projectedItem;
+    }
+
+    private static Map<String, AttributeValue> returnValues(ReturnValue returnValue,
+                                                            Map<String, AttributeValue> oldItem,
+                                                            Map<String, AttributeValue> newItem,
+                                                            Set<String> updatedAttributes) {
+        if (returnValue == null) {
+            return null;
+        }
+        return switch (returnValue) {
+            case ALL_OLD -> oldItem;
+            case ALL_NEW -> new HashMap<>(newItem);
+            case UPDATED_OLD -> oldItem == null ? null : project(oldItem, List.copyOf(updatedAttributes));
+            case UPDATED_NEW -> project(newItem, List.copyOf(updatedAttributes));
+            default -> null;
+        };
+    }
+
+    private static long itemSize(Map<String, AttributeValue> item) {
+        // approximation of the DynamoDB item size: attribute names plus the size of their values.
+        long size = 0;
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            size += attribute.getKey().length() + valueSize(attribute.getValue());
+        }
+        return size;
+    }
+
+    private static long valueSize(AttributeValue value) {
+        if (value.s() != null) {
+            return value.s().length();
+        }
+        if (value.n() != null) {
+            return value.n().length();
+        }
+        if (value.b() != null) {
+            return value.b().asByteArray().length;
+        }
+        if (value.hasL()) {
+            return value.l().stream().mapToLong(InMemoryDynamoDbClient::valueSize).sum() + 3;
+        }
+        if (value.hasM()) {
+            return itemSize(value.m()) + 3;
+        }
+        if (value.hasSs()) {
+            return value.ss().stream().mapToLong(String::length).sum();
+        }
+        if (value.hasNs()) {
+            return value.ns().stream().mapToLong(String::length).sum();
+        }
+        if (value.hasBs()) {
+            return value.bs().stream().mapToLong(bytes -> bytes.asByteArray().length).sum();
+        }
+        return 1;
+    }
+
+    private static <T> T execute(Supplier<T> operation) {
+        // expression errors are reported like DynamoDB does, as validation errors.
+        try {
+            return operation.get();
+        } catch (ExpressionException e) {
+            throw validation(e.getMessage());
+        }
+    }
+
+    private static DynamoDbException validation(String message) {
+        return (DynamoDbException) DynamoDbException.builder()
+                .message(message)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode("ValidationException")
+                        .errorMessage(message)
+                        .serviceName(SERVICE_NAME)
+                        .build())
+                .statusCode(400)
+                .build();
+    }
+
+    private static ResourceNotFoundException resourceNotFound(String tableName) {
+        return ResourceNotFoundException.builder()
+                .message("Requested resource not found: Table: " + tableName + " not found")
+                .statusCode(400)
+                .build();
+    }
+
+    static int compareKeys(AttributeValue[] left, AttributeValue[] right) {
+        /*
+         * Orders keys component by component.
+         * LOWEST / HIGHEST sort before / after any value, a missing component (shorter key) sorts before any value,
+         * so [pk, LOWEST] .. [pk, HIGHEST] covers every key of the partition pk.
+         * */
+        for (int i = 0; i < Math.max(left.length, right.length); i++) {
+            int result = compareComponents(i < left.length ? left[i] : null, i < right.length ? right[i] : null);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareComponents(AttributeValue left, AttributeValue right) {
+        int leftRank = rank(left);
+        int rightRank = rank(right);
+        if (leftRank != rightRank || leftRank != 2) {
+            return Integer.compare(leftRank, rightRank);
+        }
+        Integer result = InMemoryExpressions.compareScalars(left, right);
+        if (result == null) {
+            throw validation("key attributes must have the type of the key schema");
+        }
+        return result;
+    }
+
+    private static int rank(AttributeValue component) {
+        if (component == LOWEST) {
+            return 0;
+        }
+        if (component == null) {
+            return 1;
+        }
+        return component == HIGHEST ? 3 : 2;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // storage.
+
+    private abstract static class KeySpace {
+        // the items of a table or of an index, ordered by key.
+        final String hashKey;
+        final String rangeKey;
+        final ConcurrentSkipListMap<AttributeValue[], Map<String, AttributeValue>> entries =
+                new ConcurrentSkipListMap<>(InMemoryDynamoDbClient::compareKeys);
+
+        KeySpace(String hashKey, String rangeKey) {
+            this.hashKey = hashKey;
+            this.rangeKey = rangeKey;
+        }
+
+        abstract List<String> keyAttributes();
+
+        AttributeValue[] keyOf(Map<String, AttributeValue> item) {
+            // returns null if the item lacks a key attribute (items without the index keys aren't indexed).
+            List<String> keyAttributes = keyAttributes();
+            AttributeValue[] key = new AttributeValue[keyAttributes.size()];
+            for (int i = 0; i < key.length; i++) {
+                AttributeValue component = item.get(keyAttributes.get(i));
+                if (component == null || (component.s() == null && component.n() == null && component.b() == null)) {
+                    return null;
+                }
+                key[i] = component;
+            }
+            return key;
+        }
+
+        AttributeValue[] positionOf(Map<String, AttributeValue> exclusiveStartKey) {
+            AttributeValue[] key = keyOf(exclusiveStartKey);
+            if (key == null || exclusiveStartKey.size() != key.length) {
+                throw validation("The provided starting key is invalid: The provided key element does not match the schema");
+            }
+            return key;
+        }
+
+        Map<String, AttributeValue> lastEvaluatedKey(Map<String, AttributeValue> item) {
+            Map<String, AttributeValue> key = new HashMap<>();
+            keyAttributes().forEach(attribute -> key.put(attribute, item.get(attribute)));
+            return key;
+        }
+    }
+
+    private static class Index extends KeySpace {
+        final String name;
+        final Projection projection;
+        final List<String> keyAttributes;
+
+        Index(String name, List<KeySchemaElement> keySchema, Projection projection, Table table) {
+            super(keyAttribute(keySchema, KeyType.HASH), keyAttribute(keySchema, KeyType.RANGE));
+            this.name = name;
+            this.projection = projection;
+
+            // index entries are unique by the index key plus the table key.
+            List<String> attributes = new ArrayList<>();
+            attributes.add(hashKey);
+            if (rangeKey != null) {
+                attributes.add(rangeKey);
+            }
+            table.keyAttributes().stream().filter(attribute -> !attributes.contains(attribute)).forEach(attributes::add);
+            this.keyAttributes = List.copyOf(attributes);
+        }
+
+        @Override
+        List<String> keyAttributes() {
+            return keyAttributes;
+        }
+    }
+
+    private static class Table extends KeySpace {
+        final String name;
+        final CreateTableRequest definition;
+        final Instant creationDateTime = Instant.now();
+        final Map<String, Index> indexes = new ConcurrentHashMap<>();
+        final ReentrantLock lock = new ReentrantLock();
+        final ConcurrentSkipListMap<AttributeValue[], Map<String, AttributeValue>> items = entries;
+
+        Table(CreateTableRequest definition) {
+            super(keyAttribute(definition.keySchema(), KeyType.HASH), keyAttribute(definition.keySchema(), KeyType.RANGE));
+            if (hashKey == null) {
+                throw validation("The table must have a HASH key");
+            }
+            this.name = definition.tableName();
+            this.definition = definition;
+            definition.globalSecondaryIndexes().forEach(index -> addIndex(index.indexName(), index.keySchema(), index.projection()));
+            definition.localSecondaryIndexes().forEach(index -> addIndex(index.indexName(), index.keySchema(), index.projection()));
+        }
+
+        @Override
+        List<String> keyAttributes() {
+            return rangeKey == null ? List.of(hashKey) : List.of(hashKey, rangeKey);
+        }
+
+        KeySpace keySpace(String indexName) {
+            if (indexName == null) {
+                return this;
+            }
+            Index index = indexes.get(indexName);
+            if (index == null) {
+                throw validation("The table does not have the specified index: " + indexName);
+            }
+            return index;
+        }
+
+        AttributeValue[] itemKey(Map<String, AttributeValue> item) {
+            AttributeValue[] key = keyOf(item);
+            if (key == null) {
+                throw validation("One or more parameter values were invalid: Missing the key "
+                        + String.join(", ", keyAttributes()) + " in the item");
+            }
+            checkIndexKeys(item);
+            return key;
+        }
+
+        void checkIndexKeys(Map<String, AttributeValue> item) {
+            // an item may leave out the keys of an index, but can't store them as another type (NUL, a list ...).
+            for (Index index : indexes.values()) {
+                for (String keyAttribute : index.keyAttributes()) {
+                    AttributeValue component = item.get(keyAttribute);
+                    if (component != null && component.s() == null && component.n() == null && component.b() == null) {
+                        throw validation("One or more parameter values were invalid: Type mismatch for Index Key "
+                                + keyAttribute + " IndexName: " + index.name);
+                    }
+                }
+            }
+        }
+
+        AttributeValue[] primaryKey(Map<String, AttributeValue> key) {
+            // a key must have exactly the key attributes of the table.
+            AttributeValue[] primaryKey = keyOf(key);
+            if (primaryKey == null || key.size() != primaryKey.length) {
+                throw validation("The provided key element does not match the schema");
+            }
+            return primaryKey;
+        }
+
+        Set<String> applyUpdate(Update update, Map<String, AttributeValue> item) {
+            Set<String> updatedAttributes = update.apply(item);
+            for (String keyAttribute : keyAttributes()) {
+                if (updatedAttributes.contains(keyAttribute)) {
+                    throw validation("Cannot update attribute " + keyAttribute + ". This attribute is part of the key");
+                }
+            }
+            checkIndexKeys(item);
+            return updatedAttributes;
+        }
+
+        void write(AttributeValue[] key, Map<String, AttributeValue> oldItem, Map<String, AttributeValue> newItem) {
+            // must be called while holding the lock, replaces (or deletes, when newItem is null) the item.
+            if (newItem == null) {
+                items.remove(key);
+            } else {
+                items.put(key, newItem);
+            }
+            for (Index index : indexes.values()) {
+                AttributeValue[] oldIndexKey = oldItem == null ? null : index.keyOf(oldItem);
+                AttributeValue[] newIndexKey = newItem == null ? null : index.keyOf(newItem);
+                if (newIndexKey != null) {
+                    index.entries.put(newIndexKey, newItem);
+                }
+                if (oldIndexKey != null && (newIndexKey == null || compareKeys(oldIndexKey, newIndexKey) != 0)) {
+                    index.entries.remove(oldIndexKey);
+                }
+            }
+        }
+
+        void addIndex(String indexName, List<KeySchemaElement> keySchema, Projection projection) {
+            lock.lock();
+            try {
+                if (indexes.containsKey(indexName)) {
+                    throw validation("Attempting to create an index which already exists: " + indexName);
+                }
+                Index index = new Index(indexName, keySchema, projection, this);
+                items.values().forEach(item -> {
+                    AttributeValue[] indexKey = index.keyOf(item);
+                    if (indexKey != null) {
+                        index.entries.put(indexKey, item);
+                    }
+                });
+                indexes.put(indexName, index);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void removeIndex(String indexName) {
+            if (indexes.remove(indexName) == null) {
+                throw resourceNotFound(name + "/index/" + indexName);
+            }
+        }
+
+        TableDescription describe() {
+            return TableDescription.builder()
+                    .tableName(name)
+                    .tableArn("arn:aws:dynamodb:local:000000000000:table/" + name)
+                    .tableStatus(TableStatus.ACTIVE)
+                    .creationDateTime(creationDateTime)
+                    .keySchema(definition.keySchema())
+                    .attributeDefinitions(definition.attributeDefinitions())
+                    .itemCount((long) items.size())
+                    .globalSecondaryIndexes(indexes.values().stream()
+                            .map(index -> GlobalSecondaryIndexDescription.builder()
+                                    .indexName(index.name)
+                                    .keySchema(keySchema(index))
+                                    .projection(index.projection)
+                                    .indexStatus(IndexStatus.ACTIVE)
+                                    .itemCount((long) index.entries.size())
+                                    .build())
+                            .toList())
+                    .build();
+        }
+
+        private static List<KeySchemaElement> keySchema(Index index) {
+            List<KeySchemaElement> keySchema = new ArrayList<>();
+            keySchema.add(KeySchemaElement.builder().attributeName(index.hashKey).keyType(KeyType.HASH).build());
+            if (index.rangeKey != null) {
+                keySchema.add(KeySchemaElement.builder().attributeName(index.rangeKey).keyType(KeyType.RANGE).build());
+            }
+            return keySchema;
+        }
+    }
+
+    private static String keyAttribute(List<KeySchemaElement> keySchema, KeyType keyType) {
+        return keySchema.stream()
+                .filter(element -> element.keyType() == keyType)
+                .map(KeySchemaElement::attributeName)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,458 @@
+package com.example.project6.dao;
+
+import com.example.project6.Enum.Role;
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.Util;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.entity.Account;
+import com.example.project6.entity.AccountTaskLink;
+import com.example.project6.entity.AccountTaskStats;
+import com.example.project6.entity.Task;
+import com.example.project6.entity.TaskAccountLink;
+import com.example.project6.util.KeyCodec;
+import com.example.project6.util.TimeOrderedUuid;
+import com.example.project6.util.entityAndDtoMappers.UUIDConverter;
+import com.example.project6.exception.PreconditionFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryDynamoDbClientTest {
+    /*
+     * Runs the repositories against the in-memory client, to check it behaves like DynamoDB
+     * for the requests the dao package sends.
+     * */
+
+    private InMemoryDynamoDbClient dynamoDbClient;
+    private BatchGetItemLoader batchGetItemLoader;
+    private AccountRepository accountRepository;
+    private AccountTasksRepository accountTasksRepository;
+    private AccountTaskStatsRepository accountTaskStatsRepository;
+    private TaskRepository taskRepository;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient = new InMemoryDynamoDbClient();
+        dynamoDbClient.createTable(new Util().buildCreateTableRequest());
+
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+        batchGetItemLoader = new BatchGetItemLoader(dynamoDbClient, 1);
+        accountRepository = new AccountRepository(enhancedClient.table("app", TableSchemas.ACCOUNT), dynamoDbClient,
+                new InMemoryDynamoDbAsyncClient(dynamoDbClient), 4);
+        accountTasksRepository = new AccountTasksRepository(dynamoDbClient,
+                enhancedClient.table("app", TableSchemas.ACCOUNT_TASK_LINK), batchGetItemLoader);
+        accountTaskStatsRepository = new AccountTaskStatsRepository(
+                enhancedClient.table("app", TableSchemas.ACCOUNT_TASK_STATS), dynamoDbClient, batchGetItemLoader,
+                new UUIDConverter());
+        taskRepository = new TaskRepository(enhancedClient.table("app", TableSchemas.TASK), dynamoDbClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchGetItemLoader.shutdown();
+    }
+
+    @Test
+    void shouldQueryAccountsThroughTheGlobalSecondaryIndexes() {
+        List<Account> accounts = Util.buildAccounts();
+        accounts.forEach(Account::generateAccountUuid);
+        accounts.forEach(accountRepository::save);
+
+        assertThat(accountRepository.findByEmail("e3@email.com"))
+                .hasValueSatisfying(account -> assertThat(account.getAccountUuid())
+                        .isEqualTo(accounts.get(2).getAccountUuid()));
+        assertThat(accountRepository.findByEmail("missing@email.com")).isEmpty();
+        assertThat(accountRepository.getAllByRole(Role.ADMIN))
+                .extracting(Account::getAccountUuid)
+                .containsExactlyInAnyOrder(accounts.get(0).getAccountUuid(), accounts.get(1).getAccountUuid());
+    }
+
+    @Test
+    void shouldPageThroughTheRoleShardsInAccountOrder() {
+        // 30 employees spread over the 4 shards, and an admin that shouldn't be listed.
+        List<String> expectedPks = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Account employee = Account.builder().withName("employee" + i).withRole(Role.EMPLOYEE).build();
+            employee.generateAccountUuid();
+            accountRepository.save(employee);
+            expectedPks.add(employee.getPk());
+        }
+        Account admin = Account.builder().withName("admin").withRole(Role.ADMIN).build();
+        admin.generateAccountUuid();
+        accountRepository.save(admin);
+        expectedPks.sort(Comparator.naturalOrder());
+
+        // read the employees 7 at a time.
+        List<String> pks = new ArrayList<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        int pages = 0;
+        do {
+            QueryPage<Account> page = accountRepository.getPageByRole(Role.EMPLOYEE, 7, exclusiveStartKey);
+            page.items().forEach(account -> pks.add(account.getPk()));
+            exclusiveStartKey = page.lastEvaluatedKey();
+            pages++;
+        } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+
+        assertThat(pks).containsExactlyElementsOf(expectedPks);
+        assertThat(pages).isEqualTo(5);
+        assertThat(accountRepository.getAllByRole(Role.EMPLOYEE))
+                .extracting(Account::getPk)
+                .containsExactlyElementsOf(expectedPks);
+    }
+
+    @Test
+    void shouldBackfillTheRoleShardOfAccountsSavedWithoutOne() {
+        Account employee = Account.builder().withName("employee").withRole(Role.EMPLOYEE).build();
+        employee.generateAccountUuid();
+        DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build()
+                .table("app", TableSchemas.ACCOUNT)
+                .putItem(employee);
+        assertThat(accountRepository.getAllByRole(Role.EMPLOYEE)).isEmpty();
+
+        assertThat(accountRepository.backfillRoleShards()).isEqualTo(1);
+        assertThat(accountRepository.backfillRoleShards()).isZero();
+        assertThat(accountRepository.getAllByRole(Role.EMPLOYEE))
+                .extracting(Account::getAccountUuid)
+                .containsExactly(employee.getAccountUuid());
+    }
+
+    @Test
+    void shouldRestoreTheSameItemsFromAnExportedSnapshot(@TempDir Path directory) throws IOException {
+        List<Account> accounts = Util.buildAccounts();
+        accounts.forEach(Account::generateAccountUuid);
+        accounts.forEach(accountRepository::save);
+        taskRepository.save(buildTask());
+        accountTasksRepository.save(buildAccountTaskLink(accounts.get(2).getAccountUuid(), UUID.randomUUID()));
+        ScanResponse exportedItems = dynamoDbClient.scan(ScanRequest.builder().tableName("app").build());
+
+        Path snapshot = directory.resolve("app.snapshot");
+        TableSnapshotRepository exporter = new TableSnapshotRepository(dynamoDbClient, 3, 1000, 1000);
+        SnapshotJob export = new SnapshotJob(SnapshotJob.Type.EXPORT, "app.snapshot");
+        exporter.export(snapshot, export);
+        exporter.shutdown();
+        assertThat(export.getItems()).isEqualTo(exportedItems.count());
+
+        // import into an empty table.
+        InMemoryDynamoDbClient restoredClient = new InMemoryDynamoDbClient();
+        restoredClient.createTable(new Util().buildCreateTableRequest());
+        TableSnapshotRepository importer = new TableSnapshotRepository(restoredClient, 2, 1000, 1000);
+        importer.importSnapshot(snapshot, new SnapshotJob(SnapshotJob.Type.IMPORT, "app.snapshot"));
+        importer.shutdown();
+
+        assertThat(restoredClient.scan(ScanRequest.builder().tableName("app").build()).items())
+                .containsExactlyInAnyOrderElementsOf(exportedItems.items());
+    }
+
+    @Test
+    void shouldPageThroughAPartitionInSortKeyOrder() {
+        // save 5 tasks for the account, and a task of another account in a neighbouring partition.
+        UUID accountUuid = UUID.randomUUID();
+        List<String> expectedSortKeys = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AccountTaskLink accountTaskLink = buildAccountTaskLink(accountUuid, UUID.randomUUID());
+            accountTasksRepository.save(accountTaskLink);
+            expectedSortKeys.add(accountTaskLink.getSk());
+        }
+        accountTasksRepository.save(buildAccountTaskLink(UUID.randomUUID(), UUID.randomUUID()));
+        expectedSortKeys.sort(Comparator.naturalOrder());
+
+        // read the partition 2 items at a time.
+        List<String> sortKeys = new ArrayList<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        int pages = 0;
+        do {
+            QueryPage<AccountTaskLink> page = accountTasksRepository.getAccountTasksPage(accountUuid, 2, exclusiveStartKey);
+            page.items().forEach(accountTaskLink -> sortKeys.add(accountTaskLink.getSk()));
+            exclusiveStartKey = page.lastEvaluatedKey();
+            pages++;
+        } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+
+        assertThat(sortKeys).containsExactlyElementsOf(expectedSortKeys);
+        assertThat(pages).isEqualTo(3);
+        assertThat(accountTasksRepository.getAccountTasks(accountUuid)).hasSize(5);
+    }
+
+    @Test
+    void shouldListTheAccountTasksOfAStatusNewestFirst() {
+        // 3 tasks in progress, a task that is done, and a link saved before the status was denormalized.
+        UUID accountUuid = UUID.randomUUID();
+        List<UUID> inProgressTaskUuids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            UUID taskUuid = TimeOrderedUuid.generate();
+            AccountTaskLink accountTaskLink = buildAccountTaskLink(accountUuid, taskUuid);
+            accountTaskLink.setTaskStatus(TaskStatus.IN_PROGRESS);
+            accountTasksRepository.save(accountTaskLink);
+            inProgressTaskUuids.add(0, taskUuid);
+        }
+        AccountTaskLink doneTaskLink = buildAccountTaskLink(accountUuid, TimeOrderedUuid.generate());
+        doneTaskLink.setTaskStatus(TaskStatus.DONE);
+        accountTasksRepository.save(doneTaskLink);
+        accountTasksRepository.save(buildAccountTaskLink(accountUuid, TimeOrderedUuid.generate()));
+
+        // read them 2 at a time.
+        List<UUID> taskUuids = new ArrayList<>();
+        Map<String, AttributeValue> exclusiveStartKey = null;
+        do {
+            QueryPage<AccountTaskLink> page = accountTasksRepository
+                    .getAccountTasksPageByStatus(accountUuid, TaskStatus.IN_PROGRESS, 2, exclusiveStartKey);
+            page.items().forEach(accountTaskLink -> taskUuids.add(accountTaskLink.getTaskUuid()));
+            exclusiveStartKey = page.lastEvaluatedKey();
+        } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+
+        assertThat(taskUuids).containsExactlyElementsOf(inProgressTaskUuids);
+        assertThat(accountTasksRepository.getAccountTasksPageByStatus(accountUuid, TaskStatus.TODO, 10, null).items())
+                .isEmpty();
+    }
+
+    @Test
+    void shouldBackfillTheTaskStatusOfAccountTaskLinksSavedWithoutOne() {
+        Task task = taskRepository.save(buildTask());
+        UUID accountUuid = UUID.randomUUID();
+        accountTasksRepository.save(buildAccountTaskLink(accountUuid, task.getTaskUuid()));
+        DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build()
+                .table("app", TableSchemas.TASK_ACCOUNT_LINK)
+                .putItem(TaskAccountLink.builder().withTaskUuid(task.getTaskUuid()).withAccountUuid(accountUuid).build());
+        assertThat(accountTasksRepository.getAccountTasksPageByStatus(accountUuid, TaskStatus.TODO, 10, null).items())
+                .isEmpty();
+
+        assertThat(accountTasksRepository.backfillTaskStatus()).isEqualTo(1);
+        assertThat(accountTasksRepository.backfillTaskStatus()).isZero();
+        assertThat(accountTasksRepository.getAccountTasksPageByStatus(accountUuid, TaskStatus.TODO, 10, null).items())
+                .extracting(AccountTaskLink::getTaskUuid)
+                .containsExactly(task.getTaskUuid());
+    }
+
+    @Test
+    void shouldCountTheAccountTasksIncrementallyAndRecountThem() {
+        UUID accountUuid = UUID.randomUUID();
+        UUID otherAccountUuid = UUID.randomUUID();
+
+        // 2 tasks to do are shared with the account, one of them is done, then un-shared.
+        commit(accountTaskStatsRepository.generateAddTransactWriteItem(accountUuid, TaskStatus.TODO, 1));
+        commit(accountTaskStatsRepository.generateAddTransactWriteItem(accountUuid, TaskStatus.TODO, 1));
+        commit(accountTaskStatsRepository.generateMoveTransactWriteItem(accountUuid, TaskStatus.TODO, TaskStatus.DONE));
+        commit(accountTaskStatsRepository.generateAddTransactWriteItem(accountUuid, TaskStatus.DONE, -1));
+        commit(accountTaskStatsRepository.generateAddTransactWriteItem(otherAccountUuid, TaskStatus.DONE, 1));
+
+        assertThat(accountTaskStatsRepository.load(accountUuid, true)).hasValueSatisfying(stats -> {
+            assertThat(stats.getTaskCount()).isEqualTo(1L);
+            assertThat(stats.getCount(TaskStatus.TODO)).isEqualTo(1L);
+            assertThat(stats.getCount(TaskStatus.DONE)).isZero();
+            assertThat(stats.getVersion()).isEqualTo(4L);
+        });
+        assertThat(accountTaskStatsRepository.loadAll(List.of(accountUuid, otherAccountUuid, UUID.randomUUID())))
+                .extracting(AccountTaskStats::getAccountUuid)
+                .containsExactlyInAnyOrder(accountUuid, otherAccountUuid);
+
+        // the counters don't match the links of the account (saved without counting them), until it is recounted.
+        for (TaskStatus status : List.of(TaskStatus.IN_PROGRESS, TaskStatus.IN_PROGRESS, TaskStatus.DONE)) {
+            AccountTaskLink accountTaskLink = buildAccountTaskLink(accountUuid, TimeOrderedUuid.generate());
+            accountTaskLink.setTaskStatus(status);
+            accountTasksRepository.save(accountTaskLink);
+        }
+        accountTaskStatsRepository.recount(accountUuid);
+
+        assertThat(accountTaskStatsRepository.load(accountUuid, true)).hasValueSatisfying(stats -> {
+            assertThat(stats.getTaskCount()).isEqualTo(3L);
+            assertThat(stats.getCount(TaskStatus.TODO)).isZero();
+            assertThat(stats.getCount(TaskStatus.IN_PROGRESS)).isEqualTo(2L);
+            assertThat(stats.getCount(TaskStatus.DONE)).isEqualTo(1L);
+            assertThat(stats.getVersion()).isEqualTo(5L);
+        });
+    }
+
+    @Test
+    void shouldStoreLongTaskDescriptionsCompressedAndReadPlainOnes() {
+        Task task = buildTask();
+        task.setDescription("collect the numbers of the last three months and summarize them. ".repeat(40));
+        taskRepository.save(task);
+
+        Map<String, AttributeValue> key = Map.of(
+                "pk", AttributeValue.builder().s(task.getPk()).build(),
+                "sk", AttributeValue.builder().s(task.getSk()).build());
+        AttributeValue storedDescription = dynamoDbClient
+                .getItem(GetItemRequest.builder().tableName("app").key(key).build())
+                .item()
+                .get("task_description");
+        assertThat(storedDescription.b()).isNotNull();
+        assertThat(storedDescription.b().asByteArray().length).isLessThan(task.getDescription().length() / 4);
+        assertThat(taskRepository.load(task)).hasValueSatisfying(t ->
+                assertThat(t.getDescription()).isEqualTo(task.getDescription()));
+
+        // a long description written as a plain string (before the compression) is read as is.
+        Map<String, AttributeValue> legacyItem = new HashMap<>(
+                dynamoDbClient.getItem(GetItemRequest.builder().tableName("app").key(key).build()).item());
+        legacyItem.put("task_description", AttributeValue.builder().s(task.getDescription()).build());
+        dynamoDbClient.putItem(PutItemRequest.builder().tableName("app").item(legacyItem).build());
+        assertThat(taskRepository.load(task)).hasValueSatisfying(t ->
+                assertThat(t.getDescription()).isEqualTo(task.getDescription()));
+    }
+
+    @Test
+    void shouldReadUuidAttributesWrittenInEitherEncoding() {
+        UUID accountUuid = UUID.randomUUID();
+        AccountTaskLink textLink = buildAccountTaskLink(accountUuid, TimeOrderedUuid.generate());
+        AccountTaskLink binaryLink = buildAccountTaskLink(accountUuid, TimeOrderedUuid.generate());
+        // the same table, written by an instance configured with BINARY (see DynamoDBConfig).
+        UUIDConverter binaryConverter = new UUIDConverter(KeyCodec.UuidEncoding.BINARY);
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+        AccountTasksRepository binaryAccountTasksRepository = new AccountTasksRepository(dynamoDbClient,
+                enhancedClient.table("app", TableSchemas.accountTaskLink(binaryConverter)), batchGetItemLoader);
+        AccountTaskStatsRepository binaryAccountTaskStatsRepository = new AccountTaskStatsRepository(
+                enhancedClient.table("app", TableSchemas.accountTaskStats(binaryConverter)), dynamoDbClient,
+                batchGetItemLoader, binaryConverter);
+        accountTasksRepository.save(textLink);
+        binaryAccountTasksRepository.save(binaryLink);
+        dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(
+                binaryAccountTaskStatsRepository.generateAddTransactWriteItem(accountUuid, TaskStatus.TODO, 1)).build());
+
+        AttributeValue storedTaskUuid = dynamoDbClient.getItem(GetItemRequest.builder().tableName("app").key(Map.of(
+                        "pk", AttributeValue.builder().s(binaryLink.getPk()).build(),
+                        "sk", AttributeValue.builder().s(binaryLink.getSk()).build())).build())
+                .item()
+                .get("task_uuid");
+        assertThat(storedTaskUuid.b().asByteArray()).hasSize(16);
+        assertThat(accountTasksRepository.getAccountTasks(accountUuid))
+                .extracting(AccountTaskLink::getTaskUuid)
+                .containsExactly(textLink.getTaskUuid(), binaryLink.getTaskUuid());
+
+        // the counters updated through an update expression are written in the same encoding.
+        AccountTaskStats key = AccountTaskStats.builder().withAccountUuid(accountUuid).build();
+        AttributeValue storedAccountUuid = dynamoDbClient.getItem(GetItemRequest.builder().tableName("app").key(Map.of(
+                        "pk", AttributeValue.builder().s(key.getPk()).build(),
+                        "sk", AttributeValue.builder().s(key.getSk()).build())).build())
+                .item()
+                .get("account_uuid");
+        assertThat(storedAccountUuid.b().asByteArray()).hasSize(16);
+        assertThat(accountTaskStatsRepository.load(accountUuid, true))
+                .hasValueSatisfying(stats -> assertThat(stats.getAccountUuid()).isEqualTo(accountUuid));
+    }
+
+    @Test
+    void shouldNotApplyAnyActionOfACancelledTransaction() {
+        Task task = taskRepository.save(buildTask());
+        Task newTask = buildTask();
+
+        // the new task can be created, but the stored task doesn't have the expected version.
+        TransactWriteItemsRequest request = TransactWriteItemsRequest.builder()
+                .transactItems(
+                        taskRepository.generateVersionedPutTransactWriteItem(newTask),
+                        TransactWriteItem.builder()
+                                .put(VersionedWrites.conditionOnVersion(taskRepository.generatePutAction(task), 7L))
+                                .build()
+                )
+                .build();
+
+        assertThatThrownBy(() -> dynamoDbClient.transactWriteItems(request))
+                .isInstanceOfSatisfying(TransactionCanceledException.class, e -> {
+                    assertThat(e.cancellationReasons())
+                            .extracting(CancellationReason::code)
+                            .containsExactly("None", VersionedWrites.CONDITIONAL_CHECK_FAILED);
+                    assertThat(VersionedWrites.isWriteConflict(e)).isTrue();
+                });
+        assertThat(taskRepository.load(newTask)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectTransactionsWithMultipleActionsOnOneItem() {
+        Task task = buildTask();
+        TransactWriteItemsRequest request = TransactWriteItemsRequest.builder()
+                .transactItems(
+                        TransactWriteItem.builder().put(taskRepository.generatePutAction(task)).build(),
+                        TransactWriteItem.builder().put(taskRepository.generatePutAction(task)).build()
+                )
+                .build();
+
+        assertThatThrownBy(() -> dynamoDbClient.transactWriteItems(request))
+                .isInstanceOf(DynamoDbException.class)
+                .hasMessageContaining("multiple operations on one item");
+        assertThat(taskRepository.load(task)).isEmpty();
+    }
+
+    @Test
+    void shouldIncrementTheVersionOnlyWhenItIsTheExpectedOne() {
+        Task task = taskRepository.save(buildTask());
+        task.setTitle("updated title");
+
+        Optional<Task> updatedTask = taskRepository.updateAttributes(task, List.of("task_title"), null);
+        assertThat(updatedTask).hasValueSatisfying(t -> {
+            assertThat(t.getTitle()).isEqualTo("updated title");
+            assertThat(t.getVersion()).isEqualTo(1L);
+        });
+
+        // a stale version fails, a missing task is reported as empty.
+        assertThatThrownBy(() -> taskRepository.updateAttributes(task, List.of("task_title"), 5L))
+                .isInstanceOf(PreconditionFailedException.class);
+        Task missingTask = buildTask();
+        assertThat(taskRepository.updateAttributes(missingTask, List.of("task_title"), null)).isEmpty();
+    }
+
+    @Test
+    void shouldLoadItemsInBatches() {
+        UUID accountUuid = UUID.randomUUID();
+        List<AccountTaskLink> accountTaskLinks = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            AccountTaskLink accountTaskLink = buildAccountTaskLink(accountUuid, UUID.randomUUID());
+            accountTasksRepository.save(accountTaskLink);
+            accountTaskLinks.add(accountTaskLink);
+        }
+        // a key that doesn't exist is skipped.
+        List<AccountTaskLink> keys = new ArrayList<>(accountTaskLinks);
+        keys.add(buildAccountTaskLink(accountUuid, UUID.randomUUID()));
+
+        assertThat(batchGetItemLoader.loadAll(
+                DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build()
+                        .table("app", TableSchemas.ACCOUNT_TASK_LINK),
+                keys))
+                .extracting(AccountTaskLink::getTaskUuid)
+                .containsExactlyElementsOf(accountTaskLinks.stream().map(AccountTaskLink::getTaskUuid).toList());
+    }
+
+    @Test
+    void shouldRejectUnusedExpressionAttributeValues() {
+        QueryRequest request = QueryRequest.builder()
+                .tableName("app")
+                .keyConditionExpression("pk = :pk")
+                .expressionAttributeValues(Map.of(
+                        ":pk", AttributeValue.builder().s("ACCOUNT#1").build(),
+                        ":unused", AttributeValue.builder().s("value").build()
+                ))
+                .build();
+
+        assertThatThrownBy(() -> dynamoDbClient.query(request))
+                .isInstanceOf(DynamoDbException.class)
+                .hasMessageContaining("unused in expressions");
+    }
+
+    private static Task buildTask() {
+        return Task.builder()
+                .withTaskUuid(UUID.randomUUID())
+                .withTitle("fixBugs")
+                .withDescription("fixing bugs in bugy controller.")
+                .withStatus(TaskStatus.TODO)
+                .build();
+    }
+
+    private void commit(TransactWriteItem transactWriteItem) {
+        dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(transactWriteItem).build());
+    }
+
+    private static AccountTaskLink buildAccountTaskLink(UUID accountUuid, UUID taskUuid) {
+        return AccountTaskLink.builder()
+                .withAccountUuid(accountUuid)
+                .withAccountName("Ahmed")
+                .withTaskUuid(taskUuid)
+                .withTaskTitle("fixBugs")
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.project6.dao;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+@TestConfiguration
+public class InMemoryDynamoDbConfig {
+    /*
+     * Replaces the DynamoDB clients with the in-memory client, so a Spring Boot test runs without LocalStack.
+     * usage: @SpringBootTest @Import(InMemoryDynamoDbConfig.class), the test still creates the "app" table
+     * (e.g. with Util.buildCreateTableRequest()) through the injected DynamoDbClient.
+     * */
+
+    @Bean
+    @Primary
+    public InMemoryDynamoDbClient inMemoryDynamoDbClient() {
+        return new InMemoryDynamoDbClient();
+    }
+
+    @Bean
+    @Primary
+    public DynamoDbAsyncClient inMemoryDynamoDbAsyncClient(InMemoryDynamoDbClient inMemoryDynamoDbClient) {
+        return new InMemoryDynamoDbAsyncClient(inMemoryDynamoDbClient);
+    }
+}
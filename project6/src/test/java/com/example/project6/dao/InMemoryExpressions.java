@@ -0,0 +1,759 @@
+package com.example.project6.dao;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+class InMemoryExpressions {
+    /*
+     * Parses and evaluates the DynamoDB expressions used by the dao package, for the InMemoryDynamoDbClient.
+     *   - conditions (key conditions, filters, condition expressions): comparisons, BETWEEN, IN, AND / OR / NOT,
+     *       attribute_exists, attribute_not_exists, begins_with, contains and size.
+     *   - update expressions: SET (with +, -, if_not_exists, list_append), REMOVE, ADD and DELETE.
+     *   - projection expressions.
+     * Only top level attributes are supported, nested paths (a.b, a[0]) are rejected.
+     * Placeholders are resolved through an ExpressionContext, which also records the used placeholders,
+     * so unused ones can be rejected like DynamoDB does.
+     * */
+
+    private InMemoryExpressions() {
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // placeholders.
+
+    static class ExpressionContext {
+        private final Map<String, String> names;
+        private final Map<String, AttributeValue> values;
+        private final Set<String> usedNames = new HashSet<>();
+        private final Set<String> usedValues = new HashSet<>();
+
+        ExpressionContext(Map<String, String> names, Map<String, AttributeValue> values) {
+            this.names = names == null ? Map.of() : names;
+            this.values = values == null ? Map.of() : values;
+        }
+
+        String name(String token) {
+            if (!token.startsWith("#")) {
+                return token;
+            }
+            String name = names.get(token);
+            if (name == null) {
+                throw new ExpressionException("An expression attribute name used in the document path is not defined; "
+                        + "attribute name: " + token);
+            }
+            usedNames.add(token);
+            return name;
+        }
+
+        AttributeValue value(String token) {
+            AttributeValue value = values.get(token);
+            if (value == null) {
+                throw new ExpressionException("An expression attribute value used in expression is not defined; "
+                        + "attribute value: " + token);
+            }
+            usedValues.add(token);
+            return value;
+        }
+
+        void checkAllUsed() {
+            // DynamoDB rejects placeholders that aren't used by any expression of the request.
+            for (String name : names.keySet()) {
+                if (!usedNames.contains(name)) {
+                    throw new ExpressionException("Value provided in ExpressionAttributeNames unused in expressions: keys: {"
+                            + name + "}");
+                }
+            }
+            for (String value : values.keySet()) {
+                if (!usedValues.contains(value)) {
+                    throw new ExpressionException("Value provided in ExpressionAttributeValues unused in expressions: keys: {"
+                            + value + "}");
+                }
+            }
+        }
+    }
+
+    static class ExpressionException extends RuntimeException {
+        ExpressionException(String message) {
+            super(message);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // conditions.
+
+    interface Operand {
+        // returns null when the operand refers to a missing attribute.
+        AttributeValue evaluate(Map<String, AttributeValue> item);
+    }
+
+    record Path(String name) implements Operand {
+        public AttributeValue evaluate(Map<String, AttributeValue> item) {
+            return item.get(name);
+        }
+    }
+
+    record Value(AttributeValue value) implements Operand {
+        public AttributeValue evaluate(Map<String, AttributeValue> item) {
+            return value;
+        }
+    }
+
+    record Size(Path path) implements Operand {
+        public AttributeValue evaluate(Map<String, AttributeValue> item) {
+            AttributeValue value = path.evaluate(item);
+            if (value == null) {
+                return null;
+            }
+            int size;
+            if (value.s() != null) {
+                size = value.s().length();
+            } else if (value.b() != null) {
+                size = value.b().asByteArray().length;
+            } else if (value.hasSs()) {
+                size = value.ss().size();
+            } else if (value.hasNs()) {
+                size = value.ns().size();
+            } else if (value.hasBs()) {
+                size = value.bs().size();
+            } else if (value.hasL()) {
+                size = value.l().size();
+            } else if (value.hasM()) {
+                size = value.m().size();
+            } else {
+                return null;
+            }
+            return AttributeValue.builder().n(Integer.toString(size)).build();
+        }
+    }
+
+    interface Condition {
+        boolean test(Map<String, AttributeValue> item);
+    }
+
+    record And(Condition left, Condition right) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            return left.test(item) && right.test(item);
+        }
+    }
+
+    record Or(Condition left, Condition right) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            return left.test(item) || right.test(item);
+        }
+    }
+
+    record Not(Condition condition) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            return !condition.test(item);
+        }
+    }
+
+    record Comparison(String operator, Operand left, Operand right) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue leftValue = left.evaluate(item);
+            AttributeValue rightValue = right.evaluate(item);
+            if (leftValue == null || rightValue == null) {
+                // a comparison with a missing attribute is false.
+                return false;
+            }
+            return switch (operator) {
+                case "=" -> valuesEqual(leftValue, rightValue);
+                case "<>" -> !valuesEqual(leftValue, rightValue);
+                default -> {
+                    Integer result = compareScalars(leftValue, rightValue);
+                    if (result == null) {
+                        yield false;
+                    }
+                    yield switch (operator) {
+                        case "<" -> result < 0;
+                        case "<=" -> result <= 0;
+                        case ">" -> result > 0;
+                        case ">=" -> result >= 0;
+                        default -> throw new IllegalStateException("unknown operator: " + operator);
+                    };
+                }
+            };
+        }
+    }
+
+    record Between(Operand operand, Operand low, Operand high) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue value = operand.evaluate(item);
+            AttributeValue lowValue = low.evaluate(item);
+            AttributeValue highValue = high.evaluate(item);
+            if (value == null || lowValue == null || highValue == null) {
+                return false;
+            }
+            Integer lowResult = compareScalars(value, lowValue);
+            Integer highResult = compareScalars(value, highValue);
+            return lowResult != null && highResult != null && lowResult >= 0 && highResult <= 0;
+        }
+    }
+
+    record In(Operand operand, List<Operand> candidates) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue value = operand.evaluate(item);
+            if (value == null) {
+                return false;
+            }
+            for (Operand candidate : candidates) {
+                AttributeValue candidateValue = candidate.evaluate(item);
+                if (candidateValue != null && valuesEqual(value, candidateValue)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record AttributeExists(Path path, boolean exists) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            return item.containsKey(path.name()) == exists;
+        }
+    }
+
+    record BeginsWith(Path path, Operand prefix) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue value = path.evaluate(item);
+            AttributeValue prefixValue = prefix.evaluate(item);
+            if (value == null || prefixValue == null) {
+                return false;
+            }
+            if (value.s() != null && prefixValue.s() != null) {
+                return value.s().startsWith(prefixValue.s());
+            }
+            if (value.b() != null && prefixValue.b() != null) {
+                byte[] bytes = value.b().asByteArray();
+                byte[] prefixBytes = prefixValue.b().asByteArray();
+                return bytes.length >= prefixBytes.length
+                        && Arrays.equals(bytes, 0, prefixBytes.length, prefixBytes, 0, prefixBytes.length);
+            }
+            return false;
+        }
+    }
+
+    record Contains(Path path, Operand operand) implements Condition {
+        public boolean test(Map<String, AttributeValue> item) {
+            AttributeValue value = path.evaluate(item);
+            AttributeValue operandValue = operand.evaluate(item);
+            if (value == null || operandValue == null) {
+                return false;
+            }
+            if (value.s() != null && operandValue.s() != null) {
+                return value.s().contains(operandValue.s());
+            }
+            if (value.hasSs() && operandValue.s() != null) {
+                return value.ss().contains(operandValue.s());
+            }
+            if (value.hasNs() && operandValue.n() != null) {
+                return value.ns().stream().anyMatch(n -> new BigDecimal(n).compareTo(new BigDecimal(operandValue.n())) == 0);
+            }
+            if (value.hasBs() && operandValue.b() != null) {
+                return value.bs().contains(operandValue.b());
+            }
+            if (value.hasL()) {
+                return value.l().stream().anyMatch(element -> valuesEqual(element, operandValue));
+            }
+            return false;
+        }
+    }
+
+    static Condition parseCondition(String expression, ExpressionContext context) {
+        Parser parser = new Parser(expression, context);
+        Condition condition = parser.parseOr();
+        parser.expectEnd();
+        return condition;
+    }
+
+    static Map<String, AttributeValue> equalities(Condition condition) {
+        /*
+         * Returns the "attribute = :value" comparisons that all matching items satisfy,
+         * i.e. the comparisons joined by AND at the top level of the condition.
+         * Used to find the partition key value of a key condition.
+         * */
+        Map<String, AttributeValue> equalities = new HashMap<>();
+        collectEqualities(condition, equalities);
+        return equalities;
+    }
+
+    private static void collectEqualities(Condition condition, Map<String, AttributeValue> equalities) {
+        if (condition instanceof And and) {
+            collectEqualities(and.left(), equalities);
+            collectEqualities(and.right(), equalities);
+        } else if (condition instanceof Comparison comparison
+                && comparison.operator().equals("=")
+                && comparison.left() instanceof Path path
+                && comparison.right() instanceof Value value) {
+            equalities.put(path.name(), value.value());
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // update expressions.
+
+    interface Action {
+        // applies the action to the (mutable) item.
+        void apply(Map<String, AttributeValue> item);
+
+        String attribute();
+    }
+
+    record Update(List<Action> actions) {
+        Set<String> apply(Map<String, AttributeValue> item) {
+            // returns the names of the updated attributes.
+            Set<String> updated = new LinkedHashSet<>();
+            // all the values are computed from the item before the update.
+            Map<String, AttributeValue> before = Map.copyOf(item);
+            for (Action action : actions) {
+                Map<String, AttributeValue> view = new HashMap<>(before);
+                action.apply(view);
+                if (view.containsKey(action.attribute())) {
+                    item.put(action.attribute(), view.get(action.attribute()));
+                } else {
+                    item.remove(action.attribute());
+                }
+                updated.add(action.attribute());
+            }
+            return updated;
+        }
+    }
+
+    record SetAction(String attribute, Operand value) implements Action {
+        public void apply(Map<String, AttributeValue> item) {
+            AttributeValue result = value.evaluate(item);
+            if (result == null) {
+                throw new ExpressionException("The provided expression refers to an attribute that does not exist in the item");
+            }
+            item.put(attribute, result);
+        }
+    }
+
+    record RemoveAction(String attribute) implements Action {
+        public void apply(Map<String, AttributeValue> item) {
+            item.remove(attribute);
+        }
+    }
+
+    record AddAction(String attribute, Operand value) implements Action {
+        public void apply(Map<String, AttributeValue> item) {
+            AttributeValue current = item.get(attribute);
+            AttributeValue added = value.evaluate(item);
+            if (current == null) {
+                item.put(attribute, added);
+            } else if (current.n() != null && added.n() != null) {
+                item.put(attribute, number(new BigDecimal(current.n()).add(new BigDecimal(added.n()))));
+            } else if (current.hasSs() && added.hasSs()) {
+                Set<String> union = new LinkedHashSet<>(current.ss());
+                union.addAll(added.ss());
+                item.put(attribute, AttributeValue.builder().ss(union).build());
+            } else if (current.hasNs() && added.hasNs()) {
+                Set<String> union = new LinkedHashSet<>(current.ns());
+                union.addAll(added.ns());
+                item.put(attribute, AttributeValue.builder().ns(union).build());
+            } else if (current.hasBs() && added.hasBs()) {
+                Set<SdkBytes> union = new LinkedHashSet<>(current.bs());
+                union.addAll(added.bs());
+                item.put(attribute, AttributeValue.builder().bs(union).build());
+            } else {
+                throw new ExpressionException("An operand in the update expression has an incorrect data type");
+            }
+        }
+    }
+
+    record DeleteAction(String attribute, Operand value) implements Action {
+        public void apply(Map<String, AttributeValue> item) {
+            AttributeValue current = item.get(attribute);
+            AttributeValue removed = value.evaluate(item);
+            if (current == null) {
+                return;
+            }
+            AttributeValue result;
+            if (current.hasSs() && removed.hasSs()) {
+                List<String> remaining = new ArrayList<>(current.ss());
+                remaining.removeAll(removed.ss());
+                result = remaining.isEmpty() ? null : AttributeValue.builder().ss(remaining).build();
+            } else if (current.hasNs() && removed.hasNs()) {
+                List<String> remaining = new ArrayList<>(current.ns());
+                remaining.removeAll(removed.ns());
+                result = remaining.isEmpty() ? null : AttributeValue.builder().ns(remaining).build();
+            } else if (current.hasBs() && removed.hasBs()) {
+                List<SdkBytes> remaining = new ArrayList<>(current.bs());
+                remaining.removeAll(removed.bs());
+                result = remaining.isEmpty() ? null : AttributeValue.builder().bs(remaining).build();
+            } else {
+                throw new ExpressionException("An operand in the update expression has an incorrect data type");
+            }
+            if (result == null) {
+                item.remove(attribute);
+            } else {
+                item.put(attribute, result);
+            }
+        }
+    }
+
+    record Arithmetic(Operand left, String operator, Operand right) implements Operand {
+        public AttributeValue evaluate(Map<String, AttributeValue> item) {
+            AttributeValue leftValue = left.evaluate(item);
+            AttributeValue rightValue = right.evaluate(item);
+            if (leftValue == null || rightValue == null) {
+                throw new ExpressionException("The provided expression refers to an attribute that does not exist in the item");
+            }
+            if (leftValue.n() == null || rightValue.n() == null) {
+                throw new ExpressionException("An operand in the update expression has an incorrect data type");
+            }
+            BigDecimal leftNumber = new BigDecimal(leftValue.n());
+            BigDecimal rightNumber = new BigDecimal(rightValue.n());
+            return number(operator.equals("+") ? leftNumber.add(rightNumber) : leftNumber.subtract(rightNumber));
+        }
+    }
+
+    record IfNotExists(Path path, Operand fallback) implements Operand {
+        public AttributeValue evaluate(Map<String, AttributeValue> item) {
+            AttributeValue value = path.evaluate(item);
+            return value != null ? value : fallback.evaluate(item);
+        }
+    }
+
+    record ListAppend(Operand first, Operand second) implements Operand {
+        public AttributeValue evaluate(Map<String, AttributeValue> item) {
+            AttributeValue firstValue = first.evaluate(item);
+            AttributeValue secondValue = second.evaluate(item);
+            if (firstValue == null || secondValue == null || !firstValue.hasL() || !secondValue.hasL()) {
+                throw new ExpressionException("An operand in the update expression has an incorrect data type");
+            }
+            List<AttributeValue> list = new ArrayList<>(firstValue.l());
+            list.addAll(secondValue.l());
+            return AttributeValue.builder().l(list).build();
+        }
+    }
+
+    static Update parseUpdate(String expression, ExpressionContext context) {
+        Parser parser = new Parser(expression, context);
+        List<Action> actions = new ArrayList<>();
+        Set<String> clauses = new HashSet<>();
+        while (!parser.atEnd()) {
+            String clause = parser.next().toUpperCase(Locale.ROOT);
+            if (!clauses.add(clause)) {
+                throw new ExpressionException("The \"" + clause + "\" section can only be used once in an update expression");
+            }
+            do {
+                switch (clause) {
+                    case "SET" -> {
+                        Path path = parser.parsePath();
+                        parser.expect("=");
+                        actions.add(new SetAction(path.name(), parser.parseSetValue()));
+                    }
+                    case "REMOVE" -> actions.add(new RemoveAction(parser.parsePath().name()));
+                    case "ADD" -> actions.add(new AddAction(parser.parsePath().name(), parser.parseOperand()));
+                    case "DELETE" -> actions.add(new DeleteAction(parser.parsePath().name(), parser.parseOperand()));
+                    default -> throw new ExpressionException("Invalid UpdateExpression: syntax error; token: " + clause);
+                }
+            } while (parser.accept(","));
+        }
+
+        // an attribute can only be updated once per expression.
+        Set<String> attributes = new HashSet<>();
+        for (Action action : actions) {
+            if (!attributes.add(action.attribute())) {
+                throw new ExpressionException("Invalid UpdateExpression: Two document paths overlap with each other; "
+                        + "path: [" + action.attribute() + "]");
+            }
+        }
+        return new Update(actions);
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // projection expressions.
+
+    static List<String> parseProjection(String expression, ExpressionContext context) {
+        Parser parser = new Parser(expression, context);
+        List<String> attributes = new ArrayList<>();
+        do {
+            attributes.add(parser.parsePath().name());
+        } while (parser.accept(","));
+        parser.expectEnd();
+        return attributes;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // values.
+
+    static boolean valuesEqual(AttributeValue left, AttributeValue right) {
+        if (left.n() != null && right.n() != null) {
+            return new BigDecimal(left.n()).compareTo(new BigDecimal(right.n())) == 0;
+        }
+        return left.equals(right);
+    }
+
+    static Integer compareScalars(AttributeValue left, AttributeValue right) {
+        // orders two values of the same scalar type (S, N or B), returns null if they can't be compared.
+        if (left.s() != null && right.s() != null) {
+            return compareStrings(left.s(), right.s());
+        }
+        if (left.n() != null && right.n() != null) {
+            return new BigDecimal(left.n()).compareTo(new BigDecimal(right.n()));
+        }
+        if (left.b() != null && right.b() != null) {
+            return Arrays.compareUnsigned(left.b().asByteArray(), right.b().asByteArray());
+        }
+        return null;
+    }
+
+    static int compareStrings(String left, String right) {
+        // DynamoDB orders strings by their UTF-8 bytes, which is the order of their code points
+        // (String.compareTo orders UTF-16 code units, which differs for supplementary characters).
+        int leftIndex = 0;
+        int rightIndex = 0;
+        while (leftIndex < left.length() && rightIndex < right.length()) {
+            int leftCodePoint = left.codePointAt(leftIndex);
+            int rightCodePoint = right.codePointAt(rightIndex);
+            if (leftCodePoint != rightCodePoint) {
+                return Integer.compare(leftCodePoint, rightCodePoint);
+            }
+            leftIndex += Character.charCount(leftCodePoint);
+            rightIndex += Character.charCount(rightCodePoint);
+        }
+        return Integer.compare(left.length() - leftIndex, right.length() - rightIndex);
+    }
+
+    static AttributeValue number(BigDecimal number) {
+        return AttributeValue.builder().n(number.stripTrailingZeros().toPlainString()).build();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------
+    // parsing.
+
+    private static class Parser {
+        private final List<String> tokens;
+        private final ExpressionContext context;
+        private int position;
+
+        Parser(String expression, ExpressionContext context) {
+            this.tokens = tokenize(expression);
+            this.context = context;
+        }
+
+        Condition parseOr() {
+            Condition condition = parseAnd();
+            while (acceptKeyword("OR")) {
+                condition = new Or(condition, parseAnd());
+            }
+            return condition;
+        }
+
+        Condition parseAnd() {
+            Condition condition = parseNot();
+            while (acceptKeyword("AND")) {
+                condition = new And(condition, parseNot());
+            }
+            return condition;
+        }
+
+        Condition parseNot() {
+            if (acceptKeyword("NOT")) {
+                return new Not(parseNot());
+            }
+            return parsePrimary();
+        }
+
+        Condition parsePrimary() {
+            if (accept("(")) {
+                Condition condition = parseOr();
+                expect(")");
+                return condition;
+            }
+
+            String token = peek();
+            if (token != null && position + 1 < tokens.size() && tokens.get(position + 1).equals("(")) {
+                switch (token.toLowerCase(Locale.ROOT)) {
+                    case "attribute_exists", "attribute_not_exists" -> {
+                        next();
+                        expect("(");
+                        Path path = parsePath();
+                        expect(")");
+                        return new AttributeExists(path, token.equalsIgnoreCase("attribute_exists"));
+                    }
+                    case "begins_with", "contains" -> {
+                        next();
+                        expect("(");
+                        Path path = parsePath();
+                        expect(",");
+                        Operand operand = parseOperand();
+                        expect(")");
+                        return token.equalsIgnoreCase("begins_with")
+                                ? new BeginsWith(path, operand)
+                                : new Contains(path, operand);
+                    }
+                    default -> {
+                        // size(path) is an operand, handled below.
+                    }
+                }
+            }
+
+            Operand left = parseOperand();
+            if (acceptKeyword("BETWEEN")) {
+                Operand low = parseOperand();
+                if (!acceptKeyword("AND")) {
+                    throw syntaxError();
+                }
+                return new Between(left, low, parseOperand());
+            }
+            if (acceptKeyword("IN")) {
+                expect("(");
+                List<Operand> candidates = new ArrayList<>();
+                do {
+                    candidates.add(parseOperand());
+                } while (accept(","));
+                expect(")");
+                return new In(left, candidates);
+            }
+            String operator = next();
+            if (!List.of("=", "<>", "<", "<=", ">", ">=").contains(operator)) {
+                throw syntaxError();
+            }
+            return new Comparison(operator, left, parseOperand());
+        }
+
+        Operand parseSetValue() {
+            Operand left = parseSetOperand();
+            if (accept("+")) {
+                return new Arithmetic(left, "+", parseSetOperand());
+            }
+            if (accept("-")) {
+                return new Arithmetic(left, "-", parseSetOperand());
+            }
+            return left;
+        }
+
+        Operand parseSetOperand() {
+            String token = peek();
+            if (token != null && position + 1 < tokens.size() && tokens.get(position + 1).equals("(")) {
+                if (token.equalsIgnoreCase("if_not_exists")) {
+                    next();
+                    expect("(");
+                    Path path = parsePath();
+                    expect(",");
+                    Operand fallback = parseSetValue();
+                    expect(")");
+                    return new IfNotExists(path, fallback);
+                }
+                if (token.equalsIgnoreCase("list_append")) {
+                    next();
+                    expect("(");
+                    Operand first = parseSetValue();
+                    expect(",");
+                    Operand second = parseSetValue();
+                    expect(")");
+                    return new ListAppend(first, second);
+                }
+            }
+            return parseOperand();
+        }
+
+        Operand parseOperand() {
+            String token = peek();
+            if (token == null) {
+                throw syntaxError();
+            }
+            if (token.startsWith(":")) {
+                next();
+                return new Value(context.value(token));
+            }
+            if (token.equalsIgnoreCase("size") && position + 1 < tokens.size() && tokens.get(position + 1).equals("(")) {
+                next();
+                expect("(");
+                Path path = parsePath();
+                expect(")");
+                return new Size(path);
+            }
+            return parsePath();
+        }
+
+        Path parsePath() {
+            String token = next();
+            if (token == null || !(token.startsWith("#") || Character.isLetter(token.charAt(0)))) {
+                throw syntaxError();
+            }
+            if (".".equals(peek()) || "[".equals(peek())) {
+                throw new ExpressionException("nested attribute paths aren't supported by the in-memory client: " + token);
+            }
+            return new Path(context.name(token));
+        }
+
+        boolean atEnd() {
+            return position >= tokens.size();
+        }
+
+        void expectEnd() {
+            if (!atEnd()) {
+                throw syntaxError();
+            }
+        }
+
+        String peek() {
+            return atEnd() ? null : tokens.get(position);
+        }
+
+        String next() {
+            return atEnd() ? null : tokens.get(position++);
+        }
+
+        boolean accept(String token) {
+            if (token.equals(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean acceptKeyword(String keyword) {
+            if (keyword.equalsIgnoreCase(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(String token) {
+            if (!accept(token)) {
+                throw syntaxError();
+            }
+        }
+
+        ExpressionException syntaxError() {
+            return new ExpressionException("Invalid expression: Syntax error; token: \""
+                    + (atEnd() ? "<EOF>" : peek()) + "\", near: \"" + String.join(" ", tokens) + "\"");
+        }
+
+        private static List<String> tokenize(String expression) {
+            List<String> tokens = new ArrayList<>();
+            int i = 0;
+            while (i < expression.length()) {
+                char c = expression.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (Character.isLetterOrDigit(c) || c == '_' || c == '#' || c == ':') {
+                    int start = i++;
+                    while (i < expression.length()
+                            && (Character.isLetterOrDigit(expression.charAt(i)) || expression.charAt(i) == '_')) {
+                        i++;
+                    }
+                    tokens.add(expression.substring(start, i));
+                } else if ((c == '<' || c == '>') && i + 1 < expression.length()
+                        && (expression.charAt(i + 1) == '=' || (c == '<' && expression.charAt(i + 1) == '>'))) {
+                    tokens.add(expression.substring(i, i + 2));
+                    i += 2;
+                } else if ("()=<>,+-.[]".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else {
+                    throw new ExpressionException("Invalid expression: Syntax error; token: \"" + c + "\"");
+                }
+            }
+            return tokens;
+        }
+    }
+}
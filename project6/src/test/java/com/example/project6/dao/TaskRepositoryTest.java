@@ -0,0 +1,125 @@
+package com.example.project6.dao;
+
+import com.example.project6.Enum.TaskStatus;
+import com.example.project6.Util;
+import com.example.project6.config.TableSchemas;
+import com.example.project6.entity.Task;
+import com.example.project6.exception.PreconditionFailedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskRepositoryTest {
+
+    private TaskRepository taskRepository;
+    private final List<GetItemRequest> getItemRequests = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient() {
+            @Override
+            public GetItemResponse getItem(GetItemRequest request) {
+                getItemRequests.add(request);
+                return super.getItem(request);
+            }
+        };
+        dynamoDbClient.createTable(new Util().buildCreateTableRequest());
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+        taskRepository = new TaskRepository(enhancedClient.table("app", TableSchemas.TASK), dynamoDbClient);
+    }
+
+    @Test
+    void shouldUpdateOnlyTheGivenAttributesAndIncrementTheVersion() {
+        Task task = taskRepository.save(buildTask(3L));
+
+        Task update = Task.builder().withTaskUuid(task.getTaskUuid()).withDescription("new description").build();
+        Task updatedTask = taskRepository.updateAttributes(update, List.of("task_description"), 3L).orElseThrow();
+
+        // the returned task is the stored one, the attributes that weren't given are kept.
+        assertThat(updatedTask.getDescription()).isEqualTo("new description");
+        assertThat(updatedTask.getTitle()).isEqualTo("title");
+        assertThat(updatedTask.getStatus()).isEqualTo(TaskStatus.TODO);
+        assertThat(updatedTask.getVersion()).isEqualTo(4L);
+        assertThat(taskRepository.load(task, true).orElseThrow().getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void shouldUpdateWithoutAnExpectedVersion() {
+        Task task = taskRepository.save(buildTask(3L));
+
+        Task update = Task.builder().withTaskUuid(task.getTaskUuid()).withDescription("new description").build();
+
+        assertThat(taskRepository.updateAttributes(update, List.of("task_description"), null))
+                .hasValueSatisfying(updatedTask -> assertThat(updatedTask.getVersion()).isEqualTo(4L));
+    }
+
+    @Test
+    void shouldVersionATaskWrittenBeforeVersioning() {
+        // an unversioned task is read as version 0, and gets version 1 on its first update.
+        Task task = taskRepository.save(buildTask(null));
+
+        Task update = Task.builder().withTaskUuid(task.getTaskUuid()).withDescription("new description").build();
+
+        assertThat(taskRepository.updateAttributes(update, List.of("task_description"), 0L))
+                .hasValueSatisfying(updatedTask -> assertThat(updatedTask.getVersion()).isEqualTo(1L));
+    }
+
+    @Test
+    void shouldNotUpdateATaskThatDoesNotExist() {
+        // the update doesn't create the task: the controller answers 404 NOT FOUND.
+        Task update = Task.builder().withTaskUuid(UUID.randomUUID()).withDescription("new description").build();
+
+        assertThat(taskRepository.updateAttributes(update, List.of("task_description"), null)).isEmpty();
+        assertThat(taskRepository.updateAttributes(update, List.of("task_description"), 1L)).isEmpty();
+        assertThat(taskRepository.load(update, true)).isEmpty();
+    }
+
+    @Test
+    void shouldNotUpdateATaskThatHasAnotherVersion() {
+        // the controller answers 412 PRECONDITION FAILED, and the task is left as it was.
+        Task task = taskRepository.save(buildTask(3L));
+
+        Task update = Task.builder().withTaskUuid(task.getTaskUuid()).withDescription("new description").build();
+
+        assertThatThrownBy(() -> taskRepository.updateAttributes(update, List.of("task_description"), 2L))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> taskRepository.updateAttributes(update, List.of("task_description"), 0L))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        Task storedTask = taskRepository.load(task, true).orElseThrow();
+        assertThat(storedTask.getDescription()).isEqualTo("description");
+        assertThat(storedTask.getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void shouldReadEventuallyConsistentUnlessAskedOtherwise() {
+        Task task = taskRepository.save(buildTask(1L));
+
+        assertThat(taskRepository.load(task)).isPresent();
+        assertThat(taskRepository.load(task, true)).isPresent();
+
+        assertThat(getItemRequests).hasSize(2);
+        assertThat(getItemRequests.get(0).consistentRead()).isFalse();
+        assertThat(getItemRequests.get(1).consistentRead()).isTrue();
+    }
+
+    private static Task buildTask(Long version) {
+        return Task
+                .builder()
+                .withTaskUuid(UUID.randomUUID())
+                .withTitle("title")
+                .withDescription("description")
+                .withStatus(TaskStatus.TODO)
+                .withVersion(version)
+                .build();
+    }
+}
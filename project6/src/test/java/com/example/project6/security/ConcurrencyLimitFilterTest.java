@@ -0,0 +1,128 @@
+package com.example.project6.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitFilterTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // holds its permit until released.
+    private final FilterChain blockingChain = (request, response) -> {
+        entered.countDown();
+        await(release);
+    };
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldRejectARequestThatWaitedTooLongForASlot() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50), meterRegistry);
+        Future<?> inFlight = executor.submit(() -> filter(filter, "/api/task", blockingChain));
+        await(entered);
+        assertThat(meterRegistry.get("http.requests.in.flight").gauge().value()).isEqualTo(1.0);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter(filter, "/api/task", chain);
+
+        // rejected before reaching the database, and told when to retry.
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(response.getContentAsString()).contains("too many concurrent requests");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(meterRegistry.get("http.requests.rejected").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get("http.requests.in.flight").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Test
+    void shouldLetARequestWaitForASlotWithinTheTimeout() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofSeconds(5), meterRegistry);
+        executor.submit(() -> filter(filter, "/api/task", blockingChain));
+        await(entered);
+
+        MockFilterChain chain = new MockFilterChain();
+        Future<MockHttpServletResponse> waiting = executor.submit(() -> filter(filter, "/api/task", chain));
+        release.countDown();
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(meterRegistry.get("http.requests.rejected").counter().count()).isEqualTo(0.0);
+    }
+
+    @Test
+    void shouldReleaseTheSlotOfAFailedRequest() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50), meterRegistry);
+        FilterChain failingChain = (request, response) -> {
+            throw new IllegalStateException("database unavailable");
+        };
+
+        assertThatThrownBy(() -> filter(filter, "/api/task", failingChain)).isInstanceOf(IllegalStateException.class);
+
+        MockFilterChain chain = new MockFilterChain();
+        assertThat(filter(filter, "/api/task", chain).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void shouldNotLimitRequestsOutsideTheApi() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50), meterRegistry);
+        executor.submit(() -> filter(filter, "/api/task", blockingChain));
+        await(entered);
+
+        MockFilterChain chain = new MockFilterChain();
+        assertThat(filter(filter, "/actuator/health", chain).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void shouldNotLimitAnythingWhenDisabled() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(0, Duration.ofMillis(50), meterRegistry);
+        executor.submit(() -> filter(filter, "/api/task", blockingChain));
+        await(entered);
+
+        MockFilterChain chain = new MockFilterChain();
+        assertThat(filter(filter, "/api/task", chain).getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    private static MockHttpServletResponse filter(ConcurrencyLimitFilter filter, String uri, FilterChain chain)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", uri), response, chain);
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("latch wasn't released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
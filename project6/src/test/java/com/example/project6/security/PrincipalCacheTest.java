@@ -0,0 +1,95 @@
+package com.example.project6.security;
+
+import com.example.project6.Enum.Role;
+import com.example.project6.entity.Account;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID accountUuid = UUID.randomUUID();
+    private final AtomicInteger getItems = new AtomicInteger();
+
+    @Test
+    void shouldAuthenticateRepeatedRequestsWithASingleGetItem() {
+        PrincipalCache principalCache = new PrincipalCache(Duration.ofMinutes(1), 100, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(principalCache.getAccount(accountUuid, uuid -> loadAccount(uuid, "name")).getName())
+                    .isEqualTo("name");
+        }
+
+        assertThat(getItems.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.principal.cache.hits").functionCounter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("security.principal.cache.misses").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("security.principal.cache.size").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldLoadAnInvalidatedAccountAgain() {
+        // saving or deleting an account invalidates it, so the next request sees the change.
+        PrincipalCache principalCache = new PrincipalCache(Duration.ofMinutes(1), 100, meterRegistry);
+        principalCache.getAccount(accountUuid, uuid -> loadAccount(uuid, "old name"));
+
+        principalCache.invalidate(accountUuid);
+
+        assertThat(principalCache.getAccount(accountUuid, uuid -> loadAccount(uuid, "new name")).getName())
+                .isEqualTo("new name");
+        assertThat(getItems.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotKeepAnAccountLongerThanTheTtl() throws Exception {
+        // bounds how long a change made through another instance goes unnoticed.
+        PrincipalCache principalCache = new PrincipalCache(Duration.ofMillis(50), 100, meterRegistry);
+        principalCache.getAccount(accountUuid, uuid -> loadAccount(uuid, "old name"));
+
+        Thread.sleep(100);
+
+        assertThat(principalCache.getAccount(accountUuid, uuid -> loadAccount(uuid, "new name")).getName())
+                .isEqualTo("new name");
+        assertThat(getItems.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldLoadEveryAccountWhenDisabled() {
+        PrincipalCache principalCache = new PrincipalCache(Duration.ZERO, 100, meterRegistry);
+
+        principalCache.getAccount(accountUuid, uuid -> loadAccount(uuid, "name"));
+        principalCache.getAccount(accountUuid, uuid -> loadAccount(uuid, "name"));
+
+        assertThat(getItems.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("security.principal.cache.size").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Test
+    void shouldEvictAccountsBeyondTheMaxSize() {
+        PrincipalCache principalCache = new PrincipalCache(Duration.ofMinutes(1), 2, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            principalCache.getAccount(UUID.randomUUID(), uuid -> loadAccount(uuid, "name"));
+        }
+
+        assertThat(meterRegistry.get("security.principal.cache.evictions").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("security.principal.cache.size").gauge().value()).isEqualTo(2.0);
+    }
+
+    private Account loadAccount(UUID uuid, String name) {
+        getItems.incrementAndGet();
+        return Account
+                .builder()
+                .withAccountUuid(uuid)
+                .withName(name)
+                .withEmail("e1@email.com")
+                .withRole(Role.EMPLOYEE)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.project6.security;
+
+import com.example.project6.Util;
+import com.example.project6.dao.InMemoryDynamoDbClient;
+import com.example.project6.dao.RequestCapacity;
+import com.example.project6.dao.TransactionsRepository;
+import com.example.project6.exception.ApiRequestHandler;
+import com.example.project6.exception.CapacityBudgetExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCapacityFilterTest {
+    /*
+     * The budget of "DELETE /api/task/{taskUuid}" is 100 units.
+     * A request that already read 95 units can't write 3 items in a transaction (6 units) without exceeding it.
+     * */
+
+    private static final String BUDGETS = "DELETE /api/task/{taskUuid}=100;PUT /api/task/{taskUuid}=50";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient();
+    private TransactionsRepository transactionsRepository;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient.createTable(new Util().buildCreateTableRequest());
+        transactionsRepository = new TransactionsRepository(dynamoDbClient, meterRegistry, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionsRepository.shutdown();
+    }
+
+    @Test
+    void shouldRejectAWriteThatWouldExceedTheBudgetWith429() {
+        RequestCapacityFilter filter = new RequestCapacityFilter(Duration.ofSeconds(1), BUDGETS, true, meterRegistry);
+
+        assertThatThrownBy(() -> filter(filter, writeAfterReading(95, 3)))
+                .isInstanceOfSatisfying(CapacityBudgetExceededException.class, e -> assertThat(
+                        new ApiRequestHandler().handleCapacityBudgetExceededException(e).getStatusCode().value())
+                        .isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value()));
+
+        // rejected before anything was written.
+        assertThat(dynamoDbClient.scan(ScanRequest.builder().tableName("app").build()).count()).isEqualTo(0);
+        assertThat(overBudgetCount("true")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldOnlyFlagAWriteOverTheBudgetWhenNotRejecting() throws Exception {
+        RequestCapacityFilter filter = new RequestCapacityFilter(Duration.ofSeconds(1), BUDGETS, false, meterRegistry);
+
+        MockHttpServletResponse response = filter(filter, writeAfterReading(95, 3));
+
+        assertThat(response.getHeader(RequestCapacityFilter.CONSUMED_CAPACITY_HEADER)).isEqualTo("95.0");
+        assertThat(dynamoDbClient.scan(ScanRequest.builder().tableName("app").build()).count()).isEqualTo(3);
+        assertThat(overBudgetCount("false")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldLetAWriteWithinTheBudgetThrough() throws Exception {
+        RequestCapacityFilter filter = new RequestCapacityFilter(Duration.ofSeconds(1), BUDGETS, true, meterRegistry);
+
+        MockHttpServletResponse response = filter(filter, writeAfterReading(10, 3));
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getHeader(RequestCapacityFilter.CONSUMED_CAPACITY_HEADER)).isEqualTo("10.0");
+        assertThat(dynamoDbClient.scan(ScanRequest.builder().tableName("app").build()).count()).isEqualTo(3);
+        assertThat(meterRegistry.find("http.requests.capacity.over.budget").counter()).isNull();
+    }
+
+    @Test
+    void shouldCheckTheWholeFanOutUpFront() {
+        // 150 links don't fit in a transaction, the fan-out is rejected before the task is committed.
+        RequestCapacityFilter filter = new RequestCapacityFilter(Duration.ofSeconds(1), BUDGETS, true, meterRegistry);
+
+        FilterChain chain = (request, response) -> {
+            mapTo((MockHttpServletRequest) request, "PUT", "/api/task/{taskUuid}");
+            transactionsRepository.fanOutWrite(
+                    List.of(put("TASK#1", "TASK#1")),
+                    IntStream.range(0, 150).mapToObj(i -> put("TASK#1", "ACCOUNT#" + i)).toList());
+        };
+
+        assertThatThrownBy(() -> filter(filter, chain)).isInstanceOf(CapacityBudgetExceededException.class);
+        assertThat(dynamoDbClient.scan(ScanRequest.builder().tableName("app").build()).count()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldNotCheckEndpointsWithoutABudget() throws Exception {
+        RequestCapacityFilter filter = new RequestCapacityFilter(Duration.ofSeconds(1), BUDGETS, true, meterRegistry);
+
+        FilterChain chain = (request, response) -> {
+            mapTo((MockHttpServletRequest) request, "POST", "/api/task");
+            RequestCapacity.current().record(true, 1000);
+            RequestCapacity.current().checkBudget(1000);
+        };
+
+        assertThat(filter(filter, chain).getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void shouldRejectAnInvalidBudget() {
+        assertThatThrownBy(() -> new RequestCapacityFilter(Duration.ofSeconds(1), "PUT /api/task/{taskUuid}", true, meterRegistry))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private FilterChain writeAfterReading(double readUnits, int writtenItems) {
+        // a task delete that read its links, then writes in a single transaction.
+        return (request, response) -> {
+            mapTo((MockHttpServletRequest) request, "DELETE", "/api/task/{taskUuid}");
+            RequestCapacity.current().record(true, readUnits);
+            transactionsRepository.transactionWrite(TransactWriteItemsRequest
+                    .builder()
+                    .transactItems(IntStream.range(0, writtenItems).mapToObj(i -> put("TASK#" + i, "TASK#" + i)).toList())
+                    .build());
+        };
+    }
+
+    private static void mapTo(MockHttpServletRequest request, String method, String pattern) {
+        // what the handler mapping does once the request reaches the dispatcher servlet.
+        request.setMethod(method);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+    }
+
+    private static TransactWriteItem put(String pk, String sk) {
+        return TransactWriteItem
+                .builder()
+                .put(Put.builder()
+                        .tableName("app")
+                        .item(Map.of("pk", AttributeValue.fromS(pk), "sk", AttributeValue.fromS(sk)))
+                        .build())
+                .build();
+    }
+
+    private double overBudgetCount(String rejected) {
+        return meterRegistry.get("http.requests.capacity.over.budget").tag("rejected", rejected).counter().count();
+    }
+
+    private static MockHttpServletResponse filter(RequestCapacityFilter filter, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/task/" + UUID.randomUUID()), response, chain);
+        return response;
+    }
+}
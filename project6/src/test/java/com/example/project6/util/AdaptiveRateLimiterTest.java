@@ -0,0 +1,104 @@
+package com.example.project6.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveRateLimiterTest {
+
+    @Test
+    void shouldHalveTheRateOncePerBurstOfThrottles() throws InterruptedException {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(10, 100, 10, 0.5);
+        assertThat(limiter.getRate()).isEqualTo(100.0);
+
+        // the throttles of the same burst shrink the rate once.
+        limiter.onThrottle();
+        limiter.onThrottle();
+        limiter.onThrottle();
+        assertThat(limiter.getRate()).isEqualTo(50.0);
+
+        // a throttle after the cooldown shrinks it again.
+        Thread.sleep(250);
+        limiter.onThrottle();
+        assertThat(limiter.getRate()).isEqualTo(25.0);
+    }
+
+    @Test
+    void shouldNotDecreaseTheRateBelowTheMinimum() throws InterruptedException {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(40, 100, 10, 0.5);
+
+        limiter.onThrottle();
+        Thread.sleep(250);
+        limiter.onThrottle();
+
+        assertThat(limiter.getRate()).isEqualTo(40.0);
+    }
+
+    @Test
+    void shouldIncreaseTheRateAdditivelyUpToTheMaximum() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(10, 100, 10, 0.5);
+        limiter.onThrottle();
+
+        // every success adds additiveIncrease / rate: about additiveIncrease per rate successes.
+        limiter.onSuccess();
+        assertThat(limiter.getRate()).isCloseTo(50.2, within(1e-9));
+        for (int i = 0; i < 55; i++) {
+            limiter.onSuccess();
+        }
+        assertThat(limiter.getRate()).isBetween(59.0, 61.0);
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.onSuccess();
+        }
+        assertThat(limiter.getRate()).isEqualTo(100.0);
+    }
+
+    @Test
+    void shouldMakeTheCallersWaitForTheTokensTheyReserved() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(10, 100, 10, 0.5);
+        long maxWaitNanos = TimeUnit.SECONDS.toNanos(1);
+
+        // a full bucket holds one second of tokens.
+        assertThat(limiter.reserve(100, maxWaitNanos)).isEqualTo(0L);
+
+        // the next 10 tokens come in about 100 ms, and the 10 after them 100 ms later.
+        assertThat(limiter.reserve(10, maxWaitNanos))
+                .isBetween(TimeUnit.MILLISECONDS.toNanos(90), TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limiter.reserve(10, maxWaitNanos))
+                .isBetween(TimeUnit.MILLISECONDS.toNanos(190), TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void shouldRejectACallThatWouldWaitTooLongWithoutTakingItsTokens() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(10, 100, 10, 0.5);
+        limiter.reserve(100, 0);
+
+        assertThat(limiter.reserve(50, TimeUnit.MILLISECONDS.toNanos(100))).isEqualTo(-1L);
+        assertThat(limiter.tryAcquire(50, TimeUnit.MILLISECONDS.toNanos(100))).isFalse();
+
+        // the rejected calls didn't take any token: 10 tokens are still about 100 ms away.
+        assertThat(limiter.reserve(10, TimeUnit.SECONDS.toNanos(1)))
+                .isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void shouldNotMakeALargeBatchWaitForMoreThanAFullBucket() {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(10, 100, 10, 0.5);
+
+        assertThat(limiter.reserve(500, 0)).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> new AdaptiveRateLimiter(0, 100, 10, 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveRateLimiter(200, 100, 10, 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveRateLimiter(10, 100, 10, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.project6.util;
+
+import com.example.project6.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaginationTest {
+
+    @Test
+    void shouldDecodeTheEncodedKey() {
+        Map<String, AttributeValue> lastEvaluatedKey = Map.of(
+                "pk", AttributeValue.builder().s("ACCOUNT#1").build(),
+                "sk", AttributeValue.builder().s("TASK#2").build()
+        );
+
+        String nextToken = Pagination.encodeNextToken(lastEvaluatedKey);
+
+        assertThat(Pagination.decodeNextToken(nextToken, "ACCOUNT#1")).isEqualTo(lastEvaluatedKey);
+        // the token of another partition is rejected.
+        assertThatThrownBy(() -> Pagination.decodeNextToken(nextToken, "ACCOUNT#3"))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void shouldNotEncodeAKeyThatIsntAString() {
+        Map<String, AttributeValue> lastEvaluatedKey = Map.of(
+                "pk", AttributeValue.builder().s("ACCOUNT#1").build(),
+                "sk", AttributeValue.builder().b(SdkBytes.fromByteArray(new byte[]{1, 2})).build()
+        );
+
+        assertThatThrownBy(() -> Pagination.encodeNextToken(lastEvaluatedKey))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldNotEncodeTheLastPage() {
+        assertThat(Pagination.encodeNextToken(null)).isNull();
+        assertThat(Pagination.encodeNextToken(Map.of())).isNull();
+    }
+}
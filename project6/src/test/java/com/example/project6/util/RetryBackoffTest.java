@@ -0,0 +1,41 @@
+package com.example.project6.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBackoffTest {
+
+    private final RetryBackoff retryBackoff = new RetryBackoff(25, 1000);
+
+    @Test
+    void shouldDoubleTheCeilingOfTheDelayOnEveryAttempt() {
+        for (int attempt = 0; attempt < 6; attempt++) {
+            long ceiling = 25L << attempt;
+            for (int i = 0; i < 1000; i++) {
+                assertThat(retryBackoff.delayMillis(attempt)).isBetween(0L, ceiling);
+            }
+        }
+    }
+
+    @Test
+    void shouldCapTheDelayAtTheMaxDelay() {
+        for (int i = 0; i < 1000; i++) {
+            assertThat(retryBackoff.delayMillis(6)).isBetween(0L, 1000L);
+            assertThat(retryBackoff.delayMillis(Integer.MAX_VALUE)).isBetween(0L, 1000L);
+        }
+    }
+
+    @Test
+    void shouldJitterTheDelays() {
+        // full jitter: the delays of concurrent retries spread over the whole range.
+        Set<Long> delays = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            delays.add(retryBackoff.delayMillis(5));
+        }
+        assertThat(delays.size()).isGreaterThan(100);
+    }
+}
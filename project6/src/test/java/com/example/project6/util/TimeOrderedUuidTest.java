@@ -0,0 +1,52 @@
+package com.example.project6.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedUuidTest {
+
+    @Test
+    void shouldGenerateUuidsWhoseStringFormSortsInCreationOrder() {
+        // far more than the counter holds in a millisecond, so some borrow the next one.
+        List<String> uuids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            uuids.add(TimeOrderedUuid.generate().toString());
+        }
+
+        assertThat(uuids).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldGenerateVersion7Uuids() {
+        UUID uuid = TimeOrderedUuid.generate();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(TimeOrderedUuid.isTimeOrdered(uuid)).isTrue();
+        assertThat(TimeOrderedUuid.isTimeOrdered(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void shouldReadTheCreationTimeBack() {
+        Instant before = Instant.now();
+        UUID uuid = TimeOrderedUuid.generate();
+        Instant after = Instant.now();
+
+        // may be a millisecond ahead, when the counter of the current one was used up.
+        assertThat(TimeOrderedUuid.timestampOf(uuid))
+                .isBetween(before.minusMillis(1), after.plusMillis(2));
+    }
+
+    @Test
+    void shouldRejectTheCreationTimeOfARandomUuid() {
+        assertThatThrownBy(() -> TimeOrderedUuid.timestampOf(UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.project6.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TtlCacheTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldShareASingleLoadBetweenConcurrentMisses() throws Exception {
+        // the first miss blocks in the loader until the other misses wait for its value.
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> reads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            reads.add(executor.submit(() -> cache.get("key", key -> {
+                loads.incrementAndGet();
+                await(release);
+                return "value";
+            })));
+        }
+        waitUntil(() -> cache.getCoalesced() == 7);
+        release.countDown();
+
+        for (Future<String> read : reads) {
+            assertThat(read.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.get("key", key -> "reloaded")).isEqualTo("value");
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheAValueLoadedWhileItsKeyWasInvalidated() throws Exception {
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> staleRead = executor.submit(() -> cache.get("key", key -> {
+            loading.countDown();
+            await(release);
+            return "stale";
+        }));
+        await(loading);
+        cache.invalidate("key");
+        release.countDown();
+
+        // the read still gets the value it loaded, but the next read loads the key again.
+        assertThat(staleRead.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+        assertThat(cache.getIfPresent("key")).isNull();
+        assertThat(cache.get("key", key -> "fresh")).isEqualTo("fresh");
+        assertThat(cache.getIfPresent("key")).isEqualTo("fresh");
+    }
+
+    @Test
+    void shouldNotJoinALoadStartedBeforeTheInvalidation() throws Exception {
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> staleRead = executor.submit(() -> cache.get("key", key -> {
+            loading.countDown();
+            await(release);
+            return "stale";
+        }));
+        await(loading);
+        cache.invalidate("key");
+
+        // a miss after the invalidation loads the key again, instead of waiting for the stale load.
+        assertThat(cache.get("key", key -> "fresh")).isEqualTo("fresh");
+        assertThat(cache.getCoalesced()).isEqualTo(0);
+
+        release.countDown();
+        assertThat(staleRead.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+        assertThat(cache.getIfPresent("key")).isEqualTo("fresh");
+    }
+
+    @Test
+    void shouldFailTheWaitingMissesWithoutCachingTheFailure() throws Exception {
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> failedLoad = executor.submit(() -> cache.get("key", key -> {
+            await(release);
+            throw new IllegalStateException("database unavailable");
+        }));
+        waitUntil(() -> cache.getMisses() == 1);
+        Future<String> waitingRead = executor.submit(() -> cache.get("key", key -> "unexpected"));
+        waitUntil(() -> cache.getCoalesced() == 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> failedLoad.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> waitingRead.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+        // the next read loads the key again.
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.get("key", key -> "value")).isEqualTo("value");
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCacheMissingValues() {
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+
+        assertThat(cache.get("key", key -> null)).isNull();
+        assertThat(cache.get("key", key -> "value")).isEqualTo("value");
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldLoadAnExpiredValueAgain() throws Exception {
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofMillis(50), 10);
+
+        assertThat(cache.get("key", key -> "first")).isEqualTo("first");
+        assertThat(cache.get("key", key -> "second")).isEqualTo("first");
+
+        // once the ttl has passed, the entry is no longer returned and the next read loads it again.
+        waitUntil(() -> cache.getIfPresent("key") == null);
+        assertThat(cache.get("key", key -> "second")).isEqualTo("second");
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedEntry() {
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofMinutes(1), 2);
+        cache.get("a", key -> "a");
+        cache.get("b", key -> "b");
+
+        // reading "a" makes "b" the least recently used entry.
+        cache.get("a", key -> "unexpected");
+        cache.get("c", key -> "c");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getIfPresent("a")).isEqualTo("a");
+        assertThat(cache.getIfPresent("b")).isNull();
+        assertThat(cache.getIfPresent("c")).isEqualTo("c");
+    }
+
+    @Test
+    void shouldNotCacheAnythingWithAZeroTtl() {
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ZERO, 10);
+
+        assertThat(cache.get("key", key -> "first")).isEqualTo("first");
+        assertThat(cache.get("key", key -> "second")).isEqualTo("second");
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldLoadAnInvalidatedValueAgain() {
+        TtlCache<String, String> cache = new TtlCache<>(Duration.ofMinutes(1), 10);
+        cache.get("a", key -> "a");
+        cache.get("b", key -> "b");
+
+        cache.invalidate("a");
+        assertThat(cache.get("a", key -> "new a")).isEqualTo("new a");
+        assertThat(cache.getIfPresent("b")).isEqualTo("b");
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.get("b", key -> "new b")).isEqualTo("new b");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("latch wasn't released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 5 seconds");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
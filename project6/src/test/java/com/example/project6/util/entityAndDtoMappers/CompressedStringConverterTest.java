@@ -0,0 +1,90 @@
+package com.example.project6.util.entityAndDtoMappers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressedStringConverterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldCountACompressedValueOnce() {
+        CompressedStringConverter converter = new CompressedStringConverter(100, meterRegistry);
+        String description = "prepare the quarterly report ".repeat(20);
+
+        AttributeValue stored = converter.transformFrom(description);
+
+        int saved = description.getBytes(StandardCharsets.UTF_8).length - stored.b().asByteArray().length;
+        assertThat(converter.transformTo(stored)).isEqualTo(description);
+        assertThat(meterRegistry.get("task.description.compressed").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("task.description.bytes.saved").counter().count()).isEqualTo(saved);
+    }
+
+    @Test
+    void shouldCountAnIncompressibleValue() {
+        CompressedStringConverter converter = new CompressedStringConverter(10, meterRegistry);
+
+        assertThat(converter.transformFrom("a1Z9q8X7w6").s()).isEqualTo("a1Z9q8X7w6");
+        assertThat(meterRegistry.get("task.description.incompressible").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("task.description.compressed").counter().count()).isEqualTo(0.0);
+    }
+
+    @Test
+    void shouldOnlyCountTheValuesOfTheMeasuredInstance() {
+        // e.g. TableSchemas.TASK, which the application doesn't write through.
+        new CompressedStringConverter(100, meterRegistry);
+        new CompressedStringConverter(100).transformFrom("prepare the quarterly report ".repeat(20));
+
+        assertThat(meterRegistry.get("task.description.compressed").counter().count()).isEqualTo(0.0);
+        assertThat(meterRegistry.get("task.description.bytes.saved").counter().count()).isEqualTo(0.0);
+    }
+
+    @Test
+    void shouldReadAValueUpToTheItemSizeLimit() {
+        CompressedStringConverter converter = new CompressedStringConverter();
+        byte[] bytes = new byte[CompressedStringConverter.MAX_DECOMPRESSED_BYTES];
+        Arrays.fill(bytes, (byte) 'a');
+
+        assertThat(converter.transformTo(compressed(bytes)).length())
+                .isEqualTo(CompressedStringConverter.MAX_DECOMPRESSED_BYTES);
+    }
+
+    @Test
+    void shouldRejectAValueThatInflatesPastTheItemSizeLimit() {
+        // a few KB that inflate to 10 MB.
+        byte[] bytes = new byte[10 * 1024 * 1024];
+        Arrays.fill(bytes, (byte) 'a');
+
+        assertThatThrownBy(() -> new CompressedStringConverter().transformTo(compressed(bytes)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("inflates past");
+    }
+
+    private static AttributeValue compressed(byte[] bytes) {
+        // the format byte, then the zlib stream, like transformFrom.
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] buffer = new byte[bytes.length / 100 + 1024];
+            buffer[0] = CompressedStringConverter.FORMAT_ZLIB;
+            int length = 1;
+            while (!deflater.finished()) {
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return AttributeValue.builder().b(SdkBytes.fromByteArray(Arrays.copyOf(buffer, length))).build();
+        } finally {
+            deflater.end();
+        }
+    }
+}